@@ -43,6 +43,8 @@ import org.elipcero.carisa.administration.domain.PluginType;
 import org.elipcero.carisa.administration.domain.Space;
 import org.elipcero.carisa.administration.domain.SpaceEnte;
 import org.elipcero.carisa.administration.domain.SpaceQueryInstance;
+import org.elipcero.carisa.administration.repository.DynamicObjectInstancePropertyLayoutRelation;
+import org.elipcero.carisa.administration.repository.DynamicObjectInstancePropertyMapRelation;
 import org.elipcero.carisa.administration.repository.DynamicObjectInstanceRepository;
 import org.elipcero.carisa.administration.repository.DynamicObjectPrototypeRepository;
 import org.elipcero.carisa.administration.repository.EnteCategoryRepository;
@@ -60,14 +62,17 @@ import org.elipcero.carisa.administration.repository.cassandra.InstanceSpaceRepo
 import org.elipcero.carisa.administration.repository.cassandra.PluginRepository;
 import org.elipcero.carisa.administration.repository.cassandra.SpaceEnteRepository;
 import org.elipcero.carisa.administration.repository.cassandra.SpaceQueryInstanceRepository;
+import org.elipcero.carisa.core.reactive.data.CassandraRelationReverseIndex;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelationImpl;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelationImpl;
+import org.elipcero.carisa.core.reactive.data.RelationReverseIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
 import java.util.UUID;
@@ -135,6 +140,21 @@ public class CassandraServiceConfiguration {
     @Autowired
     private DynamicObjectInstancePropertyRepository dynamicObjectInstancePropertyRepository;
 
+    @Autowired
+    private ReactiveCassandraOperations cqlTemplate;
+
+    // Reverse index
+
+    @Bean
+    public RelationReverseIndex spaceEnteReverseIndex() {
+        return new CassandraRelationReverseIndex(cqlTemplate, "carisa_space_ente_reverse");
+    }
+
+    @Bean
+    public RelationReverseIndex enteHierarchyReverseIndex() {
+        return new CassandraRelationReverseIndex(cqlTemplate, "carisa_ente_hierarchy_reverse");
+    }
+
     // Converter
 
     @Bean
@@ -155,7 +175,7 @@ public class CassandraServiceConfiguration {
     public MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation() {
         return new MultiplyDependencyRelationImpl<>(
                 spaceRepository, enteRepository, spaceEnteRepository,
-                new SpaceEnteIdentifierConvert());
+                new SpaceEnteIdentifierConvert(), spaceEnteReverseIndex());
     }
 
     @Bean
@@ -168,21 +188,21 @@ public class CassandraServiceConfiguration {
     public MultiplyDependencyRelation<EnteCategory, EnteCategory, EnteHierarchy> enteCategoryHirarchyRelation() {
         return new MultiplyDependencyRelationImpl<>(
                 enteCategoryRepository, enteCategoryRepository, enteHirarchyRepository,
-                enteHirarchyIdentifierConvert());
+                enteHirarchyIdentifierConvert(), enteHierarchyReverseIndex());
     }
 
     @Bean
     public MultiplyDependencyRelation<Space, EnteCategory, EnteHierarchy> spaceHirarchyRelation() {
         return new MultiplyDependencyRelationImpl<>(
                 spaceRepository, enteCategoryRepository, enteHirarchyRepository,
-                enteHirarchyIdentifierConvert());
+                enteHirarchyIdentifierConvert(), enteHierarchyReverseIndex());
     }
 
     @Bean
     public MultiplyDependencyRelation<EnteCategory, Ente, EnteHierarchy> enteHirarchyRelation() {
         return new MultiplyDependencyRelationImpl<>(
                 enteCategoryRepository, enteRepository, enteHirarchyRepository,
-                enteHirarchyIdentifierConvert());
+                enteHirarchyIdentifierConvert(), enteHierarchyReverseIndex());
     }
 
     @Bean
@@ -222,8 +242,12 @@ public class CassandraServiceConfiguration {
 
     @Bean
     public EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> instanceProperty() {
-        return new EmbeddedDependencyRelationImpl<>(
-                dynamicObjectInstanceRepository, dynamicObjectInstancePropertyRepository,
-                new InstancePropertyIdentifierConvert());
+        return new DynamicObjectInstancePropertyLayoutRelation(
+                new EmbeddedDependencyRelationImpl<>(
+                        dynamicObjectInstanceRepository, dynamicObjectInstancePropertyRepository,
+                        new InstancePropertyIdentifierConvert()),
+                new DynamicObjectInstancePropertyMapRelation(dynamicObjectInstanceRepository, cqlTemplate),
+                dynamicObjectInstanceRepository,
+                dynamicObjectPrototypeRepository);
     }
 }
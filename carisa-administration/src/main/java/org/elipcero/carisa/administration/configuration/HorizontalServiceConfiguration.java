@@ -16,6 +16,7 @@
 
 package org.elipcero.carisa.administration.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.elipcero.carisa.administration.domain.DynamicObjectInstance;
 import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
 import org.elipcero.carisa.administration.domain.DynamicObjectPrototype;
@@ -33,32 +34,52 @@ import org.elipcero.carisa.administration.domain.PluginType;
 import org.elipcero.carisa.administration.domain.Space;
 import org.elipcero.carisa.administration.domain.SpaceEnte;
 import org.elipcero.carisa.administration.domain.SpaceQueryInstance;
+import org.elipcero.carisa.administration.repository.DeployIntentRepository;
+import org.elipcero.carisa.administration.repository.DeployJobRepository;
 import org.elipcero.carisa.administration.repository.DynamicObjectInstanceRepository;
 import org.elipcero.carisa.administration.repository.DynamicObjectPrototypeRepository;
 import org.elipcero.carisa.administration.repository.EnteCategoryRepository;
 import org.elipcero.carisa.administration.repository.EnteRepository;
 import org.elipcero.carisa.administration.repository.InstanceRepository;
 import org.elipcero.carisa.administration.repository.SpaceRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EnteCategoryPropertyRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHierarchyClosureRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHirarchyRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EntePropertyRepository;
 import org.elipcero.carisa.administration.service.DefaultDynamicObjectInstancePropertyService;
 import org.elipcero.carisa.administration.service.DefaultDynamicObjectPrototypePropertyService;
 import org.elipcero.carisa.administration.service.DefaultEnteCategoryPropertyService;
 import org.elipcero.carisa.administration.service.DefaultEnteCategoryService;
+import org.elipcero.carisa.administration.service.DefaultEnteHierarchyClosureService;
+import org.elipcero.carisa.administration.service.DefaultEnteHierarchyGraphService;
 import org.elipcero.carisa.administration.service.DefaultEntePropertyService;
 import org.elipcero.carisa.administration.service.DefaultEnteService;
+import org.elipcero.carisa.administration.service.DefaultHierarchyVersionService;
 import org.elipcero.carisa.administration.service.DefaultInstanceService;
+import org.elipcero.carisa.administration.service.DefaultNameSearchService;
+import org.elipcero.carisa.administration.service.DefaultQueryInstanceExecutionService;
 import org.elipcero.carisa.administration.service.DefaultSpaceService;
 import org.elipcero.carisa.administration.service.DynamicObjectInstancePropertyService;
 import org.elipcero.carisa.administration.service.DynamicObjectPrototypePropertyService;
 import org.elipcero.carisa.administration.service.DynamicQueryInstanceService;
 import org.elipcero.carisa.administration.service.EnteCategoryPropertyService;
 import org.elipcero.carisa.administration.service.EnteCategoryService;
+import org.elipcero.carisa.administration.service.EnteHierarchyClosureService;
+import org.elipcero.carisa.administration.service.EnteHierarchyGraphService;
 import org.elipcero.carisa.administration.service.EntePropertyService;
 import org.elipcero.carisa.administration.service.EnteService;
+import org.elipcero.carisa.administration.service.HierarchyVersionService;
 import org.elipcero.carisa.administration.service.InstanceService;
+import org.elipcero.carisa.administration.service.NameSearchService;
 import org.elipcero.carisa.administration.service.PluginDynamicPrototypeService;
+import org.elipcero.carisa.administration.service.QueryInstanceExecutionService;
 import org.elipcero.carisa.administration.service.SpaceService;
+import org.elipcero.carisa.administration.service.support.DeployReconciler;
 import org.elipcero.carisa.administration.service.support.DynamicObjectInstanceService;
 import org.elipcero.carisa.administration.service.support.DynamicObjectPrototypeService;
+import org.elipcero.carisa.administration.service.support.InstanceEventBus;
+import org.elipcero.carisa.administration.service.support.SkipperClient;
+import org.elipcero.carisa.administration.service.support.SpaceHierarchyLock;
 import org.elipcero.carisa.core.application.configuration.ServiceProperties;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
@@ -129,15 +150,40 @@ public class HorizontalServiceConfiguration {
     @Autowired
     private DynamicObjectInstanceRepository dynamicObjectInstanceRepository;
 
+    // Skipper configuration
+
+    @Autowired
+    private MeterRegistry meterRegistry; // Auto-configured by actuator, the metrics are exposed on /actuator/metrics
+
+    @Bean
+    public SkipperClient skipperClient() {
+        return new SkipperClient(serviceProperties.getSkipper(), meterRegistry);
+    }
+
     // Instance configuration
 
     @Autowired
     private InstanceRepository instanceRepository;
 
+    @Autowired
+    private DeployJobRepository deployJobRepository;
+
+    @Autowired
+    private DeployIntentRepository deployIntentRepository;
+
+    @Autowired
+    private InstanceEventBus instanceEventBus;
+
     @Bean
     public InstanceService instanceService() {
         return new DefaultInstanceService(
-                instanceRepository, serviceProperties, dataLockController, instanceSpaceRelation);
+                instanceRepository, serviceProperties, dataLockController, instanceSpaceRelation,
+                deployJobRepository, skipperClient(), deployIntentRepository, instanceEventBus);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public DeployReconciler deployReconciler() {
+        return new DeployReconciler(dataLockController, serviceProperties.getDeploy(), instanceService());
     }
 
     // Space configuration
@@ -152,6 +198,48 @@ public class HorizontalServiceConfiguration {
                 instanceSpaceRelation, spaceQueryRelation);
     }
 
+    // Ente hierarchy closure configuration
+
+    @Autowired
+    private EnteHierarchyClosureRepository enteHierarchyClosureRepository;
+
+    @Bean
+    public EnteHierarchyClosureService enteHierarchyClosureService() {
+        return new DefaultEnteHierarchyClosureService(
+                enteHierarchyClosureRepository, enteHirarchyRepository, spaceHierarchyLock());
+    }
+
+    @Bean
+    public SpaceHierarchyLock spaceHierarchyLock() {
+        return new SpaceHierarchyLock(dataLockController);
+    }
+
+    // Ente hierarchy version configuration
+
+    @Bean
+    public HierarchyVersionService hierarchyVersionService() {
+        return new DefaultHierarchyVersionService();
+    }
+
+    // Ente hierarchy graph configuration
+
+    @Autowired
+    private EnteHirarchyRepository enteHirarchyRepository;
+
+    @Bean
+    public EnteHierarchyGraphService enteHierarchyGraphService() {
+        return new DefaultEnteHierarchyGraphService(
+                enteHirarchyRepository, enteHierarchyClosureService(), hierarchyVersionService());
+    }
+
+    // Name search configuration
+
+    @Bean
+    public NameSearchService nameSearchService() {
+        return new DefaultNameSearchService(
+                spaceEnteRelation, spaceQueryRelation, enteHirarchyRepository, enteCategoryRepository);
+    }
+
     // Ente configuration
 
     @Autowired
@@ -160,14 +248,17 @@ public class HorizontalServiceConfiguration {
     @Bean
     public EnteService enteService() {
         return new DefaultEnteService(
-                enteRepository, enteHierarchyRelation, entePropertyRelation, spaceEnteRelation);
+                enteRepository, enteHierarchyRelation, entePropertyRelation, spaceEnteRelation,
+                enteHierarchyClosureService(), enteHierarchyGraphService(), hierarchyVersionService(),
+                nameSearchService(), spaceHierarchyLock());
     }
 
     // Ente property configuration
 
     @Bean
     public EntePropertyService entePropertyService() {
-        return new DefaultEntePropertyService(entePropertyRelation);
+        return new DefaultEntePropertyService(
+                entePropertyRelation, enteHierarchyGraphService(), hierarchyVersionService());
     }
 
     // Ente category configuration
@@ -179,15 +270,20 @@ public class HorizontalServiceConfiguration {
     public EnteCategoryService enteCategoryService() {
         return new DefaultEnteCategoryService(
                 enteCategoryRepository, enteCategoryHirarchyRelation,
-                spaceHirarchyRelation, enteRepository);
+                spaceHirarchyRelation, enteRepository, enteHierarchyClosureService(), enteHierarchyGraphService(),
+                nameSearchService(), spaceHierarchyLock());
     }
 
     // Ente Category property configuration
 
+    @Autowired
+    private EnteCategoryPropertyRepository enteCategoryPropertyRepository;
+
     @Bean
     public EnteCategoryPropertyService enteCategoryPropertyService() {
         return new DefaultEnteCategoryPropertyService(
-                enteCategoryPropertyRelation, linkEnteRelation, enteHierarchyRelation, entePropertyRelation);
+                enteCategoryPropertyRelation, linkEnteRelation, entePropertyRelation,
+                enteHierarchyGraphService(), hierarchyVersionService(), enteCategoryPropertyRepository);
     }
 
     // Plugin prototype configuration
@@ -203,7 +299,8 @@ public class HorizontalServiceConfiguration {
     @Bean
     public DynamicObjectInstanceService<SpaceQueryInstance> dynamicObjectInstanceService() {
         return new DynamicQueryInstanceService(
-                dynamicObjectInstanceRepository, spaceQueryRelation, dynamicObjectPrototypeRepository, instancePropertyRelation);
+                dynamicObjectInstanceRepository, spaceQueryRelation, dynamicObjectPrototypeRepository, instancePropertyRelation,
+                nameSearchService());
     }
 
     // Query prototype property configuration
@@ -219,4 +316,16 @@ public class HorizontalServiceConfiguration {
     public DynamicObjectInstancePropertyService dynamicObjectInstancePropertyService() {
         return new DefaultDynamicObjectInstancePropertyService(instancePropertyRelation);
     }
+
+    // Query instance execution configuration
+
+    @Autowired
+    private EntePropertyRepository entePropertyRepository;
+
+    @Bean
+    public QueryInstanceExecutionService queryInstanceExecutionService() {
+        return new DefaultQueryInstanceExecutionService(
+                dynamicObjectInstanceRepository, instancePropertyRelation, enteCategoryService(),
+                enteRepository, entePropertyRepository, enteHierarchyGraphService(), hierarchyVersionService());
+    }
 }
@@ -16,6 +16,8 @@
 
 package org.elipcero.carisa.administration.configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.elipcero.carisa.administration.convert.type.ValueConverterFactory;
 import org.elipcero.carisa.administration.convert.web.WebBooleanValueConverter;
@@ -24,6 +26,7 @@ import org.elipcero.carisa.administration.convert.web.WebIntegerValueConverter;
 import org.elipcero.carisa.administration.convert.web.WebStringValueConverter;
 import org.elipcero.carisa.administration.convert.web.WebValueConverter;
 import org.elipcero.carisa.administration.domain.DynamicObjectPrototypeProperty;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.web.ResourceProperties;
@@ -34,11 +37,21 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
 import org.springframework.web.reactive.result.view.ViewResolver;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -81,6 +94,53 @@ public class WebConfiguration {
         }});
     }
 
+    /**
+     * Register the Smile codecs. The object mapper is configured like HAL json mapper
+     * so the binary message has the same structure (_links, _embedded...).
+     * The method is static because the codecs are requested when the ServerCodecConfigurer is built
+     * and this configuration depends on it.
+     */
+    @Bean
+    static WebFluxConfigurer smileCodecConfigurer(
+            Jackson2ObjectMapperBuilder objectMapperBuilder, List<HypermediaMappingInformation> hypermediaMappings) {
+
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+
+        hypermediaMappings.stream()
+                .filter(mapping -> mapping.getMediaTypes().contains(MediaTypes.HAL_JSON))
+                .findFirst()
+                .ifPresent(mapping -> mapping.configureObjectMapper(smileMapper));
+
+        log.info("Smile codecs have been configured to media type: " + CarisaMediaTypes.SMILE_VALUE);
+
+        return new WebFluxConfigurer() {
+            @Override
+            public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+                configurer.customCodecs().encoder(new Jackson2SmileEncoder(smileMapper, CarisaMediaTypes.SMILE));
+                configurer.customCodecs().decoder(new Jackson2SmileDecoder(smileMapper, CarisaMediaTypes.SMILE));
+            }
+        };
+    }
+
+    /**
+     * Register the json encoder for streams (NDJSON and stream+json). Each element is written
+     * and flushed as one line so the client can process the elements when they arrive.
+     * The object mapper of the context is used so the elements are written like the json responses.
+     */
+    @Bean
+    static WebFluxConfigurer streamCodecConfigurer(ObjectMapper objectMapper) {
+        Jackson2JsonEncoder streamEncoder = new Jackson2JsonEncoder(
+                objectMapper, CarisaMediaTypes.NDJSON, MediaType.APPLICATION_STREAM_JSON);
+        streamEncoder.setStreamingMediaTypes(Arrays.asList(CarisaMediaTypes.NDJSON, MediaType.APPLICATION_STREAM_JSON));
+
+        return new WebFluxConfigurer() {
+            @Override
+            public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+                configurer.customCodecs().encoder(streamEncoder);
+            }
+        };
+    }
+
     @Bean
     @Order(-2)
     public ErrorWebExceptionHandler errorWebExceptionHandler() {
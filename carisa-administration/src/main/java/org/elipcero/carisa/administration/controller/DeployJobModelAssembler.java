@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.controller;
+
+import org.elipcero.carisa.administration.domain.DeployJob;
+import org.elipcero.carisa.core.hateoas.BasicReactiveRepresentationModelAssembler;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.reactive.WebFluxLinkBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.methodOn;
+
+/**
+ * Resources assembler for deploy job
+ *
+ * @author David Suárez
+ */
+@Component
+public class DeployJobModelAssembler implements BasicReactiveRepresentationModelAssembler<DeployJob> {
+
+    public static final String DEPLOY_JOB_REL_NAME = "deployjob";
+
+    @Override
+    public Flux<Link> addLinks(DeployJob job, ServerWebExchange exchange) {
+
+        WebFluxLinkBuilder.WebFluxLink instance = linkTo(
+                methodOn(InstanceController.class).getById(job.getInstanceId().toString()))
+                .withRel(InstanceModelAssembler.INSTANCE_REL_NAME);
+
+        if (job.getId() == null) { // The skipped job is not recorded (@see DeployJob.skipped)
+            return instance.toMono().flux();
+        }
+
+        WebFluxLinkBuilder.WebFluxLink self = linkTo(
+                methodOn(InstanceController.class)
+                        .getDeployJob(job.getInstanceId().toString(), job.getId().toString()))
+                .withSelfRel();
+
+        return Flux.concat(self.toMono(), instance.toMono());
+    }
+}
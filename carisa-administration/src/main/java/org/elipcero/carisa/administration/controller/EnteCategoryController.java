@@ -17,7 +17,11 @@
 package org.elipcero.carisa.administration.controller;
 
 import org.elipcero.carisa.administration.domain.EnteCategory;
+import org.elipcero.carisa.administration.exception.HierarchyCycleException;
+import org.elipcero.carisa.administration.exception.HierarchyLockedException;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.projection.EnteHierarchyNode;
 import org.elipcero.carisa.administration.service.EnteCategoryPropertyService;
 import org.elipcero.carisa.administration.service.EnteCategoryService;
 import org.elipcero.carisa.core.data.ChildName;
@@ -27,6 +31,8 @@ import org.reactivestreams.Publisher;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.server.reactive.WebFluxLinkBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -35,7 +41,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -54,6 +62,9 @@ import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.met
 @RequestMapping("/api/entecategories")
 public class EnteCategoryController implements ChildControllerHypermedia<EnteCategory> {
 
+    public static final int DEFAULT_TREE_DEPTH = 10;
+    public static final int MAX_TREE_DEPTH = 100;
+
     private final CrudHypermediaController<EnteCategory> crudHypermediaController;
     private final EnteCategoryService enteCategoryService;
     private final EnteCategoryPropertyService enteCategoryPropertyService;
@@ -130,7 +141,12 @@ public class EnteCategoryController implements ChildControllerHypermedia<EnteCat
 
         return this.crudHypermediaController
                 .connectToParent(this.enteCategoryService
-                        .connectToParent(UUID.fromString(childId), UUID.fromString(parentId)));
+                        .connectToParent(UUID.fromString(childId), UUID.fromString(parentId)),
+                        e -> {
+                            if (e instanceof HierarchyCycleException || e instanceof HierarchyLockedException) {
+                                throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+                            }
+                        });
     }
 
     /**
@@ -172,6 +188,31 @@ public class EnteCategoryController implements ChildControllerHypermedia<EnteCat
                                 .flatMap(link -> Mono.just(new CollectionModel<>(entities, link))));
     }
 
+    /**
+     * Get the subtree of the ente category (Ente category or Ente) breadth-first. The nodes are streamed
+     * as newline delimited json when they are found.
+     * @param id the ente category identifier (root)
+     * @param depth the maximum depth (1 -> direct children)
+     * @return the nodes with their depth and parent
+     */
+    @GetMapping(value = "/{id}/tree",
+            produces = { CarisaMediaTypes.NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE })
+    public Flux<EnteHierarchyNode> getTree(
+            final @PathVariable("id") String id,
+            final @RequestParam(value = "depth", defaultValue = "" + DEFAULT_TREE_DEPTH) int depth) {
+
+        if (depth < 1 || depth > MAX_TREE_DEPTH) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("The depth must be between 1 and %d", MAX_TREE_DEPTH)));
+        }
+
+        UUID rootId = UUID.fromString(id);
+        return this.enteCategoryService.getById(rootId)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        String.format("The ente category with ID: '%s' not found", id))))
+                .flatMapMany(root -> this.enteCategoryService.getTree(rootId, depth));
+    }
+
     /**
      * Get category properties by enteCategoryId
      * @param enteCategoryId the ente category identifier (UUID string)
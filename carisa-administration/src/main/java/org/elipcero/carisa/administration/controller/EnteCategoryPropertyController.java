@@ -19,7 +19,9 @@ package org.elipcero.carisa.administration.controller;
 import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
 import org.elipcero.carisa.administration.domain.EnteProperty;
 import org.elipcero.carisa.administration.exception.NotMatchingTypeException;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.projection.EnteHierachyName;
 import org.elipcero.carisa.administration.service.EnteCategoryPropertyService;
 import org.elipcero.carisa.core.data.ChildName;
 import org.elipcero.carisa.core.reactive.web.BiKeyChildControllerHypermedia;
@@ -29,6 +31,7 @@ import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.server.reactive.WebFluxLinkBuilder;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -98,7 +101,7 @@ public class EnteCategoryPropertyController implements BiKeyChildControllerHyper
 
         return this.crudHypermediaController.get(
                 this.enteCategoryPropertyService
-                        .getById(EnteCategoryProperty.GetMapId(
+                        .getById(EnteCategoryProperty.GetKey(
                                 UUID.fromString(enteCategoryId), UUID.fromString(propertyId))));
     }
 
@@ -177,6 +180,22 @@ public class EnteCategoryPropertyController implements BiKeyChildControllerHyper
                                 .flatMap(link -> Mono.just(new CollectionModel<>(entities, link))));
     }
 
+    /**
+     * Get the leaves (Ente property) reached from the category property following the links
+     * transitively. The leaves are streamed as newline delimited json when they are found.
+     * @param enteCategoryId the Ente category identifier
+     * @param propertyId the ente category property identifier
+     * @return the leaf Ente properties without duplicates
+     */
+    @GetMapping(value = "/entecategories/{enteCategoryId}/properties/{propertyId}/leaves",
+            produces = { CarisaMediaTypes.NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE })
+    public Flux<EnteHierachyName> getLeaves(
+            final @PathVariable("enteCategoryId") String enteCategoryId,
+            final @PathVariable("propertyId") String propertyId) {
+
+        return this.enteCategoryPropertyService.getLeaves(UUID.fromString(propertyId));
+    }
+
     /**
      * Connect the Ente to Ente category property as inheritance.
      * @param enteCategoryId the Ente category identifier
@@ -135,4 +135,36 @@ public class EnteController implements ChildControllerHypermedia<Ente> {
                 EnteController.class, EnteModelAssembler.ENTE_REL_NAME,
                 EntePropertyController.class, EntePropertyModelAssembler.PROPERTY_REL_NAME);
     }
+
+    /**
+     * Get the spaces containing the ente
+     * @param id the ente identifier (UUID string)
+     * @return the space collections with links
+     */
+    @GetMapping("/{id}/spaces")
+    public Publisher<CollectionModel<EntityModel<ChildName>>> getSpaces(
+            final @PathVariable("id") String id) {
+
+        return this.crudHypermediaController.childrenByParent(
+                id,
+                this.enteService.getSpacesByEnte(UUID.fromString(id)),
+                EnteController.class, EnteModelAssembler.ENTE_REL_NAME,
+                SpaceController.class, SpaceModelAssembler.SPACE_REL_NAME);
+    }
+
+    /**
+     * Get the ente categories holding the ente
+     * @param id the ente identifier (UUID string)
+     * @return the ente category collections with links
+     */
+    @GetMapping("/{id}/entecategories")
+    public Publisher<CollectionModel<EntityModel<ChildName>>> getEnteCategories(
+            final @PathVariable("id") String id) {
+
+        return this.crudHypermediaController.childrenByParent(
+                id,
+                this.enteService.getCategoriesByEnte(UUID.fromString(id)),
+                EnteController.class, EnteModelAssembler.ENTE_REL_NAME,
+                EnteCategoryController.class, EnteCategoryModelAssembler.CATEGORY_REL_NAME);
+    }
 }
@@ -87,7 +87,7 @@ public class EntePropertyController implements BiKeyChildControllerHypermedia<En
 
         return this.crudHypermediaController.get(
                 this.entePropertyService
-                        .getById(EnteProperty.GetMapId(UUID.fromString(enteId), UUID.fromString(propertyId))));
+                        .getById(EnteProperty.GetKey(UUID.fromString(enteId), UUID.fromString(propertyId))));
     }
 
     /**
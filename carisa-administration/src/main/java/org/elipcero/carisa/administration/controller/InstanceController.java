@@ -16,16 +16,27 @@
 
 package org.elipcero.carisa.administration.controller;
 
+import org.elipcero.carisa.administration.domain.DeployJob;
 import org.elipcero.carisa.administration.domain.Instance;
+import org.elipcero.carisa.administration.exception.DeployQueueFullException;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.projection.BulkDeployProgress;
+import org.elipcero.carisa.administration.projection.BulkDeployRequest;
+import org.elipcero.carisa.administration.projection.InstanceStateEvent;
 import org.elipcero.carisa.administration.service.InstanceService;
+import org.elipcero.carisa.administration.service.support.InstanceEventBus;
 import org.elipcero.carisa.core.data.ChildName;
 import org.elipcero.carisa.core.reactive.web.ChildControllerHypermedia;
 import org.elipcero.carisa.core.reactive.web.CrudHypermediaController;
 import org.reactivestreams.Publisher;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -33,8 +44,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.UUID;
 
 import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.linkTo;
@@ -50,15 +66,25 @@ import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.met
 @RequestMapping("/api/instances")
 public class InstanceController implements ChildControllerHypermedia<Instance> {
 
+    public static final String STATE_EVENT_NAME = "state";
+    public static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
     private final InstanceService instanceService;
     private final InstanceModelAssembler instanceModelAssembler;
+    private final DeployJobModelAssembler deployJobModelAssembler;
+    private final InstanceEventBus instanceEventBus;
     private final CrudHypermediaController<Instance> crudHypermediaController;
 
-    public InstanceController(InstanceService instanceService, InstanceModelAssembler instanceModelAssembler) {
+    public InstanceController(InstanceService instanceService, InstanceModelAssembler instanceModelAssembler,
+                              DeployJobModelAssembler deployJobModelAssembler, InstanceEventBus instanceEventBus) {
         Assert.notNull(instanceService, "The instanceService can not be null");
         Assert.notNull(instanceModelAssembler, "The instanceModelAssembler can not be null");
+        Assert.notNull(deployJobModelAssembler, "The deployJobModelAssembler can not be null");
+        Assert.notNull(instanceEventBus, "The instanceEventBus can not be null");
         this.instanceService = instanceService;
         this.instanceModelAssembler = instanceModelAssembler;
+        this.deployJobModelAssembler = deployJobModelAssembler;
+        this.instanceEventBus = instanceEventBus;
         this.crudHypermediaController = new CrudHypermediaController<>(instanceModelAssembler);
     }
 
@@ -124,12 +150,99 @@ public class InstanceController implements ChildControllerHypermedia<Instance> {
     }
 
     /**
-     * Deploy de instance into the platform
-     * @return the instance. instance.state report of the state of the instance
+     * Enqueue the deploy of the instance into the platform. The deploy is executed asynchronously,
+     * so the job is returned at once (accepted) with the link to its state. If the instance is deployed
+     * with the same specification, the succeeded job is returned (ok) without link because it is not recorded
+     * @param id the instance identifier (UUID string)
+     * @param force deploy although the instance is deployed with the same specification (default false)
+     * @return the deploy job. job.state report of the state of the deploy
      */
     @PutMapping("/{id}/deploy")
-    public Publisher<EntityModel<Instance>> deploy(@PathVariable("id") String id) {
-        return this.instanceService.deploy(UUID.fromString(id))
-                .flatMap(instance -> this.instanceModelAssembler.toModel(instance, null));
+    public Publisher<ResponseEntity<EntityModel<DeployJob>>> deploy(
+            final @PathVariable("id") String id, final @RequestParam(value = "force", required = false) Boolean force) {
+
+        return this.instanceService.deploy(UUID.fromString(id), Boolean.TRUE.equals(force))
+                .flatMap(job -> this.deployJobModelAssembler.toModel(job, null))
+                .map(job -> job.getContent().getId() == null ?
+                        ResponseEntity.ok(job) :
+                        ResponseEntity
+                            .accepted()
+                            .location(job.getLink(IanaLinkRelations.SELF).get().toUri())
+                            .body(job))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        String.format("The instance with ID: '%s' not found", id))))
+                .onErrorMap(DeployQueueFullException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    /**
+     * Deploy several instances selected by identifiers or by states. The progress by instance
+     * is streamed as newline delimited json when the job of each instance finishes.
+     * The deploy stops when the failed instances reach the error threshold (aborted)
+     * @param request the instances selector, the concurrency and the error threshold
+     * @return the progress by instance
+     */
+    @PostMapping(value = "/_deploy",
+            produces = { CarisaMediaTypes.NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE })
+    public Flux<BulkDeployProgress> deployAll(final @RequestBody BulkDeployRequest request) {
+        boolean withoutIds = request.getIds() == null || request.getIds().isEmpty();
+        boolean withoutStates = request.getStates() == null || request.getStates().isEmpty();
+        if ((withoutIds && withoutStates) ||
+                (request.getConcurrency() != null && request.getConcurrency() < 1) ||
+                (request.getErrorThreshold() != null && request.getErrorThreshold() < 1)) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The ids or the states must be informed. The concurrency and the error threshold " +
+                            "must be greater than zero"));
+        }
+
+        return this.instanceService.deployAll(request);
+    }
+
+    /**
+     * Get the deploy job of the instance
+     * @param id the instance identifier (UUID string)
+     * @param jobId the job identifier (UUID string)
+     * @return the deploy job
+     */
+    @GetMapping("/{id}/deployjobs/{jobId}")
+    public Publisher<EntityModel<DeployJob>> getDeployJob(
+            final @PathVariable("id") String id, final @PathVariable("jobId") String jobId) {
+
+        return this.instanceService.getDeployJob(UUID.fromString(id), UUID.fromString(jobId))
+                .flatMap(job -> this.deployJobModelAssembler.toModel(job, null));
+    }
+
+    /**
+     * Stream the state transitions of all the instances as server sent events.
+     * The transitions are pushed when they happen, a comment is sent periodically
+     * to keep alive the connection
+     * @return the transitions (event: state)
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<InstanceStateEvent>> getEvents() {
+        return this.toServerSentEvents(this.instanceEventBus.events());
+    }
+
+    /**
+     * Stream the state transitions of the instance as server sent events
+     * @param id the instance identifier (UUID string)
+     * @return the transitions (event: state)
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<InstanceStateEvent>> getEventsById(final @PathVariable("id") String id) {
+        return this.toServerSentEvents(this.instanceEventBus.events(UUID.fromString(id)));
+    }
+
+    private Flux<ServerSentEvent<InstanceStateEvent>> toServerSentEvents(final Flux<InstanceStateEvent> events) {
+        // The first heartbeat is sent at once so that the headers are committed to the client
+        Flux<ServerSentEvent<InstanceStateEvent>> heartbeat = Flux.interval(Duration.ZERO, HEARTBEAT_INTERVAL)
+                .map(__ -> ServerSentEvent.<InstanceStateEvent>builder().comment("heartbeat").build());
+
+        return Flux.merge(
+                heartbeat,
+                events.map(event -> ServerSentEvent.<InstanceStateEvent>builder()
+                        .event(STATE_EVENT_NAME)
+                        .data(event)
+                        .build()));
     }
 }
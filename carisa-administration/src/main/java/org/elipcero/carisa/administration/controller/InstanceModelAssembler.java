@@ -48,7 +48,7 @@ public class InstanceModelAssembler implements BasicReactiveRepresentationModelA
                         .updateOrCreate(instance.getId().toString(), instance));
 
         WebFluxLinkBuilder.WebFluxLink deploy = linkTo(
-                methodOn(InstanceController.class).deploy(instance.getId().toString()))
+                methodOn(InstanceController.class).deploy(instance.getId().toString(), null))
                 .withRel("deploy");
 
         WebFluxLinkBuilder.WebFluxLink instanceSpace = linkTo(
@@ -20,15 +20,24 @@ import lombok.NonNull;
 import org.elipcero.carisa.administration.controller.support.DynamicObjectInstanceController;
 import org.elipcero.carisa.administration.domain.DynamicObjectInstance;
 import org.elipcero.carisa.administration.domain.SpaceQueryInstance;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
+import org.elipcero.carisa.administration.projection.QueryResultRow;
+import org.elipcero.carisa.administration.service.QueryInstanceExecutionService;
 import org.elipcero.carisa.administration.service.support.DynamicObjectInstanceService;
 import org.elipcero.carisa.core.data.ChildName;
 import org.reactivestreams.Publisher;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
@@ -42,11 +51,15 @@ import java.util.UUID;
 @RequestMapping("/api/queryinstances")
 public class QueryInstanceController extends DynamicObjectInstanceController<SpaceQueryInstance> {
 
+    private final QueryInstanceExecutionService queryInstanceExecutionService;
+
     public QueryInstanceController(
        @NonNull final DynamicObjectInstanceService<SpaceQueryInstance> dynamicObjectService,
-       @NonNull final QueryInstanceModelAssembler queryInstanceModelAssembler) {
+       @NonNull final QueryInstanceModelAssembler queryInstanceModelAssembler,
+       @NonNull final QueryInstanceExecutionService queryInstanceExecutionService) {
 
         super(queryInstanceModelAssembler, dynamicObjectService);
+        this.queryInstanceExecutionService = queryInstanceExecutionService;
     }
 
     /**
@@ -71,4 +84,19 @@ public class QueryInstanceController extends DynamicObjectInstanceController<Spa
                 QueryInstanceController.class, QueryInstanceModelAssembler.QUERY_INSTANCE_REL_NAME,
                 QueryInstancePropertyController.class, QueryInstancePropertyModelAssembler.QUERY_INSTANCE_PROP_REL_NAME);
     }
+
+    /**
+     * Execute the query instance. The rows are streamed as newline delimited json
+     * @param id the instance identifier (UUID string)
+     * @return the rows (One for each bound ente)
+     */
+    @PostMapping(value = "/{id}/execute",
+            produces = { CarisaMediaTypes.NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE })
+    public Flux<QueryResultRow> execute(final @PathVariable("id") String id) {
+
+        return this.queryInstanceExecutionService.compile(UUID.fromString(id))
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        String.format("The query instance with ID: '%s' not found", id))))
+                .flatMapMany(this.queryInstanceExecutionService::execute);
+    }
 }
@@ -22,6 +22,7 @@ import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
 import org.elipcero.carisa.administration.projection.RawDynamicObjectInstanceProperty;
 import org.elipcero.carisa.administration.service.DynamicObjectInstancePropertyService;
 import org.reactivestreams.Publisher;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -32,6 +33,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
  * Query instance properties controller.
  * @see DynamicObjectInstanceProperty
@@ -93,4 +96,16 @@ public class QueryInstancePropertyController extends DynamicObjectInstanceProper
 
         return super.updateOrCreate(instanceId, propertyId, property);
     }
+
+    /**
+     * @see QueryInstancePropertyController
+     */
+    @Override
+    @PutMapping("/queryinstances/{instanceId}/properties")
+    public Publisher<ResponseEntity<CollectionModel<EntityModel<RawDynamicObjectInstanceProperty<?>>>>> updateOrCreateAll(
+            final @PathVariable("instanceId") String instanceId,
+            final @RequestBody List<DynamicObjectInstanceProperty<?>> properties) {
+
+        return super.updateOrCreateAll(instanceId, properties);
+    }
 }
@@ -18,6 +18,9 @@ package org.elipcero.carisa.administration.controller;
 
 import org.elipcero.carisa.administration.domain.Space;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.projection.NameSearchResult;
+import org.elipcero.carisa.administration.service.EnteHierarchyClosureService;
+import org.elipcero.carisa.administration.service.NameSearchService;
 import org.elipcero.carisa.administration.service.SpaceService;
 import org.elipcero.carisa.core.data.ChildName;
 import org.elipcero.carisa.core.data.ParentChildName;
@@ -26,6 +29,8 @@ import org.elipcero.carisa.core.reactive.web.CrudHypermediaController;
 import org.reactivestreams.Publisher;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.server.reactive.WebFluxLinkBuilder;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -34,8 +39,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
@@ -52,15 +60,26 @@ import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.met
 @RequestMapping("/api/spaces")
 public class SpaceController implements ChildControllerHypermedia<Space> {
 
+    public static final int DEFAULT_SEARCH_SIZE = 20;
+    public static final int MAX_SEARCH_SIZE = 100;
+
     private final CrudHypermediaController<Space> crudHypermediaController;
     private final SpaceService spaceService;
+    private final NameSearchService nameSearchService;
+    private final EnteHierarchyClosureService enteHierarchyClosureService;
 
-    public SpaceController(final SpaceService spaceService, final SpaceModelAssembler spaceModelAssembler) {
+    public SpaceController(final SpaceService spaceService, final SpaceModelAssembler spaceModelAssembler,
+                           final NameSearchService nameSearchService,
+                           final EnteHierarchyClosureService enteHierarchyClosureService) {
 
         Assert.notNull(spaceModelAssembler, "The spaceModelAssembler can not be null");
         Assert.notNull(spaceService, "The spaceService can not be null");
+        Assert.notNull(nameSearchService, "The nameSearchService can not be null");
+        Assert.notNull(enteHierarchyClosureService, "The enteHierarchyClosureService can not be null");
 
         this.spaceService = spaceService;
+        this.nameSearchService = nameSearchService;
+        this.enteHierarchyClosureService = enteHierarchyClosureService;
         this.crudHypermediaController = new CrudHypermediaController<>(spaceModelAssembler);
     }
 
@@ -151,6 +170,76 @@ public class SpaceController implements ChildControllerHypermedia<Space> {
                 QueryInstanceController.class, QueryInstanceModelAssembler.QUERY_INSTANCE_REL_NAME);
     }
 
+    /**
+     * Search the entes, ente categories and query instances of the space by name.
+     * The search is case and accent insensitive and the results are ranked:
+     * exact, prefix, word prefix and contains
+     * @param id the spaceId
+     * @param query the text to search
+     * @param page the page number (0 -> first)
+     * @param size the page size
+     * @return the result collections with links
+     */
+    @GetMapping("/{id}/search")
+    public Publisher<CollectionModel<EntityModel<NameSearchResult>>> search(
+            final @PathVariable("id") String id,
+            final @RequestParam("q") String query,
+            final @RequestParam(value = "page", defaultValue = "0") int page,
+            final @RequestParam(value = "size", defaultValue = "" + DEFAULT_SEARCH_SIZE) int size) {
+
+        if (query.trim().isEmpty() || page < 0 || size < 1 || size > MAX_SEARCH_SIZE) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("The query can not be empty, the page must be positive " +
+                            "and the size must be between 1 and %d", MAX_SEARCH_SIZE)));
+        }
+
+        return this.nameSearchService.search(UUID.fromString(id), query, page, size)
+                .concatMap(result -> {
+                    WebFluxLinkBuilder.WebFluxLink link;
+                    switch (result.getType()) {
+                        case Ente:
+                            link = linkTo(methodOn(EnteController.class).getById(result.getId().toString()))
+                                    .withRel(EnteModelAssembler.ENTE_REL_NAME);
+                            break;
+                        case EnteCategory:
+                            link = linkTo(methodOn(EnteCategoryController.class).getById(result.getId().toString()))
+                                    .withRel(EnteCategoryModelAssembler.CATEGORY_REL_NAME);
+                            break;
+                        default:
+                            link = linkTo(methodOn(QueryInstanceController.class).getById(result.getId().toString()))
+                                    .withRel(QueryInstanceModelAssembler.QUERY_INSTANCE_REL_NAME);
+                    }
+                    return link.toMono().map(entityLink -> new EntityModel<>(result, entityLink));
+                })
+                .collectList()
+                .flatMap(results ->
+                        linkTo(methodOn(SpaceController.class).getById(id))
+                                .withRel(SpaceModelAssembler.SPACE_REL_NAME).toMono()
+                                .map(link -> new CollectionModel<>(results, link)));
+    }
+
+    /**
+     * Fill the closure of the ente hierarchy of the space with the relations created before the closure
+     * existed. It's executed explicitly by space (not on starting) and it can be executed several times
+     * @param id the spaceId
+     * @return the relations connected
+     */
+    @PostMapping("/{id}/closure/backfill")
+    public Mono<Long> backfillClosure(final @PathVariable("id") String id) {
+        return this.enteHierarchyClosureService.backfill(UUID.fromString(id));
+    }
+
+    /**
+     * Fill the reverse indexes (child -> parents) of the space with the relations written before
+     * the indexes existed. It's executed explicitly by space and it can be executed several times
+     * @param id the spaceId
+     * @return the relations indexed
+     */
+    @PostMapping("/{id}/reverseindex/backfill")
+    public Mono<Long> backfillReverseIndex(final @PathVariable("id") String id) {
+        return this.spaceService.backfillReverseIndex(UUID.fromString(id));
+    }
+
     private <TParent> Publisher<CollectionModel<EntityModel<ChildName>>> getChildrenByParentId(
             final String id, final Flux<ParentChildName> parentChildNameFlux,
             final Class<? extends ChildControllerHypermedia<TParent>> controllerChild,
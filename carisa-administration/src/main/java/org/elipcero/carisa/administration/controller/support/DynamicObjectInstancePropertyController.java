@@ -18,6 +18,7 @@ package org.elipcero.carisa.administration.controller.support;
 
 import lombok.NonNull;
 import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.administration.exception.InvalidFormatException;
 import org.elipcero.carisa.administration.general.StringResource;
 import org.elipcero.carisa.administration.projection.RawDynamicObjectInstanceProperty;
 import org.elipcero.carisa.administration.service.DynamicObjectInstancePropertyService;
@@ -26,15 +27,20 @@ import org.elipcero.carisa.core.hateoas.BasicReactiveRepresentationModelAssemble
 import org.elipcero.carisa.core.reactive.web.BiKeyChildControllerHypermedia;
 import org.elipcero.carisa.core.reactive.web.CrudHypermediaController;
 import org.reactivestreams.Publisher;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.reactive.WebFluxLinkBuilder.methodOn;
@@ -85,7 +91,7 @@ public abstract class DynamicObjectInstancePropertyController
 
         return this.crudHypermediaController.get(
                 this.service
-                        .getById(DynamicObjectInstanceProperty.GetMapId(UUID.fromString(instanceId), UUID.fromString(propertyId)))
+                        .getById(DynamicObjectInstanceProperty.GetKey(UUID.fromString(instanceId), UUID.fromString(propertyId)))
                         .map(DynamicObjectInstancePropertyController::convertToResponse)
         );
     }
@@ -131,6 +137,32 @@ public abstract class DynamicObjectInstancePropertyController
         );
     }
 
+    /**
+     * Update or create all the properties of the instance in one write.
+     * @param instanceId the instance identifier (UUID string)
+     * @param properties the instance properties
+     * @return the created or updated properties
+     */
+    @PutMapping("/instances/{instanceId}/properties")
+    public Publisher<ResponseEntity<CollectionModel<EntityModel<RawDynamicObjectInstanceProperty<?>>>>> updateOrCreateAll(
+            final @PathVariable("instanceId") String instanceId,
+            final @RequestBody List<DynamicObjectInstanceProperty<?>> properties) {
+
+        return this.crudHypermediaController.updateOrCreateAll(
+                this.service
+                        .updateOrCreateAll(UUID.fromString(instanceId), properties)
+                        .map(DynamicObjectInstancePropertyController::convertToResponse),
+                tryThrowBadRequestException());
+    }
+
+    private static Consumer<Throwable> tryThrowBadRequestException() {
+        return e -> {
+            if (e instanceof InvalidFormatException) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        };
+    }
+
     private static RawDynamicObjectInstanceProperty<?> convertToResponse(DynamicObjectInstanceProperty<?> property) {
         return RawDynamicObjectInstanceProperty.builder()
                     .id(property.getId())
@@ -84,7 +84,7 @@ public abstract class DynamicObjectPrototypePropertyController
 
         return this.crudHypermediaController.get(
                 this.service.getById(
-                        DynamicObjectPrototypeProperty.GetMapId(UUID.fromString(prototypeId), UUID.fromString(propertyId))));
+                        DynamicObjectPrototypeProperty.GetKey(UUID.fromString(prototypeId), UUID.fromString(propertyId))));
     }
 
     /**
@@ -17,11 +17,11 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -32,15 +32,18 @@ import java.util.UUID;
 public class EnteCategoryPropertyIdentifierConvert
         implements DependencyRelationIdentifierConvert<EnteCategoryProperty, MapId, UUID> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(EnteCategoryProperty.ENTECATEGORYID_COLUMN_NAME, EnteCategoryProperty.ID_COLUMN_NAME);
+
     @Override
     public MapId convert(final EnteCategoryProperty enteCategoryProperty) {
-        return this.convertFromDictionary(
-                EnteCategoryProperty.GetMapId(enteCategoryProperty.getParentId(), enteCategoryProperty.getId()));
+        return this.convertFromKey(
+                EnteCategoryProperty.GetKey(enteCategoryProperty.getParentId(), enteCategoryProperty.getId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
@@ -17,12 +17,12 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.EnteCategoryLinkProperty;
+import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
-
 /**
  * Convert Ente category property link (Ente or category) relation identifier to cassandra MapId
  *
@@ -31,25 +31,31 @@ import java.util.Map;
 public class EnteCategoryPropertyLinkIdentifierConvert
         implements DependencyRelationIdentifierConvert<EnteCategoryLinkProperty, MapId, MapId> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(
+                    EnteCategoryLinkProperty.ENTE_CATEGORY_PROPERTY_ID_COLUMN_NAME, EnteCategoryLinkProperty.LINKID_COLUMN_NAME);
+    private static final RelationKeyColumns PARENT_KEY_COLUMNS =
+            RelationKeyColumns.of(EnteCategoryProperty.ENTECATEGORYID_COLUMN_NAME, EnteCategoryProperty.ID_COLUMN_NAME);
+
     @Override
     public MapId convert(final EnteCategoryLinkProperty enteCategoryLinkProperty) {
-        return this.convertFromDictionary(
-                EnteCategoryLinkProperty.GetMapId(
+        return this.convertFromKey(
+                EnteCategoryLinkProperty.GetKey(
                         enteCategoryLinkProperty.getRawParentId(), enteCategoryLinkProperty.getLinkId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
     public MapId convertToParent(final EnteCategoryLinkProperty enteCategoryLinkProperty) {
-        return this.convertFromDictionary(enteCategoryLinkProperty.getParentId());
+        return this.convertToParentFromObject(enteCategoryLinkProperty.getParentId());
     }
 
     @Override
     public MapId convertToParentFromObject(final Object id) {
-        return this.convertFromDictionary((Map<String, Object>)id);
+        return PARENT_KEY_COLUMNS.toMapId((RelationKey) id);
     }
 }
@@ -17,11 +17,10 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.EnteHierarchy;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -34,13 +33,13 @@ public class EnteHirarchyIdentifierConvert
 
     @Override
     public MapId convert(final EnteHierarchy enteHierarchy) {
-        return this.convertFromDictionary(
-                EnteHierarchy.GetMapId(enteHierarchy.getParentId(), enteHierarchy.getId()));
+        return this.convertFromKey(
+                EnteHierarchy.GetKey(enteHierarchy.getParentId(), enteHierarchy.getId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return EnteHierarchy.KEY_COLUMNS.toMapId(id);
     }
 
     @Override
@@ -17,11 +17,11 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -32,14 +32,17 @@ import java.util.UUID;
 public class EntePropertyIdentifierConvert
         implements DependencyRelationIdentifierConvert<EnteProperty, MapId, UUID> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(EnteProperty.ENTEID_COLUMN_NAME, EnteProperty.ID_COLUMN_NAME);
+
     @Override
     public MapId convert(final EnteProperty enteProperty) {
-        return this.convertFromDictionary(EnteProperty.GetMapId(enteProperty.getParentId(), enteProperty.getId()));
+        return this.convertFromKey(EnteProperty.GetKey(enteProperty.getParentId(), enteProperty.getId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
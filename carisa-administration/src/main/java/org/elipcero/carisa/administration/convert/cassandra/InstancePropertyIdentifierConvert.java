@@ -17,12 +17,11 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
-import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -33,14 +32,17 @@ import java.util.UUID;
 public class InstancePropertyIdentifierConvert
         implements DependencyRelationIdentifierConvert<DynamicObjectInstanceProperty<?>, MapId, UUID> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(DynamicObjectInstanceProperty.PARENT_ID_COLUMN_NAME, DynamicObjectInstanceProperty.ID_COLUMN_NAME);
+
     @Override
     public MapId convert(final DynamicObjectInstanceProperty<?> property) {
-        return this.convertFromDictionary(EnteProperty.GetMapId(property.getParentId(), property.getId()));
+        return this.convertFromKey(DynamicObjectInstanceProperty.GetKey(property.getParentId(), property.getId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
@@ -17,11 +17,11 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.InstanceSpace;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -32,15 +32,18 @@ import java.util.UUID;
 public class InstanceSpaceIdentifierConvert
         implements DependencyRelationIdentifierConvert<InstanceSpace, MapId, UUID> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(InstanceSpace.PARENTID_COLUMN_NAME, InstanceSpace.CHILDID_COLUMN_NAME);
+
     @Override
     public MapId convert(final InstanceSpace instanceSpace) {
-        return this.convertFromDictionary(
-                InstanceSpace.GetMapId(instanceSpace.getParentId(), instanceSpace.getChildId()));
+        return this.convertFromKey(
+                InstanceSpace.GetKey(instanceSpace.getParentId(), instanceSpace.getChildId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
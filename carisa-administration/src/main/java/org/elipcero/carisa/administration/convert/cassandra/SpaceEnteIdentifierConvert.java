@@ -17,11 +17,11 @@
 package org.elipcero.carisa.administration.convert.cassandra;
 
 import org.elipcero.carisa.administration.domain.SpaceEnte;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -32,14 +32,17 @@ import java.util.UUID;
 public class SpaceEnteIdentifierConvert
         implements DependencyRelationIdentifierConvert<SpaceEnte, MapId, UUID> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(SpaceEnte.PARENTID_COLUMN_NAME, SpaceEnte.CHILDID_COLUMN_NAME);
+
     @Override
     public MapId convert(final SpaceEnte spaceEnte) {
-        return this.convertFromDictionary(spaceEnte.GetMapId(spaceEnte.getParentId(), spaceEnte.getChildId()));
+        return this.convertFromKey(SpaceEnte.GetKey(spaceEnte.getParentId(), spaceEnte.getChildId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
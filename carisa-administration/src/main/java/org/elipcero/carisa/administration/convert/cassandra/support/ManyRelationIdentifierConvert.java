@@ -17,11 +17,11 @@
 package org.elipcero.carisa.administration.convert.cassandra.support;
 
 import org.elipcero.carisa.core.data.ManyRelation;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationIdentifierConvert;
-import org.springframework.data.cassandra.core.mapping.BasicMapId;
 import org.springframework.data.cassandra.core.mapping.MapId;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -32,15 +32,18 @@ import java.util.UUID;
 public abstract class ManyRelationIdentifierConvert<TRelation extends ManyRelation>
         implements DependencyRelationIdentifierConvert<TRelation, MapId, UUID> {
 
+    private static final RelationKeyColumns KEY_COLUMNS =
+            RelationKeyColumns.of(ManyRelation.PARENTID_COLUMN_NAME, ManyRelation.CHILDID_COLUMN_NAME);
+
     @Override
     public MapId convert(final TRelation manyRelation) {
-        return this.convertFromDictionary(
-                ManyRelation.GetMapId(manyRelation.getParentId(), manyRelation.getChildId()));
+        return this.convertFromKey(
+                ManyRelation.GetKey(manyRelation.getParentId(), manyRelation.getChildId()));
     }
 
     @Override
-    public MapId convertFromDictionary(final Map<String, Object> id) {
-        return new BasicMapId(id);
+    public MapId convertFromKey(final RelationKey id) {
+        return KEY_COLUMNS.toMapId(id);
     }
 
     @Override
@@ -31,10 +31,9 @@ import org.elipcero.carisa.administration.exception.InvalidFormatException;
 import org.springframework.util.Assert;
 
 import java.io.IOException;
-import java.util.UUID;
 
 /**
- * Deserialize json message to dynamic object instance property
+ * Deserialize json or smile message to dynamic object instance property
  *
  * @author David Suárez
  */
@@ -53,7 +52,7 @@ public class DynamicObjectInstancePropertyDeserializer extends JsonDeserializer<
             JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
 
         try {
-            JsonNode node = jsonParser.getCodec().readTree(jsonParser);
+            JsonNode node = jsonParser.readValueAsTree();
 
             if (!node.hasNonNull(DynamicObjectPrototypeProperty.TYPE)) {
                 throw new InvalidFormatException("The type doesn't exist in dynamic object instance property");
@@ -66,10 +65,10 @@ public class DynamicObjectInstancePropertyDeserializer extends JsonDeserializer<
                             .create(node.get(DynamicObjectInstanceProperty.VALUE_COLUMN_NAME));
 
             if (node.hasNonNull(DynamicObjectInstanceProperty.ID_COLUMN_NAME)) {
-                property.setId(UUID.fromString(node.get(DynamicObjectInstanceProperty.ID_COLUMN_NAME).asText()));
+                property.setId(WebUUIDConverter.convert(node.get(DynamicObjectInstanceProperty.ID_COLUMN_NAME)));
             }
             if (node.hasNonNull(DynamicObjectInstanceProperty.INSTANCE_ID_COLUMN_NAME)) {
-                property.setParentId(UUID.fromString(node.get(DynamicObjectInstanceProperty.INSTANCE_ID_COLUMN_NAME).asText()));
+                property.setParentId(WebUUIDConverter.convert(node.get(DynamicObjectInstanceProperty.INSTANCE_ID_COLUMN_NAME)));
             }
 
             return property;
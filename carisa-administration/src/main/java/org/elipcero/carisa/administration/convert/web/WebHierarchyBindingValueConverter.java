@@ -51,8 +51,8 @@ public class WebHierarchyBindingValueConverter implements WebValueConverter {
             throw new InvalidFormatException("WebHierarchyBindingValueConverter.create: The category must has value");
         }
 
-        parentId = UUID.fromString(value.get(HierarchyBindingValue.PARENT_ID_COLUMN_NAME).asText());
-        childId = UUID.fromString(value.get(HierarchyBindingValue.CHILD_ID_COLUMN_NAME).asText());
+        parentId = WebUUIDConverter.convert(value.get(HierarchyBindingValue.PARENT_ID_COLUMN_NAME));
+        childId = WebUUIDConverter.convert(value.get(HierarchyBindingValue.CHILD_ID_COLUMN_NAME));
 
         category = value.get(HierarchyBindingValue.CATEGORY_COLUMN_NAME);
         if (!category.isBoolean()) {
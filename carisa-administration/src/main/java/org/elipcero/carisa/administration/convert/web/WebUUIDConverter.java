@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+
+package org.elipcero.carisa.administration.convert.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.elipcero.carisa.administration.exception.InvalidFormatException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Convert json node to UUID. The binary formats (Smile) write the UUID as 16 bytes
+ * and the text formats (json) write the UUID as string.
+ *
+ * @author David Suárez
+ */
+public class WebUUIDConverter {
+
+    private static final int UUID_BYTES = 16;
+
+    /**
+     * Convert the node to UUID
+     * @param node the json node (binary or text)
+     * @return the UUID
+     */
+    public static UUID convert(JsonNode node) {
+        if (node.isBinary()) {
+            try {
+                byte[] bytes = node.binaryValue();
+                if (bytes.length != UUID_BYTES) {
+                    throw new InvalidFormatException("WebUUIDConverter.convert: The binary UUID must has 16 bytes");
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                return new UUID(buffer.getLong(), buffer.getLong());
+            }
+            catch (IOException ex) {
+                throw new InvalidFormatException(ex.getMessage());
+            }
+        }
+
+        return UUID.fromString(node.asText());
+    }
+}
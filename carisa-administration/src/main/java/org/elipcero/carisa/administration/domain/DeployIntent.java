@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.elipcero.carisa.administration.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.BasicMapId;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Deploy intent (outbox). The intent is recorded before enqueuing the deploy job and it is removed
+ * when the job finishes. The intent is the lease of the node that holds the job: the node renews it
+ * while the job is queued or running. If the intent expires, the node died and the job is recovered
+ * by the reconciler. The intents are partitioned by time bucket of the expiration,
+ * in this way the expired intents are read without scanning the instances.
+ *
+ * @author David Suárez
+ */
+@Table("carisa_deploy_intent")
+@Builder
+@Getter
+public class DeployIntent {
+
+    public static String BUCKET_COLUMN_NAME = "bucket";
+    public static String JOBID_COLUMN_NAME = "jobId";
+
+    @PrimaryKeyColumn(ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private long bucket; // @see bucketOf
+
+    @PrimaryKeyColumn(ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private UUID jobId;
+
+    private UUID instanceId;
+
+    private Instant expiresAt; // End of the lease
+
+    /**
+     * Create the intent of the job
+     */
+    public static DeployIntent of(final DeployJob job, final Instant expiresAt, final Duration bucketSize) {
+        return of(job.getId(), job.getInstanceId(), expiresAt, bucketSize);
+    }
+
+    /**
+     * Create the intent of the job
+     */
+    public static DeployIntent of(
+            final UUID jobId, final UUID instanceId, final Instant expiresAt, final Duration bucketSize) {
+
+        return DeployIntent
+                .builder()
+                    .bucket(bucketOf(expiresAt, bucketSize))
+                    .jobId(jobId)
+                    .instanceId(instanceId)
+                    .expiresAt(expiresAt)
+                .build();
+    }
+
+    /**
+     * Copy the intent with a new expiration (renew the lease)
+     */
+    public DeployIntent renew(final Instant expiresAt, final Duration bucketSize) {
+        return of(this.jobId, this.instanceId, expiresAt, bucketSize);
+    }
+
+    /**
+     * Time bucket of an instant. Number of buckets of size 'bucketSize' since epoch
+     */
+    public static long bucketOf(final Instant time, final Duration bucketSize) {
+        return time.getEpochSecond() / bucketSize.getSeconds();
+    }
+
+    public static MapId GetMapId(long bucket, UUID jobId) {
+        return BasicMapId.id(BUCKET_COLUMN_NAME, bucket).with(JOBID_COLUMN_NAME, jobId);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.domain;
+
+import com.datastax.driver.core.DataType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Getter;
+import org.elipcero.carisa.core.data.Entity;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Deploy job of an instance. The deploy is executed asynchronously and the job
+ * reports the state of the execution. The job is not changed, each change of state
+ * is a new job (@see DeployJob.withState)
+ *
+ * @author David Suárez
+ */
+@Table("carisa_deploy_job")
+@Getter
+public class DeployJob extends Entity {
+
+    private UUID instanceId;
+
+    @CassandraType(type = DataType.Name.INT)
+    private State state;
+
+    private String message; // Error description
+
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    @Builder
+    public DeployJob(UUID id, UUID instanceId, State state, String message, Instant createdAt, Instant updatedAt) {
+        super(id);
+        this.instanceId = instanceId;
+        this.state = state;
+        this.message = message;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Create a pending job for the instance
+     */
+    public static DeployJob pending(final UUID instanceId) {
+        Instant now = Instant.now();
+        return DeployJob
+                .builder()
+                    .id(UUID.randomUUID())
+                    .instanceId(instanceId)
+                    .state(State.Pending)
+                    .createdAt(now)
+                    .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * Create a succeeded job for the instance that has not been executed (nothing to deploy).
+     * The job is not recorded, so it has not id
+     */
+    public static DeployJob skipped(final UUID instanceId, final String message) {
+        Instant now = Instant.now();
+        return DeployJob
+                .builder()
+                    .instanceId(instanceId)
+                    .state(State.Succeeded)
+                    .message(message)
+                    .createdAt(now)
+                    .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * Copy the job with a new state
+     */
+    public DeployJob withState(final State state, final String message) {
+        return new DeployJob(this.getId(), this.instanceId, state, message, this.createdAt, Instant.now());
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return this.state == State.Succeeded || this.state == State.Failed;
+    }
+
+    public enum State {
+        Pending,
+        Running,
+        Succeeded,
+        Failed
+    }
+}
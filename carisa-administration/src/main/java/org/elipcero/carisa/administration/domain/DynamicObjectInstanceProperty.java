@@ -27,13 +27,12 @@ import org.elipcero.carisa.administration.convert.web.DynamicObjectInstancePrope
 import org.elipcero.carisa.administration.domain.support.Named;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 import org.springframework.util.Assert;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -100,11 +99,8 @@ public class DynamicObjectInstanceProperty<TValue extends DynamicObjectInstanceP
         return this;
     }
 
-    public static Map<String, Object> GetMapId(UUID instanceId, UUID id) {
-        return new HashMap<String, Object>() {{
-            put(PARENT_ID_COLUMN_NAME, instanceId);
-            put(ID_COLUMN_NAME, id);
-        }};
+    public static RelationKey GetKey(UUID instanceId, UUID id) {
+        return RelationKey.of(instanceId, id);
     }
 
     // Custom values
@@ -16,12 +16,14 @@
 
 package org.elipcero.carisa.administration.domain;
 
+import com.datastax.driver.core.DataType;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import org.elipcero.carisa.core.data.Entity;
 import org.elipcero.carisa.core.data.Relation;
+import org.springframework.data.cassandra.core.mapping.CassandraType;
 import org.springframework.data.cassandra.core.mapping.Table;
 
 import java.util.UUID;
@@ -51,12 +53,28 @@ public class DynamicObjectPrototype extends Entity implements Relation {
     @Setter
     private String description;
 
+    /**
+     * Storage layout of the instance properties.
+     * Rows: Each property is a clustered row into the instance partition.
+     * Map: All the properties of the instance are stored into only one row (map column).
+     * It is only set when the prototype is created.
+     */
+    public enum PropertyLayout {
+        Rows,
+        Map
+    }
+
+    @CassandraType(type = DataType.Name.INT)
+    private PropertyLayout propertyLayout;
+
     @Builder
-    public DynamicObjectPrototype(UUID id, UUID parentId, String name, String description) {
+    public DynamicObjectPrototype(
+            UUID id, UUID parentId, String name, String description, PropertyLayout propertyLayout) {
         super(id);
         this.name = name;
         this.description = description;
         this.parentId = parentId;
+        this.propertyLayout = propertyLayout == null ? PropertyLayout.Rows : propertyLayout;
     }
 
     @Override
@@ -26,13 +26,12 @@ import lombok.Setter;
 import org.elipcero.carisa.administration.domain.support.Named;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.CassandraType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -96,11 +95,8 @@ public class DynamicObjectPrototypeProperty
         return this.id;
     }
 
-    public static Map<String, Object> GetMapId(UUID prototypeId, UUID id) {
-        return new HashMap<String, Object>() {{
-            put(PROTOTYPE_ID_COLUMN_NAME, prototypeId);
-            put(ID_COLUMN_NAME, id);
-        }};
+    public static RelationKey GetKey(UUID prototypeId, UUID id) {
+        return RelationKey.of(prototypeId, id);
     }
 
     public DynamicObjectPrototypeProperty tryInitId() {
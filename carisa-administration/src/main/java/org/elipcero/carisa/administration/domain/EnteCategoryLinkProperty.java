@@ -19,12 +19,11 @@ package org.elipcero.carisa.administration.domain;
 import lombok.Builder;
 import lombok.Getter;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -59,8 +58,8 @@ public class EnteCategoryLinkProperty implements Relation {
 
     // As the parent is a embedded relation the identifier is divided in two properties
     @Override
-    public Map<String, Object> getParentId() {
-        return EnteCategoryProperty.GetMapId(this.parentCategoryId, this.parentId);
+    public RelationKey getParentId() {
+        return EnteCategoryProperty.GetKey(this.parentCategoryId, this.parentId);
     }
 
     @Override
@@ -68,11 +67,8 @@ public class EnteCategoryLinkProperty implements Relation {
         return this.linkId;
     }
 
-    public static Map<String, Object> GetMapId(UUID enteCategoryPropertyId, UUID linkId) {
-        return new HashMap<String, Object>() {{
-            put(ENTE_CATEGORY_PROPERTY_ID_COLUMN_NAME, enteCategoryPropertyId);
-            put(LINKID_COLUMN_NAME, linkId);
-        }};
+    public static RelationKey GetKey(UUID enteCategoryPropertyId, UUID linkId) {
+        return RelationKey.of(enteCategoryPropertyId, linkId);
     }
 }
 
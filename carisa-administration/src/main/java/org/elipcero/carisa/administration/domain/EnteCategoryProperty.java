@@ -26,13 +26,12 @@ import org.elipcero.carisa.administration.domain.support.Named;
 import org.elipcero.carisa.administration.domain.support.PropertyType;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.CassandraType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -84,11 +83,8 @@ public class EnteCategoryProperty implements Relation, EntityInitializer<EnteCat
         return this.id;
     }
 
-    public static Map<String, Object> GetMapId(UUID enteCategoryId, UUID id) {
-        return new HashMap<String, Object>() {{
-            put(ENTECATEGORYID_COLUMN_NAME, enteCategoryId);
-            put(ID_COLUMN_NAME, id);
-        }};
+    public static RelationKey GetKey(UUID enteCategoryId, UUID id) {
+        return RelationKey.of(enteCategoryId, id);
     }
 
     public EnteCategoryProperty tryInitId() {
@@ -20,12 +20,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Getter;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.data.RelationKeyColumns;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 @Table("carisa_ente_hierarchy")
@@ -36,6 +36,8 @@ public class EnteHierarchy implements Relation {
     public static String COLUMN_NAME_PARENTID = "parentId";
     public static String COLUMN_NAME_CHILDID = "id";
 
+    public static final RelationKeyColumns KEY_COLUMNS = RelationKeyColumns.of(COLUMN_NAME_PARENTID, COLUMN_NAME_CHILDID);
+
     @PrimaryKeyColumn(ordinal = 0, type = PrimaryKeyType.PARTITIONED)
     private UUID parentId; // Ente category
 
@@ -55,10 +57,7 @@ public class EnteHierarchy implements Relation {
         return this.id;
     }
 
-    public static Map<String, Object> GetMapId(UUID parentId, UUID childId) {
-        return new HashMap<String, Object>() {{
-            put(COLUMN_NAME_PARENTID, parentId);
-            put(COLUMN_NAME_CHILDID, childId);
-        }};
+    public static RelationKey GetKey(UUID parentId, UUID childId) {
+        return RelationKey.of(parentId, childId);
     }
 }
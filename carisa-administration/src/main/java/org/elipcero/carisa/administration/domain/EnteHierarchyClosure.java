@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
+import org.springframework.data.cassandra.core.mapping.BasicMapId;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
+import org.springframework.data.cassandra.core.mapping.Table;
+
+import java.util.UUID;
+
+/**
+ * Closure table of the ente hierarchy. Each node (space, ente category or ente) stores all its
+ * ancestors and all its descendants with the depth (1 -> direct child) in only one partition.
+ * In this way, the subtree and the ancestors are read with only one query.
+ *
+ * @author David Suárez
+ */
+@Table("carisa_ente_hierarchy_closure")
+@Builder
+@Getter
+public class EnteHierarchyClosure {
+
+    public static String NODEID_COLUMN_NAME = "nodeId";
+    public static String ANCESTOR_COLUMN_NAME = "ancestor";
+    public static String RELATEDID_COLUMN_NAME = "relatedId";
+
+    @PrimaryKeyColumn(ordinal = 0, type = PrimaryKeyType.PARTITIONED)
+    private UUID nodeId;
+
+    @PrimaryKeyColumn(ordinal = 1, type = PrimaryKeyType.CLUSTERED)
+    private boolean ancestor; // true -> relatedId is ancestor of the node; false -> relatedId is descendant
+
+    @PrimaryKeyColumn(ordinal = 2, type = PrimaryKeyType.CLUSTERED)
+    private UUID relatedId;
+
+    private int depth; // Depth of the shortest path. If there are several paths the minimum is kept
+
+    private boolean category; // true -> relatedId is a category
+
+    public static MapId GetMapId(UUID nodeId, boolean ancestor, UUID relatedId) {
+        return BasicMapId.id(NODEID_COLUMN_NAME, nodeId)
+                .with(ANCESTOR_COLUMN_NAME, ancestor)
+                .with(RELATEDID_COLUMN_NAME, relatedId);
+    }
+}
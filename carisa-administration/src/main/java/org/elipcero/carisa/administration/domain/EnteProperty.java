@@ -26,13 +26,12 @@ import org.elipcero.carisa.administration.domain.support.Named;
 import org.elipcero.carisa.administration.domain.support.PropertyType;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.CassandraType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 import org.springframework.data.cassandra.core.mapping.Table;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -93,11 +92,8 @@ public class EnteProperty implements Relation, EntityInitializer<EnteProperty>,
         return this.id;
     }
 
-    public static Map<String, Object> GetMapId(UUID enteId, UUID id) {
-        return new HashMap<String, Object>() {{
-            put(ENTEID_COLUMN_NAME, enteId);
-            put(ID_COLUMN_NAME, id);
-        }};
+    public static RelationKey GetKey(UUID enteId, UUID id) {
+        return RelationKey.of(enteId, id);
     }
 
     public EnteProperty tryInitId() {
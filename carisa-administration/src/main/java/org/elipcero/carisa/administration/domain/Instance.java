@@ -17,6 +17,7 @@
 package org.elipcero.carisa.administration.domain;
 
 import com.datastax.driver.core.DataType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -50,6 +51,9 @@ public class Instance extends Entity {
     @CassandraType(type = DataType.Name.INT)
     private State state;
 
+    @JsonIgnore
+    private String deployedHash; // Hash of the deployer specification of the last successful deploy
+
     @Builder
     public Instance(UUID id, String name, State state) {
         super(id);
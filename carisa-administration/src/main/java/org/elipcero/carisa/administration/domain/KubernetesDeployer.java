@@ -18,6 +18,9 @@ package org.elipcero.carisa.administration.domain;
 
 import lombok.Builder;
 import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * This contain all the information to create kubernetes deployer
@@ -27,6 +30,22 @@ import lombok.Getter;
 @Builder
 @Getter
 public class KubernetesDeployer {
+
+    // Change it when the specification sent to the deployer changes (e.g. new fields),
+    // so the instances deployed with the old specification are deployed again
+    public static final String SPEC_VERSION = "1";
+
     private String name;
     private String namespace;
+
+    /**
+     * Hash of the specification (desired state). If the specification doesn't change,
+     * the hash doesn't change. It is not sent to the deployer.
+     * The name and the namespace are the instance id, so by now the specification of an instance
+     * doesn't vary and the hash only changes with SPEC_VERSION
+     */
+    public String hash() {
+        String spec = String.join("\n", SPEC_VERSION, String.valueOf(this.name), String.valueOf(this.namespace));
+        return DigestUtils.md5DigestAsHex(spec.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.general;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types supported by the api besides the hypermedia types of spring hateoas
+ *
+ * @author David Suárez
+ */
+public class CarisaMediaTypes {
+
+    /**
+     * Binary jackson format (Smile). It has the same structure that HAL json but it's more compact
+     * and cheaper to encode and decode. It is used by the synchronization jobs.
+     */
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final MediaType SMILE = MediaType.valueOf(SMILE_VALUE);
+
+    /**
+     * Newline delimited json. Each element of the stream is written as one json line when it is available.
+     */
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType NDJSON = MediaType.valueOf(NDJSON_VALUE);
+}
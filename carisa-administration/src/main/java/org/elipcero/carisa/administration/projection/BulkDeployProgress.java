@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.projection;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.elipcero.carisa.administration.domain.DeployJob;
+
+import java.util.UUID;
+
+/**
+ * Progress of a bulk deploy. Each item is the result of the deploy of an instance
+ * and the counters of the bulk deploy until this instance
+ *
+ * @author David Suárez
+ */
+@Builder(toBuilder = true)
+@Getter
+public class BulkDeployProgress {
+    private UUID instanceId;
+    private UUID jobId; // Null if the job could not be created
+    private DeployJob.State state;
+    private String message;
+    private int processed;
+    private int failed;
+    private int total;
+    private boolean aborted; // The error threshold has been reached. The next instances are not deployed
+}
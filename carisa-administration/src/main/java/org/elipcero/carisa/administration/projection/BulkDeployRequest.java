@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.projection;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.elipcero.carisa.administration.domain.Instance;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk deploy request. The instances are selected by identifiers or by states
+ *
+ * @author David Suárez
+ */
+@Getter
+@Setter
+public class BulkDeployRequest {
+    private List<UUID> ids;
+    private List<Instance.State> states; // All the instances in these states
+    private Integer concurrency; // Limited by the configuration
+    private Integer errorThreshold; // Failed instances to stop
+    private Boolean force; // Deploy although the instance is deployed with the same specification
+}
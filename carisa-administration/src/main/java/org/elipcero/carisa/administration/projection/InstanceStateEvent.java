@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.projection;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.elipcero.carisa.administration.domain.Instance;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Transition of the state of an instance
+ *
+ * @author David Suárez
+ */
+@Builder
+@Getter
+public class InstanceStateEvent {
+    private UUID instanceId;
+    private Instance.State state;
+    private Instant timestamp;
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.projection;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import org.elipcero.carisa.administration.domain.EnteProperty;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Row of the result of a query instance. One row for each ente bound
+ *
+ * @author David Suárez
+ */
+@Builder
+@Getter
+public class QueryResultRow {
+
+    private UUID propertyId; // Instance property with the binding
+    private UUID parentId; // Ente category of the ente
+    private UUID enteId;
+    private String enteName;
+
+    @Setter
+    private List<Property> properties;
+
+    @Builder
+    @Getter
+    public static class Property {
+        private UUID id;
+        private String name;
+        private EnteProperty.Type type;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository;
+
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Custom repository for deploy intent
+ *
+ * @author David Suárez
+ */
+public interface CustomDeployIntentRepository {
+
+    /**
+     * Save the intent with a time to live, so the intents that nobody removes are removed by the database
+     * @param intent the intent to save
+     * @param timeToLive time to live of the row
+     * @return the intent saved
+     */
+    Mono<DeployIntent> saveWithTtl(final DeployIntent intent, final Duration timeToLive);
+}
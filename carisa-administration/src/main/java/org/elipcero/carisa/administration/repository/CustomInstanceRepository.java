@@ -35,4 +35,13 @@ public interface CustomInstanceRepository {
      * @return true if ok
      */
     Mono<Boolean> changeState(final UUID id, final Instance.State state);
+
+    /**
+     * Change the state into instance and the hash of the deployer specification
+     * @param id the instance id to change state
+     * @param state @see Instance.State
+     * @param deployedHash @see KubernetesDeployer.hash
+     * @return true if ok
+     */
+    Mono<Boolean> changeState(final UUID id, final Instance.State state, final String deployedHash);
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.elipcero.carisa.administration.repository;
+
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import org.elipcero.carisa.core.reactive.data.CustomizedReactiveCrudRepository;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import reactor.core.publisher.Flux;
+
+/**
+ * Repository for deploy intent
+ *
+ * @author David Suárez
+ */
+public interface DeployIntentRepository
+        extends CustomizedReactiveCrudRepository<DeployIntent, MapId>, CustomDeployIntentRepository {
+
+    /**
+     * Find the intents of the time bucket
+     * @param bucket the time bucket (@see DeployIntent.bucketOf)
+     * @return intents
+     */
+    Flux<DeployIntent> findAllByBucket(long bucket);
+}
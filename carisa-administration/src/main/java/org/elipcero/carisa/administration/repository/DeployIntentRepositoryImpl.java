@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import org.springframework.data.cassandra.core.EntityWriteResult;
+import org.springframework.data.cassandra.core.InsertOptions;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Implement custom repository for deploy intent
+ *
+ * @author David Suárez
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeployIntentRepositoryImpl implements CustomDeployIntentRepository {
+
+    @NonNull
+    private final ReactiveCassandraOperations cqlTemplate;
+
+    /**
+     * @see CustomDeployIntentRepository
+     */
+    @Override
+    public Mono<DeployIntent> saveWithTtl(final DeployIntent intent, final Duration timeToLive) {
+        return this.cqlTemplate
+                .insert(intent, InsertOptions.builder().ttl((int) timeToLive.getSeconds()).build())
+                .map(EntityWriteResult::getEntity);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository;
+
+import lombok.NonNull;
+import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.administration.domain.DynamicObjectPrototype;
+import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.misc.LruCache;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelationImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Choose the storage layout of the instance properties depending of the prototype of the instance.
+ * The layout of the prototype can not change, so it is cached by instance (the least recently used
+ * instances are evicted).
+ * If the instance or the prototype doesn't exist the rows layout is used.
+ * @see DynamicObjectPrototype.PropertyLayout
+ *
+ * @author David Suárez
+ */
+public class DynamicObjectInstancePropertyLayoutRelation
+        implements EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> {
+
+    private static final int MAX_CACHED_INSTANCES = 10000;
+
+    private final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> rowsRelation;
+    private final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> mapRelation;
+    private final DynamicObjectInstanceRepository instanceRepository;
+    private final DynamicObjectPrototypeRepository prototypeRepository;
+
+    private final LruCache<UUID, DynamicObjectPrototype.PropertyLayout> layoutByInstance =
+            new LruCache<>(MAX_CACHED_INSTANCES);
+
+    public DynamicObjectInstancePropertyLayoutRelation(
+            @NonNull final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> rowsRelation,
+            @NonNull final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> mapRelation,
+            @NonNull final DynamicObjectInstanceRepository instanceRepository,
+            @NonNull final DynamicObjectPrototypeRepository prototypeRepository) {
+
+        this.rowsRelation = rowsRelation;
+        this.mapRelation = mapRelation;
+        this.instanceRepository = instanceRepository;
+        this.prototypeRepository = prototypeRepository;
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<DynamicObjectInstanceProperty<?>> create(final DynamicObjectInstanceProperty<?> relation) {
+        return this.relationByInstance(relation.getParentId())
+                .flatMap(layoutRelation -> layoutRelation.create(relation));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<DynamicObjectInstanceProperty<?>> saveAllByParent(
+            final UUID parentId, final List<DynamicObjectInstanceProperty<?>> relations) {
+
+        return this.relationByInstance(parentId)
+                .flatMapMany(layoutRelation -> layoutRelation.saveAllByParent(parentId, relations));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<DynamicObjectInstanceProperty<?>> getRelationsByParent(final UUID parentId) {
+        return this.relationByInstance(parentId)
+                .flatMapMany(layoutRelation -> layoutRelation.getRelationsByParent(parentId));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<DynamicObjectInstanceProperty<?>> getById(final RelationKey id) {
+        return this.relationByInstance(id.getParentId())
+                .flatMap(layoutRelation -> layoutRelation.getById(id));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<Tuple2<RelationKey, DynamicObjectInstanceProperty<?>>> getAllById(final Flux<RelationKey> ids) {
+        return ids.collect(RelationKey.groupingByParent())
+                .flatMapIterable(Map::entrySet)
+                .flatMap(instance -> this.relationByInstance(instance.getKey())
+                                .flatMapMany(layoutRelation -> layoutRelation.getAllById(
+                                        Flux.fromIterable(instance.getValue())
+                                                .map(propertyId -> RelationKey.of(instance.getKey(), propertyId)))),
+                        EmbeddedDependencyRelationImpl.PARTITION_CONCURRENCY);
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<Boolean> existsById(final RelationKey id) {
+        return this.relationByInstance(id.getParentId())
+                .flatMap(layoutRelation -> layoutRelation.existsById(id));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<EntityDataState<DynamicObjectInstanceProperty<?>>> updateOrCreate(
+            final DynamicObjectInstanceProperty<?> relation,
+            final Consumer<DynamicObjectInstanceProperty<?>> onUpdateChange,
+            final Supplier<Mono<DynamicObjectInstanceProperty<?>>> onCreatedEntity) {
+
+        return this.relationByInstance(relation.getParentId())
+                .flatMap(layoutRelation -> layoutRelation.updateOrCreate(relation, onUpdateChange, onCreatedEntity));
+    }
+
+    private Mono<EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>>> relationByInstance(
+            final UUID instanceId) {
+
+        if (instanceId == null) {
+            return Mono.just(this.rowsRelation);
+        }
+
+        DynamicObjectPrototype.PropertyLayout layout = this.layoutByInstance.get(instanceId);
+        if (layout != null) {
+            return Mono.just(this.relationByLayout(layout));
+        }
+
+        return this.instanceRepository.findById(instanceId)
+                .flatMap(instance -> this.prototypeRepository.findById(instance.getPrototypeId()))
+                .map(prototype -> {
+                    this.layoutByInstance.put(instanceId, prototype.getPropertyLayout());
+                    return prototype.getPropertyLayout();
+                })
+                .defaultIfEmpty(DynamicObjectPrototype.PropertyLayout.Rows)
+                .map(this::relationByLayout);
+    }
+
+    private EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> relationByLayout(
+            final DynamicObjectPrototype.PropertyLayout layout) {
+
+        return layout == DynamicObjectPrototype.PropertyLayout.Map ? this.mapRelation : this.rowsRelation;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.reactive.data.DependencyRelationRefNotFoundException;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelationImpl;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Store all the properties of a dynamic object instance into only one row (map<uuid, blob> column).
+ * Loading the instance properties is only one row reading. The value of the property is encoded
+ * like the clustered layout (using the cassandra custom conversions).
+ * @see DynamicObjectInstancePropertyLayoutRelation
+ *
+ * @author David Suárez
+ */
+@RequiredArgsConstructor
+public class DynamicObjectInstancePropertyMapRelation
+        implements EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> {
+
+    public static final String TABLE_NAME = "carisa_dynamic_object_instance_property_map";
+
+    @NonNull
+    private final DynamicObjectInstanceRepository instanceRepository;
+
+    @NonNull
+    private final ReactiveCassandraOperations cqlTemplate;
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<DynamicObjectInstanceProperty<?>> create(final DynamicObjectInstanceProperty<?> relation) {
+        relation.tryInitId();
+
+        return this.checkInstance(relation.getParentId())
+                .then(Mono.defer(() -> this.save(relation)));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<DynamicObjectInstanceProperty<?>> saveAllByParent(
+            final UUID parentId, final List<DynamicObjectInstanceProperty<?>> relations) {
+
+        Map<UUID, ByteBuffer> properties = new HashMap<>();
+
+        for (DynamicObjectInstanceProperty<?> relation : relations) {
+            if (!parentId.equals(relation.getParentId())) {
+                return Flux.error(new IllegalArgumentException(
+                        String.format("The relation parent: '%s' must be: '%s'", relation.getParentId(), parentId)));
+            }
+            properties.put(relation.tryInitId().getId(), this.writeValue(relation.getValue()));
+        }
+
+        return this.checkInstance(parentId)
+                .then(this.cqlTemplate.getReactiveCqlOperations()
+                        .execute("UPDATE " + TABLE_NAME + " SET properties = properties + ? WHERE parentId = ?",
+                                properties, parentId))
+                .thenMany(Flux.fromIterable(relations));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<DynamicObjectInstanceProperty<?>> getRelationsByParent(final UUID parentId) {
+        return this.cqlTemplate.getReactiveCqlOperations()
+                .queryForRows("SELECT properties FROM " + TABLE_NAME + " WHERE parentId = ?", parentId)
+                .flatMapIterable(row -> row.getMap(0, UUID.class, ByteBuffer.class).entrySet())
+                .<DynamicObjectInstanceProperty<?>>map(property -> new DynamicObjectInstanceProperty<>(
+                        property.getKey(), parentId, this.readValue(property.getValue())));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<DynamicObjectInstanceProperty<?>> getById(final RelationKey id) {
+        return this.getRelationsByParent(id.getParentId())
+                .filter(property -> property.getId().equals(id.getChildId()))
+                .next();
+    }
+
+    /**
+     * All the properties of one instance are into one row, so only one read by instance is done
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<Tuple2<RelationKey, DynamicObjectInstanceProperty<?>>> getAllById(final Flux<RelationKey> ids) {
+        return ids.collect(RelationKey.groupingByParent())
+                .flatMapIterable(Map::entrySet)
+                .flatMap(instance -> this.getRelationsByParent(instance.getKey())
+                                .filter(property -> instance.getValue().contains(property.getId()))
+                                .map(property -> Tuples.of(
+                                        RelationKey.of(instance.getKey(), property.getId()), property)),
+                        EmbeddedDependencyRelationImpl.PARTITION_CONCURRENCY);
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<Boolean> existsById(final RelationKey id) {
+        return this.getById(id).hasElement();
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Mono<EntityDataState<DynamicObjectInstanceProperty<?>>> updateOrCreate(
+            final DynamicObjectInstanceProperty<?> relation,
+            final Consumer<DynamicObjectInstanceProperty<?>> onUpdateChange,
+            final Supplier<Mono<DynamicObjectInstanceProperty<?>>> onCreatedEntity) {
+
+        return this.getById(DynamicObjectInstanceProperty.GetKey(relation.getParentId(), relation.getId()))
+                .flatMap(property -> {
+                    onUpdateChange.accept(property);
+                    return this.save(property)
+                            .map(propertyUpdated ->
+                                    EntityDataState.<DynamicObjectInstanceProperty<?>>
+                                         builder()
+                                            .domainState(EntityDataState.State.updated)
+                                            .entity(propertyUpdated)
+                                         .build());
+                })
+                .switchIfEmpty(
+                        Mono.defer(() ->
+                            onCreatedEntity.get().map(
+                                    propertyCreated ->
+                                        EntityDataState.<DynamicObjectInstanceProperty<?>>
+                                            builder()
+                                                .domainState(EntityDataState.State.created)
+                                                .entity(propertyCreated)
+                                            .build()))
+                );
+    }
+
+    private Mono<DynamicObjectInstanceProperty<?>> save(final DynamicObjectInstanceProperty<?> property) {
+        return this.cqlTemplate.getReactiveCqlOperations()
+                .execute("UPDATE " + TABLE_NAME + " SET properties[?] = ? WHERE parentId = ?",
+                        property.getId(), this.writeValue(property.getValue()), property.getParentId())
+                .thenReturn(property);
+    }
+
+    private Mono<Void> checkInstance(final UUID instanceId) {
+        return this.instanceRepository.existsById(instanceId)
+                .flatMap(exists -> exists ?
+                        Mono.<Void>empty() :
+                        Mono.error(new DependencyRelationRefNotFoundException(
+                                String.format("The parent container with ID: '%s' not found", instanceId))));
+    }
+
+    private ByteBuffer writeValue(final DynamicObjectInstanceProperty.Value value) {
+        String text = this.cqlTemplate.getConverter().getConversionService().convert(value, String.class);
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private DynamicObjectInstanceProperty.Value readValue(final ByteBuffer value) {
+        return this.cqlTemplate.getConverter().getConversionService().convert(
+                StandardCharsets.UTF_8.decode(value.duplicate()).toString(), DynamicObjectInstanceProperty.Value.class);
+    }
+}
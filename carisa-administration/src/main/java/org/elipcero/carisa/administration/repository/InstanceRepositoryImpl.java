@@ -48,4 +48,13 @@ public class InstanceRepositoryImpl implements CustomInstanceRepository {
     public Mono<Boolean> changeState(final UUID id, final Instance.State state) {
         return this.cqlTemplate.update(query(where("id").is(id)), update("state", state.ordinal()), Instance.class);
     }
+
+    /**
+     * @see CustomInstanceRepository
+     */
+    @Override
+    public Mono<Boolean> changeState(final UUID id, final Instance.State state, final String deployedHash) {
+        return this.cqlTemplate.update(query(where("id").is(id)),
+                update("state", state.ordinal()).set("deployedHash", deployedHash), Instance.class);
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository.cassandra;
+
+import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import reactor.core.publisher.Mono;
+
+/**
+ * Custom repository for ente category property
+ *
+ * @author David Suárez
+ */
+public interface CustomEnteCategoryPropertyRepository {
+
+    /**
+     * Set the type of the property only if the type is None yet (conditional update)
+     * @param id the property id (enteCategoryId, propertyId)
+     * @param type the type to set
+     * @return the type of the property after the update. If other has set the type before,
+     * the type set by other is returned. Empty if the property is not found
+     */
+    Mono<EnteProperty.Type> setTypeIfNone(final RelationKey id, final EnteProperty.Type type);
+
+    /**
+     * Set the type of the property only if the actual type is the expected (conditional update).
+     * The type is only written by conditional updates, so the writes of the parallel links are not lost
+     * @param id the property id (enteCategoryId, propertyId)
+     * @param expected the actual type
+     * @param type the type to set
+     * @return the type of the property after the update. If other has changed the type before,
+     * the type set by other is returned. Empty if the property is not found
+     */
+    Mono<EnteProperty.Type> setTypeIf(final RelationKey id, final EnteProperty.Type expected,
+                                      final EnteProperty.Type type);
+
+    /**
+     * Update the name and the type of the property only if the actual type is the expected (conditional update),
+     * so the name is not written when the type can not be changed
+     * @param id the property id (enteCategoryId, propertyId)
+     * @param name the new name
+     * @param expected the actual type
+     * @param type the type to set
+     * @return true if the update is applied. False if the type has been changed by other or the property
+     * is not found
+     */
+    Mono<Boolean> updateNameAndTypeIf(final RelationKey id, final String name, final EnteProperty.Type expected,
+                                      final EnteProperty.Type type);
+
+    /**
+     * Update the name of the property. The type is not written (@see setTypeIf)
+     * @param id the property id (enteCategoryId, propertyId)
+     * @param name the new name
+     * @return false if the property is not found
+     */
+    Mono<Boolean> updateName(final RelationKey id, final String name);
+}
@@ -25,5 +25,6 @@ import org.springframework.data.cassandra.core.mapping.MapId;
  *
  * @author David Suárez
  */
-public interface EnteCategoryPropertyRepository extends DependencyRelationRepository<EnteCategoryProperty, MapId> {
+public interface EnteCategoryPropertyRepository
+        extends DependencyRelationRepository<EnteCategoryProperty, MapId>, CustomEnteCategoryPropertyRepository {
 }
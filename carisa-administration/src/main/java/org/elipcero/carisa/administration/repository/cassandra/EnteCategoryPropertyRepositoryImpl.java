@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository.cassandra;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
+import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implement custom repository for ente category property
+ *
+ * @author David Suárez
+ */
+@Repository
+@RequiredArgsConstructor
+public class EnteCategoryPropertyRepositoryImpl implements CustomEnteCategoryPropertyRepository {
+
+    private static final String TABLE_NAME = "carisa_ente_category_property";
+    private static final String TYPE_COLUMN_NAME = "type";
+    private static final String NAME_COLUMN_NAME = "name";
+    private static final String APPLIED_COLUMN_NAME = "[applied]";
+
+    @NonNull
+    private final ReactiveCassandraOperations cqlTemplate;
+
+    /**
+     * The lightweight transaction returns the actual type when the condition is not applied, so only one
+     * statement is executed. If the property doesn't exist, the type column is not returned
+     * @see CustomEnteCategoryPropertyRepository
+     */
+    @Override
+    public Mono<EnteProperty.Type> setTypeIfNone(final RelationKey id, final EnteProperty.Type type) {
+        return this.setTypeIf(id, EnteProperty.Type.None, type);
+    }
+
+    /**
+     * @see CustomEnteCategoryPropertyRepository
+     */
+    @Override
+    public Mono<EnteProperty.Type> setTypeIf(
+            final RelationKey id, final EnteProperty.Type expected, final EnteProperty.Type type) {
+
+        return this.cqlTemplate.getReactiveCqlOperations()
+                .queryForRows(
+                        String.format("UPDATE %s SET %s = ? WHERE %s = ? AND %s = ? IF %s = ?",
+                                TABLE_NAME, TYPE_COLUMN_NAME,
+                                EnteCategoryProperty.ENTECATEGORYID_COLUMN_NAME, EnteCategoryProperty.ID_COLUMN_NAME,
+                                TYPE_COLUMN_NAME),
+                        type.ordinal(), id.getParentId(), id.getChildId(), expected == null ? null : expected.ordinal())
+                .next()
+                .flatMap(row -> {
+                    if (row.getBool(APPLIED_COLUMN_NAME)) {
+                        return Mono.just(type);
+                    }
+                    if (!row.getColumnDefinitions().contains(TYPE_COLUMN_NAME)) {
+                        return Mono.empty();
+                    }
+                    return Mono.just(row.isNull(TYPE_COLUMN_NAME) ?
+                            EnteProperty.Type.None :
+                            EnteProperty.Type.values()[row.getInt(TYPE_COLUMN_NAME)]);
+                });
+    }
+
+    /**
+     * @see CustomEnteCategoryPropertyRepository
+     */
+    @Override
+    public Mono<Boolean> updateNameAndTypeIf(final RelationKey id, final String name,
+                                             final EnteProperty.Type expected, final EnteProperty.Type type) {
+
+        return this.cqlTemplate.getReactiveCqlOperations()
+                .queryForRows(
+                        String.format("UPDATE %s SET %s = ?, %s = ? WHERE %s = ? AND %s = ? IF %s = ?",
+                                TABLE_NAME, NAME_COLUMN_NAME, TYPE_COLUMN_NAME,
+                                EnteCategoryProperty.ENTECATEGORYID_COLUMN_NAME, EnteCategoryProperty.ID_COLUMN_NAME,
+                                TYPE_COLUMN_NAME),
+                        name, type.ordinal(), id.getParentId(), id.getChildId(),
+                        expected == null ? null : expected.ordinal())
+                .next()
+                .map(row -> row.getBool(APPLIED_COLUMN_NAME));
+    }
+
+    /**
+     * The update is conditional (IF EXISTS), so the property is not created by the update
+     * @see CustomEnteCategoryPropertyRepository
+     */
+    @Override
+    public Mono<Boolean> updateName(final RelationKey id, final String name) {
+        return this.cqlTemplate.getReactiveCqlOperations()
+                .queryForRows(
+                        String.format("UPDATE %s SET %s = ? WHERE %s = ? AND %s = ? IF EXISTS",
+                                TABLE_NAME, NAME_COLUMN_NAME,
+                                EnteCategoryProperty.ENTECATEGORYID_COLUMN_NAME, EnteCategoryProperty.ID_COLUMN_NAME),
+                        name, id.getParentId(), id.getChildId())
+                .next()
+                .map(row -> row.getBool(APPLIED_COLUMN_NAME));
+    }
+}
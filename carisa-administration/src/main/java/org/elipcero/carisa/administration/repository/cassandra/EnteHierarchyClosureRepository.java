@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository.cassandra;
+
+import org.elipcero.carisa.administration.domain.EnteHierarchyClosure;
+import org.elipcero.carisa.core.reactive.data.CustomizedReactiveCrudRepository;
+import org.springframework.data.cassandra.core.mapping.MapId;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Repository for the closure table of the ente hierarchy
+ *
+ * @author David Suárez
+ */
+public interface EnteHierarchyClosureRepository extends CustomizedReactiveCrudRepository<EnteHierarchyClosure, MapId> {
+
+    /**
+     * Get the ancestors or the descendants of the node. Only one partition is read
+     *
+     * @param nodeId node identifier
+     * @param ancestor true -> ancestors; false -> descendants
+     * @return closure rows
+     */
+    Flux<EnteHierarchyClosure> findAllByNodeIdAndAncestor(UUID nodeId, boolean ancestor);
+
+    /**
+     * Get the ancestors or the descendants of the node that are related. Only one partition is read
+     *
+     * @param nodeId node identifier
+     * @param ancestor true -> ancestors; false -> descendants
+     * @param relatedIds the related nodes
+     * @return closure rows
+     */
+    Flux<EnteHierarchyClosure> findAllByNodeIdAndAncestorAndRelatedIdIn(
+            UUID nodeId, boolean ancestor, Collection<UUID> relatedIds);
+}
@@ -18,11 +18,17 @@ package org.elipcero.carisa.administration.service;
 
 import lombok.NonNull;
 import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.administration.exception.InvalidFormatException;
 import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * @see DynamicObjectInstancePropertyService
@@ -43,7 +49,7 @@ public class DefaultDynamicObjectInstancePropertyService implements DynamicObjec
      * @see DynamicObjectInstancePropertyService
      */
     @Override
-    public Mono<DynamicObjectInstanceProperty<?>> getById(final Map<String, Object> id) {
+    public Mono<DynamicObjectInstanceProperty<?>> getById(final RelationKey id) {
         return this.instancePropertyRelation.getById(id);
     }
 
@@ -68,4 +74,33 @@ public class DefaultDynamicObjectInstancePropertyService implements DynamicObjec
                         },
                         () -> this.create(property));
     }
+
+    /**
+     * @see DynamicObjectInstancePropertyService
+     */
+    @Override
+    public Flux<DynamicObjectInstanceProperty<?>> updateOrCreateAll(
+            final UUID instanceId, final List<DynamicObjectInstanceProperty<?>> properties) {
+
+        Set<UUID> ids = new HashSet<>();
+
+        for (DynamicObjectInstanceProperty<?> property : properties) {
+            if (property.getValue() == null) {
+                return Flux.error(new InvalidFormatException("The value of the property can not be null"));
+            }
+            if (property.getParentId() == null) {
+                property.setParentId(instanceId);
+            }
+            else if (!property.getParentId().equals(instanceId)) {
+                return Flux.error(new InvalidFormatException(
+                        String.format("The property instance: '%s' must be: '%s'", property.getParentId(), instanceId)));
+            }
+            if (!ids.add(property.tryInitId().getId())) {
+                return Flux.error(new InvalidFormatException(
+                        String.format("The property: '%s' is repeated", property.getId())));
+            }
+        }
+
+        return this.instancePropertyRelation.saveAllByParent(instanceId, properties);
+    }
 }
@@ -19,10 +19,10 @@ package org.elipcero.carisa.administration.service;
 import lombok.NonNull;
 import org.elipcero.carisa.administration.domain.DynamicObjectPrototypeProperty;
 import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 
 /**
  * @see DynamicObjectPrototypePropertyService
@@ -43,7 +43,7 @@ public class DefaultDynamicObjectPrototypePropertyService implements DynamicObje
      * @see DynamicObjectPrototypePropertyService
      */
     @Override
-    public Mono<DynamicObjectPrototypeProperty> getById(final Map<String, Object> id) {
+    public Mono<DynamicObjectPrototypeProperty> getById(final RelationKey id) {
         return this.prototypePropertyRelation.getById(id);
     }
 
@@ -19,26 +19,35 @@ package org.elipcero.carisa.administration.service;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.elipcero.carisa.administration.domain.Ente;
-import org.elipcero.carisa.administration.domain.EnteCategory;
 import org.elipcero.carisa.administration.domain.EnteCategoryLinkProperty;
 import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
-import org.elipcero.carisa.administration.domain.EnteHierarchy;
 import org.elipcero.carisa.administration.domain.EnteProperty;
 import org.elipcero.carisa.administration.domain.support.Named;
 import org.elipcero.carisa.administration.domain.support.PropertyType;
 import org.elipcero.carisa.administration.exception.NotMatchingTypeException;
 import org.elipcero.carisa.administration.projection.EnteHierachyName;
+import org.elipcero.carisa.administration.repository.cassandra.EnteCategoryPropertyRepository;
+import org.elipcero.carisa.administration.service.support.PropertyTypeCache;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.ParentChildName;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationRefNotFoundException;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyConnectionInfo;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -49,6 +58,11 @@ import java.util.function.Function;
 @RequiredArgsConstructor
 public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyService {
 
+    public static final int LEAVES_CONCURRENCY = 8;
+    public static final int TYPE_CACHE_SIZE = 10_000;
+    // The type can be changed by other node, so a matching cached type can be old up to this time
+    public static final Duration TYPE_CACHE_TIME_TO_LIVE = Duration.ofMinutes(1);
+
     @NonNull
     private final EmbeddedDependencyRelation<EnteCategoryProperty> enteCategoryPropertyRelation;
 
@@ -56,16 +70,24 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
     private final MultiplyDependencyRelation<EnteCategoryProperty, Ente, EnteCategoryLinkProperty> linkEnteRelation;
 
     @NonNull
-    private final MultiplyDependencyRelation<EnteCategory, Ente, EnteHierarchy> enteHierarchyRelation;
+    private final EmbeddedDependencyRelation<EnteProperty> entePropertyRelation;
 
     @NonNull
-    private final EmbeddedDependencyRelation<EnteProperty> entePropertyRelation;
+    private final EnteHierarchyGraphService enteHierarchyGraphService;
+
+    @NonNull
+    private final HierarchyVersionService hierarchyVersionService;
+
+    @NonNull
+    private final EnteCategoryPropertyRepository enteCategoryPropertyRepository;
+
+    private final PropertyTypeCache propertyTypeCache = new PropertyTypeCache(TYPE_CACHE_SIZE, TYPE_CACHE_TIME_TO_LIVE);
 
     /**
      * @see EnteCategoryPropertyService
      */
     @Override
-    public Mono<EnteCategoryProperty> getById(final Map<String, Object> id) {
+    public Mono<EnteCategoryProperty> getById(final RelationKey id) {
         return this.enteCategoryPropertyRelation.getById(id);
     }
 
@@ -78,6 +100,9 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
     }
 
     /**
+     * The type is fixed by the links with conditional updates, so the update doesn't write the whole property
+     * (the type read could be old). If the type is updated, the name and the type are written in the same
+     * conditional update, so nothing is written when the type can not be changed
      * @see EnteCategoryPropertyService
      */
     @Override
@@ -85,15 +110,15 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
             final EnteCategoryProperty enteCategoryProperty,
             final boolean updateType) {
 
-        return this.enteCategoryPropertyRelation
-                .updateOrCreate(enteCategoryProperty,
-                        enteCategoryPropertyForUpdating -> {
-                            enteCategoryPropertyForUpdating.setName(enteCategoryProperty.getName());
-                            if (updateType) {
-                                enteCategoryPropertyForUpdating.setType(enteCategoryProperty.getType());
-                            }
-                        },
-                        () -> this.create(enteCategoryProperty));
+        RelationKey key = EnteCategoryProperty.GetKey(enteCategoryProperty.getParentId(), enteCategoryProperty.getId());
+        return (updateType ?
+                    this.updateNameAndType(key, enteCategoryProperty.getName(), enteCategoryProperty.getType()) :
+                    this.enteCategoryPropertyRepository.updateName(key, enteCategoryProperty.getName()))
+                .flatMap(updated -> updated ?
+                        this.getById(key)
+                                .map(entity -> this.dataState(EntityDataState.State.updated, entity)) :
+                        this.create(enteCategoryProperty)
+                                .map(entity -> this.dataState(EntityDataState.State.created, entity)));
     }
 
     /**
@@ -115,15 +140,7 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
      */
     @Override
     public Flux<EnteHierachyName> getChildren(final UUID enteCategoryPropertyId) {
-        return this.linkEnteRelation.getChildrenByParent(
-                enteCategoryPropertyId, relation
-                        -> relation.isCategory() ?
-                        this.enteCategoryPropertyRelation.getById(
-                                EnteCategoryProperty.GetMapId(relation.getParentLinkId(), relation.getLinkId()))
-                                .cast(Named.class) :
-                        this.entePropertyRelation.getById(
-                                EnteProperty.GetMapId(relation.getParentLinkId(), relation.getLinkId()))
-                                .cast(Named.class))
+        return this.linkEnteRelation.getChildrenByParentInBatch(enteCategoryPropertyId, this::findLinkedProperties)
                 .map(child -> EnteHierachyName
                         .builder()
                             .parentId(child.getRelation().getParentLinkId())
@@ -133,6 +150,41 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
                         .build());
     }
 
+    /**
+     * @see EnteCategoryPropertyService
+     */
+    @Override
+    public Flux<EnteHierachyName> getLeaves(final UUID enteCategoryPropertyId) {
+        Set<UUID> visitedCategoryProperties = ConcurrentHashMap.newKeySet();
+        visitedCategoryProperties.add(enteCategoryPropertyId);
+        return this.getLeavesLevel(
+                Collections.singletonList(enteCategoryPropertyId), visitedCategoryProperties, ConcurrentHashMap.newKeySet());
+    }
+
+    // Each level of links is read in parallel. The leaves are streamed and the category properties
+    // not visited yet build the next level, so the shared links are expanded only once and the cycles are cut
+    private Flux<EnteHierachyName> getLeavesLevel(
+            final List<UUID> categoryPropertyIds, final Set<UUID> visitedCategoryProperties,
+            final Set<RelationKey> visitedLeaves) {
+
+        if (categoryPropertyIds.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Flux<EnteHierachyName> level = Flux.fromIterable(categoryPropertyIds)
+                .flatMap(this::getChildren, LEAVES_CONCURRENCY)
+                .filter(child -> child.isCategory() ?
+                        visitedCategoryProperties.add(child.getChildId()) :
+                        visitedLeaves.add(RelationKey.of(child.getParentId(), child.getChildId())))
+                .cache();
+
+        return level.filter(child -> !child.isCategory())
+                .concatWith(level.filter(EnteHierachyName::isCategory)
+                        .map(EnteHierachyName::getChildId)
+                        .collectList()
+                        .flatMapMany(nextIds -> this.getLeavesLevel(nextIds, visitedCategoryProperties, visitedLeaves)));
+    }
+
     /**
      * @see EnteCategoryPropertyService
      */
@@ -140,10 +192,10 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
     public Mono<EnteCategoryProperty> connectToEnte(final UUID enteCategoryId, final UUID categoryPropertyId,
                                                   final UUID enteId, final UUID entePropertyId) {
 
-        return enteHierarchyRelation.existsById(EnteHierarchy.GetMapId(enteCategoryId, enteId)) // Look at children
+        return this.enteHierarchyGraphService.isChild(enteCategoryId, enteId) // Look at children
                 .flatMap(exists -> {
                     if (exists) { // Only properties of the children of the actual catalog can be referenced
-                        return this.entePropertyRelation.getById(EnteProperty.GetMapId(enteId, entePropertyId))
+                        return this.entePropertyRelation.getById(EnteProperty.GetKey(enteId, entePropertyId))
                                 .flatMap(setCategoryPropertyType(enteCategoryId, categoryPropertyId, entePropertyId))
                                 .flatMap(enteProp -> this.linkEnteRelation.connectTo(
                                         EnteCategoryLinkProperty.builder()
@@ -161,7 +213,8 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
                         return monoErrorIncorrectReferenceToConnect(enteCategoryId);
                     }
                 })
-                .map(MultiplyDependencyConnectionInfo::getParent);
+                .map(MultiplyDependencyConnectionInfo::getParent)
+                .flatMap(this.changeHierarchyVersion(enteCategoryId));
     }
 
     /**
@@ -172,10 +225,10 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
             final UUID enteCategoryId, final UUID categoryPropertyId,
             final UUID linkedEnteCategoryId, final UUID linkedCategoryPropertyId) {
 
-        return enteHierarchyRelation.existsById(EnteHierarchy.GetMapId(enteCategoryId, linkedEnteCategoryId))
+        return this.enteHierarchyGraphService.isChild(enteCategoryId, linkedEnteCategoryId)
                 .flatMap(exists -> {
                     if (exists) { // Only properties of the children of the actual catalog can be referenced
-                        return this.getById(EnteCategoryProperty.GetMapId(
+                        return this.getById(EnteCategoryProperty.GetKey(
                                     linkedEnteCategoryId, linkedCategoryPropertyId))
                                 .flatMap(this.setCategoryPropertyType(
                                         enteCategoryId, categoryPropertyId, linkedCategoryPropertyId))
@@ -196,7 +249,8 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
                         return monoErrorIncorrectReferenceToConnect(enteCategoryId);
                     }
                 })
-                .map(MultiplyDependencyConnectionInfo::getParent);
+                .map(MultiplyDependencyConnectionInfo::getParent)
+                .flatMap(this.changeHierarchyVersion(enteCategoryId));
     }
 
     // All types of the property of the linked items must be the same.
@@ -204,26 +258,104 @@ public class DefaultEnteCategoryPropertyService implements EnteCategoryPropertyS
     private Function<PropertyType, Mono<PropertyType>> setCategoryPropertyType(
             final UUID enteCategoryId, final UUID categoryPropertyId, final UUID linkedPropertyId) {
 
-        return enteProp -> this.getById(EnteCategoryProperty.GetMapId(enteCategoryId, categoryPropertyId))
-            .flatMap(categoryProp -> {
-                if (categoryProp.getType() == EnteProperty.Type.None) {
-                    categoryProp.setType(enteProp.getType());
-                    return this.updateOrCreate(categoryProp, true).map(__ -> enteProp);
-                }
-                else {
-                    if (enteProp.getType() != categoryProp.getType()) {
-                        throw new NotMatchingTypeException(
-                                String.format(
-                                 "The type of linked ente property: '{0}' must be: '{1}'",
-                                        linkedPropertyId, categoryProp.getType()));
-                    }
-                    return Mono.just(enteProp);
+        RelationKey categoryPropertyKey = EnteCategoryProperty.GetKey(enteCategoryId, categoryPropertyId);
+        return enteProp -> this.resolveCategoryPropertyType(categoryPropertyKey, enteProp.getType())
+            .map(categoryPropType -> {
+                if (enteProp.getType() != categoryPropType) {
+                    throw new NotMatchingTypeException(
+                            String.format(
+                             "The type of linked ente property: '{0}' must be: '{1}'",
+                                    linkedPropertyId, categoryPropType));
                 }
+                return enteProp;
             })
             .switchIfEmpty(Mono.error(new DependencyRelationRefNotFoundException(
                      String.format("The category property with ID: '%s' not found", categoryPropertyId))));
     }
 
+    // The resolved type is read from the cache. If it is not cached, the type is fixed with a conditional
+    // update (only if it is None yet) that returns the actual type, so the parallel links are not
+    // serialized on reading and the first link wins. The cached type that does not match can be old
+    // (changed by other node), so it is invalidated and checked again.
+    // The cached type that matches is trusted without reading the database up to TYPE_CACHE_TIME_TO_LIVE.
+    // It is only old if other node changes a fixed type with updateOrCreate (updateType = true), so in this
+    // window a link with the old type can be connected
+    private Mono<EnteProperty.Type> resolveCategoryPropertyType(
+            final RelationKey categoryPropertyKey, final EnteProperty.Type linkedType) {
+
+        EnteProperty.Type type = this.propertyTypeCache.get(categoryPropertyKey);
+        if (type == linkedType) {
+            return Mono.just(type);
+        }
+        if (type != null) {
+            this.propertyTypeCache.invalidate(categoryPropertyKey);
+        }
+        return this.enteCategoryPropertyRepository.setTypeIfNone(categoryPropertyKey, linkedType)
+                .doOnNext(typeFixed -> this.propertyTypeCache.put(categoryPropertyKey, typeFixed));
+    }
+
+    // The type is changed only if nobody has changed it since it was read. If other has changed it to the same
+    // type, only the name is updated. Write through. False if the property is not found
+    private Mono<Boolean> updateNameAndType(final RelationKey key, final String name, final EnteProperty.Type type) {
+        return this.getById(key)
+                .flatMap(property -> property.getType() == type ?
+                        this.enteCategoryPropertyRepository.updateName(key, name) :
+                        this.enteCategoryPropertyRepository.updateNameAndTypeIf(key, name, property.getType(), type)
+                                .flatMap(applied -> applied ?
+                                        Mono.just(true) :
+                                        this.getById(key)
+                                                .flatMap(actual -> this.updateNameIfType(key, name, actual, type)))
+                                .doOnNext(__ -> this.propertyTypeCache.put(key, type)))
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Boolean> updateNameIfType(final RelationKey key, final String name,
+                                           final EnteCategoryProperty actual, final EnteProperty.Type type) {
+        if (actual.getType() == type) {
+            return this.enteCategoryPropertyRepository.updateName(key, name);
+        }
+        this.propertyTypeCache.put(key, actual.getType());
+        return Mono.error(new NotMatchingTypeException(
+                String.format("The type of the category property: '%s' has been changed to: '%s' by other process",
+                        key.getChildId(), actual.getType())));
+    }
+
+    private EntityDataState<EnteCategoryProperty> dataState(
+            final EntityDataState.State state, final EnteCategoryProperty entity) {
+
+        return EntityDataState.<EnteCategoryProperty>
+                builder()
+                    .domainState(state)
+                    .entity(entity)
+                .build();
+    }
+
+    // The links are split in category and ente links. Each one is read grouped by partition (parentLinkId)
+    // so that only a query is executed by partition instead of a query by link
+    private Flux<Tuple2<EnteCategoryLinkProperty, Named>> findLinkedProperties(
+            final List<EnteCategoryLinkProperty> links) {
+
+        Map<RelationKey, EnteCategoryLinkProperty> categoryLinks = new HashMap<>();
+        Map<RelationKey, EnteCategoryLinkProperty> enteLinks = new HashMap<>();
+        for (EnteCategoryLinkProperty link : links) {
+            (link.isCategory() ? categoryLinks : enteLinks)
+                    .put(RelationKey.of(link.getParentLinkId(), link.getLinkId()), link);
+        }
+
+        return Flux.merge(
+                this.enteCategoryPropertyRelation.getAllById(Flux.fromIterable(categoryLinks.keySet()))
+                        .map(prop -> Tuples.of(categoryLinks.get(prop.getT1()), (Named) prop.getT2())),
+                this.entePropertyRelation.getAllById(Flux.fromIterable(enteLinks.keySet()))
+                        .map(prop -> Tuples.of(enteLinks.get(prop.getT1()), (Named) prop.getT2())));
+    }
+
+    // The links are part of the data reached from the hierarchy
+    private <T> Function<T, Mono<T>> changeHierarchyVersion(final UUID enteCategoryId) {
+        return value -> this.enteHierarchyGraphService.getSpaceId(enteCategoryId)
+                .doOnSuccess(this.hierarchyVersionService::increment)
+                .thenReturn(value);
+    }
+
     private static Mono<? extends MultiplyDependencyConnectionInfo<EnteCategoryProperty, Mono<PropertyType>>>
         monoErrorIncorrectReferenceToConnect(UUID enteCategoryId) {
 
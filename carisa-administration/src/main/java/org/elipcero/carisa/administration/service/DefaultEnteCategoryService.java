@@ -22,9 +22,13 @@ import org.elipcero.carisa.administration.domain.EnteCategory;
 import org.elipcero.carisa.administration.domain.EnteHierarchy;
 import org.elipcero.carisa.administration.domain.Space;
 import org.elipcero.carisa.administration.domain.support.Named;
+import org.elipcero.carisa.administration.exception.HierarchyCycleException;
 import org.elipcero.carisa.administration.projection.EnteHierachyName;
+import org.elipcero.carisa.administration.projection.EnteHierarchyNode;
+import org.elipcero.carisa.administration.projection.NameSearchResult;
 import org.elipcero.carisa.administration.repository.EnteCategoryRepository;
 import org.elipcero.carisa.administration.repository.EnteRepository;
+import org.elipcero.carisa.administration.service.support.SpaceHierarchyLock;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.reactive.data.DependencyRelationCreateCommand;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyConnectionInfo;
@@ -32,7 +36,11 @@ import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @see EnteCategoryService
@@ -42,6 +50,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class DefaultEnteCategoryService implements EnteCategoryService {
 
+    public static final int TREE_CONCURRENCY = 8;
+
     @NonNull
     private final EnteCategoryRepository enteCategoryRepository;
 
@@ -54,6 +64,18 @@ public class DefaultEnteCategoryService implements EnteCategoryService {
     @NonNull
     private final EnteRepository enteRepository;
 
+    @NonNull
+    private final EnteHierarchyClosureService enteHierarchyClosureService;
+
+    @NonNull
+    private final EnteHierarchyGraphService enteHierarchyGraphService;
+
+    @NonNull
+    private final NameSearchService nameSearchService;
+
+    @NonNull
+    private final SpaceHierarchyLock spaceHierarchyLock;
+
     /**
      * @see EnteCategoryService
      */
@@ -83,12 +105,18 @@ public class DefaultEnteCategoryService implements EnteCategoryService {
                     }
                 };
 
-        if (enteCategory.isRoot()) {
-            return this.spaceHierarchyRelation.create(commandCreate);
-        }
-        else {
-            return this.enteCategoryHierarchyRelation.create(commandCreate);
-        }
+        Mono<EnteCategory> created = enteCategory.isRoot() ?
+                this.spaceHierarchyRelation.create(commandCreate) :
+                this.enteCategoryHierarchyRelation.create(commandCreate);
+
+        // The root parent is a space. The closure is connected under the lock of the space
+        return created.flatMap(category -> this.getSpaceIdOfParent(category)
+                .flatMap(spaceId -> this.spaceHierarchyLock.execute(spaceId, this.enteHierarchyClosureService
+                        .connect(category.getParentId(), !category.isRoot(), category.getId(), true)
+                        .then(this.enteHierarchyGraphService
+                                .connect(category.getParentId(), !category.isRoot(), category.getId(), true))))
+                .then(Mono.defer(() -> this.putName(category))) // The space is known after connecting
+                .thenReturn(category));
     }
 
     /**
@@ -100,7 +128,8 @@ public class DefaultEnteCategoryService implements EnteCategoryService {
         return this.enteCategoryRepository
                 .updateCreate(id,
                         enteCategoryForUpdating -> enteCategoryForUpdating.setName(enteCategory.getName()),
-                        () -> this.create(enteCategory));
+                        () -> this.create(enteCategory))
+                .flatMap(state -> this.putName(state.getEntity()).thenReturn(state));
     }
 
     /**
@@ -122,16 +151,95 @@ public class DefaultEnteCategoryService implements EnteCategoryService {
                         .build());
     }
 
+    /**
+     * @see EnteCategoryService
+     */
+    @Override
+    public Flux<EnteHierarchyNode> getTree(final UUID enteCategoryId, final int maxDepth) {
+        Set<UUID> visited = ConcurrentHashMap.newKeySet();
+        visited.add(enteCategoryId);
+        return this.getTreeLevel(Collections.singletonList(enteCategoryId), 1, maxDepth, visited);
+    }
+
+    // Each level is read in parallel and streamed. The next level is built from the categories of this level
+    private Flux<EnteHierarchyNode> getTreeLevel(
+            final List<UUID> parentIds, final int depth, final int maxDepth, final Set<UUID> visited) {
+
+        if (parentIds.isEmpty() || depth > maxDepth) {
+            return Flux.empty();
+        }
+
+        Flux<EnteHierarchyNode> level = Flux.fromIterable(parentIds)
+                .flatMap(this::getChildren, TREE_CONCURRENCY)
+                .filter(child -> visited.add(child.getChildId())) // Avoid duplicates and cycles
+                .map(child -> EnteHierarchyNode
+                        .builder()
+                            .id(child.getChildId())
+                            .parentId(child.getParentId())
+                            .name(child.getChildName())
+                            .depth(depth)
+                            .category(child.isCategory())
+                        .build())
+                .cache();
+
+        return level.concatWith(
+                level.filter(EnteHierarchyNode::isCategory)
+                        .map(EnteHierarchyNode::getId)
+                        .collectList()
+                        .flatMapMany(nextParentIds -> this.getTreeLevel(nextParentIds, depth + 1, maxDepth, visited)));
+    }
+
     /**
      * @see EnteCategoryService
      */
     @Override
     public Mono<EnteCategory> connectToParent(UUID childId, UUID parentId) {
-        return this.enteCategoryHierarchyRelation.connectTo(
-                EnteHierarchy.builder()
-                    .parentId(parentId)
-                    .id(childId)
-                    .category(true)
-                .build()).map(MultiplyDependencyConnectionInfo::getChild);
+        // The cycle check and the connection are executed under the lock of the space of the parent,
+        // so two parallel connections can not create a cycle (the cycles are only created into a space)
+        return this.enteHierarchyGraphService.getSpaceId(parentId)
+                .defaultIfEmpty(parentId)
+                .flatMap(spaceId -> this.spaceHierarchyLock.execute(spaceId,
+                        this.checkAndConnectToParent(childId, parentId)));
+    }
+
+    private Mono<EnteCategory> checkAndConnectToParent(final UUID childId, final UUID parentId) {
+        return this.enteHierarchyGraphService.createsCycle(parentId, childId)
+                .flatMap(cycle -> {
+                    if (cycle) {
+                        return Mono.error(new HierarchyCycleException(String.format(
+                                "The ente category: '%s' can't be connected to its descendant: '%s'",
+                                childId, parentId)));
+                    }
+                    return this.enteCategoryHierarchyRelation.connectTo(
+                            EnteHierarchy.builder()
+                                .parentId(parentId)
+                                .id(childId)
+                                .category(true)
+                            .build());
+                })
+                .map(MultiplyDependencyConnectionInfo::getChild)
+                .flatMap(child -> this.enteHierarchyClosureService
+                        .connect(parentId, true, childId, true)
+                        .then(this.enteHierarchyGraphService.connect(parentId, true, childId, false))
+                        .then(this.enteHierarchyGraphService.getSpaceId(parentId))
+                        .doOnNext(spaceId -> this.nameSearchService.connect(spaceId, childId))
+                        .thenReturn(child));
+    }
+
+    private Mono<UUID> getSpaceIdOfParent(final EnteCategory enteCategory) {
+        return enteCategory.isRoot() ?
+                Mono.just(enteCategory.getParentId()) :
+                this.enteHierarchyGraphService.getSpaceId(enteCategory.getParentId())
+                        .defaultIfEmpty(enteCategory.getParentId());
+    }
+
+    // The root parent is the space. The parent is not stored, so it's null when the category is read
+    private Mono<UUID> putName(final EnteCategory enteCategory) {
+        Mono<UUID> spaceId = enteCategory.isRoot() && enteCategory.getParentId() != null ?
+                Mono.just(enteCategory.getParentId()) :
+                this.enteHierarchyGraphService.getSpaceId(enteCategory.getId());
+        return spaceId
+                .doOnNext(space -> this.nameSearchService.put(
+                        space, enteCategory.getId(), enteCategory.getName(), NameSearchResult.Type.EnteCategory));
     }
 }
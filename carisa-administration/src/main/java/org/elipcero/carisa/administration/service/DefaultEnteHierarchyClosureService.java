@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.elipcero.carisa.administration.domain.EnteHierarchyClosure;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHierarchyClosureRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHirarchyRepository;
+import org.elipcero.carisa.administration.service.support.SpaceHierarchyLock;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * @see EnteHierarchyClosureService
+ *
+ * @author David Suárez
+ */
+@RequiredArgsConstructor
+public class DefaultEnteHierarchyClosureService implements EnteHierarchyClosureService {
+
+    public static final int PARTITION_CONCURRENCY = 8;
+
+    @NonNull
+    private final EnteHierarchyClosureRepository enteHierarchyClosureRepository;
+
+    @NonNull
+    private final EnteHirarchyRepository enteHirarchyRepository;
+
+    @NonNull
+    private final SpaceHierarchyLock spaceHierarchyLock;
+
+    /**
+     * @see EnteHierarchyClosureService
+     */
+    @Override
+    public Mono<Void> connect(final UUID parentId, final boolean parentCategory,
+                              final UUID childId, final boolean childCategory) {
+
+        // The node itself is added with depth 0 to connect it too
+        Mono<List<EnteHierarchyClosure>> ancestors =
+                Flux.concat(
+                        Mono.just(self(parentId, parentCategory)),
+                        this.getAncestors(parentId))
+                .collectList();
+
+        Mono<List<EnteHierarchyClosure>> descendants =
+                Flux.concat(
+                        Mono.just(self(childId, childCategory)),
+                        this.getDescendants(childId))
+                .collectList();
+
+        return Mono.zip(ancestors, descendants)
+                .flatMapMany(nodes -> {
+                    // Grouped by partition: the descendants of each ancestor and the ancestors of each descendant
+                    Map<UUID, List<EnteHierarchyClosure>> descendantRows = new LinkedHashMap<>();
+                    Map<UUID, List<EnteHierarchyClosure>> ancestorRows = new LinkedHashMap<>();
+                    for (EnteHierarchyClosure ancestor : nodes.getT1()) {
+                        for (EnteHierarchyClosure descendant : nodes.getT2()) {
+                            int depth = ancestor.getDepth() + descendant.getDepth() + 1;
+                            descendantRows.computeIfAbsent(ancestor.getRelatedId(), __ -> new ArrayList<>())
+                                    .add(row(ancestor.getRelatedId(), false, descendant, depth));
+                            ancestorRows.computeIfAbsent(descendant.getRelatedId(), __ -> new ArrayList<>())
+                                    .add(row(descendant.getRelatedId(), true, ancestor, depth));
+                        }
+                    }
+                    return Flux.concat(
+                            Flux.fromIterable(descendantRows.values()), Flux.fromIterable(ancestorRows.values()));
+                })
+                .flatMap(this::savePartition, PARTITION_CONCURRENCY)
+                .then();
+    }
+
+    /**
+     * @see EnteHierarchyClosureService
+     */
+    @Override
+    public Mono<Long> backfill(final UUID spaceId) {
+        // Breadth-first from the space following the categories. The relations are streamed and each one
+        // is connected under the lock of the space, so the lock is not held during all the backfill
+        Set<UUID> visited = ConcurrentHashMap.newKeySet();
+        return this.enteHirarchyRepository.findAllByParentId(spaceId)
+                .expand(relation -> relation.isCategory() && visited.add(relation.getId()) ?
+                        this.enteHirarchyRepository.findAllByParentId(relation.getId()) :
+                        Flux.empty())
+                .concatMap(relation -> this.spaceHierarchyLock.execute(spaceId, this.connect(
+                        relation.getParentId(), !relation.getParentId().equals(spaceId), // The root parent is the space
+                        relation.getId(), relation.isCategory())))
+                .count();
+    }
+
+    /**
+     * @see EnteHierarchyClosureService
+     */
+    @Override
+    public Flux<EnteHierarchyClosure> getDescendants(final UUID nodeId) {
+        return this.enteHierarchyClosureRepository.findAllByNodeIdAndAncestor(nodeId, false);
+    }
+
+    /**
+     * @see EnteHierarchyClosureService
+     */
+    @Override
+    public Flux<EnteHierarchyClosure> getDescendants(final UUID nodeId, final int maxDepth) {
+        return this.getDescendants(nodeId).filter(descendant -> descendant.getDepth() <= maxDepth);
+    }
+
+    /**
+     * @see EnteHierarchyClosureService
+     */
+    @Override
+    public Flux<EnteHierarchyClosure> getAncestors(final UUID nodeId) {
+        return this.enteHierarchyClosureRepository.findAllByNodeIdAndAncestor(nodeId, true);
+    }
+
+    /**
+     * @see EnteHierarchyClosureService
+     */
+    @Override
+    public Mono<Boolean> isAncestor(final UUID ancestorId, final UUID descendantId) {
+        return this.enteHierarchyClosureRepository.existsById(
+                EnteHierarchyClosure.GetMapId(ancestorId, false, descendantId));
+    }
+
+    // The rows of a partition (only ancestors or only descendants) are written in one batch, so the partition
+    // is updated atomically. Only the new rows and the rows that shorten the depth are written
+    private Mono<Void> savePartition(final List<EnteHierarchyClosure> closures) {
+        EnteHierarchyClosure first = closures.get(0);
+        List<UUID> relatedIds = closures.stream().map(EnteHierarchyClosure::getRelatedId).collect(Collectors.toList());
+        return this.enteHierarchyClosureRepository
+                .findAllByNodeIdAndAncestorAndRelatedIdIn(first.getNodeId(), first.isAncestor(), relatedIds)
+                .collectMap(EnteHierarchyClosure::getRelatedId, EnteHierarchyClosure::getDepth)
+                .flatMapMany(depths -> this.enteHierarchyClosureRepository.insertAllInBatch(
+                        closures.stream()
+                                .filter(closure -> !depths.containsKey(closure.getRelatedId()) ||
+                                        closure.getDepth() < depths.get(closure.getRelatedId()))
+                                .collect(Collectors.toList())))
+                .then();
+    }
+
+    private static EnteHierarchyClosure row(
+            final UUID nodeId, final boolean ancestor, final EnteHierarchyClosure related, final int depth) {
+
+        return EnteHierarchyClosure.builder()
+                .nodeId(nodeId)
+                .ancestor(ancestor)
+                .relatedId(related.getRelatedId())
+                .depth(depth)
+                .category(related.isCategory())
+                .build();
+    }
+
+    private static EnteHierarchyClosure self(final UUID nodeId, final boolean category) {
+        return EnteHierarchyClosure.builder()
+                .nodeId(nodeId)
+                .relatedId(nodeId)
+                .depth(0)
+                .category(category)
+                .build();
+    }
+}
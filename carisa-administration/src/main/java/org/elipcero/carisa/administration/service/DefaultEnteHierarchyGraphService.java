@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.elipcero.carisa.administration.domain.EnteHierarchy;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHirarchyRepository;
+import org.elipcero.carisa.administration.service.support.SpaceHierarchyGraph;
+import org.elipcero.carisa.administration.service.support.SpaceHierarchyGraphCache;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @see EnteHierarchyGraphService
+ *
+ * @author David Suárez
+ */
+@Slf4j
+public class DefaultEnteHierarchyGraphService implements EnteHierarchyGraphService {
+
+    public static final long DEFAULT_MAX_NODES = 200_000;
+
+    private final EnteHirarchyRepository enteHirarchyRepository;
+
+    private final EnteHierarchyClosureService enteHierarchyClosureService;
+
+    private final HierarchyVersionService hierarchyVersionService;
+
+    // The loads that overlap a write of its space are not cached (@see SpaceHierarchyGraphCache)
+    private final SpaceHierarchyGraphCache graphs;
+
+    public DefaultEnteHierarchyGraphService(
+            @NonNull final EnteHirarchyRepository enteHirarchyRepository,
+            @NonNull final EnteHierarchyClosureService enteHierarchyClosureService,
+            @NonNull final HierarchyVersionService hierarchyVersionService) {
+
+        this(enteHirarchyRepository, enteHierarchyClosureService, hierarchyVersionService, DEFAULT_MAX_NODES);
+    }
+
+    public DefaultEnteHierarchyGraphService(
+            @NonNull final EnteHirarchyRepository enteHirarchyRepository,
+            @NonNull final EnteHierarchyClosureService enteHierarchyClosureService,
+            @NonNull final HierarchyVersionService hierarchyVersionService,
+            final long maxNodes) {
+
+        this.enteHirarchyRepository = enteHirarchyRepository;
+        this.enteHierarchyClosureService = enteHierarchyClosureService;
+        this.hierarchyVersionService = hierarchyVersionService;
+        this.graphs = new SpaceHierarchyGraphCache(maxNodes);
+    }
+
+    /**
+     * @see EnteHierarchyGraphService
+     */
+    @Override
+    public Mono<Void> connect(final UUID parentId, final boolean parentCategory,
+                              final UUID childId, final boolean newChild) {
+
+        return Mono.defer(() -> {
+            Mono<UUID> spaceId = parentCategory ? this.getSpaceId(parentId) : Mono.just(parentId);
+            return spaceId.doOnNext(space -> this.graphs.connect(space, parentId, childId, newChild))
+            .doOnSuccess(this.hierarchyVersionService::increment) // Null if the space is unknown
+            .then();
+        });
+    }
+
+    /**
+     * @see EnteHierarchyGraphService
+     */
+    @Override
+    public Mono<Boolean> isChild(final UUID parentId, final UUID childId) {
+        return this.getGraphOf(parentId)
+                .map(graph -> graph.isChild(parentId, childId))
+                .switchIfEmpty(Mono.defer(() -> this.enteHirarchyRepository.existsById(
+                        EnteHierarchy.KEY_COLUMNS.toMapId(EnteHierarchy.GetKey(parentId, childId)))));
+    }
+
+    /**
+     * @see EnteHierarchyGraphService
+     */
+    @Override
+    public Mono<Boolean> isAncestor(final UUID ancestorId, final UUID descendantId) {
+        return this.getGraphOf(descendantId)
+                .map(graph -> graph.isAncestor(ancestorId, descendantId))
+                .switchIfEmpty(Mono.defer(() ->
+                        this.enteHierarchyClosureService.isAncestor(ancestorId, descendantId)));
+    }
+
+    /**
+     * @see EnteHierarchyGraphService
+     */
+    @Override
+    public Mono<Boolean> createsCycle(final UUID parentId, final UUID childId) {
+        if (parentId.equals(childId)) {
+            return Mono.just(true);
+        }
+        return this.getGraphOf(parentId)
+                .map(graph -> graph.createsCycle(parentId, childId))
+                .switchIfEmpty(Mono.defer(() ->
+                        this.enteHierarchyClosureService.isAncestor(childId, parentId)));
+    }
+
+    /**
+     * @see EnteHierarchyGraphService
+     */
+    @Override
+    public void invalidate(final UUID spaceId) {
+        this.graphs.invalidate(spaceId);
+    }
+
+    /**
+     * @see EnteHierarchyGraphService
+     */
+    @Override
+    public Mono<UUID> getSpaceId(final UUID nodeId) {
+        UUID spaceId = this.graphs.getSpaceId(nodeId);
+        if (spaceId != null) {
+            return Mono.just(spaceId);
+        }
+        return this.enteHierarchyClosureService.getAncestors(nodeId)
+                .filter(ancestor -> !ancestor.isCategory()) // The root is the space
+                .map(ancestor -> ancestor.getRelatedId())
+                .next();
+    }
+
+    // Empty if the space of the node is unknown (The node is not in the closure table)
+    private Mono<SpaceHierarchyGraph> getGraphOf(final UUID nodeId) {
+        return this.getSpaceId(nodeId).flatMap(this::getGraph);
+    }
+
+    private Mono<SpaceHierarchyGraph> getGraph(final UUID spaceId) {
+        SpaceHierarchyGraph graph = this.graphs.get(spaceId);
+        return graph == null ? this.load(spaceId) : Mono.just(graph);
+    }
+
+    // Breadth-first from the space following the categories
+    private Mono<SpaceHierarchyGraph> load(final UUID spaceId) {
+        return Mono.defer(() -> {
+            long loadVersion = this.graphs.getVersion(spaceId);
+            SpaceHierarchyGraph graph = new SpaceHierarchyGraph(spaceId);
+            Set<UUID> visited = ConcurrentHashMap.newKeySet();
+            return this.enteHirarchyRepository.findAllByParentId(spaceId)
+                    .expand(relation -> relation.isCategory() && visited.add(relation.getId()) ?
+                            this.enteHirarchyRepository.findAllByParentId(relation.getId()) :
+                            Flux.empty())
+                    .doOnNext(relation -> graph.connect(relation.getParentId(), relation.getId()))
+                    .then(Mono.fromCallable(() -> {
+                        this.graphs.put(graph, loadVersion);
+                        log.debug("Ente hierarchy graph of the space: '{}' loaded with {} nodes",
+                                spaceId, graph.size());
+                        return graph;
+                    }));
+        });
+    }
+}
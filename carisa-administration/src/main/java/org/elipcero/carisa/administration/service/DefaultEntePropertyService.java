@@ -20,10 +20,10 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.elipcero.carisa.administration.domain.EnteProperty;
 import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 
 /**
  * @see EntePropertyService
@@ -36,11 +36,17 @@ public class DefaultEntePropertyService implements EntePropertyService {
     @NonNull
     private final EmbeddedDependencyRelation<EnteProperty> entePropertyRelation;
 
+    @NonNull
+    private final EnteHierarchyGraphService enteHierarchyGraphService;
+
+    @NonNull
+    private final HierarchyVersionService hierarchyVersionService;
+
     /**
      * @see EntePropertyService
      */
     @Override
-    public Mono<EnteProperty> getById(final Map<String, Object> id) {
+    public Mono<EnteProperty> getById(final RelationKey id) {
         return this.entePropertyRelation.getById(id);
     }
 
@@ -49,7 +55,8 @@ public class DefaultEntePropertyService implements EntePropertyService {
      */
     @Override
     public Mono<EnteProperty> create(final EnteProperty enteProperty) {
-        return this.entePropertyRelation.create(enteProperty);
+        return this.entePropertyRelation.create(enteProperty)
+                .flatMap(this::changeHierarchyVersion);
     }
 
     /**
@@ -63,6 +70,14 @@ public class DefaultEntePropertyService implements EntePropertyService {
                             entePropertyForUpdating.setName(enteProperty.getName());
                             entePropertyForUpdating.setType(enteProperty.getType());
                         },
-                        () -> this.create(enteProperty));
+                        () -> this.create(enteProperty))
+                .flatMap(state -> this.changeHierarchyVersion(enteProperty).thenReturn(state));
+    }
+
+    // The properties of the entes are part of the data reached from the hierarchy
+    private Mono<EnteProperty> changeHierarchyVersion(final EnteProperty enteProperty) {
+        return this.enteHierarchyGraphService.getSpaceId(enteProperty.getParentId())
+                .doOnSuccess(this.hierarchyVersionService::increment)
+                .thenReturn(enteProperty);
     }
 }
@@ -23,7 +23,9 @@ import org.elipcero.carisa.administration.domain.EnteHierarchy;
 import org.elipcero.carisa.administration.domain.EnteProperty;
 import org.elipcero.carisa.administration.domain.Space;
 import org.elipcero.carisa.administration.domain.SpaceEnte;
+import org.elipcero.carisa.administration.projection.NameSearchResult;
 import org.elipcero.carisa.administration.repository.EnteRepository;
+import org.elipcero.carisa.administration.service.support.SpaceHierarchyLock;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.ParentChildName;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
@@ -46,18 +48,41 @@ public class DefaultEnteService
 
     private final MultiplyDependencyRelation<EnteCategory, Ente, EnteHierarchy> enteHierarchyRelation;
 
+    private final MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation;
+
     private final EmbeddedDependencyRelation<EnteProperty> entePropertyRelation;
 
+    private final EnteHierarchyClosureService enteHierarchyClosureService;
+
+    private final EnteHierarchyGraphService enteHierarchyGraphService;
+
+    private final HierarchyVersionService hierarchyVersionService;
+
+    private final NameSearchService nameSearchService;
+
+    private final SpaceHierarchyLock spaceHierarchyLock;
+
     public DefaultEnteService(
             @NonNull final EnteRepository enteRepository,
             @NonNull final MultiplyDependencyRelation<EnteCategory, Ente, EnteHierarchy> enteHierarchyRelation,
             @NonNull final EmbeddedDependencyRelation<EnteProperty> entePropertyRelation,
-            @NonNull final MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation) {
+            @NonNull final MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation,
+            @NonNull final EnteHierarchyClosureService enteHierarchyClosureService,
+            @NonNull final EnteHierarchyGraphService enteHierarchyGraphService,
+            @NonNull final HierarchyVersionService hierarchyVersionService,
+            @NonNull final NameSearchService nameSearchService,
+            @NonNull final SpaceHierarchyLock spaceHierarchyLock) {
 
         super(enteRepository, spaceEnteRelation);
 
         this.enteHierarchyRelation = enteHierarchyRelation;
+        this.spaceEnteRelation = spaceEnteRelation;
         this.entePropertyRelation = entePropertyRelation;
+        this.enteHierarchyClosureService = enteHierarchyClosureService;
+        this.enteHierarchyGraphService = enteHierarchyGraphService;
+        this.hierarchyVersionService = hierarchyVersionService;
+        this.nameSearchService = nameSearchService;
+        this.spaceHierarchyLock = spaceHierarchyLock;
     }
 
     /**
@@ -65,7 +90,8 @@ public class DefaultEnteService
      */
     @Override
     public Mono<Ente> create(final Ente ente) {
-        return super.create(ente, new SpaceEnte());
+        return super.create(ente, new SpaceEnte())
+                .doOnNext(this::putName);
     }
 
     /**
@@ -73,7 +99,13 @@ public class DefaultEnteService
      */
     @Override
     public Mono<EntityDataState<Ente>> updateOrCreate(final UUID id, final Ente ente) {
-        return super.updateOrCreate(id, ente, new SpaceEnte());
+        return super.updateOrCreate(id, ente, new SpaceEnte())
+                .doOnSuccess(state -> { // The name of the ente is reached from the hierarchy
+                    if (state != null) {
+                        this.hierarchyVersionService.increment(state.getEntity().getSpaceId());
+                        this.putName(state.getEntity());
+                    }
+                });
     }
 
     /**
@@ -90,6 +122,34 @@ public class DefaultEnteService
                                 .build());
     }
 
+    /**
+     * @see EnteService
+     */
+    @Override
+    public Flux<ParentChildName> getSpacesByEnte(final UUID enteId) {
+        return this.spaceEnteRelation.getParentsByChild(enteId)
+                .map(space -> ParentChildName
+                        .builder()
+                            .parentId(enteId)
+                            .childId(space.getId())
+                            .name(space.getName())
+                        .build());
+    }
+
+    /**
+     * @see EnteService
+     */
+    @Override
+    public Flux<ParentChildName> getCategoriesByEnte(final UUID enteId) {
+        return this.enteHierarchyRelation.getParentsByChild(enteId)
+                .map(enteCategory -> ParentChildName
+                        .builder()
+                            .parentId(enteId)
+                            .childId(enteCategory.getId())
+                            .name(enteCategory.getName())
+                        .build());
+    }
+
     /**
      * @see EnteCategoryService
      */
@@ -100,7 +160,15 @@ public class DefaultEnteService
                         .parentId(categoryId)
                         .id(enteId)
                         .category(false)
-                    .build()).map(MultiplyDependencyConnectionInfo::getChild);
+                    .build())
+                .map(MultiplyDependencyConnectionInfo::getChild)
+                .flatMap(ente -> this.enteHierarchyGraphService.getSpaceId(categoryId)
+                        .defaultIfEmpty(categoryId)
+                        .flatMap(spaceId -> this.spaceHierarchyLock.execute(spaceId, this.enteHierarchyClosureService
+                                .connect(categoryId, true, enteId, false)
+                                .then(this.enteHierarchyGraphService
+                                        .connect(categoryId, true, enteId, true)))) // The ente has not children
+                        .thenReturn(ente));
     }
 
     /**
@@ -110,4 +178,8 @@ public class DefaultEnteService
     protected void updateEntity(Ente entityForUpdating, Ente entity) {
         entityForUpdating.setName(entity.getName());
     }
+
+    private void putName(final Ente ente) {
+        this.nameSearchService.put(ente.getSpaceId(), ente.getId(), ente.getName(), NameSearchResult.Type.Ente);
+    }
 }
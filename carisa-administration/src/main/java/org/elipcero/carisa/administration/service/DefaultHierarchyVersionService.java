@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory versions. The versions start again when the application starts,
+ * the same that the data that depends on them. The memory is bounded: the spaces are hashed
+ * into a fixed number of stripes and each stripe has one version. A write changes the version
+ * of all the spaces of its stripe too, so their data is refreshed although it's up to date.
+ * @see HierarchyVersionService
+ *
+ * @author David Suárez
+ */
+public class DefaultHierarchyVersionService implements HierarchyVersionService {
+
+    public static final int STRIPES = 4096;
+
+    private final AtomicLongArray versions;
+
+    // It's increased when the space is unknown. It's added to the version of all the spaces
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    public DefaultHierarchyVersionService() {
+        this(STRIPES);
+    }
+
+    public DefaultHierarchyVersionService(final int stripes) {
+        this.versions = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * @see HierarchyVersionService
+     */
+    @Override
+    public long getVersion(final UUID spaceId) {
+        long global = this.globalVersion.get();
+        return global + (spaceId == null ? 0 : this.versions.get(this.stripe(spaceId)));
+    }
+
+    /**
+     * @see HierarchyVersionService
+     */
+    @Override
+    public void increment(final UUID spaceId) {
+        if (spaceId == null) {
+            this.globalVersion.incrementAndGet();
+        }
+        else {
+            this.versions.incrementAndGet(this.stripe(spaceId));
+        }
+    }
+
+    private int stripe(final UUID spaceId) {
+        return Math.floorMod(spaceId.hashCode(), this.versions.length());
+    }
+}
@@ -17,25 +17,45 @@
 package org.elipcero.carisa.administration.service;
 
 import lombok.NonNull;
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import org.elipcero.carisa.administration.domain.DeployJob;
 import org.elipcero.carisa.administration.domain.Instance;
 import org.elipcero.carisa.administration.domain.InstanceSpace;
 import org.elipcero.carisa.administration.domain.KubernetesDeployer;
 import org.elipcero.carisa.administration.domain.Space;
+import org.elipcero.carisa.administration.exception.DeployQueueFullException;
+import org.elipcero.carisa.administration.projection.BulkDeployProgress;
+import org.elipcero.carisa.administration.projection.BulkDeployRequest;
+import org.elipcero.carisa.administration.projection.InstanceStateEvent;
+import org.elipcero.carisa.administration.repository.DeployIntentRepository;
+import org.elipcero.carisa.administration.repository.DeployJobRepository;
 import org.elipcero.carisa.administration.repository.InstanceRepository;
+import org.elipcero.carisa.administration.service.support.DeployJobQueue;
+import org.elipcero.carisa.administration.service.support.DeployReconciler;
+import org.elipcero.carisa.administration.service.support.DeployRecovery;
+import org.elipcero.carisa.administration.service.support.InstanceEventBus;
+import org.elipcero.carisa.administration.service.support.SkipperClient;
 import org.elipcero.carisa.core.application.configuration.ServiceProperties;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.ParentChildName;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
 import org.elipcero.carisa.core.reactive.misc.DataLockController;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 /**
  * @see org.elipcero.carisa.administration.service.InstanceService
@@ -44,30 +64,47 @@ import java.util.UUID;
  */
 public class DefaultInstanceService implements InstanceService {
 
+    public static final int DEPLOY_LOCK_SECONDS = 60;
+
     private final InstanceRepository instanceRepository;
     private final DataLockController dataLockController;
     private final MultiplyDependencyRelation<Instance, Space, InstanceSpace> instanceSpaceService;
 
-    private final WebClient webClient;
+    private final DeployJobRepository deployJobRepository;
+    private final DeployIntentRepository deployIntentRepository;
+    private final DeployJobQueue deployJobQueue;
+    private final ServiceProperties.Deploy deployProperties;
+
+    // Intents (leases) of the jobs held by this node. The leases are renewed until the jobs finish
+    private final ConcurrentMap<UUID, DeployIntent> leases = new ConcurrentHashMap<>();
+
+    private final SkipperClient skipperClient;
+    private final InstanceEventBus instanceEventBus;
 
     public DefaultInstanceService(
             @NonNull final InstanceRepository instanceRepository,
             @NonNull final ServiceProperties serviceProperties,
             @NonNull final DataLockController dataLockController,
-            @NonNull final MultiplyDependencyRelation<Instance, Space, InstanceSpace> instanceSpaceRelation) {
+            @NonNull final MultiplyDependencyRelation<Instance, Space, InstanceSpace> instanceSpaceRelation,
+            @NonNull final DeployJobRepository deployJobRepository,
+            @NonNull final SkipperClient skipperClient,
+            @NonNull final DeployIntentRepository deployIntentRepository,
+            @NonNull final InstanceEventBus instanceEventBus) {
 
         this.instanceRepository = instanceRepository;
         this.dataLockController = dataLockController;
         this.instanceSpaceService = instanceSpaceRelation;
+        this.deployJobRepository = deployJobRepository;
+        this.skipperClient = skipperClient;
+        this.deployIntentRepository = deployIntentRepository;
+        this.instanceEventBus = instanceEventBus;
 
-        ServiceProperties.Skipper skipper = serviceProperties.getSkipper();
-        Assert.notNull(skipper, "The skipper configuration can not be null");
+        ServiceProperties.Deploy deploy = serviceProperties.getDeploy();
+        Assert.notNull(deploy, "The deploy configuration can not be null");
+        this.deployProperties = deploy;
 
-        this.webClient = WebClient
-                .builder()
-                    .baseUrl(skipper.getUri())
-                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+        this.deployJobQueue = new DeployJobQueue(
+                deploy.getConcurrency(), deploy.getQueueCapacity(), this::executeDeployJob);
     }
 
     /**
@@ -116,33 +153,333 @@ public class DefaultInstanceService implements InstanceService {
     /**
      * @see InstanceService
      */
-    public Mono<Instance> deploy(final UUID id) {
-        return this.dataLockController
-            .lock(id, 60)
-            .flatMap(couldLock -> {
-                if (couldLock) {
-                    return this.instanceRepository.changeState(id, Instance.State.InProgress)
-                        .flatMap(__ -> this.webClient.put()
-                            .uri("/api/platforms/kubernetes/deployers")
-                            .accept(MediaType.APPLICATION_JSON)
-                            .body(BodyInserters.fromObject(KubernetesDeployer
-                                    .builder()
-                                        .name(id.toString())
-                                        .namespace(id.toString())
-                                    .build()))
-                            .exchange()
-                            .flatMap(response -> {
-                                if (response.statusCode().isError()) {
-                                    return this.instanceRepository.changeState(id, Instance.State.Error);
-                                }
-                                else {
-                                    return this.instanceRepository.changeState(id, Instance.State.Deployed);
+    @Override
+    public Mono<DeployJob> deploy(final UUID id, final boolean force) {
+        return this.instanceRepository.findById(id)
+                .flatMap(instance -> !force && this.isDeployed(instance) ?
+                        Mono.just(DeployJob.skipped(
+                                id, "The instance is already deployed with the same specification")) :
+                        this.enqueueDeploy(id));
+    }
+
+    /**
+     * @see InstanceService
+     */
+    @Override
+    public Flux<BulkDeployProgress> deployAll(final BulkDeployRequest request) {
+        int concurrency = Math.min(
+                request.getConcurrency() == null ? Integer.MAX_VALUE : request.getConcurrency(),
+                this.deployProperties.getBulkConcurrency());
+        int errorThreshold = request.getErrorThreshold() == null ?
+                this.deployProperties.getBulkErrorThreshold() :
+                request.getErrorThreshold();
+        boolean force = Boolean.TRUE.equals(request.getForce());
+
+        return this.selectInstances(request)
+                .flatMapMany(ids -> {
+                    AtomicInteger processed = new AtomicInteger();
+                    AtomicInteger failed = new AtomicInteger();
+                    return Flux.fromIterable(ids)
+                            .flatMap(id -> this.deployAndAwait(id, force), concurrency)
+                            .map(progress -> { // The items are emitted one by one
+                                int failedCount = progress.getState() == DeployJob.State.Failed ?
+                                        failed.incrementAndGet() :
+                                        failed.get();
+                                return progress.toBuilder()
+                                        .processed(processed.incrementAndGet())
+                                        .failed(failedCount)
+                                        .total(ids.size())
+                                        .aborted(failedCount >= errorThreshold && processed.get() < ids.size())
+                                        .build();
+                            })
+                            .takeUntil(BulkDeployProgress::isAborted);
+                });
+    }
+
+    /**
+     * @see InstanceService
+     */
+    @Override
+    public Mono<DeployJob> getDeployJob(final UUID instanceId, final UUID jobId) {
+        return this.deployJobRepository.findById(jobId)
+                .filter(job -> job.getInstanceId().equals(instanceId));
+    }
+
+    /**
+     * @see DeployRecovery
+     */
+    @Override
+    public Flux<DeployIntent> getDeployIntents(final long bucket) {
+        return this.deployIntentRepository.findAllByBucket(bucket);
+    }
+
+    /**
+     * @see DeployRecovery
+     */
+    @Override
+    public Mono<Boolean> recoverDeploy(final DeployIntent intent) {
+        DeployIntent lease = this.leases.get(intent.getJobId());
+        if (lease != null) { // The job is held by this node but the lease was not renewed in time
+            return (lease == intent ? this.renewLease(lease) : this.deleteIntentIfNotLease(intent)).thenReturn(true);
+        }
+
+        return this.deployJobRepository.findById(intent.getJobId())
+                .filter(job -> !job.isFinished())
+                .flatMap(job -> {
+                    // The lease is recorded before enqueuing. If this node dies, the job is recovered again
+                    DeployIntent newLease = intent.renew(this.newDeadline(), this.bucketSize());
+                    return this.saveIntent(newLease)
+                            .flatMap(__ -> {
+                                this.leases.put(job.getId(), newLease);
+                                if (this.deployJobQueue.offer(job)) {
+                                    return this.deleteIntentIfNotLease(intent).thenReturn(true);
                                 }
-                            }));
-                }
-                return Mono.just(false);
-            })
-            .doFinally(__ -> this.dataLockController.unLock(id))
-            .flatMap(__ -> this.instanceRepository.findById(id));
+                                // The queue is full, it is recovered in the next reconciliation
+                                this.leases.remove(job.getId());
+                                return this.deleteIntentIfNotLease(newLease).thenReturn(false);
+                            });
+                })
+                .switchIfEmpty(Mono.defer(() -> this.deleteIntent(intent).thenReturn(true))); // The job has finished
+    }
+
+    /**
+     * The leases are renewed when the half of the timeout has passed
+     * @see DeployRecovery
+     */
+    @Override
+    public Mono<Long> renewDeployLeases() {
+        Instant renewBefore = Instant.now().plus(this.deployProperties.getIntentTimeout().dividedBy(2));
+        return Flux.fromIterable(this.leases.values())
+                .filter(lease -> lease.getExpiresAt().isBefore(renewBefore))
+                .concatMap(this::renewLease)
+                .filter(renewed -> renewed)
+                .count();
+    }
+
+    /**
+     * The job held by other node has a live lease (renewed into the next buckets), so it is not failed.
+     * The instance is changed to Error only if nobody is deploying it (deploy lock)
+     * @see DeployRecovery
+     */
+    @Override
+    public Mono<Boolean> failLostDeploy(final DeployIntent intent) {
+        if (this.leases.containsKey(intent.getJobId())) { // The job is held by this node
+            return this.deleteIntentIfNotLease(intent).thenReturn(true);
+        }
+
+        return this.deployJobRepository.findById(intent.getJobId())
+                .filter(job -> !job.isFinished())
+                .filterWhen(job -> this.hasLiveLease(job.getId()).map(live -> !live))
+                .flatMap(job -> this.deployJobRepository.save(
+                        job.withState(DeployJob.State.Failed, "The deploy job was lost and it could not be recovered")))
+                .flatMap(job -> this.failLostInstance(job.getInstanceId()))
+                .then(this.deleteIntent(intent))
+                .thenReturn(true);
+    }
+
+    private Mono<DeployJob> enqueueDeploy(final UUID id) {
+        DeployJob job = DeployJob.pending(id);
+        DeployIntent lease = DeployIntent.of(job, this.newDeadline(), this.bucketSize());
+        // The intent is recorded before the job, so a job not finished always has intent
+        return this.saveIntent(lease)
+                .then(this.deployJobRepository.save(job))
+                .flatMap(savedJob -> {
+                    this.leases.put(savedJob.getId(), lease);
+                    if (this.deployJobQueue.offer(savedJob)) {
+                        return Mono.just(savedJob);
+                    }
+                    this.leases.remove(savedJob.getId());
+                    return this.deployJobRepository
+                            .save(savedJob.withState(DeployJob.State.Failed, "The deploy queue is full"))
+                            .then(this.deleteIntent(lease))
+                            .then(Mono.error(new DeployQueueFullException(
+                                    String.format("The deploy queue is full. Instance: '%s'", id))));
+                });
+    }
+
+    // The leases of the live jobs expire before the intent timeout, so only the next buckets are read
+    private Mono<Boolean> hasLiveLease(final UUID jobId) {
+        Instant now = Instant.now();
+        List<Long> buckets = LongStream.rangeClosed(
+                        DeployIntent.bucketOf(now, this.bucketSize()),
+                        DeployIntent.bucketOf(this.newDeadline(), this.bucketSize()))
+                .boxed()
+                .collect(Collectors.toList());
+        return this.deployIntentRepository.findAllInPartitions(buckets)
+                .any(lease -> lease.getJobId().equals(jobId));
+    }
+
+    // The instance stays in progress because the deploy of the lost job never finished
+    private Mono<Void> failLostInstance(final UUID instanceId) {
+        return this.dataLockController
+                .lock(instanceId, DEPLOY_LOCK_SECONDS)
+                .filter(couldLock -> couldLock)
+                .flatMap(__ -> this.instanceRepository.findById(instanceId)
+                        .filter(instance -> instance.getState() == Instance.State.InProgress)
+                        .flatMap(instance -> this.changeState(instanceId, Instance.State.Error))
+                        .then(this.dataLockController.unLock(instanceId))
+                        .onErrorResume(e -> this.dataLockController.unLock(instanceId).then(Mono.error(e))))
+                .then();
+    }
+
+    // The lease is replaced only if it has not changed (the job could finish meanwhile)
+    private Mono<Boolean> renewLease(final DeployIntent lease) {
+        DeployIntent renewed = lease.renew(this.newDeadline(), this.bucketSize());
+        return this.saveIntent(renewed)
+                .flatMap(__ -> this.leases.replace(lease.getJobId(), lease, renewed) ?
+                        this.deleteIntentIfNotLease(lease).thenReturn(true) :
+                        this.deleteIntentIfNotLease(renewed).thenReturn(false));
+    }
+
+    // The job has finished, the lease is released
+    private Mono<Void> releaseLease(final UUID jobId) {
+        DeployIntent lease = this.leases.remove(jobId);
+        return lease == null ? Mono.empty() : this.deleteIntent(lease);
+    }
+
+    // The instance is deployed and the desired state (the deployer specification) has not changed
+    private boolean isDeployed(final Instance instance) {
+        return instance.getState() == Instance.State.Deployed &&
+                deployerOf(instance.getId()).hash().equals(instance.getDeployedHash());
+    }
+
+    private static KubernetesDeployer deployerOf(final UUID id) {
+        return KubernetesDeployer
+                .builder()
+                    .name(id.toString())
+                    .namespace(id.toString())
+                .build();
+    }
+
+    private Mono<List<UUID>> selectInstances(final BulkDeployRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            return Flux.fromIterable(request.getIds()).distinct().collectList();
+        }
+        Set<Instance.State> states = request.getStates() == null || request.getStates().isEmpty() ?
+                Collections.emptySet() :
+                EnumSet.copyOf(request.getStates());
+        return this.instanceRepository.findAll()
+                .filter(instance -> states.contains(instance.getState()))
+                .map(Instance::getId)
+                .collectList();
+    }
+
+    // The instance not found or the job not enqueued is failed
+    private Mono<BulkDeployProgress> deployAndAwait(final UUID id, final boolean force) {
+        return this.deploy(id, force)
+                .flatMap(this::awaitDeployJob)
+                .map(job -> BulkDeployProgress
+                        .builder()
+                            .instanceId(id)
+                            .jobId(job.getId())
+                            .state(job.getState())
+                            .message(job.getMessage())
+                        .build())
+                .switchIfEmpty(Mono.fromSupplier(() ->
+                        failedProgress(id, String.format("The instance with ID: '%s' not found", id))))
+                .onErrorResume(e -> Mono.just(failedProgress(id, e.getMessage())));
+    }
+
+    // The job is read until it finishes. The skipped job is not recorded
+    private Mono<DeployJob> awaitDeployJob(final DeployJob job) {
+        if (job.isFinished()) {
+            return Mono.just(job);
+        }
+        return Mono.defer(() -> this.deployJobRepository.findById(job.getId()))
+                .filter(DeployJob::isFinished)
+                .repeatWhenEmpty(repeat -> repeat.delayElements(this.deployProperties.getJobPollingInterval()))
+                .timeout(this.deployProperties.getBulkJobTimeout(),
+                        Mono.just(job.withState(DeployJob.State.Failed, "Timeout waiting for the deploy job")));
+    }
+
+    private static BulkDeployProgress failedProgress(final UUID id, final String message) {
+        return BulkDeployProgress
+                .builder()
+                    .instanceId(id)
+                    .state(DeployJob.State.Failed)
+                    .message(message)
+                .build();
+    }
+
+    // Execute the job into the worker of the queue. The result is recorded into the job and the lease is released.
+    // If the result can not be recorded, the lease is not renewed anymore and the job is recovered when it expires
+    private Mono<Void> executeDeployJob(final DeployJob job) {
+        return this.deployJobRepository.save(job.withState(DeployJob.State.Running, null))
+                .flatMap(runningJob -> this.deployInstance(job.getInstanceId())
+                        .map(state -> state == Instance.State.Deployed ?
+                                runningJob.withState(DeployJob.State.Succeeded, null) :
+                                runningJob.withState(DeployJob.State.Failed, "The platform could not deploy the instance"))
+                        .defaultIfEmpty(runningJob.withState(
+                                DeployJob.State.Failed, "The instance is being deployed by other process"))
+                        .onErrorResume(e -> Mono.just(runningJob.withState(DeployJob.State.Failed, e.getMessage())))
+                        .flatMap(this.deployJobRepository::save))
+                .flatMap(__ -> this.releaseLease(job.getId()))
+                .doOnError(__ -> this.leases.remove(job.getId()));
+    }
+
+    private Instant newDeadline() {
+        return Instant.now().plus(this.deployProperties.getIntentTimeout());
+    }
+
+    private Duration bucketSize() {
+        return this.deployProperties.getIntentBucketSize();
+    }
+
+    // The intents that nobody removes (e.g. all the nodes were stopped) are removed by the database
+    private Mono<DeployIntent> saveIntent(final DeployIntent intent) {
+        return this.deployIntentRepository.saveWithTtl(
+                intent, DeployReconciler.intentTimeToLive(this.deployProperties));
+    }
+
+    private Mono<Void> deleteIntent(final DeployIntent intent) {
+        return this.deployIntentRepository.deleteById(DeployIntent.GetMapId(intent.getBucket(), intent.getJobId()));
+    }
+
+    // The old and the new intent of a job can be stored into the same bucket (same key)
+    private Mono<Void> deleteIntentIfNotLease(final DeployIntent intent) {
+        DeployIntent lease = this.leases.get(intent.getJobId());
+        return lease != null && lease.getBucket() == intent.getBucket() ? Mono.empty() : this.deleteIntent(intent);
+    }
+
+    private Mono<Boolean> changeState(final UUID id, final Instance.State state) {
+        return this.publishState(id, state, this.instanceRepository.changeState(id, state));
+    }
+
+    private Mono<Boolean> changeState(final UUID id, final Instance.State state, final String deployedHash) {
+        return this.publishState(id, state, this.instanceRepository.changeState(id, state, deployedHash));
+    }
+
+    // The transition is published when the state is changed
+    private Mono<Boolean> publishState(final UUID id, final Instance.State state, final Mono<Boolean> changing) {
+        return changing
+                .doOnNext(changed -> {
+                    if (changed) {
+                        this.instanceEventBus.publish(InstanceStateEvent
+                                .builder()
+                                    .instanceId(id)
+                                    .state(state)
+                                    .timestamp(Instant.now())
+                                .build());
+                    }
+                });
+    }
+
+    // Deploy the instance into the platform while the instance is locked.
+    // Return the final state of the instance or empty if other process has the lock
+    // The hash of the deployer specification is recorded when the instance is deployed
+    private Mono<Instance.State> deployInstance(final UUID id) {
+        KubernetesDeployer deployer = deployerOf(id);
+        return this.dataLockController
+            .lock(id, DEPLOY_LOCK_SECONDS)
+            .filter(couldLock -> couldLock)
+            .flatMap(__ -> this.changeState(id, Instance.State.InProgress)
+                .then(this.skipperClient.deploy(deployer))
+                .map(deployed -> deployed ? Instance.State.Deployed : Instance.State.Error)
+                .onErrorReturn(Instance.State.Error)
+                .flatMap(state -> (state == Instance.State.Deployed ?
+                        this.changeState(id, state, deployer.hash()) :
+                        this.changeState(id, state)).thenReturn(state))
+                .flatMap(state -> this.dataLockController.unLock(id).thenReturn(state))
+                .onErrorResume(e -> this.dataLockController.unLock(id).then(Mono.error(e))));
     }
 }
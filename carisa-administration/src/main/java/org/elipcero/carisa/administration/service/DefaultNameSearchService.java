@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.elipcero.carisa.administration.domain.DynamicObjectInstance;
+import org.elipcero.carisa.administration.domain.Ente;
+import org.elipcero.carisa.administration.domain.EnteHierarchy;
+import org.elipcero.carisa.administration.domain.Space;
+import org.elipcero.carisa.administration.domain.SpaceEnte;
+import org.elipcero.carisa.administration.domain.SpaceQueryInstance;
+import org.elipcero.carisa.administration.projection.NameSearchResult;
+import org.elipcero.carisa.administration.repository.EnteCategoryRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHirarchyRepository;
+import org.elipcero.carisa.administration.service.support.SpaceNameIndex;
+import org.elipcero.carisa.core.misc.LruCache;
+import org.elipcero.carisa.core.reactive.data.MultiplyDependencyChildInfo;
+import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @see NameSearchService
+ *
+ * @author David Suárez
+ */
+@Slf4j
+public class DefaultNameSearchService implements NameSearchService {
+
+    public static final long DEFAULT_MAX_WEIGHT = 2_000_000;
+    public static final int MAX_VERSIONS = 10000;
+
+    public static final int LOAD_BATCH_SIZE = 64;
+    public static final int LOAD_CONCURRENCY = 4;
+
+    private final MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation;
+
+    private final MultiplyDependencyRelation<Space, DynamicObjectInstance, SpaceQueryInstance> spaceQueryRelation;
+
+    private final EnteHirarchyRepository enteHirarchyRepository;
+
+    private final EnteCategoryRepository enteCategoryRepository;
+
+    // Bounded by the weight of the indexes. The last space is always kept
+    private final LruCache<UUID, SpaceNameIndex> indexes;
+
+    // Space -> version of the last write, so the loads that overlap a write are not cached. The versions are
+    // taken from a clock shared by all the spaces. The version of a space is evicted with its index or when
+    // there are too many versions; the spaces without version take the maximum evicted version
+    private final LruCache<UUID, AtomicLong> versions; // Guarded by indexes
+    private long clock; // Guarded by indexes
+    private long evictedVersion; // Guarded by indexes
+
+    public DefaultNameSearchService(
+            @NonNull final MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation,
+            @NonNull final MultiplyDependencyRelation<Space, DynamicObjectInstance, SpaceQueryInstance> spaceQueryRelation,
+            @NonNull final EnteHirarchyRepository enteHirarchyRepository,
+            @NonNull final EnteCategoryRepository enteCategoryRepository) {
+
+        this(spaceEnteRelation, spaceQueryRelation, enteHirarchyRepository, enteCategoryRepository, DEFAULT_MAX_WEIGHT);
+    }
+
+    public DefaultNameSearchService(
+            @NonNull final MultiplyDependencyRelation<Space, Ente, SpaceEnte> spaceEnteRelation,
+            @NonNull final MultiplyDependencyRelation<Space, DynamicObjectInstance, SpaceQueryInstance> spaceQueryRelation,
+            @NonNull final EnteHirarchyRepository enteHirarchyRepository,
+            @NonNull final EnteCategoryRepository enteCategoryRepository,
+            final long maxWeight) {
+
+        this.spaceEnteRelation = spaceEnteRelation;
+        this.spaceQueryRelation = spaceQueryRelation;
+        this.enteHirarchyRepository = enteHirarchyRepository;
+        this.enteCategoryRepository = enteCategoryRepository;
+        this.indexes = new LruCache<>(maxWeight, SpaceNameIndex::getWeight,
+                (spaceId, index) -> this.versions.remove(spaceId)); // Called under the lock of the indexes
+        this.versions = new LruCache<>(MAX_VERSIONS, version -> 1,
+                (spaceId, version) -> this.evictedVersion = Math.max(this.evictedVersion, version.get()));
+    }
+
+    /**
+     * @see NameSearchService
+     */
+    @Override
+    public Flux<NameSearchResult> search(final UUID spaceId, final String query, final int page, final int size) {
+        return this.getIndex(spaceId)
+                .flatMapIterable(index -> index.search(query))
+                .skip((long) page * size)
+                .take(size);
+    }
+
+    /**
+     * @see NameSearchService
+     */
+    @Override
+    public void put(final UUID spaceId, final UUID id, final String name, final NameSearchResult.Type type) {
+        synchronized (this.indexes) {
+            this.increaseVersion(spaceId);
+            SpaceNameIndex index = this.indexes.get(spaceId);
+            if (index != null) {
+                index.put(id, name, type);
+                this.indexes.reweigh(spaceId);
+            }
+        }
+    }
+
+    /**
+     * @see NameSearchService
+     */
+    @Override
+    public void connect(final UUID spaceId, final UUID id) {
+        synchronized (this.indexes) {
+            this.increaseVersion(spaceId);
+            SpaceNameIndex index = this.indexes.get(spaceId);
+            if (index != null && !index.contains(id)) {
+                this.indexes.remove(spaceId);
+            }
+        }
+    }
+
+    /**
+     * @see NameSearchService
+     */
+    @Override
+    public void invalidate(final UUID spaceId) {
+        synchronized (this.indexes) {
+            this.increaseVersion(spaceId);
+            this.indexes.remove(spaceId);
+        }
+    }
+
+    private Mono<SpaceNameIndex> getIndex(final UUID spaceId) {
+        SpaceNameIndex index = this.indexes.get(spaceId);
+        return index == null ? this.load(spaceId) : Mono.just(index);
+    }
+
+    // The categories are reached breadth-first from the space and are read in batches
+    private Mono<SpaceNameIndex> load(final UUID spaceId) {
+        return Mono.defer(() -> {
+            long loadVersion = this.getVersion(spaceId);
+            SpaceNameIndex index = new SpaceNameIndex(spaceId);
+            Set<UUID> visited = ConcurrentHashMap.newKeySet();
+
+            Mono<Void> entes = this.spaceEnteRelation.getChildrenByParent(spaceId)
+                    .map(MultiplyDependencyChildInfo::getChild)
+                    .doOnNext(ente -> index.put(ente.getId(), ente.getName(), NameSearchResult.Type.Ente))
+                    .then();
+
+            Mono<Void> queries = this.spaceQueryRelation.getChildrenByParent(spaceId)
+                    .map(MultiplyDependencyChildInfo::getChild)
+                    .doOnNext(query -> index.put(query.getId(), query.getName(), NameSearchResult.Type.QueryInstance))
+                    .then();
+
+            Mono<Void> categories = this.enteHirarchyRepository.findAllByParentId(spaceId)
+                    .expand(relation -> relation.isCategory() && visited.add(relation.getId()) ?
+                            this.enteHirarchyRepository.findAllByParentId(relation.getId()) :
+                            Flux.empty())
+                    .filter(EnteHierarchy::isCategory)
+                    .map(EnteHierarchy::getId)
+                    .distinct()
+                    .buffer(LOAD_BATCH_SIZE)
+                    .flatMap(ids -> this.enteCategoryRepository.findAllById(ids), LOAD_CONCURRENCY)
+                    .doOnNext(category -> index.put(
+                            category.getId(), category.getName(), NameSearchResult.Type.EnteCategory))
+                    .then();
+
+            return Mono.when(entes, queries, categories)
+                    .then(Mono.fromCallable(() -> {
+                        this.put(index, loadVersion);
+                        log.debug("Name index of the space: '{}' loaded with weight {}", spaceId, index.getWeight());
+                        return index;
+                    }));
+        });
+    }
+
+    // The index is cached if the space has not been written while loading
+    private void put(final SpaceNameIndex index, final long loadVersion) {
+        synchronized (this.indexes) {
+            if (this.getVersion(index.getSpaceId()) == loadVersion) {
+                this.indexes.put(index.getSpaceId(), index);
+            }
+        }
+    }
+
+    private long getVersion(final UUID spaceId) {
+        synchronized (this.indexes) {
+            AtomicLong version = this.versions.get(spaceId);
+            return version == null ? this.evictedVersion : version.get();
+        }
+    }
+
+    // The version is updated in place, so it's only released when it's evicted or removed
+    private void increaseVersion(final UUID spaceId) {
+        this.clock++;
+        AtomicLong version = this.versions.get(spaceId);
+        if (version == null) {
+            this.versions.put(spaceId, new AtomicLong(this.clock));
+        }
+        else {
+            version.set(this.clock);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.administration.domain.DynamicObjectPrototypeProperty;
+import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.administration.projection.QueryResultRow;
+import org.elipcero.carisa.administration.repository.DynamicObjectInstanceRepository;
+import org.elipcero.carisa.administration.repository.EnteRepository;
+import org.elipcero.carisa.administration.repository.cassandra.EntePropertyRepository;
+import org.elipcero.carisa.administration.service.support.QueryPlan;
+import org.elipcero.carisa.administration.service.support.QueryResultCache;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * @see QueryInstanceExecutionService
+ *
+ * @author David Suárez
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DefaultQueryInstanceExecutionService implements QueryInstanceExecutionService {
+
+    public static final int EXECUTION_CONCURRENCY = 8;
+    public static final int BATCH_SIZE = 32; // Entes whose properties are read in one query
+    public static final int MAX_DEPTH = 100;
+    public static final long MAX_CACHE_WEIGHT = 500_000; // Rows and properties of rows
+    public static final long MAX_CACHE_ENTRY_WEIGHT = 50_000;
+
+    @NonNull
+    private final DynamicObjectInstanceRepository dynamicObjectInstanceRepository;
+
+    @NonNull
+    private final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> instancePropertyRelation;
+
+    @NonNull
+    private final EnteCategoryService enteCategoryService;
+
+    @NonNull
+    private final EnteRepository enteRepository;
+
+    @NonNull
+    private final EntePropertyRepository entePropertyRepository;
+
+    @NonNull
+    private final EnteHierarchyGraphService enteHierarchyGraphService;
+
+    @NonNull
+    private final HierarchyVersionService hierarchyVersionService;
+
+    private final QueryResultCache queryResultCache = new QueryResultCache(MAX_CACHE_WEIGHT, MAX_CACHE_ENTRY_WEIGHT);
+
+    /**
+     * @see QueryInstanceExecutionService
+     */
+    @Override
+    public Mono<QueryPlan> compile(final UUID instanceId) {
+        return this.dynamicObjectInstanceRepository.findById(instanceId)
+                .flatMap(instance -> this.instancePropertyRelation.getRelationsByParent(instanceId)
+                        .collectList()
+                        .map(properties -> QueryPlan
+                                .builder()
+                                    .instanceId(instanceId)
+                                    .spaceId(instance.getParentId())
+                                    .propertyHash(propertyHash(properties))
+                                    .bindings(properties.stream()
+                                            .filter(property -> property.getValue() != null &&
+                                                    property.getValue().getType() ==
+                                                            DynamicObjectPrototypeProperty.Type.HierarchyBinding)
+                                            .map(DefaultQueryInstanceExecutionService::binding)
+                                            .collect(Collectors.toList()))
+                                .build()));
+    }
+
+    /**
+     * @see QueryInstanceExecutionService
+     */
+    @Override
+    public Flux<QueryResultRow> execute(final QueryPlan plan) {
+        return Flux.defer(() -> {
+            // The version is taken before reading, so a write during the execution makes the result stale
+            long version = this.hierarchyVersionService.getVersion(plan.getSpaceId());
+            List<QueryResultRow> cached = this.queryResultCache.get(
+                    plan.getInstanceId(), plan.getPropertyHash(), version);
+            if (cached != null) {
+                return Flux.fromIterable(cached);
+            }
+
+            QueryResultCache.Recorder recorder =
+                    this.queryResultCache.recorder(plan.getInstanceId(), plan.getPropertyHash(), version);
+            return this.executePlan(plan)
+                    .doOnNext(recorder::add)
+                    .doOnComplete(recorder::commit); // Not cached if the client cancels
+        });
+    }
+
+    private Flux<QueryResultRow> executePlan(final QueryPlan plan) {
+        // The bindings are resolved in parallel keeping the order of the plan.
+        // The properties of the entes are read by batches
+        return Flux.fromIterable(plan.getBindings())
+                .flatMapSequential(this::resolveEntes, EXECUTION_CONCURRENCY)
+                .buffer(BATCH_SIZE)
+                .flatMapSequential(this::readProperties, EXECUTION_CONCURRENCY);
+    }
+
+    private Flux<QueryResultRow> resolveEntes(final QueryPlan.Binding binding) {
+        Mono<Boolean> bound = binding.getParentId() == null ?
+                Mono.just(true) :
+                this.enteHierarchyGraphService.isChild(binding.getParentId(), binding.getNodeId());
+
+        return bound.flatMapMany(exists -> {
+            if (!exists) {
+                log.warn("The binding of the property: '{}' references the node: '{}' that is not in the hierarchy",
+                        binding.getPropertyId(), binding.getNodeId());
+                return Flux.empty();
+            }
+            if (binding.isCategory()) {
+                return this.enteCategoryService.getTree(binding.getNodeId(), MAX_DEPTH)
+                        .filter(node -> !node.isCategory())
+                        .map(node -> row(binding, node.getParentId(), node.getId(), node.getName()));
+            }
+            return this.enteRepository.findById(binding.getNodeId())
+                    .map(ente -> row(binding, binding.getParentId(), ente.getId(), ente.getName()))
+                    .flux();
+        });
+    }
+
+    private Flux<QueryResultRow> readProperties(final List<QueryResultRow> rows) {
+        Set<UUID> enteIds = rows.stream().map(QueryResultRow::getEnteId).collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return this.entePropertyRepository.findAllInPartitions(enteIds)
+                .collect(Collectors.groupingBy(EnteProperty::getParentId))
+                .flatMapIterable(propertiesByEnte -> {
+                    rows.forEach(row -> row.setProperties(
+                            propertiesByEnte.getOrDefault(row.getEnteId(), Collections.emptyList())
+                                    .stream()
+                                    .map(property -> QueryResultRow.Property
+                                            .builder()
+                                                .id(property.getId())
+                                                .name(property.getName())
+                                                .type(property.getType())
+                                            .build())
+                                    .collect(Collectors.toList())));
+                    return rows;
+                });
+    }
+
+    private static QueryPlan.Binding binding(final DynamicObjectInstanceProperty<?> property) {
+        DynamicObjectInstanceProperty.HierarchyBindingValue value =
+                (DynamicObjectInstanceProperty.HierarchyBindingValue) property.getValue();
+        return QueryPlan.Binding
+                .builder()
+                    .propertyId(property.getId())
+                    .parentId(value.getParentId())
+                    .nodeId(value.getChildId())
+                    .category(value.getCategory())
+                .build();
+    }
+
+    // The properties are read in the same order (clustering order)
+    private static long propertyHash(final List<DynamicObjectInstanceProperty<?>> properties) {
+        long hash = 17;
+        for (DynamicObjectInstanceProperty<?> property : properties) {
+            DynamicObjectInstanceProperty.Value value = property.getValue();
+            String rawValue;
+            if (value instanceof DynamicObjectInstanceProperty.HierarchyBindingValue) {
+                DynamicObjectInstanceProperty.HierarchyBindingValue binding =
+                        (DynamicObjectInstanceProperty.HierarchyBindingValue) value;
+                rawValue = binding.getParentId() + "," + binding.getChildId() + "," + binding.getCategory();
+            }
+            else {
+                rawValue = value == null ? null : String.valueOf(value.getRawValue());
+            }
+            hash = 31 * hash + Objects.hash(property.getId(), value == null ? null : value.getType(), rawValue);
+        }
+        return hash;
+    }
+
+    private static QueryResultRow row(
+            final QueryPlan.Binding binding, final UUID parentId, final UUID enteId, final String enteName) {
+
+        return QueryResultRow
+                .builder()
+                    .propertyId(binding.getPropertyId())
+                    .parentId(parentId)
+                    .enteId(enteId)
+                    .enteName(enteName)
+                .build();
+    }
+}
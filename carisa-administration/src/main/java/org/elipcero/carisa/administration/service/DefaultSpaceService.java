@@ -34,7 +34,9 @@ import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelationService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @see SpaceService
@@ -130,4 +132,23 @@ public class DefaultSpaceService
     protected void updateEntity(Space entityForUpdating, Space entity) {
         entityForUpdating.setName(entity.getName());
     }
+
+    /**
+     * @see SpaceService
+     */
+    @Override
+    public Mono<Long> backfillReverseIndex(final UUID spaceId) {
+        // The parents of the hierarchy (the space and its categories) are reached breadth-first.
+        // The hierarchy table is shared, so the relations of any type are indexed by partition
+        Set<UUID> visited = ConcurrentHashMap.newKeySet();
+        Flux<UUID> hierarchyParents = Flux.just(spaceId)
+                .expand(parentId -> this.enteCategoryHierarchyRelation.getRelationsByParent(parentId)
+                        .filter(relation -> relation.isCategory() && visited.add(relation.getId()))
+                        .map(EnteHierarchy::getId));
+
+        return Flux.concat(
+                    this.spaceEnteRelation.backfillReverseIndex(spaceId),
+                    hierarchyParents.concatMap(this.enteCategoryHierarchyRelation::backfillReverseIndex))
+                .reduce(0L, Long::sum);
+    }
 }
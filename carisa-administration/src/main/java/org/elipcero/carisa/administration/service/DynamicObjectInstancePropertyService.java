@@ -2,9 +2,12 @@ package org.elipcero.carisa.administration.service;
 
 import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
 import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Operations for dynamic object instance property
@@ -17,7 +20,7 @@ public interface DynamicObjectInstancePropertyService {
     /**
      * Get dynamic object instance property
      */
-    Mono<DynamicObjectInstanceProperty<?>> getById(Map<String, Object> id);
+    Mono<DynamicObjectInstanceProperty<?>> getById(RelationKey id);
 
     /**
      * Create the instance property
@@ -34,4 +37,15 @@ public interface DynamicObjectInstancePropertyService {
      * @return the instance property created or updated
      */
     Mono<EntityDataState<DynamicObjectInstanceProperty<?>>> updateOrCreate(DynamicObjectInstanceProperty<?> property);
+
+    /**
+     * Update or create all the properties of the instance in one write. The properties are validated
+     * before writing: the value is mandatory, the identifiers can not be repeated and
+     * the instance of the property must be the instanceId.
+     * @param instanceId the instance identifier
+     * @param properties the instance properties for updating or creating
+     * @return the instance properties saved
+     */
+    Flux<DynamicObjectInstanceProperty<?>> updateOrCreateAll(
+            UUID instanceId, List<DynamicObjectInstanceProperty<?>> properties);
 }
@@ -2,9 +2,9 @@ package org.elipcero.carisa.administration.service;
 
 import org.elipcero.carisa.administration.domain.DynamicObjectPrototypeProperty;
 import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 
 /**
  * Operations for dynamic object prototype property
@@ -17,7 +17,7 @@ public interface DynamicObjectPrototypePropertyService {
     /**
      * Get dynamic object prototype property
      */
-    Mono<DynamicObjectPrototypeProperty> getById(Map<String, Object> id);
+    Mono<DynamicObjectPrototypeProperty> getById(RelationKey id);
 
     /**
      * Create the prototype property
@@ -21,11 +21,16 @@ import org.elipcero.carisa.administration.domain.DynamicObjectInstance;
 import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
 import org.elipcero.carisa.administration.domain.Space;
 import org.elipcero.carisa.administration.domain.SpaceQueryInstance;
+import org.elipcero.carisa.administration.projection.NameSearchResult;
 import org.elipcero.carisa.administration.repository.DynamicObjectInstanceRepository;
 import org.elipcero.carisa.administration.repository.DynamicObjectPrototypeRepository;
 import org.elipcero.carisa.administration.service.support.DynamicObjectInstanceService;
+import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
 import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
 
 /**
  * Operations for query instance
@@ -36,12 +41,41 @@ import org.elipcero.carisa.core.reactive.data.MultiplyDependencyRelation;
 
 public class DynamicQueryInstanceService extends DynamicObjectInstanceService<SpaceQueryInstance> {
 
+    private final NameSearchService nameSearchService;
+
     public DynamicQueryInstanceService(
          @NonNull final DynamicObjectInstanceRepository dynamicObjectRepository,
          @NonNull final MultiplyDependencyRelation<Space, DynamicObjectInstance, SpaceQueryInstance> relation,
          @NonNull final DynamicObjectPrototypeRepository dynamicObjectPrototypeRepository,
-         @NonNull final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> propertyRelation) {
+         @NonNull final EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> propertyRelation,
+         @NonNull final NameSearchService nameSearchService) {
 
         super(dynamicObjectRepository, relation, dynamicObjectPrototypeRepository, propertyRelation);
+        this.nameSearchService = nameSearchService;
+    }
+
+    /**
+     * @see DynamicObjectInstanceService
+     */
+    @Override
+    public Mono<DynamicObjectInstance> create(final DynamicObjectInstance entity, final SpaceQueryInstance manyRelation) {
+        return super.create(entity, manyRelation)
+                .doOnNext(this::putName);
+    }
+
+    /**
+     * @see DynamicObjectInstanceService
+     */
+    @Override
+    public Mono<EntityDataState<DynamicObjectInstance>> updateOrCreate(
+            final UUID id, final DynamicObjectInstance entity, final SpaceQueryInstance manyRelation) {
+
+        return super.updateOrCreate(id, entity, manyRelation)
+                .doOnNext(state -> this.putName(state.getEntity()));
+    }
+
+    private void putName(final DynamicObjectInstance instance) {
+        this.nameSearchService.put(
+                instance.getParentId(), instance.getId(), instance.getName(), NameSearchResult.Type.QueryInstance);
     }
 }
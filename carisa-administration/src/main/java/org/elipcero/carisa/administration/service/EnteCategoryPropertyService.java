@@ -20,10 +20,10 @@ import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
 import org.elipcero.carisa.administration.projection.EnteHierachyName;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.ParentChildName;
+import org.elipcero.carisa.core.data.RelationKey;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -39,7 +39,7 @@ public interface EnteCategoryPropertyService {
      * @param id
      * @return ente found
      */
-    Mono<EnteCategoryProperty> getById(final Map<String, Object> id);
+    Mono<EnteCategoryProperty> getById(final RelationKey id);
 
     /**
      * Create the Ente category property and insert it into the Ente category. It's not done in the same transaction.
@@ -99,4 +99,12 @@ public interface EnteCategoryPropertyService {
      * @return the children
      */
     Flux<EnteHierachyName> getChildren(final UUID enteCategoryPropertyId);
+
+    /**
+     * Get the leaf Ente properties reached from the category property following the links transitively.
+     * The linked category properties shared by several links are expanded only once and the cycles are ignored.
+     * @param enteCategoryPropertyId the category property identifier
+     * @return the leaf Ente properties without duplicates
+     */
+    Flux<EnteHierachyName> getLeaves(final UUID enteCategoryPropertyId);
 }
@@ -18,6 +18,7 @@ package org.elipcero.carisa.administration.service;
 
 import org.elipcero.carisa.administration.domain.EnteCategory;
 import org.elipcero.carisa.administration.projection.EnteHierachyName;
+import org.elipcero.carisa.administration.projection.EnteHierarchyNode;
 import org.elipcero.carisa.core.data.EntityDataState;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -63,6 +64,15 @@ public interface EnteCategoryService {
      */
     Flux<EnteHierachyName> getChildren(final UUID enteCategoryId);
 
+    /**
+     * Get the subtree of the ente category breadth-first until the depth. The nodes reached twice
+     * (several parents or cycles) are only returned and expanded the first time
+     * @param enteCategoryId ente category identifier (root)
+     * @param maxDepth the maximum depth (1 -> direct children)
+     * @return the nodes with their depth and parent
+     */
+    Flux<EnteHierarchyNode> getTree(final UUID enteCategoryId, final int maxDepth);
+
     /**
      * Connect the child category to the parent category
      * @param childId the child category
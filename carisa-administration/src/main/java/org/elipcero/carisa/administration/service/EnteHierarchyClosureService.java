@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import org.elipcero.carisa.administration.domain.EnteHierarchyClosure;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Operations for the closure table of the ente hierarchy
+ * @see EnteHierarchyClosure
+ *
+ * @author David Suárez
+ */
+public interface EnteHierarchyClosureService {
+
+    /**
+     * Connect the child to the parent. All the ancestors of the parent are connected
+     * with all the descendants of the child. If the nodes are already connected by other path,
+     * the minimum depth is kept. There is no disconnection, the hierarchy only grows (the relations
+     * between entes are never removed), so the closure is never decreased
+     * @param parentId parent identifier (space or ente category)
+     * @param parentCategory true if the parent is a ente category
+     * @param childId child identifier (ente category or ente)
+     * @param childCategory true if the child is a ente category
+     * @return when the closure is updated
+     */
+    Mono<Void> connect(UUID parentId, boolean parentCategory, UUID childId, boolean childCategory);
+
+    /**
+     * Fill the closure of the space with the relations of the hierarchy created before the closure existed.
+     * The relations are read breadth-first from the space and connected one after another under the lock
+     * of the space, so it can be executed while the hierarchy is changing. It's executed explicitly by space
+     * @param spaceId space identifier
+     * @return the relations connected
+     */
+    Mono<Long> backfill(UUID spaceId);
+
+    /**
+     * Get all the descendants of the node (subtree)
+     * @param nodeId node identifier
+     * @return descendants
+     */
+    Flux<EnteHierarchyClosure> getDescendants(UUID nodeId);
+
+    /**
+     * Get the descendants of the node until the depth
+     * @param nodeId node identifier
+     * @param maxDepth the maximum depth (1 -> direct children)
+     * @return descendants
+     */
+    Flux<EnteHierarchyClosure> getDescendants(UUID nodeId, int maxDepth);
+
+    /**
+     * Get all the ancestors of the node
+     * @param nodeId node identifier
+     * @return ancestors
+     */
+    Flux<EnteHierarchyClosure> getAncestors(UUID nodeId);
+
+    /**
+     * Check if the node is ancestor of the descendant at any depth
+     * @param ancestorId ancestor identifier
+     * @param descendantId descendant identifier
+     * @return true if it's ancestor
+     */
+    Mono<Boolean> isAncestor(UUID ancestorId, UUID descendantId);
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Structural questions about the ente hierarchy answered from an in-memory index by space.
+ * The index of the space is loaded the first time that it is used and it is updated
+ * when the hierarchy is written.
+ * @see org.elipcero.carisa.administration.service.support.SpaceHierarchyGraph
+ *
+ * @author David Suárez
+ */
+public interface EnteHierarchyGraphService {
+
+    /**
+     * Update the index when the child is connected to the parent. The hierarchy version of the space is changed
+     * @param parentId parent identifier (space or ente category)
+     * @param parentCategory true if the parent is a ente category
+     * @param childId child identifier (ente category or ente)
+     * @param newChild true if the child has been created now, so it has not descendants
+     * @return when the index is updated
+     */
+    Mono<Void> connect(UUID parentId, boolean parentCategory, UUID childId, boolean newChild);
+
+    /**
+     * Get the space of the node
+     * @param nodeId ente category or ente identifier
+     * @return the space identifier or empty if it's unknown
+     */
+    Mono<UUID> getSpaceId(UUID nodeId);
+
+    /**
+     * Check if the child is a direct child of the parent
+     * @param parentId ente category identifier
+     * @param childId ente category or ente identifier
+     * @return true if it's child
+     */
+    Mono<Boolean> isChild(UUID parentId, UUID childId);
+
+    /**
+     * Check if the node is ancestor of the descendant at any depth
+     * @param ancestorId ancestor identifier
+     * @param descendantId descendant identifier
+     * @return true if it's ancestor
+     */
+    Mono<Boolean> isAncestor(UUID ancestorId, UUID descendantId);
+
+    /**
+     * Check if connecting the child to the parent would create a cycle
+     * @param parentId ente category parent identifier
+     * @param childId ente category child identifier
+     * @return true if it creates a cycle
+     */
+    Mono<Boolean> createsCycle(UUID parentId, UUID childId);
+
+    /**
+     * Remove the index of the space. It will be loaded again when it is used
+     * @param spaceId space identifier
+     */
+    void invalidate(UUID spaceId);
+}
@@ -18,9 +18,9 @@ package org.elipcero.carisa.administration.service;
 
 import org.elipcero.carisa.administration.domain.EnteProperty;
 import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 
 /**
  * Operations for Ente property
@@ -35,7 +35,7 @@ public interface EntePropertyService {
      * @param id
      * @return ente found
      */
-    Mono<EnteProperty> getById(final Map<String, Object> id);
+    Mono<EnteProperty> getById(final RelationKey id);
 
     /**
      * Create the Ente property.
@@ -70,4 +70,18 @@ public interface EnteService {
      * @return the ente connected
      */
     Mono<Ente> connectToCategory(UUID enteId, UUID categoryId);
+
+    /**
+     * Get the spaces containing the ente. The reverse index is used
+     * @param enteId ente identifier
+     * @return the spaces (parentId is the ente)
+     */
+    Flux<ParentChildName> getSpacesByEnte(UUID enteId);
+
+    /**
+     * Get the categories holding the ente. The reverse index is used
+     * @param enteId ente identifier
+     * @return the categories (parentId is the ente)
+     */
+    Flux<ParentChildName> getCategoriesByEnte(UUID enteId);
 }
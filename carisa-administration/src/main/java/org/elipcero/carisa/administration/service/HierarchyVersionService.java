@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import java.util.UUID;
+
+/**
+ * Version of the ente hierarchy by space. The version changes with any write that modifies
+ * the data reached from the hierarchy (hierarchy, links of category properties, entes and their properties).
+ * It's used to know if the data derived from the hierarchy is up to date.
+ *
+ * @author David Suárez
+ */
+public interface HierarchyVersionService {
+
+    /**
+     * Get the actual version of the space
+     * @param spaceId space identifier
+     * @return the version
+     */
+    long getVersion(UUID spaceId);
+
+    /**
+     * Change the version of the space
+     * @param spaceId space identifier. If it's null (unknown space) the version of all the spaces is changed
+     */
+    void increment(UUID spaceId);
+}
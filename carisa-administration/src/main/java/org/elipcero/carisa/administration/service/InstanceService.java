@@ -16,7 +16,11 @@
 
 package org.elipcero.carisa.administration.service;
 
+import org.elipcero.carisa.administration.domain.DeployJob;
 import org.elipcero.carisa.administration.domain.Instance;
+import org.elipcero.carisa.administration.projection.BulkDeployProgress;
+import org.elipcero.carisa.administration.projection.BulkDeployRequest;
+import org.elipcero.carisa.administration.service.support.DeployRecovery;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.ParentChildName;
 import reactor.core.publisher.Flux;
@@ -30,7 +34,7 @@ import java.util.UUID;
  *
  * @author David Suárez
  */
-public interface InstanceService {
+public interface InstanceService extends DeployRecovery {
 
     /**
      * Get instance by id
@@ -63,9 +67,31 @@ public interface InstanceService {
     Mono<EntityDataState<Instance>> updateOrCreate(UUID id, Instance instance);
 
     /**
-     * Deploy instance into platform. Change state of the instance
+     * Enqueue the deploy of the instance into platform. The deploy is executed asynchronously
+     * and changes the state of the instance. The jobs of the same instance are executed in order.
+     * If the instance is deployed with the same deployer specification, the deployer is not called
+     * and a succeeded job without id is returned (it is not recorded, @see DeployJob.skipped)
      * @param id the instance id
-     * @return instance deployed
+     * @param force deploy although the instance is deployed with the same specification
+     * @return the job pending. Empty if the instance is not found.
+     * DeployQueueFullException if the queue has reached the capacity
      */
-    Mono<Instance> deploy(final UUID id);
+    Mono<DeployJob> deploy(final UUID id, final boolean force);
+
+    /**
+     * Deploy several instances. Each deploy is enqueued (@see deploy) with bounded concurrency
+     * and the instance is reported when its job finishes. The bulk deploy stops when
+     * the failed instances reach the error threshold
+     * @param request the instances selector (identifiers or states)
+     * @return the progress by instance
+     */
+    Flux<BulkDeployProgress> deployAll(final BulkDeployRequest request);
+
+    /**
+     * Get the deploy job of the instance
+     * @param instanceId the instance id
+     * @param jobId the job id
+     * @return the job found
+     */
+    Mono<DeployJob> getDeployJob(final UUID instanceId, final UUID jobId);
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import org.elipcero.carisa.administration.projection.NameSearchResult;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Search by name of the entes, ente categories and query instances of a space.
+ * The index of the space is built in memory when is searched the first time
+ * and is maintained when the entities are created, renamed or connected.
+ *
+ * @author David Suárez
+ */
+public interface NameSearchService {
+
+    /**
+     * Search the entities of the space whose name contains the query
+     * @param spaceId the space identifier
+     * @param query text to search (It's case and accent insensitive)
+     * @param page page number (0 -> first)
+     * @param size page size
+     * @return the results ranked (the best is the first)
+     */
+    Flux<NameSearchResult> search(UUID spaceId, String query, int page, int size);
+
+    /**
+     * Add or rename the entity into the index of the space. If the index of the space is not loaded
+     * is ignored (It will be read when is loaded)
+     * @param spaceId the space identifier
+     * @param id the entity identifier
+     * @param name the entity name
+     * @param type the entity type
+     */
+    void put(UUID spaceId, UUID id, String name, NameSearchResult.Type type);
+
+    /**
+     * The entity has been connected into the space. If it is not into the index
+     * it comes with its subtree from other space and the index of the space is invalidated
+     * @param spaceId the space identifier
+     * @param id the entity identifier
+     */
+    void connect(UUID spaceId, UUID id);
+
+    /**
+     * Remove the index of the space. It will be loaded again
+     * @param spaceId the space identifier
+     */
+    void invalidate(UUID spaceId);
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import org.elipcero.carisa.administration.projection.QueryResultRow;
+import org.elipcero.carisa.administration.service.support.QueryPlan;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Execution of query instances
+ * @see QueryPlan
+ *
+ * @author David Suárez
+ */
+public interface QueryInstanceExecutionService {
+
+    /**
+     * Compile the properties of the query instance into a plan
+     * @param instanceId query instance identifier
+     * @return the plan or empty if the instance doesn't exist
+     */
+    Mono<QueryPlan> compile(UUID instanceId);
+
+    /**
+     * Execute the plan. The bound categories are expanded until the entes. The rows are streamed
+     * when they are read, so the consumer controls the reads with the demand (backpressure).
+     * The result is cached while neither the properties of the instance nor the hierarchy of the space change
+     * @see HierarchyVersionService
+     * @param plan the plan
+     * @return the rows (One for each bound ente)
+     */
+    Flux<QueryResultRow> execute(QueryPlan plan);
+}
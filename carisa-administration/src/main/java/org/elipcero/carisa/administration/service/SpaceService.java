@@ -77,4 +77,13 @@ public interface SpaceService {
      * @return the query prototype view
      */
     Flux<ParentChildName> getQueryPrototypesBySpace(final UUID spaceId);
+
+    /**
+     * Fill the reverse indexes (child -> parents) of the space with the relations written before
+     * the indexes existed: the entes of the space and the ente hierarchy reached from the space.
+     * It's executed explicitly by space and it can be executed several times
+     * @param spaceId space identifier
+     * @return the relations indexed
+     */
+    Mono<Long> backfillReverseIndex(UUID spaceId);
 }
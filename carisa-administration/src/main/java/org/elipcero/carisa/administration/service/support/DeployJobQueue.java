@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.DeployJob;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Queue of deploy jobs drained by a bounded pool of workers. The jobs of the same instance
+ * are executed one after another (arrival order) and the jobs of different instances are executed
+ * in parallel up to the concurrency. The worker is asynchronous, so no thread is blocked while
+ * the job is executing. A job is held only once (by identifier). The queue is thread safe.
+ *
+ * @author David Suárez
+ */
+public class DeployJobQueue {
+
+    private final int concurrency;
+    private final int capacity;
+    private final Function<DeployJob, Mono<Void>> worker;
+
+    // Pending jobs by instance (arrival order)
+    private final Map<UUID, Deque<DeployJob>> pending = new HashMap<>();
+
+    // Instances with pending jobs and without job running. The first is the oldest
+    private final Deque<UUID> ready = new ArrayDeque<>();
+
+    // Instances with job running
+    private final Set<UUID> running = new HashSet<>();
+
+    // Jobs queued or running
+    private final Set<UUID> held = new HashSet<>();
+
+    private int size;
+
+    public DeployJobQueue(final int concurrency, final int capacity, final Function<DeployJob, Mono<Void>> worker) {
+        if (concurrency < 1 || capacity < 1) {
+            throw new IllegalArgumentException("The concurrency and the capacity must be greater than zero");
+        }
+        this.concurrency = concurrency;
+        this.capacity = capacity;
+        this.worker = worker;
+    }
+
+    /**
+     * Enqueue the job. The job is executed when there is a free worker
+     * and the previous jobs of the instance have finished. If the job is already held, it is not enqueued again
+     * @param job the job to execute
+     * @return false if the queue is full
+     */
+    public boolean offer(final DeployJob job) {
+        List<DeployJob> jobs;
+        synchronized (this) {
+            if (this.held.contains(job.getId())) {
+                return true;
+            }
+            if (this.size >= this.capacity) {
+                return false;
+            }
+            this.held.add(job.getId());
+            this.size++;
+            Deque<DeployJob> instanceJobs = this.pending.computeIfAbsent(job.getInstanceId(), __ -> new ArrayDeque<>());
+            instanceJobs.add(job);
+            if (instanceJobs.size() == 1 && !this.running.contains(job.getInstanceId())) {
+                this.ready.add(job.getInstanceId());
+            }
+            jobs = this.takeRunnable();
+        }
+        jobs.forEach(this::execute);
+        return true;
+    }
+
+    /**
+     * Pending jobs (not running)
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public synchronized int getRunning() {
+        return this.running.size();
+    }
+
+    /**
+     * The job is queued or running
+     */
+    public synchronized boolean contains(final UUID jobId) {
+        return this.held.contains(jobId);
+    }
+
+    // Take the jobs that can be started. The jobs are started out of the lock
+    private List<DeployJob> takeRunnable() {
+        List<DeployJob> jobs = new ArrayList<>();
+        while (this.running.size() < this.concurrency && !this.ready.isEmpty()) {
+            UUID instanceId = this.ready.poll();
+            Deque<DeployJob> instanceJobs = this.pending.get(instanceId);
+            jobs.add(instanceJobs.poll());
+            if (instanceJobs.isEmpty()) {
+                this.pending.remove(instanceId);
+            }
+            this.size--;
+            this.running.add(instanceId);
+        }
+        return jobs;
+    }
+
+    // The worker records the errors into the job, so the errors are ignored
+    private void execute(final DeployJob job) {
+        Mono.defer(() -> this.worker.apply(job))
+                .onErrorResume(__ -> Mono.empty())
+                .doFinally(__ -> this.complete(job))
+                .subscribe();
+    }
+
+    private void complete(final DeployJob job) {
+        UUID instanceId = job.getInstanceId();
+        List<DeployJob> jobs;
+        synchronized (this) {
+            this.held.remove(job.getId());
+            this.running.remove(instanceId);
+            if (this.pending.containsKey(instanceId)) {
+                this.ready.add(instanceId);
+            }
+            jobs = this.takeRunnable();
+        }
+        jobs.forEach(this::execute);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.elipcero.carisa.administration.service.support;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import org.elipcero.carisa.core.application.configuration.ServiceProperties;
+import org.elipcero.carisa.core.reactive.misc.DataLockController;
+import org.springframework.util.Assert;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+/**
+ * Recover the deploys that have not finished because the node died (@see DeployIntent).
+ * The reconciler reads periodically the time buckets from the first bucket that has intents
+ * until now, so the instances are not scanned. Each expired intent is claimed by a lock,
+ * in this way only one node recovers it.
+ * The intents are leases: the node that holds a job (queued or running) renews the intent
+ * before it expires, so only the jobs of the died nodes are recovered.
+ * The intents live (time to live) two lookbacks after expiring. The intents expired before the lookback
+ * are not recovered, their jobs are failed on starting (@see intentTimeToLive).
+ *
+ * @author David Suárez
+ */
+@Slf4j
+public class DeployReconciler {
+
+    public static final int CLAIM_SECONDS = 60;
+
+    /**
+     * Time to live of the intents. An intent expired is recovered during the lookback and it is failed
+     * on starting during the next lookback, after that the database removes it
+     */
+    public static Duration intentTimeToLive(final ServiceProperties.Deploy deployProperties) {
+        return deployProperties.getIntentTimeout().plus(deployProperties.getReconcileLookback().multipliedBy(2));
+    }
+
+    private final DataLockController dataLockController;
+    private final DeployRecovery recovery;
+    private final Supplier<Instant> clock;
+
+    private final Duration bucketSize;
+    private final Duration interval;
+    private final Duration lookback;
+
+    private final AtomicLong cursor; // First bucket that can have intents
+    private Disposable task;
+
+    public DeployReconciler(
+            @NonNull final DataLockController dataLockController,
+            @NonNull final ServiceProperties.Deploy deployProperties,
+            @NonNull final DeployRecovery recovery) {
+
+        this(dataLockController, deployProperties, recovery, Instant::now);
+    }
+
+    DeployReconciler(
+            @NonNull final DataLockController dataLockController,
+            @NonNull final ServiceProperties.Deploy deployProperties,
+            @NonNull final DeployRecovery recovery,
+            @NonNull final Supplier<Instant> clock) {
+
+        // The leases are renewed by the reconciliation, so it must run several times before they expire
+        Assert.isTrue(deployProperties.getReconcileInterval().multipliedBy(2)
+                        .compareTo(deployProperties.getIntentTimeout()) <= 0,
+                "The reconcile interval must be less or equal than the half of the intent timeout");
+
+        this.dataLockController = dataLockController;
+        this.recovery = recovery;
+        this.clock = clock;
+        this.bucketSize = deployProperties.getIntentBucketSize();
+        this.interval = deployProperties.getReconcileInterval();
+        this.lookback = deployProperties.getReconcileLookback();
+        this.cursor = new AtomicLong(DeployIntent.bucketOf(clock.get().minus(this.lookback), this.bucketSize));
+    }
+
+    /**
+     * Start the periodic reconciliation. The leases of this node are renewed before reconciling.
+     * On starting, the deploys of the intents older than the lookback are failed (@see failLostDeploys)
+     */
+    public synchronized void start() {
+        if (this.task == null) {
+            this.task = Mono.defer(this::failLostDeploys)
+                    .doOnNext(failed -> {
+                        if (failed > 0) {
+                            log.warn("Lost deploys failed: {}", failed);
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        log.error("Error failing the lost deploys", e);
+                        return Mono.empty();
+                    })
+                    .thenMany(Flux.interval(this.interval, this.interval))
+                    .onBackpressureDrop() // The reconciliation is slower than the interval
+                    .concatMap(__ -> this.recovery.renewDeployLeases()
+                            .then(this.reconcile())
+                            .onErrorResume(e -> {
+                                log.error("Error reconciling the deploy intents", e);
+                                return Mono.empty();
+                            }))
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Stop the periodic reconciliation
+     */
+    public synchronized void stop() {
+        if (this.task != null) {
+            this.task.dispose();
+            this.task = null;
+        }
+    }
+
+    /**
+     * Recover the expired intents of the buckets from the cursor until now. The cursor is moved
+     * to the first bucket that keeps intents not resolved or not expired
+     * @return the intents resolved
+     */
+    public Mono<Long> reconcile() {
+        Instant now = this.clock.get();
+        long to = DeployIntent.bucketOf(now, this.bucketSize);
+        AtomicLong firstPending = new AtomicLong(to);
+        AtomicLong resolved = new AtomicLong();
+
+        return Flux.fromStream(LongStream.rangeClosed(Math.min(this.cursor.get(), to), to).boxed())
+                .concatMap(bucket -> this.recovery.getDeployIntents(bucket)
+                        .concatMap(intent -> intent.getExpiresAt().isBefore(now) ?
+                                this.claimAndRecover(intent) :
+                                Mono.just(false))
+                        .doOnNext(isResolved -> {
+                            if (isResolved) {
+                                resolved.incrementAndGet();
+                            }
+                            else {
+                                firstPending.accumulateAndGet(bucket, Math::min);
+                            }
+                        }))
+                .then(Mono.fromSupplier(() -> {
+                    this.cursor.set(firstPending.get());
+                    if (resolved.get() > 0) {
+                        log.info("Deploy intents recovered: {}", resolved.get());
+                    }
+                    return resolved.get();
+                }));
+    }
+
+    /**
+     * Fail the deploys of the intents expired before the lookback (until two lookbacks). They are older than
+     * the first bucket read by the reconciliation, so nobody would recover them (all the nodes were stopped).
+     * The old buckets are read only on starting, the running nodes move the cursor so they don't leave intents
+     * @return the intents resolved
+     */
+    public Mono<Long> failLostDeploys() {
+        long from = DeployIntent.bucketOf(this.clock.get().minus(this.lookback.multipliedBy(2)), this.bucketSize);
+        return Flux.fromStream(LongStream.range(from, this.cursor.get()).boxed())
+                .concatMap(this.recovery::getDeployIntents)
+                .concatMap(intent -> this.claim(intent, this.recovery::failLostDeploy))
+                .filter(isResolved -> isResolved)
+                .count();
+    }
+
+    private Mono<Boolean> claimAndRecover(final DeployIntent intent) {
+        return this.claim(intent, this.recovery::recoverDeploy);
+    }
+
+    // Only the node that claims the intent resolves it
+    private Mono<Boolean> claim(final DeployIntent intent, final Function<DeployIntent, Mono<Boolean>> resolve) {
+        return this.dataLockController.lock(intent.getJobId(), CLAIM_SECONDS)
+                .flatMap(claimed -> claimed ?
+                        resolve.apply(intent)
+                                .defaultIfEmpty(false)
+                                .onErrorResume(e -> {
+                                    log.warn("The deploy intent of the job: '{}' could not be resolved",
+                                            intent.getJobId(), e);
+                                    return Mono.just(false);
+                                })
+                                .flatMap(isResolved -> this.dataLockController.unLock(intent.getJobId())
+                                        .thenReturn(isResolved)) :
+                        Mono.just(false));
+    }
+}
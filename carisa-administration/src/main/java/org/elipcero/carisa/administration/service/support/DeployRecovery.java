@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Operations used by the reconciler to recover the deploy jobs (@see DeployReconciler)
+ *
+ * @author David Suárez
+ */
+public interface DeployRecovery {
+
+    /**
+     * Get the deploy intents of the time bucket
+     * @param bucket the time bucket (@see DeployIntent.bucketOf)
+     * @return intents
+     */
+    Flux<DeployIntent> getDeployIntents(final long bucket);
+
+    /**
+     * Recover the deploy of an expired intent. The node that held the job died, so the job
+     * not finished is enqueued again. The intent of a finished job is only removed
+     * @param intent the expired intent
+     * @return true if the intent is resolved, false if it must be recovered later
+     */
+    Mono<Boolean> recoverDeploy(final DeployIntent intent);
+
+    /**
+     * Renew the leases (intents) of the jobs held by this node (queued or running)
+     * that are going to expire
+     * @return the leases renewed
+     */
+    Mono<Long> renewDeployLeases();
+
+    /**
+     * Fail the deploy of an intent expired before the lookback of the reconciler. Nobody has recovered it
+     * in time (all the nodes were stopped), so the job not finished is failed and the instance is
+     * changed to Error instead of deploying it again. The intent is removed
+     * @param intent the lost intent
+     * @return true if the intent is resolved, false if it must be failed later
+     */
+    Mono<Boolean> failLostDeploy(final DeployIntent intent);
+}
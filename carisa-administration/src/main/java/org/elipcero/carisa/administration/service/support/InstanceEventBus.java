@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.projection.InstanceStateEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.UUID;
+
+/**
+ * In process multicast of the transitions of the instance state. The events are not stored,
+ * so the subscribers only receive the transitions published after subscribing.
+ * Each subscriber has its own buffer, a slow subscriber loses the oldest events of its buffer
+ * and it doesn't slow down the publisher and other subscribers.
+ *
+ * @author David Suárez
+ */
+@Component
+public class InstanceEventBus {
+
+    public static final int SUBSCRIBER_BUFFER_SIZE = 256;
+
+    private final DirectProcessor<InstanceStateEvent> processor = DirectProcessor.create();
+    private final FluxSink<InstanceStateEvent> sink = this.processor.sink(); // Serialized
+
+    /**
+     * Publish the transition to the current subscribers
+     */
+    public void publish(final InstanceStateEvent event) {
+        this.sink.next(event);
+    }
+
+    /**
+     * All the transitions
+     */
+    public Flux<InstanceStateEvent> events() {
+        return this.processor.onBackpressureBuffer(
+                SUBSCRIBER_BUFFER_SIZE, __ -> { }, BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    /**
+     * The transitions of the instance
+     */
+    public Flux<InstanceStateEvent> events(final UUID instanceId) {
+        return this.events().filter(event -> event.getInstanceId().equals(instanceId));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.misc.LruCache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Resolved types of the ente category properties. Only the resolved types (not None) are cached.
+ * The type can be changed by other node, so the entries expire after the time to live and
+ * the entry is invalidated when it does not match with a linked type (the caller checks it again).
+ * When the size exceeds the maximum the least recently used entries are evicted (@see LruCache).
+ * The cache is thread safe.
+ *
+ * @author David Suárez
+ */
+public class PropertyTypeCache {
+
+    private final Duration timeToLive;
+    private final Supplier<Instant> clock;
+
+    private final LruCache<RelationKey, Entry> entries;
+
+    public PropertyTypeCache(final int maxSize, final Duration timeToLive) {
+        this(maxSize, timeToLive, Instant::now);
+    }
+
+    PropertyTypeCache(final int maxSize, final Duration timeToLive, final Supplier<Instant> clock) {
+        this.entries = new LruCache<>(maxSize);
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the resolved type of the property
+     * @return the type or null if it is not cached or it has expired
+     */
+    public EnteProperty.Type get(final RelationKey id) {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (!entry.expiresAt.isAfter(this.clock.get())) {
+                this.entries.remove(id);
+                return null;
+            }
+            return entry.type;
+        }
+    }
+
+    /**
+     * Write the type of the property. The None type removes the entry
+     */
+    public void put(final RelationKey id, final EnteProperty.Type type) {
+        if (type == null || type == EnteProperty.Type.None) {
+            this.entries.remove(id);
+            return;
+        }
+        this.entries.put(id, new Entry(type, this.clock.get().plus(this.timeToLive)));
+    }
+
+    /**
+     * Remove the type of the property
+     */
+    public void invalidate(final RelationKey id) {
+        this.entries.remove(id);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    private static class Entry {
+
+        private final EnteProperty.Type type;
+        private final Instant expiresAt;
+
+        Entry(final EnteProperty.Type type, final Instant expiresAt) {
+            this.type = type;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Execution plan of a query instance. It's compiled from the properties of the instance.
+ * Only the hierarchy bindings select data, the rest of properties are configuration of the query plugin.
+ * @see org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty.HierarchyBindingValue
+ *
+ * @author David Suárez
+ */
+@Builder
+@Getter
+public class QueryPlan {
+
+    private UUID instanceId;
+    private UUID spaceId;
+    private long propertyHash; // It changes when any property of the instance changes
+    private List<Binding> bindings;
+
+    /**
+     * Node of the ente hierarchy bound by an instance property
+     */
+    @Builder
+    @Getter
+    public static class Binding {
+        private UUID propertyId; // Instance property
+        private UUID parentId; // Ente category or space. It can be null
+        private UUID nodeId; // Ente category or Ente
+        private boolean category;
+    }
+}
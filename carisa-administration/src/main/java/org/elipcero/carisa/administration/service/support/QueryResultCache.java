@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.projection.QueryResultRow;
+import org.elipcero.carisa.core.misc.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Results of the query instances. The entry of an instance is valid while the properties of the instance
+ * (property hash) and the hierarchy of the space (hierarchy version) don't change.
+ * The size is measured in weight (rows and properties of rows). When the weight exceeds the maximum
+ * the least recently used entries are evicted (@see LruCache). The results heavier than the maximum by entry are not cached.
+ * The cache is thread safe.
+ *
+ * @author David Suárez
+ */
+public class QueryResultCache {
+
+    private final long maxEntryWeight;
+
+    private final LruCache<UUID, Entry> entries;
+
+    public QueryResultCache(final long maxWeight, final long maxEntryWeight) {
+        this.entries = new LruCache<>(maxWeight, entry -> entry.weight);
+        this.maxEntryWeight = Math.min(maxEntryWeight, maxWeight);
+    }
+
+    /**
+     * Get the rows of the instance
+     * @return the rows or null if there isn't a valid entry
+     */
+    public List<QueryResultRow> get(final UUID instanceId, final long propertyHash, final long version) {
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(instanceId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.propertyHash != propertyHash || entry.version != version) { // Stale
+                this.entries.remove(instanceId);
+                return null;
+            }
+            return entry.rows;
+        }
+    }
+
+    /**
+     * Start the recording of the rows of an execution. The rows are added when they are streamed
+     */
+    public Recorder recorder(final UUID instanceId, final long propertyHash, final long version) {
+        return new Recorder(instanceId, propertyHash, version);
+    }
+
+    public long getWeight() {
+        return this.entries.getWeight();
+    }
+
+    private static long weightOf(final QueryResultRow row) {
+        return 1 + (row.getProperties() == null ? 0 : row.getProperties().size());
+    }
+
+    /**
+     * Records the rows of one execution. The recording is discarded when the weight exceeds
+     * the maximum by entry
+     */
+    public final class Recorder {
+
+        private final UUID instanceId;
+        private final long propertyHash;
+        private final long version;
+
+        private List<QueryResultRow> rows = new ArrayList<>();
+        private long rowsWeight;
+
+        private Recorder(final UUID instanceId, final long propertyHash, final long version) {
+            this.instanceId = instanceId;
+            this.propertyHash = propertyHash;
+            this.version = version;
+        }
+
+        public void add(final QueryResultRow row) {
+            if (this.rows == null) {
+                return;
+            }
+            this.rowsWeight += weightOf(row);
+            if (this.rowsWeight > QueryResultCache.this.maxEntryWeight) {
+                this.rows = null; // Too heavy
+            }
+            else {
+                this.rows.add(row);
+            }
+        }
+
+        /**
+         * Store the rows when the execution is completed
+         */
+        public void commit() {
+            if (this.rows != null) {
+                QueryResultCache.this.entries.put(this.instanceId,
+                        new Entry(this.propertyHash, this.version, Collections.unmodifiableList(this.rows), this.rowsWeight));
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final long propertyHash;
+        private final long version;
+        private final List<QueryResultRow> rows;
+        private final long weight;
+
+        Entry(final long propertyHash, final long version, final List<QueryResultRow> rows, final long weight) {
+            this.propertyHash = propertyHash;
+            this.version = version;
+            this.rows = rows;
+            this.weight = weight;
+        }
+    }
+}
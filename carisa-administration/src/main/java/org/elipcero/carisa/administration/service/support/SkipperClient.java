@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import lombok.NonNull;
+import org.elipcero.carisa.administration.domain.KubernetesDeployer;
+import org.elipcero.carisa.administration.exception.SkipperException;
+import org.elipcero.carisa.core.application.configuration.ServiceProperties;
+import org.elipcero.carisa.core.reactive.misc.CircuitBreaker;
+import org.elipcero.carisa.core.reactive.misc.CircuitBreakerOpenException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.util.Assert;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Client of the skipper (platform deployer). The connections are pooled and the calls have
+ * connect, read and response timeouts. The idempotent calls are retried with jittered exponential
+ * backoff when the skipper fails (5xx, timeout or connection error). The client errors (4xx)
+ * are not retried. All the calls go through a circuit breaker that fails fast while the skipper is down.
+ *
+ * @author David Suárez
+ */
+public class SkipperClient {
+
+    public static final String DEPLOYERS_PATH = "/api/platforms/kubernetes/deployers";
+    public static final String METRIC_PREFIX = "carisa.skipper";
+
+    private static final double JITTER_FACTOR = 0.5;
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Duration responseTimeout;
+    private final int maxRetries;
+    private final Duration firstBackoff;
+    private final Duration maxBackoff;
+
+    private final Timer callTimer;
+    private final Counter successCounter;
+    private final Counter clientErrorCounter;
+    private final Counter failureCounter;
+    private final Counter retryCounter;
+    private final Counter rejectedCounter;
+
+    public SkipperClient(@NonNull final ServiceProperties.Skipper skipper, @NonNull final MeterRegistry meterRegistry) {
+        Assert.notNull(skipper.getUri(), "The skipper uri can not be null");
+
+        this.responseTimeout = skipper.getResponseTimeout();
+        this.maxRetries = skipper.getMaxRetries();
+        this.firstBackoff = skipper.getFirstBackoff();
+        this.maxBackoff = skipper.getMaxBackoff();
+
+        HttpClient httpClient = HttpClient
+                .create(ConnectionProvider.fixed(
+                        "skipper", skipper.getMaxConnections(), skipper.getAcquireTimeout().toMillis()))
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) skipper.getConnectTimeout().toMillis())
+                        .doOnConnected(connection -> connection.addHandlerLast(
+                                new ReadTimeoutHandler(skipper.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS))));
+
+        this.webClient = WebClient
+                .builder()
+                    .baseUrl(skipper.getUri())
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+
+        this.circuitBreaker = new CircuitBreaker(
+                "skipper", skipper.getCircuitFailureThreshold(), skipper.getCircuitOpenDuration());
+
+        this.callTimer = meterRegistry.timer(METRIC_PREFIX + ".calls");
+        this.successCounter = meterRegistry.counter(METRIC_PREFIX + ".requests", "outcome", "success");
+        this.clientErrorCounter = meterRegistry.counter(METRIC_PREFIX + ".requests", "outcome", "client_error");
+        this.failureCounter = meterRegistry.counter(METRIC_PREFIX + ".requests", "outcome", "failure");
+        this.retryCounter = meterRegistry.counter(METRIC_PREFIX + ".retries");
+        this.rejectedCounter = meterRegistry.counter(METRIC_PREFIX + ".rejected");
+        meterRegistry.gauge(METRIC_PREFIX + ".circuit.open", this.circuitBreaker,
+                circuit -> circuit.getState() == CircuitBreaker.State.Closed ? 0 : 1);
+    }
+
+    /**
+     * Deploy into kubernetes. The call is idempotent (PUT)
+     * @param deployer the deployer information
+     * @return true if the skipper has deployed, false if the skipper has refused the deployer (4xx).
+     * Error if the skipper is not available after the retries or the circuit is open
+     */
+    public Mono<Boolean> deploy(final KubernetesDeployer deployer) {
+        return this.idempotentCall(() -> this.webClient.put()
+                .uri(DEPLOYERS_PATH)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromObject(deployer))
+                .exchange());
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return this.circuitBreaker.getState();
+    }
+
+    // Each attempt is a new request. The body of the response is released to return the connection to the pool
+    private Mono<Boolean> idempotentCall(final Supplier<Mono<ClientResponse>> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicInteger attempts = new AtomicInteger();
+
+            Mono<Boolean> attempt = Mono
+                    .defer(() -> {
+                        if (attempts.getAndIncrement() > 0) {
+                            this.retryCounter.increment();
+                        }
+                        return request.get();
+                    })
+                    .flatMap(response -> response.bodyToMono(Void.class)
+                            .then(Mono.defer(() -> this.result(response))))
+                    .timeout(this.responseTimeout)
+                    .doOnError(__ -> this.failureCounter.increment());
+
+            return this.circuitBreaker
+                    .execute(this.maxRetries > 0 ?
+                            attempt.retryBackoff(this.maxRetries, this.firstBackoff, this.maxBackoff, JITTER_FACTOR) :
+                            attempt)
+                    .doOnError(CircuitBreakerOpenException.class, __ -> this.rejectedCounter.increment())
+                    .doFinally(__ -> this.callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Mono<Boolean> result(final ClientResponse response) {
+        if (response.statusCode().is5xxServerError()) {
+            return Mono.error(new SkipperException(
+                    String.format("The skipper has failed. Status: '%s'", response.statusCode())));
+        }
+        if (response.statusCode().isError()) {
+            this.clientErrorCounter.increment();
+            return Mono.just(false);
+        }
+        this.successCounter.increment();
+        return Mono.just(true);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory adjacency index of the ente hierarchy of one space. The nodes are translated to
+ * int indexes and the edges are kept in int arrays in both directions (children and parents)
+ * so the structural questions are answered without reading cassandra.
+ * The graph is thread safe.
+ *
+ * @author David Suárez
+ */
+public class SpaceHierarchyGraph {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int INITIAL_CAPACITY = 16;
+
+    @Getter
+    private final UUID spaceId;
+
+    private final Map<UUID, Integer> indexes = new HashMap<>();
+
+    private UUID[] ids = new UUID[INITIAL_CAPACITY];
+    private int[][] children = new int[INITIAL_CAPACITY][];
+    private int[] childrenCount = new int[INITIAL_CAPACITY];
+    private int[][] parents = new int[INITIAL_CAPACITY][];
+    private int[] parentsCount = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public SpaceHierarchyGraph(final UUID spaceId) {
+        this.spaceId = spaceId;
+        this.indexOrAdd(spaceId);
+    }
+
+    /**
+     * Number of nodes (space included)
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public synchronized boolean contains(final UUID nodeId) {
+        return this.indexes.containsKey(nodeId);
+    }
+
+    /**
+     * Add the edge. The parent and the child are added if they don't exist
+     * @return true if the edge is new
+     */
+    public synchronized boolean connect(final UUID parentId, final UUID childId) {
+        int parent = this.indexOrAdd(parentId);
+        int child = this.indexOrAdd(childId);
+        if (indexOf(this.children[parent], this.childrenCount[parent], child) >= 0) {
+            return false;
+        }
+        this.children[parent] = append(this.children[parent], this.childrenCount[parent]++, child);
+        this.parents[child] = append(this.parents[child], this.parentsCount[child]++, parent);
+        return true;
+    }
+
+    /**
+     * Check if the child is a direct child of the parent
+     */
+    public synchronized boolean isChild(final UUID parentId, final UUID childId) {
+        Integer parent = this.indexes.get(parentId);
+        Integer child = this.indexes.get(childId);
+        return parent != null && child != null &&
+                indexOf(this.children[parent], this.childrenCount[parent], child) >= 0;
+    }
+
+    /**
+     * Check if there is a path from the node to the target following the children (breadth-first).
+     * A node is reachable from itself
+     */
+    public synchronized boolean isReachable(final UUID fromId, final UUID toId) {
+        Integer from = this.indexes.get(fromId);
+        Integer to = this.indexes.get(toId);
+        if (from == null || to == null) {
+            return false;
+        }
+
+        boolean[] visited = new boolean[this.size];
+        int[] queue = new int[this.size];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        visited[from] = true;
+        while (head < tail) {
+            int node = queue[head++];
+            if (node == to) {
+                return true;
+            }
+            for (int i = 0; i < this.childrenCount[node]; i++) {
+                int child = this.children[node][i];
+                if (!visited[child]) {
+                    visited[child] = true;
+                    queue[tail++] = child;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the node is ancestor of the descendant at any depth
+     */
+    public boolean isAncestor(final UUID ancestorId, final UUID descendantId) {
+        return !ancestorId.equals(descendantId) && this.isReachable(ancestorId, descendantId);
+    }
+
+    /**
+     * Check if connecting the child to the parent would create a cycle,
+     * that is, the parent is the child or the parent is a descendant of the child
+     */
+    public boolean createsCycle(final UUID parentId, final UUID childId) {
+        return parentId.equals(childId) || this.isReachable(childId, parentId);
+    }
+
+    /**
+     * Get the parents of the node
+     */
+    public synchronized UUID[] getParents(final UUID nodeId) {
+        Integer node = this.indexes.get(nodeId);
+        if (node == null) {
+            return new UUID[0];
+        }
+        UUID[] result = new UUID[this.parentsCount[node]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.ids[this.parents[node][i]];
+        }
+        return result;
+    }
+
+    /**
+     * Get all the nodes of the graph
+     */
+    public synchronized UUID[] getNodes() {
+        return Arrays.copyOf(this.ids, this.size);
+    }
+
+    private int indexOrAdd(final UUID nodeId) {
+        Integer index = this.indexes.get(nodeId);
+        if (index != null) {
+            return index;
+        }
+        if (this.size == this.ids.length) {
+            int capacity = this.size * 2;
+            this.ids = Arrays.copyOf(this.ids, capacity);
+            this.children = Arrays.copyOf(this.children, capacity);
+            this.childrenCount = Arrays.copyOf(this.childrenCount, capacity);
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            this.parentsCount = Arrays.copyOf(this.parentsCount, capacity);
+        }
+        int node = this.size++;
+        this.ids[node] = nodeId;
+        this.children[node] = EMPTY;
+        this.parents[node] = EMPTY;
+        this.indexes.put(nodeId, node);
+        return node;
+    }
+
+    private static int[] append(final int[] values, final int count, final int value) {
+        int[] result = count == values.length ? Arrays.copyOf(values, Math.max(2, count * 2)) : values;
+        result[count] = value;
+        return result;
+    }
+
+    private static int indexOf(final int[] values, final int count, final int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.core.misc.LruCache;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loaded hierarchy graphs by space. The size is bounded by the total of nodes, when it is exceeded
+ * the least recently used spaces are evicted (@see LruCache).
+ * It keeps the space of each loaded node too. Every space has a version that is increased on every write,
+ * so a graph loaded while the space is written is not cached. The versions are bounded too: the version
+ * of a space is evicted with its graph or when there are too many versions (least recently used). The spaces
+ * without version take the maximum evicted version, so a graph loaded before an evicted write is not cached
+ * (the loads of other spaces at the same time are not cached either, they are loaded again later).
+ * The cache is thread safe.
+ *
+ * @author David Suárez
+ */
+public class SpaceHierarchyGraphCache {
+
+    private final LruCache<UUID, SpaceHierarchyGraph> graphs;
+
+    // Node -> space of the loaded graphs
+    private final Map<UUID, UUID> nodeSpaces = new ConcurrentHashMap<>();
+
+    public static final int MAX_VERSIONS = 10000;
+
+    // Space -> version of the last write. The versions are taken from a clock shared by all the spaces
+    private final LruCache<UUID, AtomicLong> versions; // Guarded by this
+    private long clock; // Guarded by this
+    private long evictedVersion; // Guarded by this
+
+    public SpaceHierarchyGraphCache(final long maxNodes) {
+        this(maxNodes, MAX_VERSIONS);
+    }
+
+    public SpaceHierarchyGraphCache(final long maxNodes, final long maxVersions) {
+        this.graphs = new LruCache<>(maxNodes, SpaceHierarchyGraph::size, (spaceId, graph) -> this.release(graph));
+        this.versions = new LruCache<>(maxVersions, version -> 1,
+                (spaceId, version) -> this.evictedVersion = Math.max(this.evictedVersion, version.get()));
+    }
+
+    /**
+     * Get the graph of the space
+     * @return the graph or null if it is not loaded
+     */
+    public SpaceHierarchyGraph get(final UUID spaceId) {
+        return this.graphs.get(spaceId);
+    }
+
+    /**
+     * Get the space of the node
+     * @return the space or null if the node is not loaded
+     */
+    public UUID getSpaceId(final UUID nodeId) {
+        return this.nodeSpaces.get(nodeId);
+    }
+
+    /**
+     * Get the version of the space. It must be read before loading the graph
+     */
+    public synchronized long getVersion(final UUID spaceId) {
+        AtomicLong version = this.versions.get(spaceId);
+        return version == null ? this.evictedVersion : version.get();
+    }
+
+    /**
+     * Put the graph replacing the previous graph of the space
+     */
+    public synchronized void put(final SpaceHierarchyGraph graph) {
+        this.graphs.put(graph.getSpaceId(), graph);
+        for (UUID node : graph.getNodes()) {
+            this.nodeSpaces.put(node, graph.getSpaceId());
+        }
+    }
+
+    /**
+     * Put the graph loaded from the version if the space has not been written since then
+     * @return true if the graph is cached
+     */
+    public synchronized boolean put(final SpaceHierarchyGraph graph, final long version) {
+        if (this.getVersion(graph.getSpaceId()) != version) {
+            return false;
+        }
+        this.put(graph);
+        return true;
+    }
+
+    /**
+     * Connect the child to the parent into the graph of the space if it is loaded. If the parent or the child
+     * (not new) is not into the graph, the child comes from other space with its subtree, so the graph is removed
+     */
+    public synchronized void connect(final UUID spaceId, final UUID parentId, final UUID childId,
+                                     final boolean newChild) {
+
+        this.increment(spaceId);
+        SpaceHierarchyGraph graph = this.graphs.get(spaceId);
+        if (graph == null) {
+            return;
+        }
+        if (graph.contains(parentId) && (newChild || graph.contains(childId))) {
+            graph.connect(parentId, childId);
+            this.nodeSpaces.put(childId, spaceId);
+            this.graphs.reweigh(spaceId);
+        }
+        else {
+            this.graphs.remove(spaceId);
+        }
+    }
+
+    /**
+     * Remove the graph of the space
+     */
+    public synchronized void invalidate(final UUID spaceId) {
+        this.increment(spaceId);
+        this.graphs.remove(spaceId);
+    }
+
+    /**
+     * Total of nodes of the loaded graphs
+     */
+    public long getNodes() {
+        return this.graphs.getWeight();
+    }
+
+    public int size() {
+        return this.graphs.size();
+    }
+
+    public synchronized int getVersions() {
+        return this.versions.size();
+    }
+
+    // The version is updated in place, so it's only released when it's evicted or removed
+    private void increment(final UUID spaceId) {
+        this.clock++;
+        AtomicLong version = this.versions.get(spaceId);
+        if (version == null) {
+            this.versions.put(spaceId, new AtomicLong(this.clock));
+        }
+        else {
+            version.set(this.clock);
+        }
+    }
+
+    // It's called under the lock of the cache (the graphs are only put, reweighed and removed under it)
+    private void release(final SpaceHierarchyGraph graph) {
+        for (UUID node : graph.getNodes()) {
+            this.nodeSpaces.remove(node, graph.getSpaceId());
+        }
+        this.versions.remove(graph.getSpaceId());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.elipcero.carisa.administration.exception.HierarchyLockedException;
+import org.elipcero.carisa.core.reactive.misc.DataLockController;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Lock of the hierarchy of a space. The changes of the hierarchy of a space (relations, closure
+ * and graph) are executed one after another between all the processes. The lock is not reentrant.
+ *
+ * @author David Suárez
+ */
+@RequiredArgsConstructor
+public class SpaceHierarchyLock {
+
+    public static final int LOCK_SECONDS = 10;
+    public static final int LOCK_RETRIES = 100;
+    public static final Duration LOCK_RETRY_DELAY = Duration.ofMillis(50);
+
+    @NonNull
+    private final DataLockController dataLockController;
+
+    /**
+     * Execute the action under the lock of the space. The lock is retried while other process
+     * is changing the hierarchy of the space and it's released on any result of the action
+     * @param spaceId space identifier
+     * @param action the change of the hierarchy
+     * @param <T> result type
+     * @return the result of the action or HierarchyLockedException if the lock is not got
+     */
+    public <T> Mono<T> execute(final UUID spaceId, final Mono<T> action) {
+        return this.lock(spaceId)
+                .then(action
+                        .materialize()
+                        .flatMap(signal -> this.dataLockController.unLock(spaceId).thenReturn(signal))
+                        .<T>dematerialize());
+    }
+
+    private Mono<Boolean> lock(final UUID spaceId) {
+        return this.dataLockController.lock(spaceId, LOCK_SECONDS)
+                .filter(locked -> locked)
+                .repeatWhenEmpty(LOCK_RETRIES, repeat -> repeat.delayElements(LOCK_RETRY_DELAY))
+                .switchIfEmpty(Mono.error(new HierarchyLockedException(String.format(
+                        "The hierarchy of the space: '%s' is being changed by other process", spaceId))));
+    }
+}
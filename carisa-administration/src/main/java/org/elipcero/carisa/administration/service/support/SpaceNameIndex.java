@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.elipcero.carisa.administration.projection.NameSearchResult;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In memory name index (n-gram) of the named entities of a space. The names are normalized
+ * (lower case and without accents) and split in trigrams. The candidates of a search are
+ * the intersection of the trigrams of the query, so the names are not scanned.
+ * The results are ranked: exact, prefix, word prefix and contains.
+ *
+ * @author David Suárez
+ */
+public class SpaceNameIndex {
+
+    public static final int GRAM_SIZE = 3;
+
+    public static final int SCORE_EXACT = 4;
+    public static final int SCORE_PREFIX = 3;
+    public static final int SCORE_WORD_PREFIX = 2;
+    public static final int SCORE_CONTAINS = 1;
+
+    private static final Comparator<NameSearchResult> RANKING = Comparator
+            .comparingInt(NameSearchResult::getScore).reversed()
+            .thenComparingInt(result -> result.getName().length())
+            .thenComparing(NameSearchResult::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(NameSearchResult::getId);
+
+    @Getter
+    private final UUID spaceId;
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final Map<String, Set<UUID>> grams = new HashMap<>();
+
+    private long weight; // Entries and postings
+
+    public SpaceNameIndex(final UUID spaceId) {
+        this.spaceId = spaceId;
+    }
+
+    /**
+     * Add or rename the entity
+     * @param id entity identifier
+     * @param name entity name
+     * @param type entity type
+     */
+    public synchronized void put(final UUID id, final String name, final NameSearchResult.Type type) {
+        this.remove(id);
+        if (name == null) {
+            return;
+        }
+        Entry entry = new Entry(id, name, normalize(name), type);
+        this.entries.put(id, entry);
+        this.weight++;
+        for (String gram : grams(entry.getNormalizedName())) {
+            this.grams.computeIfAbsent(gram, __ -> new HashSet<>()).add(id);
+            this.weight++;
+        }
+    }
+
+    /**
+     * Remove the entity
+     * @param id entity identifier
+     */
+    public synchronized void remove(final UUID id) {
+        Entry entry = this.entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        this.weight--;
+        for (String gram : grams(entry.getNormalizedName())) {
+            Set<UUID> ids = this.grams.get(gram);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                this.grams.remove(gram);
+            }
+            this.weight--;
+        }
+    }
+
+    public synchronized boolean contains(final UUID id) {
+        return this.entries.containsKey(id);
+    }
+
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Search the entities whose name contains the query
+     * @param query text to search
+     * @return the results ranked (the best is the first)
+     */
+    public synchronized List<NameSearchResult> search(final String query) {
+        String normalizedQuery = normalize(query);
+        List<NameSearchResult> results = new ArrayList<>();
+        if (normalizedQuery.isEmpty()) {
+            return results;
+        }
+
+        for (UUID id : this.candidates(normalizedQuery)) {
+            Entry entry = this.entries.get(id);
+            int score = score(entry.getNormalizedName(), normalizedQuery);
+            if (score > 0) {
+                results.add(NameSearchResult
+                        .builder()
+                            .id(id)
+                            .name(entry.getName())
+                            .type(entry.getType())
+                            .score(score)
+                        .build());
+            }
+        }
+
+        results.sort(RANKING);
+        return results;
+    }
+
+    // The short queries have not trigrams, so all the entries are candidates
+    private Collection<UUID> candidates(final String normalizedQuery) {
+        if (normalizedQuery.length() < GRAM_SIZE) {
+            return this.entries.keySet();
+        }
+
+        List<Set<UUID>> postings = new ArrayList<>();
+        for (String gram : grams(normalizedQuery)) {
+            Set<UUID> ids = this.grams.get(gram);
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size)); // Intersect from the smallest
+
+        Set<UUID> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates;
+    }
+
+    private static int score(final String normalizedName, final String normalizedQuery) {
+        if (normalizedName.equals(normalizedQuery)) {
+            return SCORE_EXACT;
+        }
+        if (normalizedName.startsWith(normalizedQuery)) {
+            return SCORE_PREFIX;
+        }
+        int index = normalizedName.indexOf(normalizedQuery);
+        if (index < 0) {
+            return 0;
+        }
+        do {
+            if (!Character.isLetterOrDigit(normalizedName.charAt(index - 1))) {
+                return SCORE_WORD_PREFIX;
+            }
+            index = normalizedName.indexOf(normalizedQuery, index + 1);
+        }
+        while (index > 0);
+        return SCORE_CONTAINS;
+    }
+
+    // The names shorter than the gram are indexed as only one gram
+    private static Set<String> grams(final String normalizedName) {
+        Set<String> result = new HashSet<>();
+        if (normalizedName.length() < GRAM_SIZE) {
+            result.add(normalizedName);
+            return result;
+        }
+        for (int i = 0; i + GRAM_SIZE <= normalizedName.length(); i++) {
+            result.add(normalizedName.substring(i, i + GRAM_SIZE));
+        }
+        return result;
+    }
+
+    private static String normalize(final String text) {
+        return Normalizer.normalize(text.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    @AllArgsConstructor
+    @Getter
+    private static class Entry {
+        private UUID id;
+        private String name;
+        private String normalizedName;
+        private NameSearchResult.Type type;
+    }
+}
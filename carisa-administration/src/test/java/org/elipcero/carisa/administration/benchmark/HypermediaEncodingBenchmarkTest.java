@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elipcero.carisa.administration.domain.Space;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ResolvableType;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare the payload size and the encode time of HAL json against Smile.
+ * The object mappers are recovered from the codecs configured in the application, so
+ * the measure is the same that the web layer does.
+ *
+ * @author David Suárez
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = { "spring.data.cassandra.keyspaceName=test_admin_encoding_benchmark" })
+public class HypermediaEncodingBenchmarkTest {
+
+    private static final int ENTITIES = 1000;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private ServerCodecConfigurer serverCodecConfigurer;
+
+    @Test
+    public void encode_collection_with_smile_should_be_smaller_than_hal_json() throws Exception {
+
+        CollectionModel<EntityModel<Space>> model = createModel();
+
+        Measure json = measure(this.getObjectMapper(MediaTypes.HAL_JSON), model);
+        Measure smile = measure(this.getObjectMapper(CarisaMediaTypes.SMILE), model);
+
+        log.info(String.format("HAL json. Payload: %d bytes. Encode: %d us", json.size, json.microseconds));
+        log.info(String.format("Smile. Payload: %d bytes. Encode: %d us", smile.size, smile.microseconds));
+
+        assertThat(smile.size).isLessThan(json.size);
+    }
+
+    private ObjectMapper getObjectMapper(MediaType mediaType) {
+        return this.serverCodecConfigurer.getWriters().stream()
+                .filter(writer -> writer.canWrite(ResolvableType.forClass(CollectionModel.class), mediaType))
+                .filter(writer -> writer instanceof EncoderHttpMessageWriter)
+                .map(writer -> ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .filter(encoder -> encoder instanceof AbstractJackson2Encoder)
+                .map(encoder -> ((AbstractJackson2Encoder) encoder).getObjectMapper())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Encoder not found for media type: " + mediaType));
+    }
+
+    private static Measure measure(ObjectMapper objectMapper, Object model) throws Exception {
+        int size = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            size = objectMapper.writeValueAsBytes(model).length;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            objectMapper.writeValueAsBytes(model);
+        }
+
+        return new Measure(size, (System.nanoTime() - start) / ITERATIONS / 1000);
+    }
+
+    private static CollectionModel<EntityModel<Space>> createModel() {
+        UUID instanceId = UUID.randomUUID();
+
+        List<EntityModel<Space>> spaces = IntStream.range(0, ENTITIES)
+                .mapToObj(i -> {
+                    Space space = Space.builder()
+                            .id(UUID.randomUUID())
+                            .instanceId(instanceId)
+                            .name("space" + i)
+                            .build();
+                    return new EntityModel<>(space,
+                            new Link("/api/spaces/" + space.getId()),
+                            new Link("/api/instances/" + instanceId, "instance"));
+                })
+                .collect(Collectors.toList());
+
+        return new CollectionModel<>(spaces, new Link("/api/instances/" + instanceId + "/spaces"));
+    }
+
+    @RequiredArgsConstructor
+    private static class Measure {
+        private final int size;
+        private final long microseconds;
+    }
+}
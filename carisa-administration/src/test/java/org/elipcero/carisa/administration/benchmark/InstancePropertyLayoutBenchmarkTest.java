@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elipcero.carisa.administration.controller.DataAbstractControllerTest;
+import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compare the read time of the instance properties between the rows layout (one clustered row by property)
+ * and the map layout (one row by instance)
+ * @see org.elipcero.carisa.administration.domain.DynamicObjectPrototype.PropertyLayout
+ *
+ * @author David Suárez
+ */
+@Slf4j
+@SpringBootTest(properties = { "spring.data.cassandra.keyspaceName=test_admin_property_layout_benchmark" })
+public class InstancePropertyLayoutBenchmarkTest extends DataAbstractControllerTest {
+
+    // Look at query-instance-controller.cql
+    private static final UUID ROWS_INSTANCE_ID = UUID.fromString("a985074c-796b-4ecb-9a8f-21f4b26aa11b");
+    // Look at query-instance-property-map-controller.cql
+    private static final UUID MAP_INSTANCE_ID = UUID.fromString("c985074c-796b-4ecb-9a8f-21f4b26aa11b");
+
+    private static final int PROPERTIES = 50;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> instancePropertyRelation;
+
+    @Before
+    public void prepareData() {
+        this.executeCommands("query-prototype-controller.cql");
+        this.executeCommands("query-instance-controller.cql");
+        this.executeCommands("query-instance-property-controller.cql");
+        this.executeCommands("query-instance-property-map-controller.cql");
+    }
+
+    @Test
+    public void read_properties_with_rows_and_map_layout_should_return_all_properties() {
+
+        long rows = this.measure(ROWS_INSTANCE_ID);
+        long map = this.measure(MAP_INSTANCE_ID);
+
+        log.info(String.format("Rows layout. Read %d properties: %d us", PROPERTIES, rows));
+        log.info(String.format("Map layout. Read %d properties: %d us", PROPERTIES, map));
+    }
+
+    private long measure(UUID instanceId) {
+        this.instancePropertyRelation.saveAllByParent(instanceId, createProperties(instanceId)).blockLast();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            this.instancePropertyRelation.getRelationsByParent(instanceId).collectList().block();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertThat(this.instancePropertyRelation.getRelationsByParent(instanceId).collectList().block())
+                    .hasSizeGreaterThanOrEqualTo(PROPERTIES);
+        }
+
+        return (System.nanoTime() - start) / ITERATIONS / 1000;
+    }
+
+    private static List<DynamicObjectInstanceProperty<?>> createProperties(UUID instanceId) {
+        return IntStream.range(0, PROPERTIES)
+                .<DynamicObjectInstanceProperty<?>>mapToObj(i -> new DynamicObjectInstanceProperty<>(
+                        UUID.randomUUID(), instanceId, new DynamicObjectInstanceProperty.StringValue("value" + i)))
+                .collect(Collectors.toList());
+    }
+}
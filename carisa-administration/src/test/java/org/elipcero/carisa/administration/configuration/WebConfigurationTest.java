@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.elipcero.carisa.administration.domain.Space;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.config.HypermediaMappingInformation;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The smile codec is tested with the HAL mapping of spring hateoas. Only the hypermedia
+ * configuration is loaded (not the application)
+ *
+ * @author David Suárez
+ */
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = WebConfigurationTest.HypermediaConfiguration.class)
+public class WebConfigurationTest {
+
+    private static final int ENTITIES = 100;
+
+    @Autowired
+    private List<HypermediaMappingInformation> hypermediaMappings;
+
+    private ServerCodecConfigurer configurer;
+
+    @Before
+    public void configureCodecs() {
+        this.configurer = ServerCodecConfigurer.create();
+        WebConfiguration.smileCodecConfigurer(Jackson2ObjectMapperBuilder.json(), this.hypermediaMappings)
+                .configureHttpMessageCodecs(this.configurer);
+    }
+
+    @Test
+    public void encode_model_with_smile_codec_should_return_the_same_hal_structure_than_json() throws Exception {
+
+        CollectionModel<EntityModel<Space>> model = createModel();
+
+        byte[] smile = encode(this.getEncoder(CarisaMediaTypes.SMILE), model, CarisaMediaTypes.SMILE);
+
+        JsonNode smileTree = new ObjectMapper(new SmileFactory()).readTree(smile);
+        JsonNode halTree = this.getHalObjectMapper().valueToTree(model);
+
+        assertThat(smileTree).isEqualTo(halTree);
+        assertThat(smileTree.at("/_links/self/href").asText()).isEqualTo(model.getLink("self").get().getHref());
+        JsonNode firstSpace = smileTree.at("/_embedded").elements().next().get(0);
+        assertThat(firstSpace.at("/_links/instance/href").isTextual()).isTrue();
+        assertThat(smile.length).isLessThan(this.getHalObjectMapper().writeValueAsBytes(model).length);
+    }
+
+    @Test
+    public void configure_smile_codec_should_register_the_decoder() {
+
+        assertThat(this.configurer.getReaders())
+                .anyMatch(reader -> reader.canRead(ResolvableType.forClass(Space.class), CarisaMediaTypes.SMILE));
+    }
+
+    // The json mapper configured like the HAL json responses
+    private ObjectMapper getHalObjectMapper() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        this.hypermediaMappings.stream()
+                .filter(mapping -> mapping.getMediaTypes().contains(MediaTypes.HAL_JSON))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("HAL mapping not found"))
+                .configureObjectMapper(mapper);
+        return mapper;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Encoder<Object> getEncoder(final MediaType mediaType) {
+        return this.configurer.getWriters().stream()
+                .filter(writer -> writer.canWrite(ResolvableType.forClass(CollectionModel.class), mediaType))
+                .filter(writer -> writer instanceof EncoderHttpMessageWriter)
+                .map(writer -> (Encoder<Object>) ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Encoder not found for media type: " + mediaType));
+    }
+
+    private static byte[] encode(final Encoder<Object> encoder, final Object value, final MediaType mediaType) {
+        return DataBufferUtils.join(encoder.encode(Mono.just(value), new DefaultDataBufferFactory(),
+                        ResolvableType.forClass(CollectionModel.class), mediaType, Collections.emptyMap()))
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .block();
+    }
+
+    private static CollectionModel<EntityModel<Space>> createModel() {
+        UUID instanceId = UUID.randomUUID();
+
+        List<EntityModel<Space>> spaces = IntStream.range(0, ENTITIES)
+                .mapToObj(i -> {
+                    Space space = Space.builder()
+                            .id(UUID.randomUUID())
+                            .instanceId(instanceId)
+                            .name("space" + i)
+                            .build();
+                    return new EntityModel<>(space,
+                            new Link("/api/spaces/" + space.getId()),
+                            new Link("/api/instances/" + instanceId, "instance"));
+                })
+                .collect(Collectors.toList());
+
+        return new CollectionModel<>(spaces, new Link("/api/instances/" + instanceId + "/spaces"));
+    }
+
+    @Configuration
+    @EnableHypermediaSupport(type = EnableHypermediaSupport.HypermediaType.HAL)
+    static class HypermediaConfiguration {
+    }
+}
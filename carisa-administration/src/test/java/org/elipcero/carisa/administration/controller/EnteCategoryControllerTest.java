@@ -17,22 +17,34 @@
 package org.elipcero.carisa.administration.controller;
 
 import org.elipcero.carisa.administration.domain.EnteCategory;
+import org.elipcero.carisa.administration.domain.EnteHierarchy;
+import org.elipcero.carisa.administration.domain.EnteHierarchyClosure;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHirarchyRepository;
+import org.elipcero.carisa.administration.service.EnteHierarchyClosureService;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.restdocs.hypermedia.LinksSnippet;
 import org.springframework.restdocs.payload.FieldDescriptor;
 import org.springframework.restdocs.payload.RequestFieldsSnippet;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.restdocs.request.PathParametersSnippet;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
 import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
@@ -59,11 +71,19 @@ public class EnteCategoryControllerTest extends DataAbstractControllerTest {
 
     private static boolean beforeOnce;
 
+    @Autowired
+    private EnteHierarchyClosureService enteHierarchyClosureService;
+
+    @Autowired
+    private EnteHirarchyRepository enteHirarchyRepository;
+
     @Before
     public void prepareData() {
         if (!beforeOnce) {
             this.executeCommands("ente-category-controller.cql");
             this.executeCommands("ente-hierarchy-controller.cql");
+            this.executeCommands("ente-hierarchy-cycle-controller.cql");
+            this.executeCommands("ente-hierarchy-closure-controller.cql");
             this.executeCommands("space-controller.cql");
             this.executeCommands("ente-category-property-controller.cql");
             this.executeCommands("ente-controller.cql");
@@ -309,6 +329,207 @@ public class EnteCategoryControllerTest extends DataAbstractControllerTest {
                         commonResponseFields()));
     }
 
+    @Test
+    public void connect_ente_category_child_with_parent_should_update_hierarchy_closure() {
+
+        String spaceId = "52107f03-cf1b-4760-b2c2-4273482f0f7a";
+        String parentId = "53ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+        String childId = "33ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+        String grandChildId = "23ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+
+        this.testClient
+                .put()
+                .uri("/api/entecategories/{childId}/connectparent/{parentId}", childId, parentId)
+                    .contentType(MediaTypes.HAL_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk();
+
+        StepVerifier
+                .create(this.enteHierarchyClosureService.getDescendants(UUID.fromString(spaceId))
+                        .collectMap(EnteHierarchyClosure::getRelatedId, EnteHierarchyClosure::getDepth))
+                .expectNextMatches(descendants -> {
+                    assertThat(descendants.get(UUID.fromString(ENTECATEGORY_ID))).isEqualTo(1);
+                    assertThat(descendants.get(UUID.fromString(parentId))).isEqualTo(2);
+                    assertThat(descendants.get(UUID.fromString(childId))).isEqualTo(3);
+                    assertThat(descendants.get(UUID.fromString(grandChildId))).isEqualTo(4);
+                    return true;
+                })
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.enteHierarchyClosureService.isAncestor(
+                        UUID.fromString(ENTECATEGORY_ID), UUID.fromString(grandChildId)))
+                .expectNext(true)
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.enteHierarchyClosureService.getDescendants(UUID.fromString(spaceId), 1).collectList())
+                .expectNextMatches(descendants -> {
+                    assertThat(descendants).extracting(EnteHierarchyClosure::getDepth).containsOnly(1);
+                    assertThat(descendants).extracting(EnteHierarchyClosure::getRelatedId)
+                            .contains(UUID.fromString(ENTECATEGORY_ID));
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void connect_ente_category_by_a_longer_path_should_keep_the_minimum_depth() {
+
+        UUID spaceId = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        // space -> first -> third is connected before space -> first -> second -> third
+        this.enteHierarchyClosureService.connect(spaceId, false, first, true)
+                .then(this.enteHierarchyClosureService.connect(first, true, third, true))
+                .then(this.enteHierarchyClosureService.connect(first, true, second, true))
+                .then(this.enteHierarchyClosureService.connect(second, true, third, true))
+                .block();
+
+        StepVerifier
+                .create(this.enteHierarchyClosureService.getAncestors(third)
+                        .collectMap(EnteHierarchyClosure::getRelatedId, EnteHierarchyClosure::getDepth))
+                .expectNextMatches(ancestors -> {
+                    assertThat(ancestors).hasSize(3);
+                    assertThat(ancestors.get(spaceId)).isEqualTo(2);
+                    assertThat(ancestors.get(first)).isEqualTo(1);
+                    assertThat(ancestors.get(second)).isEqualTo(1);
+                    return true;
+                })
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.enteHierarchyClosureService.getDescendants(spaceId, 2)
+                        .map(EnteHierarchyClosure::getRelatedId)
+                        .collectList())
+                .expectNextMatches(descendants -> {
+                    assertThat(descendants).containsExactlyInAnyOrder(first, second, third);
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void backfill_closure_of_space_should_connect_the_hierarchy_of_the_space() {
+
+        UUID spaceId = UUID.randomUUID();
+        UUID category = UUID.randomUUID();
+        UUID childCategory = UUID.randomUUID();
+        UUID ente = UUID.randomUUID();
+
+        // The hierarchy is written without the closure (created before the closure existed)
+        this.enteHirarchyRepository.saveAll(Flux.just(
+                EnteHierarchy.builder().parentId(childCategory).id(ente).category(false).build(),
+                EnteHierarchy.builder().parentId(category).id(childCategory).category(true).build(),
+                EnteHierarchy.builder().parentId(spaceId).id(category).category(true).build()))
+                .blockLast();
+
+        this.testClient
+                .post()
+                .uri("/api/spaces/{id}/closure/backfill", spaceId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(3L);
+
+        StepVerifier
+                .create(this.enteHierarchyClosureService.getAncestors(ente).collectList())
+                .expectNextMatches(ancestors -> {
+                    assertThat(ancestors)
+                            .extracting(EnteHierarchyClosure::getRelatedId, EnteHierarchyClosure::getDepth)
+                            .containsExactlyInAnyOrder(
+                                    tuple(childCategory, 1), tuple(category, 2), tuple(spaceId, 3));
+                    assertThat(ancestors)
+                            .filteredOn(ancestor -> ancestor.getRelatedId().equals(spaceId))
+                            .extracting(EnteHierarchyClosure::isCategory)
+                            .containsOnly(false);
+                    return true;
+                })
+                .verifyComplete();
+
+        // It can be executed again, the closure is the same
+        StepVerifier
+                .create(this.enteHierarchyClosureService.backfill(spaceId)
+                        .then(this.enteHierarchyClosureService.getDescendants(spaceId).count()))
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void connect_ente_category_child_with_its_descendant_should_return_conflict() {
+
+        String descendantId = "53ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+
+        this.testClient
+                .put()
+                .uri("/api/entecategories/{childId}/connectparent/{parentId}", ENTECATEGORY_ID, descendantId)
+                    .contentType(MediaTypes.HAL_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void get_tree_from_ente_category_should_return_nodes_without_duplicates_and_cycles() {
+
+        // Look at ente-hierarchy-cycle-controller.cql
+        String rootId = "13ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+        String leftId = "14ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+        String rightId = "15ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+        String leafId = "16ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676";
+
+        Flux<Map> nodes = this.testClient
+                .get()
+                .uri("/api/entecategories/{id}/tree?depth=5", rootId)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody();
+
+        StepVerifier
+                .create(nodes.collectList())
+                .expectNextMatches(tree -> {
+                    assertThat(tree).hasSize(3); // The root (cycle) and the leaf (diamond) are not repeated
+                    assertThat(tree.subList(0, 2))
+                            .extracting(node -> node.get("id")).containsOnly(leftId, rightId);
+                    assertThat(tree.subList(0, 2))
+                            .extracting(node -> node.get("parentId")).containsOnly(rootId);
+                    assertThat(tree.subList(0, 2))
+                            .extracting(node -> node.get("depth")).containsOnly(1);
+                    assertThat(tree.get(2).get("id")).isEqualTo(leafId);
+                    assertThat(tree.get(2).get("depth")).isEqualTo(2);
+                    assertThat(tree.get(2).get("name")).isEqualTo("Ente Category tree leaf");
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void get_tree_from_ente_category_not_found_should_return_not_found() {
+
+        this.testClient
+                .get()
+                .uri("/api/entecategories/{id}/tree", UUID.randomUUID())
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void get_tree_from_ente_category_with_invalid_depth_should_return_bad_request() {
+
+        this.testClient
+                .get()
+                .uri("/api/entecategories/{id}/tree?depth=0", ENTECATEGORY_ID)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     private LinksSnippet categoryLink() {
         return links(linkWithRel("category").description("Space"));
     }
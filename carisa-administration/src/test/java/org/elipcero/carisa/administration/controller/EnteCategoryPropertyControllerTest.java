@@ -18,24 +18,36 @@ package org.elipcero.carisa.administration.controller;
 
 import org.elipcero.carisa.administration.domain.EnteCategoryProperty;
 import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.administration.exception.NotMatchingTypeException;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.repository.cassandra.EnteCategoryPropertyRepository;
+import org.elipcero.carisa.administration.service.EnteCategoryPropertyService;
+import org.elipcero.carisa.core.data.EntityDataState;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.restdocs.payload.FieldDescriptor;
 import org.springframework.restdocs.payload.RequestFieldsSnippet;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.restdocs.request.ParameterDescriptor;
 import org.springframework.restdocs.request.PathParametersSnippet;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
 import static org.springframework.restdocs.payload.PayloadDocumentation.requestFields;
 import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
@@ -70,6 +82,12 @@ public class EnteCategoryPropertyControllerTest extends DataAbstractControllerTe
 
     private static boolean beforeOnce;
 
+    @Autowired
+    private EnteCategoryPropertyService enteCategoryPropertyService;
+
+    @Autowired
+    private EnteCategoryPropertyRepository enteCategoryPropertyRepository;
+
     @Before
     public void prepareData() {
         if (!beforeOnce) {
@@ -77,6 +95,7 @@ public class EnteCategoryPropertyControllerTest extends DataAbstractControllerTe
             this.executeCommands("ente-category-property-controller.cql");
             this.executeCommands("ente-category-property-link-controller.cql");
             this.executeCommands("ente-hierarchy-controller.cql");
+            this.executeCommands("ente-hierarchy-closure-controller.cql");
             this.executeCommands("ente-property-controller.cql");
             beforeOnce = true;
         }
@@ -228,6 +247,39 @@ public class EnteCategoryPropertyControllerTest extends DataAbstractControllerTe
                                 subsectionWithPath("_links").description("View links section"))));
     }
 
+    @Test
+    public void list_leaves_from_ente_category_property_should_return_ok_and_ente_properties_without_duplicates() {
+
+        String categoryPropertyId = "a8439ad1-4419-4765-acca-55ce69179c0f";
+        String enteId = "7acdac69-fdf8-45e5-a189-2b2b4beb1c26";
+        String firstEntePropertyId = "c0838415-6ae2-4914-b202-f1b3adbf0353";
+        String secondEntePropertyId = "e0838415-6ae2-4914-b202-f1b3adbf0353";
+
+        Flux<Map> leaves = this.testClient
+                .get()
+                .uri("/api/entecategories/{enteCategoryId}/properties/{propertyId}/leaves",
+                        ENTE_CATEGORY_ID, categoryPropertyId)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody();
+
+        StepVerifier
+                .create(leaves.collectList())
+                .expectNextMatches(result -> {
+                    // The shared link, the repeated ente property and the cycle are not repeated
+                    assertThat(result).hasSize(2);
+                    assertThat(result)
+                            .extracting(leaf -> leaf.get("childId"))
+                            .containsOnly(firstEntePropertyId, secondEntePropertyId);
+                    assertThat(result).extracting(leaf -> leaf.get("parentId")).containsOnly(enteId);
+                    assertThat(result).extracting(leaf -> leaf.get("category")).containsOnly(false);
+                    return true;
+                })
+                .verifyComplete();
+    }
+
     @Test
     public void connect_ente_to_category_property_using_put_should_return_linked_ente_category_property() {
 
@@ -301,6 +353,106 @@ public class EnteCategoryPropertyControllerTest extends DataAbstractControllerTe
                 .expectStatus().isEqualTo(HttpStatus.CONFLICT);
     }
 
+    @Test
+    public void connect_ente_properties_in_parallel_to_category_property_should_fix_only_one_type() {
+
+        UUID categoryPropertyId = UUID.fromString("78439ad1-4419-4765-acca-55ce69179c0f"); // Type None
+        UUID enteCategoryId = UUID.fromString(ENTE_CATEGORY_ID);
+        UUID enteId = UUID.fromString(CONNECT_ENTE_ID);
+        // Look at ente-property-controller.cql. Integer, Decimal and Integer types
+        List<UUID> entePropertyIds = Arrays.asList(
+                UUID.fromString(CONNECT_ENTE_PROPERTY_ID),
+                UUID.fromString("d0838415-6ae2-4914-b202-f1b3adbf0353"),
+                UUID.fromString("e0838415-6ae2-4914-b202-f1b3adbf0353"));
+
+        Flux<EnteProperty.Type> linkedTypes = Flux.fromIterable(entePropertyIds)
+                .flatMap(entePropertyId -> this.enteCategoryPropertyService
+                        .connectToEnte(enteCategoryId, categoryPropertyId, enteId, entePropertyId)
+                        .map(EnteCategoryProperty::getType)
+                        .onErrorResume(NotMatchingTypeException.class, __ -> Mono.empty())
+                        .subscribeOn(Schedulers.parallel()));
+
+        StepVerifier
+                .create(linkedTypes.collectList())
+                .expectNextMatches(types -> {
+                    // The first link wins, so only the links with the same type are connected
+                    EnteProperty.Type winner = types.get(0);
+                    assertThat(types).containsOnly(winner);
+                    assertThat(types).hasSize(winner == EnteProperty.Type.Integer ? 2 : 1);
+                    return true;
+                })
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.enteCategoryPropertyService.getById(
+                        EnteCategoryProperty.GetKey(enteCategoryId, categoryPropertyId)))
+                .expectNextMatches(property -> property.getType() == EnteProperty.Type.Integer ||
+                        property.getType() == EnteProperty.Type.Decimal)
+                .verifyComplete();
+    }
+
+    @Test
+    public void connect_ente_property_should_trust_cached_type_until_time_to_live() {
+
+        UUID categoryPropertyId = UUID.fromString("68439ad1-4419-4765-acca-55ce69179c0f"); // Type None
+        UUID enteCategoryId = UUID.fromString(ENTE_CATEGORY_ID);
+        UUID enteId = UUID.fromString(CONNECT_ENTE_ID);
+        RelationKey key = EnteCategoryProperty.GetKey(enteCategoryId, categoryPropertyId);
+
+        // The first link fixes the type (Integer) and caches it
+        StepVerifier
+                .create(this.enteCategoryPropertyService.connectToEnte(
+                        enteCategoryId, categoryPropertyId, enteId, UUID.fromString(CONNECT_ENTE_PROPERTY_ID)))
+                .expectNextMatches(property -> property.getType() == EnteProperty.Type.Integer)
+                .verifyComplete();
+
+        // Other node changes the type
+        StepVerifier
+                .create(this.enteCategoryPropertyRepository.setTypeIf(
+                        key, EnteProperty.Type.Integer, EnteProperty.Type.Decimal))
+                .expectNext(EnteProperty.Type.Decimal)
+                .verifyComplete();
+
+        // The cached type matches, so it is trusted in the window (Integer)
+        StepVerifier
+                .create(this.enteCategoryPropertyService.connectToEnte(
+                        enteCategoryId, categoryPropertyId, enteId,
+                        UUID.fromString("e0838415-6ae2-4914-b202-f1b3adbf0353")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // The cached type doesn't match, so it is checked again (Decimal)
+        StepVerifier
+                .create(this.enteCategoryPropertyService.connectToEnte(
+                        enteCategoryId, categoryPropertyId, enteId,
+                        UUID.fromString("d0838415-6ae2-4914-b202-f1b3adbf0353")))
+                .expectNextMatches(property -> property.getType() == EnteProperty.Type.Decimal)
+                .verifyComplete();
+    }
+
+    @Test
+    public void update_category_property_type_should_update_name_and_type() {
+
+        UUID categoryPropertyId = UUID.fromString("58439ad1-4419-4765-acca-55ce69179c0f"); // Type Integer
+        EnteCategoryProperty enteCategoryProperty = EnteCategoryProperty
+                .builder()
+                    .parentId(UUID.fromString(ENTE_CATEGORY_ID))
+                    .id(categoryPropertyId)
+                    .name("Ente category property type changed")
+                    .type(EnteProperty.Type.Decimal)
+                .build();
+
+        StepVerifier
+                .create(this.enteCategoryPropertyService.updateOrCreate(enteCategoryProperty, true))
+                .expectNextMatches(state -> {
+                    assertThat(state.getDomainState()).isEqualTo(EntityDataState.State.updated);
+                    assertThat(state.getEntity().getName()).isEqualTo("Ente category property type changed");
+                    assertThat(state.getEntity().getType()).isEqualTo(EnteProperty.Type.Decimal);
+                    return true;
+                })
+                .verifyComplete();
+    }
+
     @Test
     public void connect_ente_to_category_property_should_return_category_property_not_found() {
 
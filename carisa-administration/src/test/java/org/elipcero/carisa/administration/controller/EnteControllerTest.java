@@ -66,6 +66,7 @@ public class EnteControllerTest extends DataAbstractControllerTest {
             this.executeCommands("ente-property-controller.cql");
             this.executeCommands("ente-category-controller.cql");
             this.executeCommands("ente-hierarchy-controller.cql");
+            this.executeCommands("ente-hierarchy-closure-controller.cql");
             beforeOnce = true;
         }
     }
@@ -228,6 +229,64 @@ public class EnteControllerTest extends DataAbstractControllerTest {
                                 subsectionWithPath("_links").description("View links section"))));
     }
 
+    @Test
+    public void list_spaces_from_ente_should_return_ok_and_spaces_entity() {
+
+        this.testClient
+                .get()
+                .uri("/api/entes/{id}/spaces", ENTE_ID)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$._embedded.childNameList[?(@.id=='%s')].name", SPACE_ID).isEqualTo("Space name")
+                    .jsonPath("$._embedded.childNameList[?(@.id=='%s')]._links.space.href", SPACE_ID).hasJsonPath()
+                    .jsonPath("$._embedded.childNameList.length()").isEqualTo(1)
+                    .jsonPath("$._links.ente.href").hasJsonPath()
+                .consumeWith(document("ente-spaces-get",
+                        links(linkWithRel("ente").description("Ente")),
+                        commonPathParameters(),
+                        responseFields(
+                                fieldWithPath("_embedded.childNameList[].id")
+                                        .description("Space identifier. (UUID string format)"),
+                                fieldWithPath("_embedded.childNameList[].name")
+                                        .description("Space name"),
+                                fieldWithPath("_embedded.childNameList[]._links.space.href")
+                                        .description("Space information"),
+                                subsectionWithPath("_links").description("View links section"))));
+    }
+
+    @Test
+    public void list_categories_from_ente_should_return_ok_and_categories_entity() {
+
+        String categoryId = "83ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676"; // Look at ente-hierarchy-controller.cql
+
+        this.testClient
+                .get()
+                .uri("/api/entes/{id}/entecategories", ENTE_ID)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$._embedded.childNameList[?(@.id=='%s')].name", categoryId)
+                        .isEqualTo("Ente Category name")
+                    .jsonPath("$._embedded.childNameList[?(@.id=='%s')]._links.category.href", categoryId)
+                        .hasJsonPath()
+                    .jsonPath("$._embedded.childNameList.length()").isEqualTo(1)
+                    .jsonPath("$._links.ente.href").hasJsonPath()
+                .consumeWith(document("ente-entecategories-get",
+                        links(linkWithRel("ente").description("Ente")),
+                        commonPathParameters(),
+                        responseFields(
+                                fieldWithPath("_embedded.childNameList[].id")
+                                        .description("Ente category identifier. (UUID string format)"),
+                                fieldWithPath("_embedded.childNameList[].name")
+                                        .description("Ente category name"),
+                                fieldWithPath("_embedded.childNameList[]._links.category.href")
+                                        .description("Ente category information"),
+                                subsectionWithPath("_links").description("View links section"))));
+    }
+
     @Test
     public void connect_ente_with_category_using_put_should_return_ok_and_ente() {
 
@@ -16,33 +16,57 @@
 
 package org.elipcero.carisa.administration.controller;
 
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import org.elipcero.carisa.administration.domain.DeployJob;
 import org.elipcero.carisa.administration.domain.Instance;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.repository.DeployIntentRepository;
+import org.elipcero.carisa.administration.repository.DeployJobRepository;
+import org.elipcero.carisa.administration.service.InstanceService;
+import org.elipcero.carisa.administration.service.support.DeployReconciler;
+import org.elipcero.carisa.administration.service.support.SkipperClient;
+import org.elipcero.carisa.core.application.configuration.ServiceProperties;
 import org.elipcero.carisa.core.reactive.misc.DataLockController;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.restdocs.hypermedia.LinksSnippet;
 import org.springframework.restdocs.payload.FieldDescriptor;
+import org.springframework.restdocs.payload.JsonFieldType;
 import org.springframework.restdocs.payload.RequestFieldsSnippet;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.restdocs.request.ParameterDescriptor;
 import org.springframework.restdocs.request.PathParametersSnippet;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
 import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
@@ -66,9 +90,26 @@ public class InstanceControllerTest extends DataAbstractControllerTest {
     private static final String SPACE_ID = "52107f03-cf1b-4760-b2c2-4273482f0f7a"; // Look at space-controller
     private static final String SPACE_NAME = "Space name"; // Look at space-controller
 
+    private static final int DEPLOY_JOB_POLLING_TIMES = 50;
+
     @Autowired
     private DataLockController dataLockController;
 
+    @Autowired
+    private InstanceService instanceService;
+
+    @Autowired
+    private DeployJobRepository deployJobRepository;
+
+    @Autowired
+    private DeployIntentRepository deployIntentRepository;
+
+    @Autowired
+    private DeployReconciler deployReconciler;
+
+    @Autowired
+    private ServiceProperties serviceProperties;
+
     private static boolean beforeOnce;
 
     @Before
@@ -77,6 +118,7 @@ public class InstanceControllerTest extends DataAbstractControllerTest {
             this.executeCommands("instance-controller.cql");
             this.executeCommands("instance-space-controller.cql");
             this.executeCommands("space-controller.cql");
+            this.executeCommands("deploy-job-controller.cql");
             beforeOnce = true;
         }
     }
@@ -234,37 +276,93 @@ public class InstanceControllerTest extends DataAbstractControllerTest {
     }
 
     @Test
-    public void build_instance_should_return_instance_with_state_deployed() {
+    public void build_instance_should_return_accepted_and_job_with_state_succeeded() {
 
         stubFor(put(urlEqualTo("/api/platforms/kubernetes/deployers"))
                 .willReturn(aResponse()
                         .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                         .withStatus(HttpStatus.CREATED.value())));
 
-        this.testClient
+        String instanceId = "1b6962dd-3f90-4c93-8f61-eabfa4a803e2";
+
+        URI location = this.testClient
                 .put()
-                .uri("/api/instances/{id}/deploy", "1b6962dd-3f90-4c93-8f61-eabfa4a803e2")
+                .uri("/api/instances/{id}/deploy", instanceId)
                 .accept(MediaTypes.HAL_JSON)
                 .exchange()
-                .expectStatus().isOk()
+                .expectStatus().isAccepted()
+                .expectHeader().valueMatches(HttpHeaders.LOCATION, ".*/api/instances/" + instanceId + "/deployjobs/.*")
                 .expectBody()
-                    .jsonPath("$.state").isEqualTo(Instance.State.Deployed.toString())
+                    .jsonPath("$.instanceId").isEqualTo(instanceId)
+                    .jsonPath("$.state").isEqualTo(DeployJob.State.Pending.toString())
+                    .jsonPath("$._links.self.href").hasJsonPath()
+                    .jsonPath("$._links.instance.href").hasJsonPath()
                 .consumeWith(document("instances-deploy",
                         commonPathParamters(),
-                        commonResponseFields()));
+                        deployJobResponseFields()))
+                .returnResult().getResponseHeaders().getLocation();
+
+        DeployJob job = this.awaitDeployJob(location);
+
+        this.testClient
+                .get()
+                .uri("/api/instances/{id}/deployjobs/{jobId}", instanceId, job.getId().toString())
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(DeployJob.State.Succeeded.toString())
+                .consumeWith(document("instances-deployjob-get",
+                        commonPathParamters(Arrays.asList(
+                                parameterWithName("jobId").description("Deploy job identifier (UUID string format)"))),
+                        deployJobResponseFields()));
+
+        this.testClient
+                .get()
+                .uri("/api/instances/{id}", instanceId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(Instance.State.Deployed.toString());
+    }
+
+    @Test
+    public void get_skipper_metrics_should_return_ok_and_requests_by_outcome() {
+
+        this.testClient
+                .get()
+                .uri("/actuator/metrics/{name}", SkipperClient.METRIC_PREFIX + ".requests")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.name").isEqualTo(SkipperClient.METRIC_PREFIX + ".requests")
+                    .jsonPath("$.availableTags[?(@.tag == 'outcome')]").exists();
     }
 
     @Test
-    public void build_instance_should_return_instance_with_state_error() {
+    public void build_instance_should_return_accepted_and_job_with_state_failed() {
 
         stubFor(put(urlEqualTo("/api/platforms/kubernetes/deployers"))
                 .willReturn(aResponse()
                         .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                         .withStatus(HttpStatus.BAD_REQUEST.value())));
 
-        this.testClient
+        String instanceId = "2b6962dd-3f90-4c93-8f61-eabfa4a803e2";
+
+        URI location = this.testClient
                 .put()
-                .uri("/api/instances/{id}/deploy", "2b6962dd-3f90-4c93-8f61-eabfa4a803e2")
+                .uri("/api/instances/{id}/deploy", instanceId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody().returnResult().getResponseHeaders().getLocation();
+
+        assertThat(this.awaitDeployJob(location).getState()).isEqualTo(DeployJob.State.Failed);
+
+        this.testClient
+                .get()
+                .uri("/api/instances/{id}", instanceId)
                 .accept(MediaTypes.HAL_JSON)
                 .exchange()
                 .expectStatus().isOk()
@@ -272,24 +370,340 @@ public class InstanceControllerTest extends DataAbstractControllerTest {
                     .jsonPath("$.state").isEqualTo(Instance.State.Error.toString());
     }
 
+    @Test
+    public void build_instance_should_stream_state_events() {
+
+        stubFor(put(urlEqualTo("/api/platforms/kubernetes/deployers"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withStatus(HttpStatus.CREATED.value())));
+
+        String instanceId = "8b6962dd-3f90-4c93-8f61-eabfa4a803e2";
+
+        // The headers are committed when the subscription to the transitions is done
+        Flux<ServerSentEvent<Map>> events = this.testClient
+                .get()
+                .uri("/api/instances/{id}/events", instanceId)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map>>() { })
+                .getResponseBody()
+                .filter(event -> event.data() != null);
+
+        this.testClient
+                .put()
+                .uri("/api/instances/{id}/deploy", instanceId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isAccepted();
+
+        StepVerifier
+                .create(events)
+                .assertNext(event -> {
+                    assertThat(event.event()).isEqualTo(InstanceController.STATE_EVENT_NAME);
+                    assertThat(event.data().get("instanceId")).isEqualTo(instanceId);
+                    assertThat(event.data().get("state")).isEqualTo(Instance.State.InProgress.toString());
+                })
+                .assertNext(event ->
+                    assertThat(event.data().get("state")).isEqualTo(Instance.State.Deployed.toString()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void reconcile_expired_deploy_intent_should_recover_the_deploy() {
+
+        stubFor(put(urlEqualTo("/api/platforms/kubernetes/deployers"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withStatus(HttpStatus.CREATED.value())));
+
+        // The node died deploying the instance (instance in progress and job running)
+        UUID instanceId = UUID.fromString("bb6962dd-3f90-4c93-8f61-eabfa4a803e2");
+        Duration bucketSize = this.serviceProperties.getDeploy().getIntentBucketSize();
+        DeployJob job = DeployJob.pending(instanceId).withState(DeployJob.State.Running, null);
+
+        this.deployIntentRepository.save(DeployIntent.of(job, Instant.now().minusSeconds(60), bucketSize))
+                .then(this.deployJobRepository.save(job))
+                .block();
+
+        StepVerifier
+                .create(this.deployReconciler.reconcile())
+                .expectNextMatches(resolved -> resolved >= 1)
+                .verifyComplete();
+
+        URI location = URI.create(String.format("/api/instances/%s/deployjobs/%s", instanceId, job.getId()));
+        assertThat(this.awaitDeployJob(location).getState()).isEqualTo(DeployJob.State.Succeeded);
+
+        StepVerifier
+                .create(this.deployIntentRepository.findAll().filter(intent -> intent.getJobId().equals(job.getId())))
+                .verifyComplete();
+
+        this.testClient
+                .get()
+                .uri("/api/instances/{id}", instanceId.toString())
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(Instance.State.Deployed.toString());
+    }
+
+    @Test
+    public void build_instance_deployed_without_changes_should_not_call_the_deployer_except_forcing() {
+
+        stubFor(put(urlEqualTo("/api/platforms/kubernetes/deployers"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withStatus(HttpStatus.CREATED.value())));
+
+        String instanceId = "ab6962dd-3f90-4c93-8f61-eabfa4a803e2";
+
+        URI location = this.testClient
+                .put()
+                .uri("/api/instances/{id}/deploy", instanceId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody().returnResult().getResponseHeaders().getLocation();
+
+        assertThat(this.awaitDeployJob(location).getState()).isEqualTo(DeployJob.State.Succeeded);
+
+        // The specification has not changed, the job is not recorded
+        this.testClient
+                .put()
+                .uri("/api/instances/{id}/deploy", instanceId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.LOCATION)
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(DeployJob.State.Succeeded.toString())
+                    .jsonPath("$._links.self").doesNotExist()
+                    .jsonPath("$._links.instance.href").hasJsonPath();
+
+        verify(1, putRequestedFor(urlEqualTo("/api/platforms/kubernetes/deployers"))
+                .withRequestBody(containing(instanceId)));
+
+        location = this.testClient
+                .put()
+                .uri("/api/instances/{id}/deploy?force=true", instanceId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(DeployJob.State.Pending.toString())
+                .returnResult().getResponseHeaders().getLocation();
+
+        assertThat(this.awaitDeployJob(location).getState()).isEqualTo(DeployJob.State.Succeeded);
+
+        verify(2, putRequestedFor(urlEqualTo("/api/platforms/kubernetes/deployers"))
+                .withRequestBody(containing(instanceId)));
+
+        StepVerifier
+                .create(this.deployJobRepository.findAll()
+                        .filter(job -> job.getInstanceId().toString().equals(instanceId)))
+                .expectNextCount(2) // The first and the forced deploy
+                .verifyComplete();
+    }
+
+    @Test
+    public void build_instance_not_found_should_return_not_found() {
+
+        this.testClient
+                .put()
+                .uri("/api/instances/{id}/deploy", UUID.randomUUID().toString())
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void bulk_build_instances_should_return_progress_by_instance() {
+
+        stubFor(put(urlEqualTo("/api/platforms/kubernetes/deployers"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withStatus(HttpStatus.CREATED.value())));
+
+        String firstId = "6b6962dd-3f90-4c93-8f61-eabfa4a803e2";
+        String secondId = "7b6962dd-3f90-4c93-8f61-eabfa4a803e2";
+        String notFoundId = UUID.randomUUID().toString();
+
+        Flux<Map> progress = this.testClient
+                .post()
+                .uri("/api/instances/_deploy")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .body(Mono.just(bulkDeployRequest(Arrays.asList(firstId, secondId, notFoundId), 5)), Map.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody();
+
+        StepVerifier
+                .create(progress.collectList())
+                .expectNextMatches(items -> {
+                    assertThat(items).hasSize(3);
+                    assertThat(items)
+                            .filteredOn(item -> item.get("instanceId").equals(notFoundId))
+                            .extracting(item -> item.get("state")).containsOnly(DeployJob.State.Failed.toString());
+                    assertThat(items)
+                            .filteredOn(item -> !item.get("instanceId").equals(notFoundId))
+                            .extracting(item -> item.get("state")).containsOnly(DeployJob.State.Succeeded.toString());
+                    assertThat(items.get(2).get("processed")).isEqualTo(3);
+                    assertThat(items.get(2).get("failed")).isEqualTo(1);
+                    assertThat(items.get(2).get("aborted")).isEqualTo(false);
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void bulk_build_instances_over_error_threshold_should_stop() {
+
+        Map<String, Object> request = bulkDeployRequest(Arrays.asList(
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString()), 1);
+        request.put("concurrency", 1);
+
+        Flux<Map> progress = this.testClient
+                .post()
+                .uri("/api/instances/_deploy")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .body(Mono.just(request), Map.class)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody();
+
+        StepVerifier
+                .create(progress)
+                .expectNextMatches(item -> {
+                    assertThat(item.get("state")).isEqualTo(DeployJob.State.Failed.toString());
+                    assertThat(item.get("total")).isEqualTo(3);
+                    assertThat(item.get("aborted")).isEqualTo(true);
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void bulk_build_instances_without_selector_should_return_bad_request() {
+
+        this.testClient
+                .post()
+                .uri("/api/instances/_deploy")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .body(Mono.just(new HashMap<String, Object>()), Map.class)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void try_build_instance_locked_should_return_instance_with_state_none() {
 
         UUID instanceId = UUID.fromString("2b6962dd-3f90-4c93-8f61-eabfa4a803e2");
 
-        this.dataLockController.lock(instanceId, 15)
-                .flatMap(__ -> {
-                    this.testClient
-                            .put()
-                            .uri("/api/instances/{id}/deploy", instanceId.toString())
-                            .accept(MediaTypes.HAL_JSON)
-                            .exchange()
-                            .expectStatus().isOk()
-                            .expectBody()
-                                .jsonPath("$.state").isEqualTo(Instance.State.InProgress.toString());
-                    return Mono.empty();
-                })
-                .doFinally(__ -> this.dataLockController.unLock(instanceId));
+        assertThat(this.dataLockController.lock(instanceId, 15).block()).isTrue();
+        try {
+            URI location = this.testClient
+                    .put()
+                    .uri("/api/instances/{id}/deploy", instanceId.toString())
+                    .accept(MediaTypes.HAL_JSON)
+                    .exchange()
+                    .expectStatus().isAccepted()
+                    .expectBody()
+                        .jsonPath("$.state").isEqualTo(DeployJob.State.Pending.toString())
+                    .returnResult().getResponseHeaders().getLocation();
+
+            DeployJob job = this.awaitDeployJob(location);
+            assertThat(job.getState()).isEqualTo(DeployJob.State.Failed);
+            assertThat(job.getMessage()).contains("being deployed by other process");
+        }
+        finally {
+            this.dataLockController.unLock(instanceId).block();
+        }
+
+        this.testClient
+                .get()
+                .uri("/api/instances/{id}", instanceId.toString())
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(Instance.State.None.toString());
+    }
+
+    @Test
+    public void fail_lost_deploy_should_fail_the_job_and_the_instance() {
+
+        // All the nodes were stopped more than the lookback (instance in progress and job running)
+        UUID instanceId = UUID.fromString("cb6962dd-3f90-4c93-8f61-eabfa4a803e2");
+        Duration bucketSize = this.serviceProperties.getDeploy().getIntentBucketSize();
+        DeployJob lostJob = DeployJob.pending(instanceId).withState(DeployJob.State.Running, null);
+        DeployIntent lostIntent = DeployIntent.of(lostJob, Instant.now().minus(Duration.ofMinutes(90)), bucketSize);
+
+        this.deployIntentRepository.save(lostIntent)
+                .then(this.deployJobRepository.save(lostJob))
+                .block();
+
+        StepVerifier
+                .create(this.instanceService.failLostDeploy(lostIntent))
+                .expectNext(true)
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.deployJobRepository.findById(lostJob.getId()))
+                .expectNextMatches(job -> job.getState() == DeployJob.State.Failed)
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.deployIntentRepository.findById(
+                        DeployIntent.GetMapId(lostIntent.getBucket(), lostIntent.getJobId())))
+                .verifyComplete();
+
+        this.testClient
+                .get()
+                .uri("/api/instances/{id}", instanceId.toString())
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.state").isEqualTo(Instance.State.Error.toString());
+    }
+
+    // The deploy is executed asynchronously, so the job is read until it finishes
+    private DeployJob awaitDeployJob(final URI location) {
+        String[] path = location.getPath().split("/");
+        return this.instanceService
+                .getDeployJob(UUID.fromString(path[path.length - 3]), UUID.fromString(path[path.length - 1]))
+                .filter(DeployJob::isFinished)
+                .repeatWhenEmpty(DEPLOY_JOB_POLLING_TIMES, repeat -> repeat.delayElements(Duration.ofMillis(100)))
+                .block();
+    }
+
+    private static Map<String, Object> bulkDeployRequest(final List<String> ids, final int errorThreshold) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("ids", ids);
+        request.put("errorThreshold", errorThreshold);
+        return request;
+    }
+
+    private static ResponseFieldsSnippet deployJobResponseFields() {
+        return responseFields(
+                fieldWithPath("id").description("Deploy job identifier (UUID)"),
+                fieldWithPath("instanceId").description("Instance identifier (UUID)"),
+                fieldWithPath("state")
+                        .description("Job state; PENDING: Waiting for a worker, RUNNING: Deploying," +
+                                " SUCCEEDED: Deployed, FAILED: Deploying error"),
+                fieldWithPath("message").type(JsonFieldType.STRING).optional()
+                        .description("Error description when the job has failed"),
+                fieldWithPath("createdAt").description("Date when the job was enqueued"),
+                fieldWithPath("updatedAt").description("Date of the last change of state"),
+                subsectionWithPath("_links").description("View links section"));
     }
 
     private static PathParametersSnippet commonPathParamters() {
@@ -22,16 +22,21 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
 import org.springframework.restdocs.payload.FieldDescriptor;
 import org.springframework.restdocs.payload.RequestFieldsSnippet;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.restdocs.request.PathParametersSnippet;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
 import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
@@ -65,6 +70,11 @@ public class QueryInstanceControllerTest extends DataAbstractControllerTest {
             this.executeCommands("query-instance-controller.cql");
             this.executeCommands("query-prototype-controller.cql");
             this.executeCommands("query-instance-property-controller.cql");
+            this.executeCommands("ente-category-controller.cql");
+            this.executeCommands("ente-hierarchy-controller.cql");
+            this.executeCommands("ente-hierarchy-closure-controller.cql");
+            this.executeCommands("ente-controller.cql");
+            this.executeCommands("ente-property-controller.cql");
             beforeOnce = true;
         }
     }
@@ -253,6 +263,54 @@ public class QueryInstanceControllerTest extends DataAbstractControllerTest {
                         .isEqualTo("parentId");
     }
 
+    @Test
+    public void execute_query_should_return_ok_and_stream_bound_entes() {
+
+        String queryId = "c985074c-796b-4ecb-9a8f-21f4b26aa11b"; // Look at query-instance-controller
+        String categoryBindingId = "e6b34eb0-e15e-4e5a-a20d-7548a6967085"; // Look at query-instance-property
+        String enteBindingId = "f6b34eb0-e15e-4e5a-a20d-7548a6967085"; // Look at query-instance-property
+        String categoryId = "83ed3c4c-5c7f-4e76-8a2a-2e3b7bfca676"; // Look at ente-hierarchy-controller
+        String enteId = "7acdac69-fdf8-45e5-a189-2b2b4beb1c26"; // Look at ente-controller
+
+        Flux<Map> rows = this.testClient
+                .post()
+                .uri("/api/queryinstances/{id}/execute", queryId)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class)
+                .getResponseBody();
+
+        StepVerifier
+                .create(rows)
+                .expectNextMatches(row -> {
+                    assertThat(row.get("propertyId")).isEqualTo(categoryBindingId);
+                    assertThat(row.get("parentId")).isEqualTo(categoryId);
+                    assertThat(row.get("enteId")).isEqualTo(enteId);
+                    assertThat(row.get("enteName")).isEqualTo("Ente name");
+                    assertThat((List) row.get("properties")).hasSize(3);
+                    return true;
+                })
+                .expectNextMatches(row -> {
+                    assertThat(row.get("propertyId")).isEqualTo(enteBindingId);
+                    assertThat(row.get("enteId")).isEqualTo(enteId);
+                    assertThat((List) row.get("properties")).hasSize(3);
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void execute_query_not_found_should_return_not_found() {
+
+        this.testClient
+                .post()
+                .uri("/api/queryinstances/{id}/execute", UUID.randomUUID())
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     private static RequestFieldsSnippet commonRequestFields() {
         List<FieldDescriptor> fieldDescriptor = new ArrayList<>();
         fieldDescriptor.add(fieldWithPath("id").ignored());
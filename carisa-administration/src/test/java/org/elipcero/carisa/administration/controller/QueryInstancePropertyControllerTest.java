@@ -16,9 +16,12 @@
 
 package org.elipcero.carisa.administration.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.Setter;
 import org.elipcero.carisa.administration.domain.DynamicObjectPrototypeProperty;
+import org.elipcero.carisa.administration.general.CarisaMediaTypes;
 import org.elipcero.carisa.administration.general.StringResource;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,10 +34,12 @@ import org.springframework.restdocs.request.PathParametersSnippet;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
 import static org.springframework.restdocs.payload.PayloadDocumentation.requestFields;
 import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
@@ -53,13 +58,19 @@ public class QueryInstancePropertyControllerTest extends DataAbstractControllerT
     private static final String INSTANCE_PROPERTY_ID = "c6b34eb0-e15e-4e5a-a20d-7548a6967085";
     private static final String INSTANCE_ID = "a985074c-796b-4ecb-9a8f-21f4b26aa11b"; // Look at query-instance-controller.cql
 
+    // Look at query-instance-property-map-controller.cql
+    private static final String MAP_INSTANCE_PROPERTY_ID = "e6b34eb0-e15e-4e5a-a20d-7548a6967085";
+    private static final String MAP_INSTANCE_ID = "c985074c-796b-4ecb-9a8f-21f4b26aa11b";
+
     private static boolean beforeOnce;
 
     @Before
     public void prepareData() {
         if (!beforeOnce) {
+            this.executeCommands("query-prototype-controller.cql");
             this.executeCommands("query-instance-controller.cql");
             this.executeCommands("query-instance-property-controller.cql");
+            this.executeCommands("query-instance-property-map-controller.cql");
             beforeOnce = true;
         }
     }
@@ -157,6 +168,154 @@ public class QueryInstancePropertyControllerTest extends DataAbstractControllerT
                     .jsonPath("$._links.self.href").hasJsonPath();
     }
 
+    @Test
+    public void update_all_query_properties_should_return_ok_and_query_properties() {
+
+        String propertyId = "d6b34eb0-e15e-4e5a-a20d-7548a6967085"; // Look at query-instance-property-controller.cql
+        String newPropertyId = "7f1ae6a6-4b2e-4e38-9a7d-3c2b2b0d6a10";
+
+        List<DynamicObjectInstancePropertyRequest<?>> properties = Arrays.asList(
+                DynamicObjectInstancePropertyRequest.builder()
+                        .id(UUID.fromString(propertyId))
+                        .type(DynamicObjectPrototypeProperty.Type.Integer)
+                        .value(1)
+                    .build(),
+                DynamicObjectInstancePropertyRequest.builder()
+                        .id(UUID.fromString(newPropertyId))
+                        .type(DynamicObjectPrototypeProperty.Type.String)
+                        .value("value")
+                    .build());
+
+        this.testClient
+                .put()
+                .uri("/api/queryinstances/{instanceId}/properties", INSTANCE_ID)
+                    .contentType(MediaTypes.HAL_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .body(Mono.just(properties), List.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$._embedded.rawDynamicObjectInstancePropertyList[?(@.id=='%s')].value", propertyId)
+                        .isEqualTo(1)
+                    .jsonPath("$._embedded.rawDynamicObjectInstancePropertyList[?(@.id=='%s')].value", newPropertyId)
+                        .isEqualTo("value")
+                .consumeWith(document("queryinstancepeproperties-put-all",
+                        pathParameters(
+                                parameterWithName("instanceId")
+                                        .description("Query instance identifier (UUID string format)")),
+                        requestFields(
+                                fieldWithPath("[].id").description("Query instance property identifier (UUID)"),
+                                fieldWithPath("[].type")
+                                        .description("The type of value: (Integer, String, Boolean, HierarchyBinding)"),
+                                fieldWithPath("[].value").description("The value depending of the type")),
+                        responseFields(
+                                subsectionWithPath("_embedded.rawDynamicObjectInstancePropertyList[]")
+                                        .description("The query instance properties saved"))));
+    }
+
+    @Test
+    public void update_all_query_properties_with_repeated_property_should_return_bad_request() {
+
+        UUID propertyId = UUID.randomUUID();
+
+        List<DynamicObjectInstancePropertyRequest<?>> properties = Arrays.asList(
+                DynamicObjectInstancePropertyRequest.builder()
+                        .id(propertyId)
+                        .type(DynamicObjectPrototypeProperty.Type.Integer)
+                        .value(1)
+                    .build(),
+                DynamicObjectInstancePropertyRequest.builder()
+                        .id(propertyId)
+                        .type(DynamicObjectPrototypeProperty.Type.Integer)
+                        .value(2)
+                    .build());
+
+        this.testClient
+                .put()
+                .uri("/api/queryinstances/{instanceId}/properties", INSTANCE_ID)
+                    .contentType(MediaTypes.HAL_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .body(Mono.just(properties), List.class)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void find_map_layout_query_property_should_return_ok_and_query_property_entity() {
+
+        this.testClient
+                .get()
+                .uri("/api/queryinstances/{instanceId}/properties/{propertyId}", MAP_INSTANCE_ID, MAP_INSTANCE_PROPERTY_ID)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.instanceId").isEqualTo(MAP_INSTANCE_ID)
+                    .jsonPath("$.id").isEqualTo(MAP_INSTANCE_PROPERTY_ID)
+                    .jsonPath("$.value").isEqualTo(1);
+    }
+
+    @Test
+    public void update_all_map_layout_query_properties_should_return_ok_and_query_properties() {
+
+        String propertyId = "8f1ae6a6-4b2e-4e38-9a7d-3c2b2b0d6a10";
+
+        List<DynamicObjectInstancePropertyRequest<?>> properties = Arrays.asList(
+                DynamicObjectInstancePropertyRequest.builder()
+                        .id(UUID.fromString(propertyId))
+                        .type(DynamicObjectPrototypeProperty.Type.Boolean)
+                        .value(true)
+                    .build());
+
+        this.testClient
+                .put()
+                .uri("/api/queryinstances/{instanceId}/properties", MAP_INSTANCE_ID)
+                    .contentType(MediaTypes.HAL_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .body(Mono.just(properties), List.class)
+                .exchange()
+                .expectStatus().isOk();
+
+        this.testClient
+                .get()
+                .uri("/api/queryinstances/{instanceId}/properties/{propertyId}", MAP_INSTANCE_ID, propertyId)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$.instanceId").isEqualTo(MAP_INSTANCE_ID)
+                    .jsonPath("$.value").isEqualTo(true);
+    }
+
+    @Test
+    public void update_query_property_using_smile_should_return_ok_and_query_property_entity() {
+
+        String propertyId = "d6b34eb0-e15e-4e5a-a20d-7548a6967085"; // Look at query-instance-property-controller.cql
+
+        DynamicObjectInstancePropertyRequest<?> updatedProperty =
+                DynamicObjectInstancePropertyRequest.builder()
+                        .instanceId(UUID.fromString(INSTANCE_ID))
+                        .type(DynamicObjectPrototypeProperty.Type.Integer)
+                        .value(2)
+                    .build();
+
+        this.testClient
+                .put()
+                .uri("/api//queryinstances/{instanceId}/properties/{propertyId}", INSTANCE_ID, propertyId)
+                    .contentType(CarisaMediaTypes.SMILE)
+                .accept(CarisaMediaTypes.SMILE)
+                .body(Mono.just(updatedProperty), DynamicObjectInstancePropertyRequest.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CarisaMediaTypes.SMILE)
+                .expectBody(DynamicObjectInstancePropertyResponse.class)
+                    .value(response -> {
+                        assertThat(response.getInstanceId()).isEqualTo(UUID.fromString(INSTANCE_ID));
+                        assertThat(response.getId()).isEqualTo(UUID.fromString(propertyId));
+                        assertThat(response.getValue()).isEqualTo(2);
+                    });
+    }
+
     private static RequestFieldsSnippet commonRequestFields(List<FieldDescriptor> fields) {
         List<FieldDescriptor> fieldDescriptor = new ArrayList<>(fields);
         fieldDescriptor.add(fieldWithPath("type")
@@ -190,9 +349,19 @@ public class QueryInstancePropertyControllerTest extends DataAbstractControllerT
 
     @Builder
     @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private static class DynamicObjectInstancePropertyRequest<TValue> {
+        public UUID id;
         public UUID instanceId;
         public DynamicObjectPrototypeProperty.Type type;
         public TValue value;
    }
+
+    @Getter
+    @Setter
+    private static class DynamicObjectInstancePropertyResponse {
+        private UUID instanceId;
+        private UUID id;
+        private Object value;
+    }
 }
@@ -229,6 +229,9 @@ public class QueryPluginPrototypeControllerTest extends DataAbstractControllerTe
                 .description("Query prototype description defined by plugin developer."));
         fieldDescriptor.add(fieldWithPath("parentId")
                 .description("Plugin type identifier (UUID). In this case Query. This property can not be updated"));
+        fieldDescriptor.add(fieldWithPath("propertyLayout")
+                .description("Storage layout of the query instance properties: (Rows, Map). " +
+                        "By default Rows. This property can not be updated"));
         return requestFields(fieldDescriptor);
     }
 
@@ -245,6 +248,8 @@ public class QueryPluginPrototypeControllerTest extends DataAbstractControllerTe
                     .description("Plugin type identifier (UUID). In this case Query. This property can not be updated"),
                 fieldWithPath("name").description("Query prototype name defined by plugin developer."),
                 fieldWithPath("description").description("Query prototype description defined by plugin developer."),
+                fieldWithPath("propertyLayout")
+                        .description("Storage layout of the query instance properties: (Rows, Map)"),
                 subsectionWithPath("_links")
                         .description("The query prototype links. " + StringResource.METADATA_INFORMATION));
     }
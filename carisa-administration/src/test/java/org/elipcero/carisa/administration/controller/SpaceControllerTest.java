@@ -16,19 +16,29 @@
 
 package org.elipcero.carisa.administration.controller;
 
+import org.elipcero.carisa.administration.domain.EnteHierarchy;
 import org.elipcero.carisa.administration.domain.Space;
+import org.elipcero.carisa.administration.domain.SpaceEnte;
 import org.elipcero.carisa.administration.general.StringResource;
+import org.elipcero.carisa.administration.repository.cassandra.EnteHirarchyRepository;
+import org.elipcero.carisa.administration.repository.cassandra.SpaceEnteRepository;
+import org.elipcero.carisa.core.reactive.data.RelationReverseIndex;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
 import org.springframework.restdocs.hypermedia.LinksSnippet;
 import org.springframework.restdocs.payload.FieldDescriptor;
 import org.springframework.restdocs.payload.RequestFieldsSnippet;
 import org.springframework.restdocs.payload.ResponseFieldsSnippet;
 import org.springframework.restdocs.request.ParameterDescriptor;
 import org.springframework.restdocs.request.PathParametersSnippet;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -62,6 +72,20 @@ public class SpaceControllerTest extends DataAbstractControllerTest {
 
     private static boolean beforeOnce;
 
+    @Autowired
+    private SpaceEnteRepository spaceEnteRepository;
+
+    @Autowired
+    private EnteHirarchyRepository enteHirarchyRepository;
+
+    @Autowired
+    @Qualifier("spaceEnteReverseIndex")
+    private RelationReverseIndex spaceEnteReverseIndex;
+
+    @Autowired
+    @Qualifier("enteHierarchyReverseIndex")
+    private RelationReverseIndex enteHierarchyReverseIndex;
+
     @Before
     public void prepareData() {
         if (!beforeOnce) {
@@ -242,6 +266,67 @@ public class SpaceControllerTest extends DataAbstractControllerTest {
                                 subsectionWithPath("_links").description("View links section"))));
     }
 
+    @Test
+    public void search_by_name_from_space_should_return_ok_and_ranked_results() {
+
+        String updatedEnteId = "8acdac69-fdf8-45e5-a189-2b2b4beb1c26"; // Look at ente-controller
+
+        this.testClient
+                .get()
+                .uri("/api/spaces/{id}/search?q={query}", SPACE_ID, "énte")
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$._embedded.nameSearchResultList.length()").isEqualTo(4)
+                    .jsonPath("$._embedded.nameSearchResultList[0].id").isEqualTo(ENTE_ID)
+                    .jsonPath("$._embedded.nameSearchResultList[0].type").isEqualTo("Ente")
+                    .jsonPath("$._embedded.nameSearchResultList[0]._links.ente.href").hasJsonPath()
+                    .jsonPath("$._embedded.nameSearchResultList[1].name").isEqualTo(ENTECATEGORY_NAME)
+                    .jsonPath("$._embedded.nameSearchResultList[1]._links.category.href").hasJsonPath()
+                    .jsonPath("$._embedded.nameSearchResultList[3].id").isEqualTo(updatedEnteId)
+                    .jsonPath("$._links.space.href").hasJsonPath()
+                .consumeWith(document("space-search-get",
+                        spaceLink(),
+                        commonPathParamters(),
+                        responseFields(
+                                fieldWithPath("_embedded.nameSearchResultList[].id")
+                                        .description("Ente, Ente category or query instance identifier. (UUID string format)"),
+                                fieldWithPath("_embedded.nameSearchResultList[].name").description("Name"),
+                                fieldWithPath("_embedded.nameSearchResultList[].type")
+                                        .description("Type: Ente, EnteCategory or QueryInstance"),
+                                fieldWithPath("_embedded.nameSearchResultList[].score")
+                                        .description("Ranking: 4 exact, 3 prefix, 2 word prefix and 1 contains"),
+                                subsectionWithPath("_embedded.nameSearchResultList[]._links")
+                                        .description("View result links section"),
+                                subsectionWithPath("_links").description("View links section"))));
+    }
+
+    @Test
+    public void search_by_name_from_space_with_page_should_return_ok_and_page_results() {
+
+        this.testClient
+                .get()
+                .uri("/api/spaces/{id}/search?q=ente&page=1&size=3", SPACE_ID)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                    .jsonPath("$._embedded.nameSearchResultList.length()").isEqualTo(1)
+                    .jsonPath("$._embedded.nameSearchResultList[0].name").isEqualTo("Updated Ente");
+    }
+
+    @Test
+    public void search_by_name_from_space_with_empty_query_should_return_bad_request() {
+
+        this.testClient
+                .get()
+                .uri("/api/spaces/{id}/search?q= ", SPACE_ID)
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     public void list_entecategories_from_space_should_return_ok_and_ente_categories_entity() {
 
@@ -343,4 +428,44 @@ public class SpaceControllerTest extends DataAbstractControllerTest {
                 .instanceId(UUID.fromString(INSTANCE_ID))
                 .build();
     }
+
+    @Test
+    public void backfill_reverse_index_of_space_should_index_entes_and_hierarchy() {
+
+        UUID spaceId = UUID.randomUUID();
+        UUID enteId = UUID.randomUUID();
+        UUID category = UUID.randomUUID();
+        UUID childCategory = UUID.randomUUID();
+
+        // The relations are written without the reverse index (written before the index existed)
+        this.spaceEnteRepository.save(new SpaceEnte(spaceId, enteId)).block();
+        this.enteHirarchyRepository.saveAll(Flux.just(
+                EnteHierarchy.builder().parentId(spaceId).id(category).category(true).build(),
+                EnteHierarchy.builder().parentId(category).id(childCategory).category(true).build(),
+                EnteHierarchy.builder().parentId(childCategory).id(enteId).category(false).build()))
+                .blockLast();
+
+        this.testClient
+                .post()
+                .uri("/api/spaces/{id}/reverseindex/backfill", spaceId)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(4L);
+
+        StepVerifier
+                .create(this.spaceEnteReverseIndex.findParentsByChild(enteId))
+                .expectNext(spaceId)
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.enteHierarchyReverseIndex.findParentsByChild(enteId))
+                .expectNext(childCategory)
+                .verifyComplete();
+
+        StepVerifier
+                .create(this.enteHierarchyReverseIndex.findParentsByChild(category))
+                .expectNext(spaceId)
+                .verifyComplete();
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.repository;
+
+import org.elipcero.carisa.administration.controller.DataAbstractControllerTest;
+import org.elipcero.carisa.administration.domain.DynamicObjectInstanceProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.elipcero.carisa.core.reactive.data.EmbeddedDependencyRelation;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rows layout (one clustered row by property) and the map layout (one row by instance)
+ * must return the same properties
+ * @see org.elipcero.carisa.administration.domain.DynamicObjectPrototype.PropertyLayout
+ *
+ * @author David Suárez
+ */
+@SpringBootTest(properties = { "spring.data.cassandra.keyspaceName=test_admin_property_layout" })
+public class DynamicObjectInstancePropertyLayoutRelationTest extends DataAbstractControllerTest {
+
+    // Look at query-instance-controller.cql
+    private static final UUID ROWS_INSTANCE_ID = UUID.fromString("a985074c-796b-4ecb-9a8f-21f4b26aa11b");
+    // Look at query-instance-property-map-controller.cql
+    private static final UUID MAP_INSTANCE_ID = UUID.fromString("c985074c-796b-4ecb-9a8f-21f4b26aa11b");
+
+    private static final int PROPERTIES = 50;
+
+    @Autowired
+    private EmbeddedDependencyRelation<DynamicObjectInstanceProperty<?>> instancePropertyRelation;
+
+    @Before
+    public void prepareData() {
+        this.executeCommands("query-prototype-controller.cql");
+        this.executeCommands("query-instance-controller.cql");
+        this.executeCommands("query-instance-property-controller.cql");
+        this.executeCommands("query-instance-property-map-controller.cql");
+    }
+
+    @Test
+    public void read_properties_with_rows_and_map_layout_should_return_the_same_properties() {
+
+        List<UUID> propertyIds = createPropertyIds();
+
+        Map<UUID, Object> rows = this.saveAndRead(ROWS_INSTANCE_ID, propertyIds);
+        Map<UUID, Object> map = this.saveAndRead(MAP_INSTANCE_ID, propertyIds);
+
+        assertThat(rows).hasSize(PROPERTIES);
+        assertThat(map).isEqualTo(rows);
+    }
+
+    @Test
+    public void read_properties_by_id_with_rows_and_map_layout_should_return_the_same_properties() {
+
+        List<UUID> propertyIds = createPropertyIds();
+        this.saveAndRead(ROWS_INSTANCE_ID, propertyIds);
+        this.saveAndRead(MAP_INSTANCE_ID, propertyIds);
+
+        Map<UUID, Object> rows = this.readById(ROWS_INSTANCE_ID, propertyIds);
+        Map<UUID, Object> map = this.readById(MAP_INSTANCE_ID, propertyIds);
+
+        assertThat(rows).hasSize(PROPERTIES);
+        assertThat(map).isEqualTo(rows);
+    }
+
+    // Save the properties and read them by instance. Property -> raw value
+    private Map<UUID, Object> saveAndRead(final UUID instanceId, final List<UUID> propertyIds) {
+        return this.instancePropertyRelation.saveAllByParent(instanceId, createProperties(instanceId, propertyIds))
+                .thenMany(this.instancePropertyRelation.getRelationsByParent(instanceId))
+                .filter(property -> propertyIds.contains(property.getId())) // The fixture has other properties
+                .doOnNext(property -> assertThat(property.getParentId()).isEqualTo(instanceId))
+                .collectMap(DynamicObjectInstanceProperty::getId, property -> property.getValue().getRawValue())
+                .block();
+    }
+
+    // Property -> raw value
+    private Map<UUID, Object> readById(final UUID instanceId, final List<UUID> propertyIds) {
+        return this.instancePropertyRelation.getAllById(
+                        Flux.fromIterable(propertyIds).map(propertyId -> RelationKey.of(instanceId, propertyId)))
+                .collectMap(property -> property.getT1().getChildId(),
+                        property -> property.getT2().getValue().getRawValue())
+                .block();
+    }
+
+    private static List<UUID> createPropertyIds() {
+        return IntStream.range(0, PROPERTIES)
+                .mapToObj(i -> UUID.randomUUID())
+                .collect(Collectors.toList());
+    }
+
+    // The values are of several types
+    private static List<DynamicObjectInstanceProperty<?>> createProperties(
+            final UUID instanceId, final List<UUID> propertyIds) {
+
+        return IntStream.range(0, propertyIds.size())
+                .<DynamicObjectInstanceProperty<?>>mapToObj(i -> new DynamicObjectInstanceProperty<>(
+                        propertyIds.get(i), instanceId, createValue(i)))
+                .collect(Collectors.toList());
+    }
+
+    private static DynamicObjectInstanceProperty.Value createValue(final int i) {
+        switch (i % 3) {
+            case 0:
+                return new DynamicObjectInstanceProperty.IntegerValue(i);
+            case 1:
+                return new DynamicObjectInstanceProperty.BooleanValue(i % 2 == 0);
+            default:
+                return new DynamicObjectInstanceProperty.StringValue("value" + i);
+        }
+    }
+}
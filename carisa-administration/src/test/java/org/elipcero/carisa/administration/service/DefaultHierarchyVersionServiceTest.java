@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class DefaultHierarchyVersionServiceTest {
+
+    @Test
+    public void increment_space_should_change_only_the_spaces_of_its_stripe() {
+
+        DefaultHierarchyVersionService versionService = new DefaultHierarchyVersionService(1);
+        UUID spaceId = UUID.randomUUID();
+        UUID otherSpaceId = UUID.randomUUID();
+
+        versionService.increment(spaceId);
+
+        assertThat(versionService.getVersion(spaceId)).isEqualTo(1);
+        assertThat(versionService.getVersion(otherSpaceId)).isEqualTo(1); // The same stripe
+    }
+
+    @Test
+    public void increment_unknown_space_should_change_all_the_spaces() {
+
+        DefaultHierarchyVersionService versionService = new DefaultHierarchyVersionService();
+        UUID spaceId = UUID.randomUUID();
+        long version = versionService.getVersion(spaceId);
+
+        versionService.increment(null);
+
+        assertThat(versionService.getVersion(spaceId)).isEqualTo(version + 1);
+    }
+}
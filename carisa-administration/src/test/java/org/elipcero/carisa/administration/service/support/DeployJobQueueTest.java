@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.DeployJob;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class DeployJobQueueTest {
+
+    private final List<DeployJob> started = new ArrayList<>();
+    private final Map<DeployJob, MonoProcessor<Void>> executions = new HashMap<>();
+
+    @Test
+    public void offer_jobs_should_serialize_by_instance_and_bound_concurrency() {
+
+        DeployJobQueue queue = new DeployJobQueue(2, 10, this::execute);
+        UUID instanceA = UUID.randomUUID();
+        DeployJob a1 = DeployJob.pending(instanceA);
+        DeployJob a2 = DeployJob.pending(instanceA);
+        DeployJob b1 = DeployJob.pending(UUID.randomUUID());
+        DeployJob c1 = DeployJob.pending(UUID.randomUUID());
+
+        queue.offer(a1);
+        queue.offer(a2);
+        queue.offer(b1);
+        queue.offer(c1);
+
+        assertThat(this.started).containsExactly(a1, b1); // a2 waits for a1, c1 waits for a worker
+        assertThat(queue.size()).isEqualTo(2);
+
+        this.executions.get(a1).onComplete();
+        assertThat(this.started).containsExactly(a1, b1, c1); // c1 was ready before a2
+
+        this.executions.get(b1).onError(new RuntimeException("Error"));
+        assertThat(this.started).containsExactly(a1, b1, c1, a2);
+        assertThat(queue.size()).isEqualTo(0);
+        assertThat(queue.getRunning()).isEqualTo(2);
+    }
+
+    @Test
+    public void offer_job_over_capacity_should_return_false() {
+
+        DeployJobQueue queue = new DeployJobQueue(1, 1, this::execute);
+
+        assertThat(queue.offer(DeployJob.pending(UUID.randomUUID()))).isTrue(); // Running
+        assertThat(queue.offer(DeployJob.pending(UUID.randomUUID()))).isTrue(); // Pending
+        assertThat(queue.offer(DeployJob.pending(UUID.randomUUID()))).isFalse();
+    }
+
+    @Test
+    public void offer_job_held_should_not_enqueue_it_again() {
+
+        DeployJobQueue queue = new DeployJobQueue(1, 10, this::execute);
+        DeployJob running = DeployJob.pending(UUID.randomUUID());
+        DeployJob pending = DeployJob.pending(UUID.randomUUID());
+
+        queue.offer(running);
+        queue.offer(pending);
+
+        assertThat(queue.offer(running)).isTrue();
+        assertThat(queue.offer(pending)).isTrue();
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.contains(pending.getId())).isTrue();
+
+        this.executions.get(running).onComplete();
+        assertThat(this.started).containsExactly(running, pending);
+        assertThat(queue.contains(running.getId())).isFalse();
+    }
+
+    private Mono<Void> execute(final DeployJob job) {
+        MonoProcessor<Void> execution = MonoProcessor.create();
+        this.started.add(job);
+        this.executions.put(job, execution);
+        return execution;
+    }
+}
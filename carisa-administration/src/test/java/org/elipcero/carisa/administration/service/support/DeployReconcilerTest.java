@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.DeployIntent;
+import org.elipcero.carisa.core.application.configuration.ServiceProperties;
+import org.elipcero.carisa.core.reactive.misc.DataLockController;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class DeployReconcilerTest {
+
+    private static final Duration BUCKET_SIZE = Duration.ofMinutes(1);
+    private static final Instant START = Instant.ofEpochSecond(BUCKET_SIZE.getSeconds() * 1000);
+
+    private final ServiceProperties.Deploy deployProperties = new ServiceProperties.Deploy();
+    private final InMemoryDeployRecovery recovery = new InMemoryDeployRecovery();
+    private final InMemoryDataLockController lockController = new InMemoryDataLockController();
+
+    private Instant now = START;
+
+    @Test
+    public void reconcile_expired_intents_should_recover_them_and_move_the_cursor() {
+
+        DeployReconciler reconciler = this.newReconciler();
+        DeployIntent intent1 = this.recovery.add(START.minus(Duration.ofMinutes(50)));
+        DeployIntent intent2 = this.recovery.add(START.minus(Duration.ofMinutes(10)));
+
+        StepVerifier.create(reconciler.reconcile()).expectNext(2L).verifyComplete();
+
+        assertThat(this.recovery.recovered).containsExactly(intent1, intent2);
+        assertThat(this.recovery.readBuckets).first().isEqualTo(bucketOf(START.minus(Duration.ofHours(1))));
+        assertThat(this.lockController.locked).isEmpty();
+
+        this.recovery.readBuckets.clear();
+        StepVerifier.create(reconciler.reconcile()).expectNext(0L).verifyComplete();
+
+        assertThat(this.recovery.readBuckets).containsExactly(bucketOf(START)); // All the intents were resolved
+    }
+
+    @Test
+    public void reconcile_intent_not_resolved_should_keep_the_cursor() {
+
+        DeployReconciler reconciler = this.newReconciler();
+        DeployIntent notRecovered = this.recovery.add(START.minus(Duration.ofMinutes(20)));
+        DeployIntent claimed = this.recovery.add(START.minus(Duration.ofMinutes(10)));
+        this.recovery.failing.add(notRecovered.getJobId()); // For example, the queue is full
+        this.lockController.locked.add(claimed.getJobId()); // Other node is recovering it
+
+        StepVerifier.create(reconciler.reconcile()).expectNext(0L).verifyComplete();
+
+        this.recovery.readBuckets.clear();
+        this.recovery.failing.clear();
+        this.lockController.locked.clear();
+
+        StepVerifier.create(reconciler.reconcile()).expectNext(2L).verifyComplete();
+
+        assertThat(this.recovery.readBuckets).first().isEqualTo(notRecovered.getBucket());
+        assertThat(this.recovery.recovered).containsExactly(notRecovered, claimed);
+    }
+
+    @Test
+    public void reconcile_intent_not_expired_should_not_recover_it() {
+
+        DeployReconciler reconciler = this.newReconciler();
+        DeployIntent lease = this.recovery.add(START.plusSeconds(30)); // Same bucket as now
+
+        StepVerifier.create(reconciler.reconcile()).expectNext(0L).verifyComplete();
+        assertThat(this.recovery.recovered).isEmpty();
+
+        this.now = START.plusSeconds(40);
+        StepVerifier.create(reconciler.reconcile()).expectNext(1L).verifyComplete();
+        assertThat(this.recovery.recovered).containsExactly(lease);
+    }
+
+    @Test
+    public void start_reconciler_should_fail_the_intents_older_than_the_lookback() {
+
+        DeployReconciler reconciler = this.newReconciler();
+        DeployIntent lost = this.recovery.add(START.minus(Duration.ofMinutes(90)));
+        this.recovery.add(START.minus(Duration.ofMinutes(10))); // It is recovered by the reconciliation
+        try {
+            reconciler.start();
+            assertThat(this.recovery.failed).containsExactly(lost);
+            assertThat(this.recovery.readBuckets).first().isEqualTo(bucketOf(START.minus(Duration.ofHours(2))));
+            assertThat(this.recovery.readBuckets).last().isEqualTo(bucketOf(START.minus(Duration.ofHours(1))) - 1);
+        }
+        finally {
+            reconciler.stop();
+        }
+    }
+
+    @Test
+    public void intent_time_to_live_should_cover_two_lookbacks() {
+        assertThat(DeployReconciler.intentTimeToLive(this.deployProperties))
+                .isEqualTo(Duration.ofMinutes(2).plus(Duration.ofHours(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_reconciler_with_interval_greater_than_half_timeout_should_throw_exception() {
+        this.deployProperties.setReconcileInterval(this.deployProperties.getIntentTimeout());
+        this.newReconciler();
+    }
+
+    private DeployReconciler newReconciler() {
+        return new DeployReconciler(this.lockController, this.deployProperties, this.recovery, () -> this.now);
+    }
+
+    private static long bucketOf(final Instant time) {
+        return DeployIntent.bucketOf(time, BUCKET_SIZE);
+    }
+
+    private static class InMemoryDeployRecovery implements DeployRecovery {
+
+        private final Map<Long, List<DeployIntent>> buckets = new HashMap<>();
+        private final Set<UUID> failing = new HashSet<>();
+        private final List<DeployIntent> recovered = new ArrayList<>();
+        private final List<Long> readBuckets = new ArrayList<>();
+        private final List<DeployIntent> failed = new ArrayList<>();
+
+        DeployIntent add(final Instant expiresAt) {
+            DeployIntent intent = DeployIntent.of(UUID.randomUUID(), UUID.randomUUID(), expiresAt, BUCKET_SIZE);
+            this.buckets.computeIfAbsent(intent.getBucket(), __ -> new ArrayList<>()).add(intent);
+            return intent;
+        }
+
+        @Override
+        public Flux<DeployIntent> getDeployIntents(final long bucket) {
+            this.readBuckets.add(bucket);
+            return Flux.fromIterable(new ArrayList<>(this.buckets.getOrDefault(bucket, new ArrayList<>())));
+        }
+
+        @Override
+        public Mono<Boolean> recoverDeploy(final DeployIntent intent) {
+            if (this.failing.contains(intent.getJobId())) {
+                return Mono.just(false);
+            }
+            this.recovered.add(intent);
+            this.buckets.get(intent.getBucket()).remove(intent);
+            return Mono.just(true);
+        }
+
+        @Override
+        public Mono<Long> renewDeployLeases() {
+            return Mono.just(0L);
+        }
+
+        @Override
+        public Mono<Boolean> failLostDeploy(final DeployIntent intent) {
+            this.failed.add(intent);
+            this.buckets.get(intent.getBucket()).remove(intent);
+            return Mono.just(true);
+        }
+    }
+
+    private static class InMemoryDataLockController implements DataLockController {
+
+        private final Set<UUID> locked = new HashSet<>();
+
+        @Override
+        public Mono<Boolean> lock(final UUID id, final int secondsExpired) {
+            return Mono.fromSupplier(() -> this.locked.add(id));
+        }
+
+        @Override
+        public Mono<Boolean> unLock(final UUID id) {
+            return Mono.fromSupplier(() -> this.locked.remove(id));
+        }
+    }
+}
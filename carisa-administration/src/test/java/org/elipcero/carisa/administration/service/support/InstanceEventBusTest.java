@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.Instance;
+import org.elipcero.carisa.administration.projection.InstanceStateEvent;
+import org.junit.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * @author David Suárez
+ */
+public class InstanceEventBusTest {
+
+    @Test
+    public void publish_should_push_only_the_transitions_of_the_instance() {
+
+        InstanceEventBus bus = new InstanceEventBus();
+        UUID instanceId = UUID.randomUUID();
+
+        StepVerifier
+                .create(bus.events(instanceId))
+                .then(() -> {
+                    bus.publish(event(UUID.randomUUID(), Instance.State.InProgress));
+                    bus.publish(event(instanceId, Instance.State.InProgress));
+                    bus.publish(event(instanceId, Instance.State.Deployed));
+                })
+                .expectNextMatches(event -> event.getState() == Instance.State.InProgress)
+                .expectNextMatches(event -> event.getState() == Instance.State.Deployed)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void publish_before_subscribing_should_not_be_received() {
+
+        InstanceEventBus bus = new InstanceEventBus();
+        bus.publish(event(UUID.randomUUID(), Instance.State.Deployed));
+
+        StepVerifier
+                .create(bus.events())
+                .then(() -> bus.publish(event(UUID.randomUUID(), Instance.State.Error)))
+                .expectNextMatches(event -> event.getState() == Instance.State.Error)
+                .thenCancel()
+                .verify();
+    }
+
+    private static InstanceStateEvent event(final UUID instanceId, final Instance.State state) {
+        return InstanceStateEvent.builder().instanceId(instanceId).state(state).timestamp(Instant.now()).build();
+    }
+}
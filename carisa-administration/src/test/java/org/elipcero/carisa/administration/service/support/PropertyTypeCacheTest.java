@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.domain.EnteProperty;
+import org.elipcero.carisa.core.data.RelationKey;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class PropertyTypeCacheTest {
+
+    @Test
+    public void put_none_type_should_not_be_cached() {
+
+        PropertyTypeCache cache = new PropertyTypeCache(10, Duration.ofMinutes(1));
+        RelationKey id = RelationKey.of(UUID.randomUUID(), UUID.randomUUID());
+
+        cache.put(id, EnteProperty.Type.Integer);
+        cache.put(id, EnteProperty.Type.None); // Write through removes it
+
+        assertThat(cache.get(id)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void put_over_max_size_should_evict_least_recently_used() {
+
+        PropertyTypeCache cache = new PropertyTypeCache(2, Duration.ofMinutes(1));
+        RelationKey first = RelationKey.of(UUID.randomUUID(), UUID.randomUUID());
+        RelationKey second = RelationKey.of(UUID.randomUUID(), UUID.randomUUID());
+        RelationKey third = RelationKey.of(UUID.randomUUID(), UUID.randomUUID());
+
+        cache.put(first, EnteProperty.Type.Integer);
+        cache.put(second, EnteProperty.Type.Decimal);
+        cache.get(first); // The second is the least recently used
+        cache.put(third, EnteProperty.Type.Boolean);
+
+        assertThat(cache.get(first)).isEqualTo(EnteProperty.Type.Integer);
+        assertThat(cache.get(second)).isNull();
+        assertThat(cache.get(third)).isEqualTo(EnteProperty.Type.Boolean);
+    }
+
+    @Test
+    public void get_expired_type_should_return_null() {
+
+        AtomicReference<Instant> now = new AtomicReference<>(Instant.now());
+        PropertyTypeCache cache = new PropertyTypeCache(10, Duration.ofMinutes(1), now::get);
+        RelationKey id = RelationKey.of(UUID.randomUUID(), UUID.randomUUID());
+
+        cache.put(id, EnteProperty.Type.Integer);
+        now.set(now.get().plusSeconds(59));
+        assertThat(cache.get(id)).isEqualTo(EnteProperty.Type.Integer);
+
+        now.set(now.get().plusSeconds(1));
+        assertThat(cache.get(id)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void invalidate_type_should_remove_it() {
+
+        PropertyTypeCache cache = new PropertyTypeCache(10, Duration.ofMinutes(1));
+        RelationKey id = RelationKey.of(UUID.randomUUID(), UUID.randomUUID());
+
+        cache.put(id, EnteProperty.Type.Integer);
+        cache.invalidate(id);
+
+        assertThat(cache.get(id)).isNull();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.projection.QueryResultRow;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class QueryResultCacheTest {
+
+    @Test
+    public void get_recorded_result_with_same_hash_and_version_should_return_rows() {
+
+        QueryResultCache cache = new QueryResultCache(100, 100);
+        UUID instanceId = UUID.randomUUID();
+
+        record(cache, instanceId, 1, 2, 3);
+
+        assertThat(cache.get(instanceId, 1, 2)).hasSize(3);
+        assertThat(cache.get(instanceId, 1, 3)).isNull(); // The hierarchy version changed
+        assertThat(cache.get(instanceId, 1, 2)).isNull(); // The stale entry has been removed
+        assertThat(cache.getWeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_recorded_result_with_other_property_hash_should_return_null() {
+
+        QueryResultCache cache = new QueryResultCache(100, 100);
+        UUID instanceId = UUID.randomUUID();
+
+        record(cache, instanceId, 1, 1, 1);
+
+        assertThat(cache.get(instanceId, 2, 1)).isNull();
+    }
+
+    @Test
+    public void record_over_max_weight_should_evict_least_recently_used() {
+
+        QueryResultCache cache = new QueryResultCache(10, 10);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        record(cache, first, 1, 1, 4);
+        record(cache, second, 1, 1, 4);
+        cache.get(first, 1, 1); // The second is the least recently used
+        record(cache, third, 1, 1, 4);
+
+        assertThat(cache.get(first, 1, 1)).hasSize(4);
+        assertThat(cache.get(second, 1, 1)).isNull();
+        assertThat(cache.get(third, 1, 1)).hasSize(4);
+        assertThat(cache.getWeight()).isEqualTo(8);
+    }
+
+    @Test
+    public void record_heavier_than_max_entry_weight_should_not_be_cached() {
+
+        QueryResultCache cache = new QueryResultCache(100, 5);
+        UUID instanceId = UUID.randomUUID();
+
+        record(cache, instanceId, 1, 1, 6);
+
+        assertThat(cache.get(instanceId, 1, 1)).isNull();
+        assertThat(cache.getWeight()).isEqualTo(0);
+    }
+
+    private static void record(
+            final QueryResultCache cache, final UUID instanceId, final long hash, final long version, final int rows) {
+
+        QueryResultCache.Recorder recorder = cache.recorder(instanceId, hash, version);
+        for (int i = 0; i < rows; i++) {
+            recorder.add(QueryResultRow.builder()
+                    .enteId(UUID.randomUUID())
+                    .properties(Collections.emptyList())
+                    .build());
+        }
+        recorder.commit();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elipcero.carisa.administration.domain.KubernetesDeployer;
+import org.elipcero.carisa.administration.exception.SkipperException;
+import org.elipcero.carisa.core.application.configuration.ServiceProperties;
+import org.elipcero.carisa.core.reactive.misc.CircuitBreaker;
+import org.elipcero.carisa.core.reactive.misc.CircuitBreakerOpenException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class SkipperClientTest {
+
+    private static final KubernetesDeployer DEPLOYER = KubernetesDeployer
+            .builder()
+                .name("name")
+                .namespace("namespace")
+            .build();
+
+    @Rule
+    public WireMockRule wireMock = new WireMockRule(options().dynamicPort());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void deploy_created_should_return_true() {
+
+        this.stubDeployers(HttpStatus.CREATED);
+
+        StepVerifier.create(this.createClient(3, 5).deploy(DEPLOYER)).expectNext(true).verifyComplete();
+
+        assertThat(this.meterRegistry.counter("carisa.skipper.requests", "outcome", "success").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void deploy_bad_request_should_return_false_without_retrying() {
+
+        this.stubDeployers(HttpStatus.BAD_REQUEST);
+
+        StepVerifier.create(this.createClient(3, 5).deploy(DEPLOYER)).expectNext(false).verifyComplete();
+
+        this.wireMock.verify(1, putRequestedFor(urlEqualTo(SkipperClient.DEPLOYERS_PATH)));
+    }
+
+    @Test
+    public void deploy_with_server_errors_should_retry_until_created() {
+
+        this.wireMock.stubFor(put(urlEqualTo(SkipperClient.DEPLOYERS_PATH))
+                .inScenario("retry")
+                .whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(HttpStatus.SERVICE_UNAVAILABLE.value()))
+                .willSetStateTo("second"));
+        this.wireMock.stubFor(put(urlEqualTo(SkipperClient.DEPLOYERS_PATH))
+                .inScenario("retry")
+                .whenScenarioStateIs("second")
+                .willReturn(aResponse().withStatus(HttpStatus.INTERNAL_SERVER_ERROR.value()))
+                .willSetStateTo("third"));
+        this.wireMock.stubFor(put(urlEqualTo(SkipperClient.DEPLOYERS_PATH))
+                .inScenario("retry")
+                .whenScenarioStateIs("third")
+                .willReturn(aResponse().withStatus(HttpStatus.CREATED.value())));
+
+        StepVerifier.create(this.createClient(3, 5).deploy(DEPLOYER)).expectNext(true).verifyComplete();
+
+        this.wireMock.verify(3, putRequestedFor(urlEqualTo(SkipperClient.DEPLOYERS_PATH)));
+        assertThat(this.meterRegistry.counter("carisa.skipper.retries").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void deploy_with_hung_skipper_should_return_timeout_error() {
+
+        this.wireMock.stubFor(put(urlEqualTo(SkipperClient.DEPLOYERS_PATH))
+                .willReturn(aResponse().withStatus(HttpStatus.CREATED.value()).withFixedDelay(2000)));
+
+        StepVerifier.create(this.createClient(1, 5).deploy(DEPLOYER))
+                .expectErrorMatches(e -> e.getCause() instanceof TimeoutException) // Retries exhausted
+                .verify(Duration.ofSeconds(5));
+
+        this.wireMock.verify(2, putRequestedFor(urlEqualTo(SkipperClient.DEPLOYERS_PATH)));
+    }
+
+    @Test
+    public void deploy_with_skipper_down_should_open_circuit_and_fail_fast() {
+
+        this.stubDeployers(HttpStatus.INTERNAL_SERVER_ERROR);
+        SkipperClient client = this.createClient(1, 1);
+
+        StepVerifier.create(client.deploy(DEPLOYER))
+                .expectErrorMatches(e -> e.getCause() instanceof SkipperException)
+                .verify();
+        assertThat(client.getCircuitState()).isEqualTo(CircuitBreaker.State.Open);
+
+        StepVerifier.create(client.deploy(DEPLOYER)).verifyError(CircuitBreakerOpenException.class);
+
+        this.wireMock.verify(2, putRequestedFor(urlEqualTo(SkipperClient.DEPLOYERS_PATH))); // Only the first call
+        assertThat(this.meterRegistry.counter("carisa.skipper.rejected").count()).isEqualTo(1);
+    }
+
+    private SkipperClient createClient(final int maxRetries, final int circuitFailureThreshold) {
+        ServiceProperties.Skipper skipper = new ServiceProperties.Skipper();
+        skipper.setUri("http://localhost:" + this.wireMock.port());
+        skipper.setResponseTimeout(Duration.ofMillis(500));
+        skipper.setMaxRetries(maxRetries);
+        skipper.setFirstBackoff(Duration.ofMillis(10));
+        skipper.setMaxBackoff(Duration.ofMillis(50));
+        skipper.setCircuitFailureThreshold(circuitFailureThreshold);
+        return new SkipperClient(skipper, this.meterRegistry);
+    }
+
+    private void stubDeployers(final HttpStatus status) {
+        this.wireMock.stubFor(put(urlEqualTo(SkipperClient.DEPLOYERS_PATH)).willReturn(aResponse().withStatus(status.value())));
+    }
+}
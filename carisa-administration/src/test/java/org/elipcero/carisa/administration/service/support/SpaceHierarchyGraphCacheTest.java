@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class SpaceHierarchyGraphCacheTest {
+
+    @Test
+    public void put_over_max_nodes_should_evict_least_recently_used_space() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(6);
+        SpaceHierarchyGraph first = graph(2);
+        SpaceHierarchyGraph second = graph(2);
+        SpaceHierarchyGraph third = graph(2);
+
+        cache.put(first);
+        cache.put(second);
+        cache.get(first.getSpaceId()); // The second is the least recently used
+        cache.put(third);
+
+        assertThat(cache.get(first.getSpaceId())).isSameAs(first);
+        assertThat(cache.get(second.getSpaceId())).isNull();
+        assertThat(cache.get(third.getSpaceId())).isSameAs(third);
+        assertThat(cache.getNodes()).isEqualTo(6);
+        for (UUID node : second.getNodes()) {
+            assertThat(cache.getSpaceId(node)).isNull();
+        }
+    }
+
+    @Test
+    public void put_graph_greater_than_max_nodes_should_keep_the_last_space() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(2);
+        SpaceHierarchyGraph graph = graph(5);
+
+        cache.put(graph(1));
+        cache.put(graph);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(graph.getSpaceId())).isSameAs(graph);
+        assertThat(cache.getNodes()).isEqualTo(6);
+    }
+
+    @Test
+    public void put_graph_of_the_same_space_should_replace_the_nodes() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(100);
+        SpaceHierarchyGraph graph = graph(3);
+        SpaceHierarchyGraph reloaded = new SpaceHierarchyGraph(graph.getSpaceId());
+
+        cache.put(graph);
+        cache.put(reloaded);
+
+        assertThat(cache.getNodes()).isEqualTo(1);
+        assertThat(cache.get(graph.getSpaceId())).isSameAs(reloaded);
+    }
+
+    @Test
+    public void connect_nodes_should_count_only_the_new_nodes() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(100);
+        SpaceHierarchyGraph graph = graph(0);
+        UUID spaceId = graph.getSpaceId();
+        UUID category = UUID.randomUUID();
+        UUID otherCategory = UUID.randomUUID();
+        cache.put(graph);
+
+        cache.connect(spaceId, spaceId, category, true);
+        cache.connect(spaceId, spaceId, otherCategory, true);
+        cache.connect(spaceId, category, otherCategory, false); // Existing child
+
+        assertThat(cache.getNodes()).isEqualTo(3);
+        assertThat(cache.getSpaceId(otherCategory)).isEqualTo(spaceId);
+        assertThat(graph.isChild(category, otherCategory)).isTrue();
+    }
+
+    @Test
+    public void connect_child_from_other_space_should_invalidate_the_space() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(100);
+        SpaceHierarchyGraph graph = graph(1);
+        cache.put(graph);
+
+        // The child is not new and it is not into the graph, so its subtree is unknown
+        cache.connect(graph.getSpaceId(), graph.getSpaceId(), UUID.randomUUID(), false);
+
+        assertThat(cache.get(graph.getSpaceId())).isNull();
+        assertThat(cache.getNodes()).isEqualTo(0);
+    }
+
+    @Test
+    public void invalidate_space_should_release_its_nodes() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(100);
+        SpaceHierarchyGraph graph = graph(2);
+        SpaceHierarchyGraph other = graph(1);
+        cache.put(graph);
+        cache.put(other);
+
+        cache.invalidate(graph.getSpaceId());
+
+        assertThat(cache.get(graph.getSpaceId())).isNull();
+        assertThat(cache.getSpaceId(graph.getSpaceId())).isNull();
+        assertThat(cache.getNodes()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_graph_loaded_while_its_space_is_written_should_not_be_cached() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(100);
+        SpaceHierarchyGraph graph = graph(1);
+        SpaceHierarchyGraph other = graph(1);
+        long version = cache.getVersion(graph.getSpaceId());
+        long otherVersion = cache.getVersion(other.getSpaceId());
+
+        cache.invalidate(graph.getSpaceId()); // Written while loading
+
+        assertThat(cache.put(graph, version)).isFalse();
+        assertThat(cache.put(other, otherVersion)).isTrue(); // The writes of other spaces don't matter
+        assertThat(cache.get(graph.getSpaceId())).isNull();
+        assertThat(cache.get(other.getSpaceId())).isSameAs(other);
+    }
+
+    @Test
+    public void evict_space_should_evict_its_version() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(2);
+        SpaceHierarchyGraph first = graph(1);
+        SpaceHierarchyGraph second = graph(1);
+
+        cache.put(first);
+        cache.connect(first.getSpaceId(), first.getSpaceId(), UUID.randomUUID(), true);
+        assertThat(cache.getVersions()).isEqualTo(1);
+
+        cache.put(second); // The first is evicted
+
+        assertThat(cache.get(first.getSpaceId())).isNull();
+        assertThat(cache.getVersions()).isEqualTo(0);
+    }
+
+    @Test
+    public void put_graph_loaded_before_an_evicted_write_should_not_be_cached() {
+
+        SpaceHierarchyGraphCache cache = new SpaceHierarchyGraphCache(100, 1);
+        SpaceHierarchyGraph graph = graph(1);
+        long version = cache.getVersion(graph.getSpaceId());
+
+        cache.invalidate(graph.getSpaceId()); // Written while loading
+        cache.invalidate(UUID.randomUUID()); // The version of the space is evicted
+
+        assertThat(cache.getVersions()).isEqualTo(1);
+        assertThat(cache.put(graph, version)).isFalse();
+        assertThat(cache.put(graph, cache.getVersion(graph.getSpaceId()))).isTrue();
+    }
+
+    // Space with children
+    private static SpaceHierarchyGraph graph(final int children) {
+        SpaceHierarchyGraph graph = new SpaceHierarchyGraph(UUID.randomUUID());
+        for (int i = 0; i < children; i++) {
+            graph.connect(graph.getSpaceId(), UUID.randomUUID());
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class SpaceHierarchyGraphTest {
+
+    private final UUID spaceId = UUID.randomUUID();
+    private final SpaceHierarchyGraph graph = new SpaceHierarchyGraph(this.spaceId);
+
+    @Test
+    public void connect_nodes_should_add_them_once() {
+
+        UUID category = UUID.randomUUID();
+        UUID ente = UUID.randomUUID();
+
+        assertThat(this.graph.connect(this.spaceId, category)).isTrue();
+        assertThat(this.graph.connect(category, ente)).isTrue();
+        assertThat(this.graph.connect(category, ente)).isFalse();
+
+        assertThat(this.graph.size()).isEqualTo(3);
+        assertThat(this.graph.isChild(category, ente)).isTrue();
+        assertThat(this.graph.isChild(this.spaceId, ente)).isFalse();
+        assertThat(this.graph.getParents(ente)).containsExactly(category);
+        assertThat(this.graph.getNodes()).containsExactlyInAnyOrder(this.spaceId, category, ente);
+    }
+
+    @Test
+    public void connect_over_initial_capacity_should_grow() {
+
+        UUID parent = this.spaceId;
+        for (int i = 0; i < 100; i++) {
+            UUID child = UUID.randomUUID();
+            this.graph.connect(parent, child);
+            parent = child;
+        }
+
+        assertThat(this.graph.size()).isEqualTo(101);
+        assertThat(this.graph.isAncestor(this.spaceId, parent)).isTrue();
+    }
+
+    @Test
+    public void creates_cycle_should_check_the_descendants_of_the_child() {
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        this.graph.connect(this.spaceId, first);
+        this.graph.connect(first, second);
+        this.graph.connect(this.spaceId, other);
+
+        assertThat(this.graph.createsCycle(second, first)).isTrue();
+        assertThat(this.graph.createsCycle(first, first)).isTrue();
+        assertThat(this.graph.createsCycle(other, first)).isFalse();
+        assertThat(this.graph.createsCycle(first, UUID.randomUUID())).isFalse();
+        assertThat(this.graph.isAncestor(first, first)).isFalse();
+        assertThat(this.graph.isAncestor(this.spaceId, second)).isTrue();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.administration.service.support;
+
+import org.elipcero.carisa.administration.projection.NameSearchResult;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class SpaceNameIndexTest {
+
+    @Test
+    public void search_should_return_results_ranked_by_score() {
+
+        SpaceNameIndex index = new SpaceNameIndex(UUID.randomUUID());
+        UUID contains = put(index, "Prepayment");
+        UUID wordPrefix = put(index, "Customer payment");
+        UUID prefix = put(index, "Payment method");
+        UUID exact = put(index, "Payment");
+        put(index, "Invoice");
+
+        List<NameSearchResult> results = index.search("payment");
+
+        assertThat(results).extracting(NameSearchResult::getId)
+                .containsExactly(exact, prefix, wordPrefix, contains);
+        assertThat(results).extracting(NameSearchResult::getScore)
+                .containsExactly(
+                        SpaceNameIndex.SCORE_EXACT, SpaceNameIndex.SCORE_PREFIX,
+                        SpaceNameIndex.SCORE_WORD_PREFIX, SpaceNameIndex.SCORE_CONTAINS);
+    }
+
+    @Test
+    public void search_should_be_case_and_accent_insensitive() {
+
+        SpaceNameIndex index = new SpaceNameIndex(UUID.randomUUID());
+        UUID id = put(index, "Facturación  Anual");
+
+        assertThat(index.search("FACTURACION anual")).extracting(NameSearchResult::getId).containsExactly(id);
+        assertThat(index.search("ción")).extracting(NameSearchResult::getScore)
+                .containsExactly(SpaceNameIndex.SCORE_CONTAINS);
+    }
+
+    @Test
+    public void put_existing_entity_should_rename_it() {
+
+        SpaceNameIndex index = new SpaceNameIndex(UUID.randomUUID());
+        UUID id = put(index, "Old name");
+        long weight = index.getWeight();
+
+        index.put(id, "New name", NameSearchResult.Type.Ente);
+
+        assertThat(index.search("old")).isEmpty();
+        assertThat(index.search("new")).extracting(NameSearchResult::getName).containsExactly("New name");
+        assertThat(index.getWeight()).isEqualTo(weight);
+    }
+
+    @Test
+    public void search_with_short_query_should_scan_all_entities() {
+
+        SpaceNameIndex index = new SpaceNameIndex(UUID.randomUUID());
+        UUID id = put(index, "Sales by region");
+        put(index, "Customers");
+
+        assertThat(index.search("by")).extracting(NameSearchResult::getId).containsExactly(id);
+    }
+
+    @Test
+    public void remove_entity_should_remove_its_grams() {
+
+        SpaceNameIndex index = new SpaceNameIndex(UUID.randomUUID());
+        UUID id = put(index, "Sales");
+
+        index.remove(id);
+
+        assertThat(index.contains(id)).isFalse();
+        assertThat(index.search("sales")).isEmpty();
+        assertThat(index.getWeight()).isEqualTo(0);
+    }
+
+    private static UUID put(final SpaceNameIndex index, final String name) {
+        UUID id = UUID.randomUUID();
+        index.put(id, name, NameSearchResult.Type.Ente);
+        return id;
+    }
+}
@@ -20,6 +20,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Services properties
  *
@@ -31,9 +33,36 @@ public class ServiceProperties {
 
     private Skipper skipper = new Skipper();
 
+    private Deploy deploy = new Deploy();
+
     @Getter
     @Setter
     public static class Skipper {
         private String uri;
+        private int maxConnections = 16; // Connection pool size
+        private Duration acquireTimeout = Duration.ofSeconds(5); // Waiting for a connection of the pool
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(10);
+        private Duration responseTimeout = Duration.ofSeconds(10); // Each attempt
+        private int maxRetries = 3; // Only idempotent calls
+        private Duration firstBackoff = Duration.ofMillis(200);
+        private Duration maxBackoff = Duration.ofSeconds(5);
+        private int circuitFailureThreshold = 5; // Consecutive failures to open the circuit
+        private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Deploy {
+        private int concurrency = 4; // Deploy jobs executed at the same time
+        private int queueCapacity = 1000; // Pending deploy jobs
+        private int bulkConcurrency = 8; // Maximum instances deployed at the same time by a bulk deploy
+        private int bulkErrorThreshold = 5; // Failed instances to stop a bulk deploy
+        private Duration bulkJobTimeout = Duration.ofMinutes(5); // Waiting for the job of an instance
+        private Duration jobPollingInterval = Duration.ofMillis(500);
+        private Duration intentTimeout = Duration.ofMinutes(2); // Lease of the deploy job, renewed while the job is held
+        private Duration intentBucketSize = Duration.ofMinutes(1); // Time partition of the deploy intents
+        private Duration reconcileInterval = Duration.ofSeconds(30); // Less or equal than the half of the intent timeout
+        private Duration reconcileLookback = Duration.ofHours(1); // Buckets read by the reconciler on starting
     }
 }
@@ -24,8 +24,6 @@ import net.minidev.json.annotate.JsonIgnore;
 import org.springframework.data.cassandra.core.cql.PrimaryKeyType;
 import org.springframework.data.cassandra.core.mapping.PrimaryKeyColumn;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
 @AllArgsConstructor
@@ -54,10 +52,7 @@ public abstract class ManyRelation implements Relation {
         return this.childId;
     }
 
-    public static Map<String, Object> GetMapId(UUID parentId, UUID childId) {
-        return new HashMap<String, Object>() {{
-            put(PARENTID_COLUMN_NAME, parentId);
-            put(CHILDID_COLUMN_NAME, childId);
-        }};
+    public static RelationKey GetKey(UUID parentId, UUID childId) {
+        return RelationKey.of(parentId, childId);
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.data;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable composite key of the relation (parent + child).
+ * It's mapped to the primary key columns of the platform (Cassandra) by the identifier converters
+ * @see RelationKeyColumns
+ *
+ * @author David Suárez
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class RelationKey {
+
+    private final UUID parentId;
+    private final UUID childId;
+
+    private RelationKey(final UUID parentId, final UUID childId) {
+        this.parentId = parentId;
+        this.childId = childId;
+    }
+
+    public static RelationKey of(final UUID parentId, final UUID childId) {
+        return new RelationKey(parentId, childId);
+    }
+
+    /**
+     * Group the keys by parent (partition). The children repeated are discarded
+     *
+     * @return collector of children by parent
+     */
+    public static Collector<RelationKey, ?, Map<UUID, Set<UUID>>> groupingByParent() {
+        return Collectors.groupingBy(RelationKey::getParentId, LinkedHashMap::new,
+                Collectors.mapping(RelationKey::getChildId, Collectors.toCollection(LinkedHashSet::new)));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.data;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.cassandra.core.mapping.BasicMapId;
+import org.springframework.data.cassandra.core.mapping.MapId;
+
+/**
+ * Immutable primary key columns (parent + child) of the relation table. It's created one time by relation
+ * and shared by all the keys, so the column names are not passed in each lookup.
+ *
+ * @author David Suárez
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class RelationKeyColumns {
+
+    private final String parentColumnName;
+    private final String childColumnName;
+
+    private RelationKeyColumns(final String parentColumnName, final String childColumnName) {
+        this.parentColumnName = parentColumnName;
+        this.childColumnName = childColumnName;
+    }
+
+    /**
+     * @param parentColumnName partition column name
+     * @param childColumnName clustering column name
+     * @return relation key columns
+     */
+    public static RelationKeyColumns of(final String parentColumnName, final String childColumnName) {
+        return new RelationKeyColumns(parentColumnName, childColumnName);
+    }
+
+    /**
+     * Map the key to cassandra primary key columns. The MapId is mutable so it's created by call
+     *
+     * @param key relation key
+     * @return cassandra identifier
+     */
+    public MapId toMapId(final RelationKey key) {
+        return BasicMapId.id(this.parentColumnName, key.getParentId()).with(this.childColumnName, key.getChildId());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.misc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used cache bounded by weight. When the weight exceeds the maximum the least recently
+ * used entries are evicted, the last used entry is always kept. The weight of an entry is measured
+ * when it is put and when it is reweighed (the value has been changed).
+ * The methods are synchronized on the cache, so the callers can do several calls atomically
+ * synchronizing on it.
+ *
+ * @author David Suárez
+ */
+public class LruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final BiConsumer<? super K, ? super V> removalListener;
+
+    // Access order. The first is the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    /**
+     * Cache bounded by the number of entries
+     */
+    public LruCache(final long maxSize) {
+        this(maxSize, value -> 1);
+    }
+
+    public LruCache(final long maxWeight, final ToLongFunction<? super V> weigher) {
+        this(maxWeight, weigher, (key, value) -> { });
+    }
+
+    /**
+     * @param removalListener it's called under the lock when an entry is removed, replaced or evicted
+     */
+    public LruCache(final long maxWeight, final ToLongFunction<? super V> weigher,
+                    final BiConsumer<? super K, ? super V> removalListener) {
+
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Get the value and mark it as the most recently used
+     * @return the value or null if it is not cached
+     */
+    public synchronized V get(final K key) {
+        Entry<V> entry = this.entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Put the value replacing the previous value of the key
+     */
+    public synchronized void put(final K key, final V value) {
+        this.remove(key);
+        long entryWeight = this.weigher.applyAsLong(value);
+        this.entries.put(key, new Entry<>(value, entryWeight));
+        this.weight += entryWeight;
+        this.evict();
+    }
+
+    /**
+     * Measure again the weight of the value of the key after changing it
+     */
+    public synchronized void reweigh(final K key) {
+        Entry<V> entry = this.entries.get(key);
+        if (entry != null) {
+            long entryWeight = this.weigher.applyAsLong(entry.value);
+            this.weight += entryWeight - entry.weight;
+            entry.weight = entryWeight;
+            this.evict();
+        }
+    }
+
+    /**
+     * Remove the value of the key
+     * @return the value removed or null if it is not cached
+     */
+    public synchronized V remove(final K key) {
+        Entry<V> entry = this.entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        this.release(key, entry);
+        return entry.value;
+    }
+
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = this.entries.entrySet().iterator();
+        while (this.weight > this.maxWeight && this.entries.size() > 1 && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = eldest.next();
+            eldest.remove();
+            this.release(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void release(final K key, final Entry<V> entry) {
+        this.weight -= entry.weight;
+        this.removalListener.accept(key, entry.value);
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+        private long weight;
+
+        Entry(final V value, final long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.reactive.data;
+
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.elipcero.carisa.core.data.Relation;
+import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reverse index of relation using a cassandra table with the schema:
+ * (childId UUID, parentId UUID, PRIMARY KEY (childId, parentId))
+ *
+ * @author David Suárez
+ */
+@RequiredArgsConstructor
+public class CassandraRelationReverseIndex implements RelationReverseIndex {
+
+    public static final String CHILDID_COLUMN_NAME = "childId";
+    public static final String PARENTID_COLUMN_NAME = "parentId";
+
+    @NonNull
+    private final ReactiveCassandraOperations cqlTemplate;
+
+    @NonNull
+    private final String tableName;
+
+    /**
+     * @see RelationReverseIndex
+     */
+    @Override
+    public Statement insert(final Relation relation) {
+        return QueryBuilder.insertInto(this.tableName)
+                .value(CHILDID_COLUMN_NAME, relation.getChildId())
+                .value(PARENTID_COLUMN_NAME, relation.getParentId());
+    }
+
+    /**
+     * @see RelationReverseIndex
+     */
+    @Override
+    public Statement delete(final Relation relation) {
+        return QueryBuilder.delete().from(this.tableName)
+                .where(QueryBuilder.eq(CHILDID_COLUMN_NAME, relation.getChildId()))
+                .and(QueryBuilder.eq(PARENTID_COLUMN_NAME, relation.getParentId()));
+    }
+
+    /**
+     * @see RelationReverseIndex
+     */
+    @Override
+    public Mono<Void> index(final Relation relation) {
+        return this.cqlTemplate.getReactiveCqlOperations().execute(this.insert(relation)).then();
+    }
+
+    /**
+     * @see RelationReverseIndex
+     */
+    @Override
+    public Flux<UUID> findParentsByChild(final UUID childId) {
+        return this.cqlTemplate.getReactiveCqlOperations()
+                .queryForFlux(
+                        "SELECT " + PARENTID_COLUMN_NAME + " FROM " + this.tableName +
+                                " WHERE " + CHILDID_COLUMN_NAME + " = ?",
+                        UUID.class, childId);
+    }
+}
@@ -16,11 +16,14 @@
 
 package org.elipcero.carisa.core.reactive.data;
 
+import com.datastax.driver.core.Statement;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -44,4 +47,52 @@ public interface CustomizedReactiveCrudRepository<T, ID>
      */
     Mono<EntityDataState<T>> updateCreate(final ID id, final Consumer<T> updateChange,
                                           final Supplier<Mono<T>> monoCreatedEntity);
+
+    /**
+     * Insert all the entities in one unlogged batch. The entities must belong to the same partition
+     * so the batch is applied atomically and is sent to only one replica set.
+     *
+     * @param entities entities for inserting
+     * @return Flux<T> the inserted entities
+     */
+    Flux<T> insertAllInBatch(final Iterable<T> entities);
+
+    /**
+     * Find the entities of one partition whose clustering key is into the list (IN clause).
+     * Only one query is sent to one replica set for all the keys
+     *
+     * @param partitionKey partition key value
+     * @param clusteringKeys clustering key values
+     * @return Flux<T> the entities found
+     */
+    Flux<T> findAllInPartition(final Object partitionKey, final Collection<?> clusteringKeys);
+
+    /**
+     * Find all the entities of several partitions (IN clause over the partition key).
+     * Only one query is sent and the coordinator reads the partitions. Use it with small collections
+     *
+     * @param partitionKeys partition key values
+     * @return Flux<T> the entities found
+     */
+    Flux<T> findAllInPartitions(final Collection<?> partitionKeys);
+
+    /**
+     * Save the entity together with other statements (e.g. indexes of other tables) in one logged batch.
+     * The logged batch guarantees that all the statements are applied although they are of several partitions
+     *
+     * @param entity entity for saving
+     * @param statements statements applied with the entity
+     * @return Mono<T> the saved entity
+     */
+    Mono<T> saveInLoggedBatch(final T entity, final Collection<Statement> statements);
+
+    /**
+     * Delete the entity by id together with other statements in one logged batch.
+     * @see CustomizedReactiveCrudRepository#saveInLoggedBatch(Object, Collection)
+     *
+     * @param id id for deleting
+     * @param statements statements applied with the deleting
+     * @return Mono<Void>
+     */
+    Mono<Void> deleteByIdInLoggedBatch(final ID id, final Collection<Statement> statements);
 }
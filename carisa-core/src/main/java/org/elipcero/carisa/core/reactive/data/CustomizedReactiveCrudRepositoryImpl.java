@@ -16,12 +16,23 @@
 
 package org.elipcero.carisa.core.reactive.data;
 
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.Delete;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.querybuilder.Select;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.springframework.data.cassandra.core.ReactiveCassandraOperations;
+import org.springframework.data.cassandra.core.mapping.CassandraPersistentEntity;
+import org.springframework.data.cassandra.core.mapping.CassandraPersistentProperty;
 import org.springframework.data.cassandra.repository.query.CassandraEntityInformation;
 import org.springframework.data.cassandra.repository.support.SimpleReactiveCassandraRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -34,11 +45,20 @@ public class CustomizedReactiveCrudRepositoryImpl<T, ID>
         extends SimpleReactiveCassandraRepository<T, ID>
         implements CustomizedReactiveCrudRepository<T, ID> {
 
+    private final CassandraEntityInformation<T, ID> entityInformation;
+    private final ReactiveCassandraOperations operations;
+    private final CassandraPersistentEntity<?> persistentEntity;
+
     public CustomizedReactiveCrudRepositoryImpl(
             CassandraEntityInformation<T, ID> entityInformation,
             ReactiveCassandraOperations operations) {
 
         super(entityInformation, operations);
+
+        this.entityInformation = entityInformation;
+        this.operations = operations;
+        this.persistentEntity = operations.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(entityInformation.getJavaType());
     }
 
     /**
@@ -72,4 +92,108 @@ public class CustomizedReactiveCrudRepositoryImpl<T, ID>
                                             .build()))
                 );
     }
+
+    /**
+     * @see CustomizedReactiveCrudRepository
+     */
+    @Override
+    public Flux<T> insertAllInBatch(final Iterable<T> entities) {
+
+        return Mono.fromCallable(() -> {
+                    BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+                    for (T entity : entities) {
+                        Insert insert = QueryBuilder.insertInto(this.entityInformation.getTableName().toCql());
+                        this.operations.getConverter().write(entity, insert);
+                        batch.add(insert);
+                    }
+                    return batch;
+                })
+                .filter(batch -> batch.size() > 0)
+                .flatMap(batch -> this.operations.getReactiveCqlOperations().execute(batch))
+                .thenMany(Flux.fromIterable(entities));
+    }
+
+    /**
+     * @see CustomizedReactiveCrudRepository
+     */
+    @Override
+    public Flux<T> findAllInPartition(final Object partitionKey, final Collection<?> clusteringKeys) {
+
+        if (clusteringKeys.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return Mono.fromCallable(() -> {
+                    Select select = QueryBuilder.select().all().from(this.entityInformation.getTableName().toCql());
+                    select.where(QueryBuilder.eq(this.getKeyColumn(true), partitionKey))
+                            .and(QueryBuilder.in(this.getKeyColumn(false), new ArrayList<>(clusteringKeys)));
+                    return select;
+                })
+                .flatMapMany(select -> this.operations.select(select, this.entityInformation.getJavaType()));
+    }
+
+    /**
+     * @see CustomizedReactiveCrudRepository
+     */
+    @Override
+    public Flux<T> findAllInPartitions(final Collection<?> partitionKeys) {
+
+        if (partitionKeys.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return Mono.fromCallable(() -> {
+                    Select select = QueryBuilder.select().all().from(this.entityInformation.getTableName().toCql());
+                    select.where(QueryBuilder.in(this.getKeyColumn(true), new ArrayList<>(partitionKeys)));
+                    return select;
+                })
+                .flatMapMany(select -> this.operations.select(select, this.entityInformation.getJavaType()));
+    }
+
+    /**
+     * @see CustomizedReactiveCrudRepository
+     */
+    @Override
+    public Mono<T> saveInLoggedBatch(final T entity, final Collection<Statement> statements) {
+
+        return Mono.fromCallable(() -> {
+                    Insert insert = QueryBuilder.insertInto(this.entityInformation.getTableName().toCql());
+                    this.operations.getConverter().write(entity, insert);
+                    return this.loggedBatch(insert, statements);
+                })
+                .flatMap(batch -> this.operations.getReactiveCqlOperations().execute(batch))
+                .thenReturn(entity);
+    }
+
+    /**
+     * @see CustomizedReactiveCrudRepository
+     */
+    @Override
+    public Mono<Void> deleteByIdInLoggedBatch(final ID id, final Collection<Statement> statements) {
+
+        return Mono.fromCallable(() -> {
+                    Delete delete = QueryBuilder.delete().from(this.entityInformation.getTableName().toCql());
+                    this.operations.getConverter().write(id, delete.where(), this.persistentEntity);
+                    return this.loggedBatch(delete, statements);
+                })
+                .flatMap(batch -> this.operations.getReactiveCqlOperations().execute(batch))
+                .then();
+    }
+
+    private BatchStatement loggedBatch(final Statement statement, final Collection<Statement> statements) {
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.LOGGED);
+        batch.add(statement);
+        batch.addAll(statements);
+        return batch;
+    }
+
+    private String getKeyColumn(final boolean partition) {
+        for (CassandraPersistentProperty property : this.persistentEntity) {
+            if (partition ? property.isPartitionKeyColumn() : property.isClusterKeyColumn()) {
+                return property.getColumnName().toCql();
+            }
+        }
+        throw new IllegalStateException(String.format("The entity: '%s' has not %s key column",
+                this.entityInformation.getJavaType().getSimpleName(), partition ? "partition" : "clustering"));
+    }
 }
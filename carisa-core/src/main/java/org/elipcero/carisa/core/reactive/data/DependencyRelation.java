@@ -18,10 +18,10 @@ package org.elipcero.carisa.core.reactive.data;
 
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -33,14 +33,14 @@ public interface DependencyRelation<TRelation extends Relation> {
      * @param id identifier to found
      * @return relations
      */
-    Mono<TRelation> getById(final Map<String, Object> id);
+    Mono<TRelation> getById(final RelationKey id);
 
     /**
      * Exists the relation by identifier
      * @param id identifier to found
      * @return if exists return true
      */
-    Mono<Boolean> existsById(final Map<String, Object> id);
+    Mono<Boolean> existsById(final RelationKey id);
 
     /**
      * It update or create the relation depending if it exists
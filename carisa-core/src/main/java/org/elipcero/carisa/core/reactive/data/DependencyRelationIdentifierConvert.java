@@ -1,6 +1,6 @@
 package org.elipcero.carisa.core.reactive.data;
 
-import java.util.Map;
+import org.elipcero.carisa.core.data.RelationKey;
 
 /**
  * To convert to platform identifier (Example Cassandra)
@@ -18,12 +18,12 @@ public interface DependencyRelationIdentifierConvert<TRelation, TRelationID, TPa
     TRelationID convert(final TRelation relation);
 
     /**
-     * Convert from map to platform identifier
+     * Convert from typed relation key to platform identifier
      *
-     * @param id identifier like generic map
+     * @param id relation key
      * @return platform identifier
      */
-    TRelationID convertFromDictionary(final Map<String, Object> id);
+    TRelationID convertFromKey(final RelationKey id);
 
     /**
      * Convert the foreign key of relation to parent platform identifier
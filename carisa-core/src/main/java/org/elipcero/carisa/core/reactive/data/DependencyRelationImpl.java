@@ -20,11 +20,11 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Map;
 import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -54,11 +54,20 @@ public abstract class DependencyRelationImpl<TParent, TRelation extends Relation
      */
     protected Mono<TRelation> createBasic(final TRelation relationEntity) {
         return this.parentRepository.findById(this.convertRelationId.convertToParent(relationEntity))
-                .flatMap(__ -> relationRepository.save(relationEntity))
+                .flatMap(__ -> this.saveRelation(relationEntity))
                 .switchIfEmpty(Mono.error(new DependencyRelationRefNotFoundException(
                         String.format("The parent container with ID: '%s' not found", relationEntity.getParentId()))));
     }
 
+    /**
+     * Save the relation. It can be overwritten to save other data with the relation
+     * @param relation relation to save
+     * @return the saved relation
+     */
+    protected Mono<TRelation> saveRelation(final TRelation relation) {
+        return this.relationRepository.save(relation);
+    }
+
     /**
      * @see DependencyRelation
      */
@@ -70,13 +79,13 @@ public abstract class DependencyRelationImpl<TParent, TRelation extends Relation
      * @see DependencyRelation
      */
     @Override
-    public Mono<TRelation> getById(Map<String, Object> id) {
-        return this.relationRepository.findById(this.convertRelationId.convertFromDictionary(id));
+    public Mono<TRelation> getById(final RelationKey id) {
+        return this.relationRepository.findById(this.convertRelationId.convertFromKey(id));
     }
 
     @Override
-    public Mono<Boolean> existsById(Map<String, Object> id) {
-        return this.relationRepository.existsById(this.convertRelationId.convertFromDictionary(id));
+    public Mono<Boolean> existsById(final RelationKey id) {
+        return this.relationRepository.existsById(this.convertRelationId.convertFromKey(id));
     }
 
     /**
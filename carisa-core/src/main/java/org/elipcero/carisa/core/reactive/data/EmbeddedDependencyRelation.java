@@ -1,9 +1,12 @@
 package org.elipcero.carisa.core.reactive.data;
 
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -20,6 +23,16 @@ public interface EmbeddedDependencyRelation<TRelation extends Relation> extends
      */
     Mono<TRelation> create(TRelation relation);
 
+    /**
+     * Create or replace all the relations of the parent in one batch. All the relations belong to
+     * the same parent so the write is done into one partition. If the parent doesn't exist throw exception.
+     *
+     * @param parentId parent identifier
+     * @param relations relations to create or replace. They must have the same parent
+     * @return the relations saved
+     */
+    Flux<TRelation> saveAllByParent(UUID parentId, List<TRelation> relations);
+
     /**
      * Get children by parent.
      *
@@ -27,4 +40,14 @@ public interface EmbeddedDependencyRelation<TRelation extends Relation> extends
      * @return the relations
      */
     Flux<TRelation> getRelationsByParent(UUID parentId);
+
+    /**
+     * Get the relations by several identifiers. The identifiers are grouped by parent (partition)
+     * and each partition is read with only one query (clustering IN). The partitions are read
+     * in parallel with bounded concurrency.
+     *
+     * @param ids identifiers to found
+     * @return the relations found tagged with their identifier. The relations not found are discarded
+     */
+    Flux<Tuple2<RelationKey, TRelation>> getAllById(Flux<RelationKey> ids);
 }
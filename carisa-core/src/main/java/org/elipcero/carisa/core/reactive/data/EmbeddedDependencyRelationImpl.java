@@ -3,8 +3,16 @@ package org.elipcero.carisa.core.reactive.data;
 import lombok.NonNull;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Manage dependency relations operations. The many relations attributes is embedded into entity relation
@@ -16,6 +24,8 @@ public class EmbeddedDependencyRelationImpl<TParent, TRelation extends Relation,
         extends DependencyRelationImpl<TParent, TRelation, TRelationID, TParentID>
         implements EmbeddedDependencyRelation<TRelation> {
 
+    public static final int PARTITION_CONCURRENCY = 8;
+
     public EmbeddedDependencyRelationImpl(
             @NonNull ReactiveCrudRepository<TParent, TParentID> parentRepository,
             @NonNull DependencyRelationRepository<TRelation, TRelationID> relationRepository,
@@ -29,14 +39,50 @@ public class EmbeddedDependencyRelationImpl<TParent, TRelation extends Relation,
     */
    @Override
    public Mono<TRelation> create(final TRelation relation) {
+        return this.createBasic(tryInitId(relation));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<TRelation> saveAllByParent(final UUID parentId, final List<TRelation> relations) {
+
+        for (TRelation relation : relations) {
+            if (!parentId.equals(relation.getParentId())) {
+                return Flux.error(new IllegalArgumentException(
+                        String.format("The relation parent: '%s' must be: '%s'", relation.getParentId(), parentId)));
+            }
+            tryInitId(relation);
+        }
 
+        return this.parentRepository.findById(this.convertRelationId.convertToParentFromObject(parentId))
+                .flatMapMany(__ -> this.relationRepository.insertAllInBatch(relations))
+                .switchIfEmpty(Flux.error(new DependencyRelationRefNotFoundException(
+                        String.format("The parent container with ID: '%s' not found", parentId))));
+    }
+
+    /**
+     * @see EmbeddedDependencyRelation
+     */
+    @Override
+    public Flux<Tuple2<RelationKey, TRelation>> getAllById(final Flux<RelationKey> ids) {
+        return ids.collect(RelationKey.groupingByParent())
+                .flatMapIterable(Map::entrySet)
+                .flatMap(partition -> this.relationRepository
+                                .findAllInPartition(partition.getKey(), partition.getValue())
+                                .map(relation -> Tuples.of(
+                                        RelationKey.of(partition.getKey(), relation.getChildId()), relation)),
+                        PARTITION_CONCURRENCY);
+    }
+
+    private static <TRelation> TRelation tryInitId(final TRelation relation) {
         if (relation instanceof EntityInitializer) {
             ((EntityInitializer)relation).tryInitId();
         }
         else {
             throw new IllegalArgumentException("Relation must implement EntityInitializer interface");
         }
-
-        return this.createBasic(relation);
+        return relation;
     }
 }
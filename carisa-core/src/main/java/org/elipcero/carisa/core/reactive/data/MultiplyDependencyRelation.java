@@ -3,7 +3,9 @@ package org.elipcero.carisa.core.reactive.data;
 import org.elipcero.carisa.core.data.Relation;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -44,6 +46,17 @@ public interface MultiplyDependencyRelation<TParent, TChild, TRelation extends R
      */
     Flux<MultiplyDependencyChildInfo<TRelation, TChild>> getChildrenByParent(UUID parentId);
 
+    /**
+     * Get children by parent. The function receives all the relations together so the children
+     * can be read in batches (e.g. grouped by partition). If the child doesn't exist is removed
+     * @param parentId parent identifier
+     * @param findChildren function to find the children of the relations. The children are tagged with their relation
+     * @param <TOChild> the child type
+     * @return the relations and child
+     */
+    <TOChild> Flux<MultiplyDependencyChildInfo<TRelation, TOChild>> getChildrenByParentInBatch(
+            UUID parentId, Function<List<TRelation>, Flux<Tuple2<TRelation, TOChild>>> findChildren);
+
     /**
      * Connect two entities
      * @param relation the relation
@@ -61,4 +74,20 @@ public interface MultiplyDependencyRelation<TParent, TChild, TRelation extends R
     <TOChild> Mono<MultiplyDependencyConnectionInfo<TParent, TOChild>> connectTo(
             TRelation relation, Function<TRelation, Mono<TOChild>> overwriteFindChild);
 
+    /**
+     * Get the parents of the child using the reverse index (child -> parents).
+     * If the relation has not reverse index throw UnsupportedOperationException
+     * @param childId child identifier
+     * @return the parents found
+     */
+    Flux<TParent> getParentsByChild(UUID childId);
+
+    /**
+     * Fill the reverse index with the relations of the parent written before the index existed.
+     * The relations are streamed from the partition of the parent and the index is written again,
+     * so it can be executed several times. If the relation has not reverse index throw UnsupportedOperationException
+     * @param parentId parent identifier
+     * @return the relations indexed
+     */
+    Mono<Long> backfillReverseIndex(UUID parentId);
 }
@@ -6,7 +6,12 @@ import org.elipcero.carisa.core.data.Relation;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 
@@ -23,16 +28,35 @@ public class MultiplyDependencyRelationImpl<TParent, TChild,
         extends DependencyRelationImpl<TParent, TRelation, TRelationID, TParentID>
         implements MultiplyDependencyRelation<TParent, TChild, TRelation> {
 
+    public static final int BACKFILL_CONCURRENCY = 8;
+
     private final ReactiveCrudRepository<TChild, UUID> childRepository;
 
+    private final RelationReverseIndex reverseIndex; // Optional
+
     public MultiplyDependencyRelationImpl(
             @NonNull ReactiveCrudRepository<TParent, TParentID> parentRepository,
             @NonNull ReactiveCrudRepository<TChild, UUID> childRepository,
             @NonNull DependencyRelationRepository<TRelation, TRelationID> relationRepository,
             @NonNull DependencyRelationIdentifierConvert<TRelation, TRelationID, TParentID> convertRelationId) {
 
+        this(parentRepository, childRepository, relationRepository, convertRelationId, null);
+    }
+
+    /**
+     * The relation is written together with the reverse index (child -> parents) in the same logged batch
+     * @param reverseIndex the reverse index. If it's null the index is not maintained
+     */
+    public MultiplyDependencyRelationImpl(
+            @NonNull ReactiveCrudRepository<TParent, TParentID> parentRepository,
+            @NonNull ReactiveCrudRepository<TChild, UUID> childRepository,
+            @NonNull DependencyRelationRepository<TRelation, TRelationID> relationRepository,
+            @NonNull DependencyRelationIdentifierConvert<TRelation, TRelationID, TParentID> convertRelationId,
+            RelationReverseIndex reverseIndex) {
+
         super(parentRepository, relationRepository, convertRelationId);
         this.childRepository = childRepository;
+        this.reverseIndex = reverseIndex;
     }
 
     /**
@@ -74,6 +98,28 @@ public class MultiplyDependencyRelationImpl<TParent, TChild,
                             .switchIfEmpty(this.purge(relation)));
     }
 
+    /**
+     * @see MultiplyDependencyRelation
+     */
+    @Override
+    public <TOChild> Flux<MultiplyDependencyChildInfo<TRelation, TOChild>> getChildrenByParentInBatch(
+            UUID parentId, Function<List<TRelation>, Flux<Tuple2<TRelation, TOChild>>> findChildren) {
+
+        return this.getRelationsByParent(parentId)
+                .collectList()
+                .flatMapMany(relations -> {
+                    // The relations can not implement equals
+                    Set<TRelation> found = Collections.newSetFromMap(new IdentityHashMap<>());
+                    return Flux.concat(
+                            findChildren.apply(relations)
+                                    .doOnNext(child -> found.add(child.getT1()))
+                                    .map(child -> new MultiplyDependencyChildInfo<>(child.getT1(), child.getT2())),
+                            Flux.fromIterable(relations)
+                                    .filter(relation -> !found.contains(relation))
+                                    .flatMap(relation -> this.<TOChild>purge(relation)));
+                });
+    }
+
     /**
      * @see MultiplyDependencyRelation
      */
@@ -97,7 +143,7 @@ public class MultiplyDependencyRelationImpl<TParent, TChild,
                                 this.relationRepository.existsById(this.convertRelationId.convert(relation))
                                         .flatMap(existsRelation -> {
                                             if (!existsRelation) {
-                                                return this.relationRepository.save(relation)
+                                                return this.saveRelation(relation)
                                                      .map(__ -> new MultiplyDependencyConnectionInfo<>(parent, child));
                                             }
                                             return Mono.just(new MultiplyDependencyConnectionInfo<>(parent, child));
@@ -109,8 +155,52 @@ public class MultiplyDependencyRelationImpl<TParent, TChild,
                         String.format("The parent container with ID: '%s' not found", relation.getParentId()))));
     }
 
+    /**
+     * @see MultiplyDependencyRelation
+     */
+    @Override
+    public Flux<TParent> getParentsByChild(final UUID childId) {
+        if (this.reverseIndex == null) {
+            return Flux.error(new UnsupportedOperationException("The relation has not reverse index"));
+        }
+        // The relation table can be shared by several types of parent. The parents of other type are discarded
+        return this.reverseIndex.findParentsByChild(childId)
+                .flatMap(parentId -> this.parentRepository.findById(
+                        this.convertRelationId.convertToParentFromObject(parentId)));
+    }
+
+    /**
+     * @see MultiplyDependencyRelation
+     */
+    @Override
+    public Mono<Long> backfillReverseIndex(final UUID parentId) {
+        if (this.reverseIndex == null) {
+            return Mono.error(new UnsupportedOperationException("The relation has not reverse index"));
+        }
+        return this.relationRepository.findAllByParentId(parentId)
+                .flatMap(relation -> this.reverseIndex.index(relation).thenReturn(relation), BACKFILL_CONCURRENCY)
+                .count();
+    }
+
+    /**
+     * @see DependencyRelationImpl
+     */
+    @Override
+    protected Mono<TRelation> saveRelation(final TRelation relation) {
+        if (this.reverseIndex == null) {
+            return super.saveRelation(relation);
+        }
+        return this.relationRepository.saveInLoggedBatch(
+                relation, Collections.singletonList(this.reverseIndex.insert(relation)));
+    }
+
     private <TOChild> Mono<MultiplyDependencyChildInfo<TRelation, TOChild>> purge(TRelation relation) {
-        return this.relationRepository.deleteById(this.convertRelationId.convert(relation)).then(Mono.empty());
+        TRelationID id = this.convertRelationId.convert(relation);
+        return (this.reverseIndex == null ?
+                this.relationRepository.deleteById(id) :
+                this.relationRepository.deleteByIdInLoggedBatch(
+                        id, Collections.singletonList(this.reverseIndex.delete(relation))))
+                .then(Mono.empty());
     }
 
 }
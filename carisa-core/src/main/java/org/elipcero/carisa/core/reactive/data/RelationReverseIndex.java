@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.reactive.data;
+
+import com.datastax.driver.core.Statement;
+import org.elipcero.carisa.core.data.Relation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Reverse index of a relation table partitioned by parent. The index is partitioned by child
+ * so the parents of a child can be found without scanning all the relation table.
+ * The statements are written in the same batch that the relation.
+ *
+ * @author David Suárez
+ */
+public interface RelationReverseIndex {
+
+    /**
+     * Statement to index the relation
+     * @param relation the relation
+     * @return the insert statement
+     */
+    Statement insert(Relation relation);
+
+    /**
+     * Statement to remove the relation from index
+     * @param relation the relation
+     * @return the delete statement
+     */
+    Statement delete(Relation relation);
+
+    /**
+     * Index the relation out of the batch of the relation. It's used to fill the index
+     * with the relations written before the index existed
+     * @param relation the relation
+     * @return when the relation is indexed
+     */
+    Mono<Void> index(Relation relation);
+
+    /**
+     * Find the parents of the child. Only a partition is read
+     * @param childId the child identifier
+     * @return the parent identifiers
+     */
+    Flux<UUID> findParentsByChild(UUID childId);
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.reactive.misc;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for the calls to a remote service. After several consecutive failures
+ * the circuit is opened and the calls fail fast (CircuitBreakerOpenException) without calling
+ * the service. When the open duration has elapsed only one trial call is let through (half open):
+ * if it works the circuit is closed, otherwise it is opened again.
+ * The circuit breaker is thread safe.
+ *
+ * @author David Suárez
+ */
+public class CircuitBreaker {
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final LongSupplier currentMillis;
+
+    private State state = State.Closed;
+
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(final String name, final int failureThreshold, final Duration openDuration) {
+        this(name, failureThreshold, openDuration, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(final String name, final int failureThreshold, final Duration openDuration,
+                   final LongSupplier currentMillis) {
+
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold must be greater than zero");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDuration.toMillis();
+        this.currentMillis = currentMillis;
+    }
+
+    /**
+     * Execute the call through the circuit
+     * @param call the call to the remote service (lazy)
+     * @return the result of the call or CircuitBreakerOpenException if the circuit is open
+     */
+    public <T> Mono<T> execute(final Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!this.tryAcquire()) {
+                return Mono.error(new CircuitBreakerOpenException(
+                        String.format("The circuit: '%s' is open", this.name)));
+            }
+            return call
+                    .doOnSuccess(__ -> this.onSuccess())
+                    .doOnError(__ -> this.onFailure())
+                    .doOnCancel(this::onCancel);
+        });
+    }
+
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (this.state) {
+            case Closed:
+                return true;
+            case Open:
+                if (this.currentMillis.getAsLong() - this.openedAt >= this.openDurationMillis) {
+                    this.state = State.HalfOpen; // Trial call
+                    return true;
+                }
+                return false;
+            default: // Only one trial call at the same time
+                return false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        this.state = State.Closed;
+        this.failures = 0;
+    }
+
+    private synchronized void onFailure() {
+        this.failures++;
+        if (this.state == State.HalfOpen || this.failures >= this.failureThreshold) {
+            this.state = State.Open;
+            this.openedAt = this.currentMillis.getAsLong();
+        }
+    }
+
+    // The trial call is cancelled, so other call can try it
+    private synchronized void onCancel() {
+        if (this.state == State.HalfOpen) {
+            this.state = State.Open;
+        }
+    }
+
+    public enum State {
+        Closed,
+        Open,
+        HalfOpen
+    }
+}
@@ -98,6 +98,21 @@ public class CrudHypermediaController<T> {
             .onErrorResume(throwableController(null));
     }
 
+    /**
+     * Hypermedia resource (Create or update several entities) to return web client
+     *
+     * @param entities entities to create or update
+     * @param onError customized error event
+     * @return collection model representation
+     */
+    public Publisher<ResponseEntity<CollectionModel<EntityModel<T>>>> updateOrCreateAll(
+            final Flux<T> entities, final Consumer<Throwable> onError) {
+
+        return this.assembler.toCollectionModel(entities, null)
+                .map(ResponseEntity::ok)
+                .onErrorResume(throwableController(onError));
+    }
+
     /**
      * Hypermedia resource when is connected a child with a parent in a relation.
      * @param entity relation entity
@@ -200,7 +215,7 @@ public class CrudHypermediaController<T> {
                                 .flatMap(link -> Mono.just(new CollectionModel<>(entities, link))));
     }
 
-    private Function<Throwable, Mono<? extends ResponseEntity<EntityModel<T>>>> throwableController(
+    private <TResponse> Function<Throwable, Mono<? extends TResponse>> throwableController(
             Consumer<Throwable> onError) {
 
         return error -> {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.misc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class LruCacheTest {
+
+    @Test
+    public void put_over_max_size_should_evict_least_recently_used() {
+
+        LruCache<String, String> cache = new LruCache<>(2);
+
+        cache.put("first", "1");
+        cache.put("second", "2");
+        cache.get("first"); // The second is the least recently used
+        cache.put("third", "3");
+
+        assertThat(cache.get("first")).isEqualTo("1");
+        assertThat(cache.get("second")).isNull();
+        assertThat(cache.get("third")).isEqualTo("3");
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void put_value_heavier_than_max_weight_should_keep_the_last_value() {
+
+        LruCache<String, String> cache = new LruCache<>(3, String::length);
+
+        cache.put("first", "1");
+        cache.put("second", "22222");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("second")).isEqualTo("22222");
+        assertThat(cache.getWeight()).isEqualTo(5);
+    }
+
+    @Test
+    public void put_value_of_the_same_key_should_replace_the_weight() {
+
+        List<String> removed = new ArrayList<>();
+        LruCache<String, String> cache = new LruCache<>(100, String::length, (key, value) -> removed.add(value));
+
+        cache.put("key", "111");
+        cache.put("key", "1");
+
+        assertThat(cache.get("key")).isEqualTo("1");
+        assertThat(cache.getWeight()).isEqualTo(1);
+        assertThat(removed).containsExactly("111");
+    }
+
+    @Test
+    public void reweigh_changed_value_should_evict_least_recently_used() {
+
+        List<String> removed = new ArrayList<>();
+        LruCache<String, StringBuilder> cache =
+                new LruCache<>(4, StringBuilder::length, (key, value) -> removed.add(key));
+        StringBuilder changed = new StringBuilder("22");
+
+        cache.put("first", new StringBuilder("11"));
+        cache.put("second", changed);
+        changed.append("22");
+        cache.reweigh("second");
+
+        assertThat(cache.get("first")).isNull();
+        assertThat(cache.getWeight()).isEqualTo(4);
+        assertThat(removed).containsExactly("first");
+    }
+
+    @Test
+    public void remove_key_should_release_the_weight() {
+
+        List<String> removed = new ArrayList<>();
+        LruCache<String, String> cache = new LruCache<>(100, String::length, (key, value) -> removed.add(key));
+
+        cache.put("first", "111");
+        cache.put("second", "22");
+
+        assertThat(cache.remove("first")).isEqualTo("111");
+        assertThat(cache.remove("unknown")).isNull();
+        assertThat(cache.getWeight()).isEqualTo(2);
+        assertThat(removed).containsExactly("first");
+    }
+}
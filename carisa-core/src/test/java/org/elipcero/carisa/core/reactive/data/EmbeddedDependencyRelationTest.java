@@ -20,6 +20,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,8 +31,12 @@ import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.function.Tuple2;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -88,6 +93,72 @@ public class EmbeddedDependencyRelationTest {
                 .verify();
     }
 
+    @Test
+    public void saveAllByParent_should_return_relations() {
+
+        UUID parentId = UUID.randomUUID();
+        List<RelationEntity> relations = Arrays.asList(
+                new RelationEntity(parentId, UUID.randomUUID()), new RelationEntity(parentId, UUID.randomUUID()));
+
+        Mockito.when(this.parentRepository.findById(parentId)).thenReturn(Mono.just(new Entity(parentId)));
+        Mockito.when(this.relationRepository.insertAllInBatch(relations)).thenReturn(Flux.fromIterable(relations));
+
+        StepVerifier
+                .create(embeddedDependencyRelation.saveAllByParent(parentId, relations))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void saveAllByParent_with_other_parent_should_return_error() {
+
+        UUID parentId = UUID.randomUUID();
+        RelationEntity relationEntity = getRelationEntity();
+
+        StepVerifier
+                .create(embeddedDependencyRelation.saveAllByParent(parentId, Arrays.asList(relationEntity)))
+                .expectErrorMessage(String.format("The relation parent: '%s' must be: '%s'",
+                        relationEntity.getParentId(), parentId))
+                .verify();
+    }
+
+    @Test
+    public void getAllById_should_return_relations_grouped_by_parent() {
+
+        UUID parentId1 = UUID.randomUUID();
+        UUID parentId2 = UUID.randomUUID();
+        RelationEntity relation1 = new RelationEntity(parentId1, UUID.randomUUID());
+        RelationEntity relation2 = new RelationEntity(parentId1, UUID.randomUUID());
+        RelationEntity relation3 = new RelationEntity(parentId2, UUID.randomUUID());
+
+        Mockito.when(this.relationRepository.findAllInPartition(
+                parentId1, new LinkedHashSet<>(Arrays.asList(relation1.getChildId(), relation2.getChildId()))))
+                .thenReturn(Flux.just(relation1, relation2));
+        Mockito.when(this.relationRepository.findAllInPartition(
+                parentId2, new LinkedHashSet<>(Arrays.asList(relation3.getChildId(), relation3.getChildId()))))
+                .thenReturn(Flux.just(relation3));
+
+        StepVerifier
+                .create(embeddedDependencyRelation.getAllById(Flux.just(
+                        RelationKey.of(parentId1, relation1.getChildId()),
+                        RelationKey.of(parentId2, relation3.getChildId()),
+                        RelationKey.of(parentId1, relation2.getChildId()),
+                        RelationKey.of(parentId2, relation3.getChildId())))
+                        .collectMap(Tuple2::getT1, Tuple2::getT2))
+                .expectNextMatches(result -> {
+                    assertThat(result).hasSize(3).as("Check relations found");
+                    assertThat(result.get(RelationKey.of(parentId1, relation2.getChildId())))
+                            .isEqualTo(relation2).as("Check relation tagged with key");
+                    assertThat(result.get(RelationKey.of(parentId2, relation3.getChildId())))
+                            .isEqualTo(relation3).as("Check relation tagged with key");
+                    return true;
+                })
+                .verifyComplete();
+
+        Mockito.verify(this.relationRepository, Mockito.times(2))
+                .findAllInPartition(Mockito.any(), Mockito.anyCollection());
+    }
+
     @Test
     public void getChildrenByParent_should_return_children() {
 
@@ -145,8 +216,8 @@ public class EmbeddedDependencyRelationTest {
         }
 
         @Override
-        public Map<String, UUID> convertFromDictionary(Map<String, Object> id) {
-            return RelationEntity.getMapId((UUID)id.get("parentId"), (UUID)id.get("childId"));
+        public Map<String, UUID> convertFromKey(RelationKey id) {
+            return RelationEntity.getMapId(id.getParentId(), id.getChildId());
         }
 
         @Override
@@ -16,11 +16,13 @@
 
 package org.elipcero.carisa.core.reactive.data;
 
+import com.datastax.driver.core.Statement;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.elipcero.carisa.core.data.EntityDataState;
 import org.elipcero.carisa.core.data.EntityInitializer;
 import org.elipcero.carisa.core.data.Relation;
+import org.elipcero.carisa.core.data.RelationKey;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -31,7 +33,9 @@ import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -56,6 +60,12 @@ public class MultiDependencyRelationTest {
     @Mock
     private DependencyRelationRepository<RelationEntity, Map<String, UUID>> relationRepository;
 
+    @Mock
+    private RelationReverseIndex reverseIndex;
+
+    @Mock
+    private Statement reverseStatement;
+
     private MultiplyDependencyRelation<Entity, Entity, RelationEntity> multiplyDependencyRelation;
 
     @Before
@@ -73,7 +83,7 @@ public class MultiDependencyRelationTest {
         Mockito.when(this.relationRepository.findById(relationEntity.getMapId())).thenReturn(Mono.just(relationEntity));
 
         StepVerifier
-                .create(multiplyDependencyRelation.getById(new HashMap<>(relationEntity.getMapId())))
+                .create(multiplyDependencyRelation.getById(relationEntity.getKey()))
                 .expectNextMatches(result -> {
                     assertThat(result.getParentId()).isEqualTo(relationEntity.getParentId())
                             .as("Check relation parentId");
@@ -92,7 +102,7 @@ public class MultiDependencyRelationTest {
         Mockito.when(this.relationRepository.existsById(relationEntity.getMapId())).thenReturn(Mono.just(true));
 
         StepVerifier
-                .create(multiplyDependencyRelation.existsById(new HashMap<>(relationEntity.getMapId())))
+                .create(multiplyDependencyRelation.existsById(relationEntity.getKey()))
                 .expectNextMatches(result -> {
                     assertThat(result).isTrue();
                     return true;
@@ -201,6 +211,34 @@ public class MultiDependencyRelationTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void getChildrenByParentInBatch_should_return_children_and_purge_not_found() {
+
+        UUID parentId = UUID.randomUUID();
+        RelationEntity relationFound = new RelationEntity(parentId, UUID.randomUUID());
+        RelationEntity relationNotFound = new RelationEntity(parentId, UUID.randomUUID());
+        Entity child = new Entity(relationFound.getChildId());
+
+        Mockito.when(this.relationRepository.findAllByParentId(parentId))
+                .thenReturn(Flux.just(relationFound, relationNotFound));
+        Mockito.when(this.relationRepository.deleteById(relationNotFound.getMapId())).thenReturn(Mono.empty());
+
+        StepVerifier
+                .create(multiplyDependencyRelation.getChildrenByParentInBatch(parentId, relations -> {
+                    assertThat(relations).hasSize(2).as("Check the relations are received together");
+                    return Flux.just(Tuples.of(relationFound, child));
+                }))
+                .expectNextMatches(result -> {
+                    assertThat(result.getRelation()).isEqualTo(relationFound).as("Check relation");
+                    assertThat(result.getChild()).isEqualTo(child).as("Check child");
+                    return true;
+                })
+                .verifyComplete();
+
+        verify(this.relationRepository, times(1)).deleteById(relationNotFound.getMapId());
+        verify(this.relationRepository, times(0)).deleteById(relationFound.getMapId());
+    }
+
     @Test
     public void connectTo_create_relation_should_return_child() {
 
@@ -276,6 +314,96 @@ public class MultiDependencyRelationTest {
                 .verify();
     }
 
+    @Test
+    public void connectTo_with_reverse_index_should_save_relation_and_index_in_batch() {
+
+        RelationEntity relationEntity = getRelationEntity();
+        Entity parent = new Entity(relationEntity.getParentId());
+        Entity child = new Entity(relationEntity.getChildId());
+
+        Mockito.when(this.parentRepository.findById(relationEntity.getParentId())).thenReturn(Mono.just(parent));
+        Mockito.when(this.childRepository.findById(relationEntity.getChildId())).thenReturn(Mono.just(child));
+        Mockito.when(this.relationRepository.existsById(anyMap())).thenReturn(Mono.just(false));
+        Mockito.when(this.reverseIndex.insert(relationEntity)).thenReturn(this.reverseStatement);
+        Mockito.when(this.relationRepository.saveInLoggedBatch(
+                relationEntity, Collections.singletonList(this.reverseStatement)))
+                .thenReturn(Mono.just(relationEntity));
+
+        StepVerifier
+                .create(getMultiplyDependencyRelationWithReverseIndex().connectTo(relationEntity))
+                .expectNextMatches(result -> {
+                    assertThat(result.getChild().getId()).isEqualTo(child.getId()).as("Check child");
+                    verify(this.relationRepository, times(0)).save(relationEntity);
+                    verify(this.relationRepository, times(1))
+                            .saveInLoggedBatch(relationEntity, Collections.singletonList(this.reverseStatement));
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void getParentsByChild_should_return_parents() {
+
+        RelationEntity relationEntity = getRelationEntity();
+        Entity parent = new Entity(relationEntity.getParentId());
+        UUID parentOtherTypeId = UUID.randomUUID();
+
+        Mockito.when(this.reverseIndex.findParentsByChild(relationEntity.getChildId()))
+                .thenReturn(Flux.just(relationEntity.getParentId(), parentOtherTypeId));
+        Mockito.when(this.parentRepository.findById(relationEntity.getParentId())).thenReturn(Mono.just(parent));
+        Mockito.when(this.parentRepository.findById(parentOtherTypeId)).thenReturn(Mono.empty());
+
+        StepVerifier
+                .create(getMultiplyDependencyRelationWithReverseIndex().getParentsByChild(relationEntity.getChildId()))
+                .expectNextMatches(result -> {
+                    assertThat(result).isEqualTo(parent).as("Check parent");
+                    return true;
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void getParentsByChild_without_reverse_index_should_return_error() {
+
+        StepVerifier
+                .create(multiplyDependencyRelation.getParentsByChild(UUID.randomUUID()))
+                .expectError(UnsupportedOperationException.class)
+                .verify();
+    }
+
+    @Test
+    public void backfillReverseIndex_should_index_the_relations_of_the_parent() {
+
+        RelationEntity relationEntity = getRelationEntity();
+
+        Mockito.when(this.relationRepository.findAllByParentId(relationEntity.getParentId()))
+                .thenReturn(Flux.just(relationEntity));
+        Mockito.when(this.reverseIndex.index(relationEntity)).thenReturn(Mono.empty());
+
+        StepVerifier
+                .create(getMultiplyDependencyRelationWithReverseIndex()
+                        .backfillReverseIndex(relationEntity.getParentId()))
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(this.reverseIndex, times(1)).index(relationEntity);
+    }
+
+    @Test
+    public void backfillReverseIndex_without_reverse_index_should_return_error() {
+
+        StepVerifier
+                .create(multiplyDependencyRelation.backfillReverseIndex(UUID.randomUUID()))
+                .expectError(UnsupportedOperationException.class)
+                .verify();
+    }
+
+    private MultiplyDependencyRelation<Entity, Entity, RelationEntity> getMultiplyDependencyRelationWithReverseIndex() {
+        return new MultiplyDependencyRelationImpl<>(
+                this.parentRepository, this.childRepository, this.relationRepository,
+                new Converter(), this.reverseIndex);
+    }
+
     private DependencyRelationCreateCommand<Entity, RelationEntity> getCreateCommand(
             RelationEntity relationEntity, Entity child) {
 
@@ -313,6 +441,10 @@ public class MultiDependencyRelationTest {
         private UUID parentId;
         private UUID childId;
 
+        public RelationKey getKey() {
+            return RelationKey.of(this.getParentId(), this.getChildId());
+        }
+
         public Map<String, UUID> getMapId() {
             return getMapId(this.getParentId(), this.getChildId());
         }
@@ -333,8 +465,8 @@ public class MultiDependencyRelationTest {
         }
 
         @Override
-        public Map<String, UUID> convertFromDictionary(Map<String, Object> id) {
-            return RelationEntity.getMapId((UUID)id.get("parentId"), (UUID)id.get("childId"));
+        public Map<String, UUID> convertFromKey(RelationKey id) {
+            return RelationEntity.getMapId(id.getParentId(), id.getChildId());
         }
 
         @Override
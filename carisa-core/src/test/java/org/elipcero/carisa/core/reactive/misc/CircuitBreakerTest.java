@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.elipcero.carisa.core.reactive.misc;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author David Suárez
+ */
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void failures_over_threshold_should_open_circuit_and_fail_fast() {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 2, Duration.ofSeconds(10), this.now::get);
+
+        StepVerifier.create(circuitBreaker.execute(this.fail())).verifyError(IllegalStateException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.Closed);
+        StepVerifier.create(circuitBreaker.execute(this.fail())).verifyError(IllegalStateException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.Open);
+
+        StepVerifier.create(circuitBreaker.execute(this.fail())).verifyError(CircuitBreakerOpenException.class);
+        assertThat(this.calls.get()).isEqualTo(2); // The last call has not been executed
+    }
+
+    @Test
+    public void success_after_open_duration_should_close_circuit() {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 1, Duration.ofSeconds(10), this.now::get);
+
+        StepVerifier.create(circuitBreaker.execute(this.fail())).verifyError(IllegalStateException.class);
+        this.now.addAndGet(10000);
+
+        StepVerifier.create(circuitBreaker.execute(Mono.just(1))).expectNext(1).verifyComplete();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.Closed);
+    }
+
+    @Test
+    public void failure_of_trial_call_should_open_circuit_again() {
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 1, Duration.ofSeconds(10), this.now::get);
+
+        StepVerifier.create(circuitBreaker.execute(this.fail())).verifyError(IllegalStateException.class);
+        this.now.addAndGet(10000);
+        StepVerifier.create(circuitBreaker.execute(this.fail())).verifyError(IllegalStateException.class);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.Open);
+        StepVerifier.create(circuitBreaker.execute(Mono.just(1))).verifyError(CircuitBreakerOpenException.class);
+    }
+
+    private Mono<Integer> fail() {
+        return Mono.defer(() -> {
+            this.calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("Remote error"));
+        });
+    }
+}
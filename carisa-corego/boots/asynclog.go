@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+// Asynchronous log sink. The entries are formatted and written by a background goroutine
+package boots
+
+import (
+	log "github.com/sirupsen/logrus"
+	"io"
+	"sync"
+	"sync/atomic"
+)
+
+const (
+	OverflowDrop  = "drop"  // The entry is discarded and counted
+	OverflowBlock = "block" // The caller waits for space
+
+	defaultBufferSize = 4096
+)
+
+type (
+	// AsyncSink is a logrus hook that stores the entries into a bounded ring buffer.
+	// The background writer formats and writes them, so the callers don't wait for the formatter
+	// and the write syscalls. The panic and fatal entries are flushed before returning
+	AsyncSink struct {
+		mu        sync.Mutex
+		notEmpty  *sync.Cond
+		notFull   *sync.Cond
+		flushed   *sync.Cond
+		entries   []log.Entry // Ring buffer
+		head      int         // Next entry to write
+		count     int
+		writing   bool // The writer has an entry out of the buffer
+		closed    bool
+		block     bool
+		dropped   uint64
+		formatter log.Formatter
+		out       io.Writer
+		done      chan struct{}
+	}
+
+	// Formatter of the logger when the sink is used. The sink formats the entries
+	nullFormatter struct{}
+)
+
+// NewAsyncSink makes the sink and starts the background writer
+func NewAsyncSink(size int, overflow string, formatter log.Formatter, out io.Writer) *AsyncSink {
+	if size <= 0 {
+		size = defaultBufferSize
+	}
+
+	s := &AsyncSink{
+		entries:   make([]log.Entry, size),
+		block:     overflow == OverflowBlock,
+		formatter: formatter,
+		out:       out,
+		done:      make(chan struct{}),
+	}
+	s.notEmpty = sync.NewCond(&s.mu)
+	s.notFull = sync.NewCond(&s.mu)
+	s.flushed = sync.NewCond(&s.mu)
+
+	go s.write()
+
+	return s
+}
+
+// Levels fires the hook for all levels
+func (s *AsyncSink) Levels() []log.Level {
+	return log.AllLevels
+}
+
+// Fire stores a copy of the entry. If the buffer is full, the entry is dropped or the caller waits
+// depending on the overflow policy
+func (s *AsyncSink) Fire(entry *log.Entry) error {
+	s.mu.Lock()
+
+	for s.block && s.count == len(s.entries) && !s.closed {
+		s.notFull.Wait()
+	}
+
+	if s.closed || s.count == len(s.entries) {
+		s.mu.Unlock()
+		atomic.AddUint64(&s.dropped, 1)
+		return nil
+	}
+
+	e := *entry // The logger reuses the entry
+	e.Buffer = nil
+	s.entries[(s.head+s.count)%len(s.entries)] = e
+	s.count++
+	s.notEmpty.Signal()
+	s.mu.Unlock()
+
+	if entry.Level <= log.FatalLevel { // The process finishes after logging
+		s.Flush()
+	}
+
+	return nil
+}
+
+// Dropped returns the entries discarded because the buffer was full
+func (s *AsyncSink) Dropped() uint64 {
+	return atomic.LoadUint64(&s.dropped)
+}
+
+// Flush waits until the entries stored are written
+func (s *AsyncSink) Flush() {
+	s.mu.Lock()
+	defer s.mu.Unlock()
+
+	for s.count > 0 || s.writing {
+		s.flushed.Wait()
+	}
+}
+
+// Close flushes the entries and stops the background writer. The entries after closing are dropped
+func (s *AsyncSink) Close() {
+	s.mu.Lock()
+	if s.closed {
+		s.mu.Unlock()
+		return
+	}
+	s.closed = true
+	s.notEmpty.Broadcast()
+	s.notFull.Broadcast()
+	s.mu.Unlock()
+
+	<-s.done
+}
+
+func (s *AsyncSink) write() {
+	defer close(s.done)
+
+	for {
+		s.mu.Lock()
+		for s.count == 0 && !s.closed {
+			s.notEmpty.Wait()
+		}
+		if s.count == 0 { // Closed and drained
+			s.flushed.Broadcast()
+			s.mu.Unlock()
+			return
+		}
+
+		entry := s.entries[s.head]
+		s.entries[s.head] = log.Entry{} // Release the fields
+		s.head = (s.head + 1) % len(s.entries)
+		s.count--
+		s.writing = true
+		s.notFull.Signal()
+		s.mu.Unlock()
+
+		if b, err := s.formatter.Format(&entry); err == nil {
+			_, _ = s.out.Write(b)
+		}
+
+		s.mu.Lock()
+		s.writing = false
+		if s.count == 0 {
+			s.flushed.Broadcast()
+		}
+		s.mu.Unlock()
+	}
+}
+
+func (f *nullFormatter) Format(*log.Entry) ([]byte, error) {
+	return nil, nil
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package boots
+
+import (
+	"bytes"
+	log "github.com/sirupsen/logrus"
+	"github.com/stretchr/testify/assert"
+	"os"
+	"testing"
+	"time"
+)
+
+type (
+	messageFormatter struct{}
+
+	// Hook added by the caller of the log
+	callerHook struct{}
+
+	// The first write notifies that it has started and waits for the release
+	blockingWriter struct {
+		started chan struct{}
+		release chan struct{}
+		buf     bytes.Buffer
+	}
+)
+
+func (f *messageFormatter) Format(entry *log.Entry) ([]byte, error) {
+	return []byte(entry.Message + "\n"), nil
+}
+
+func (h *callerHook) Levels() []log.Level {
+	return log.AllLevels
+}
+
+func (h *callerHook) Fire(*log.Entry) error {
+	return nil
+}
+
+func newBlockingWriter() *blockingWriter {
+	return &blockingWriter{started: make(chan struct{}), release: make(chan struct{})}
+}
+
+func (w *blockingWriter) Write(p []byte) (int, error) {
+	select {
+	case <-w.started:
+	default:
+		close(w.started)
+		<-w.release
+	}
+	return w.buf.Write(p)
+}
+
+func TestAsyncSinkWritesInOrder(t *testing.T) {
+	var buf bytes.Buffer
+	s := NewAsyncSink(2, OverflowBlock, &messageFormatter{}, &buf)
+
+	for _, m := range []string{"m1", "m2", "m3", "m4"} {
+		_ = s.Fire(&log.Entry{Message: m, Level: log.InfoLevel})
+	}
+	s.Flush()
+
+	assert.Equal(t, "m1\nm2\nm3\nm4\n", buf.String(), "should write all the entries in order")
+	s.Close()
+}
+
+func TestAsyncSinkWithOverflowDrop(t *testing.T) {
+	w := newBlockingWriter()
+	s := NewAsyncSink(2, OverflowDrop, &messageFormatter{}, w)
+
+	_ = s.Fire(&log.Entry{Message: "m1", Level: log.InfoLevel})
+	<-w.started // m1 is out of the buffer
+	for _, m := range []string{"m2", "m3", "m4", "m5"} {
+		_ = s.Fire(&log.Entry{Message: m, Level: log.InfoLevel})
+	}
+	close(w.release)
+	s.Close()
+
+	assert.Equal(t, uint64(2), s.Dropped(), "should drop the entries over the buffer")
+	assert.Equal(t, "m1\nm2\nm3\n", w.buf.String(), "should write the entries stored")
+}
+
+func TestAsyncSinkWithOverflowBlock(t *testing.T) {
+	w := newBlockingWriter()
+	s := NewAsyncSink(1, OverflowBlock, &messageFormatter{}, w)
+
+	_ = s.Fire(&log.Entry{Message: "m1", Level: log.InfoLevel})
+	<-w.started
+	_ = s.Fire(&log.Entry{Message: "m2", Level: log.InfoLevel})
+
+	fired := make(chan struct{})
+	go func() {
+		_ = s.Fire(&log.Entry{Message: "m3", Level: log.InfoLevel})
+		close(fired)
+	}()
+
+	select {
+	case <-fired:
+		assert.Fail(t, "should wait for space into the buffer")
+	case <-time.After(50 * time.Millisecond):
+	}
+
+	close(w.release)
+	<-fired
+	s.Close()
+
+	assert.Equal(t, uint64(0), s.Dropped(), "should not drop entries")
+	assert.Equal(t, "m1\nm2\nm3\n", w.buf.String(), "should write all the entries")
+}
+
+func TestAsyncSinkAfterClosing(t *testing.T) {
+	var buf bytes.Buffer
+	s := NewAsyncSink(2, OverflowBlock, &messageFormatter{}, &buf)
+	s.Close()
+
+	_ = s.Fire(&log.Entry{Message: "m1", Level: log.InfoLevel})
+
+	assert.Equal(t, uint64(1), s.Dropped(), "should drop the entries after closing")
+	assert.Equal(t, "", buf.String(), "should not write")
+}
+
+func TestLoadLogWithAsync(t *testing.T) {
+	l := LoadLog(&LogConfiguration{Level: "info", Async: true, Overflow: "drop"}, "sn")
+
+	assert.IsType(t, &nullFormatter{}, log.StandardLogger().Formatter, "should format into the sink")
+	assert.IsType(t, &AsyncSink{}, log.StandardLogger().Hooks[log.InfoLevel][0], "should add the sink")
+	assert.NotNil(t, l.Module("module").Function("function").sink, "should keep the sink")
+	l.Info("message")
+	l.Close()
+
+	LoadLog(&LogConfiguration{Level: "info"}, "sn")
+	assert.Equal(t, 0, len(log.StandardLogger().Hooks[log.InfoLevel]), "should remove the sink of sync log")
+}
+
+func TestLoadLogClosesThePreviousSink(t *testing.T) {
+	first := LoadLog(&LogConfiguration{Level: "info", Async: true}, "sn")
+	second := LoadLog(&LogConfiguration{Level: "info", Async: true}, "sn")
+
+	assert.True(t, first.sink.closed, "should close the previous sink")
+	assert.False(t, second.sink.closed, "should keep the sink in use")
+	assert.Equal(t, 1, len(log.StandardLogger().Hooks[log.InfoLevel]), "should keep only the last sink")
+
+	LoadLog(&LogConfiguration{Level: "info"}, "sn")
+	assert.True(t, second.sink.closed, "should close the sink when the log is synchronous")
+}
+
+func TestLoadLogKeepsTheHooksOfTheCallers(t *testing.T) {
+	hook := &callerHook{}
+	LoadLog(&LogConfiguration{Level: "info"}, "sn")
+	log.AddHook(hook)
+
+	l := LoadLog(&LogConfiguration{Level: "info", Async: true}, "sn")
+	assert.Contains(t, log.StandardLogger().Hooks[log.InfoLevel], hook, "should keep the hook of async log")
+
+	LoadLog(&LogConfiguration{Level: "info"}, "sn")
+	assert.Equal(t, []log.Hook{hook}, log.StandardLogger().Hooks[log.InfoLevel], "should remove only the sink")
+	assert.True(t, l.sink.closed, "should close the sink")
+
+	log.StandardLogger().ReplaceHooks(make(log.LevelHooks))
+}
+
+func TestLoadLogWithAsyncSetsColorsByOutput(t *testing.T) {
+	l := LoadLog(&LogConfiguration{Level: "info", Async: true, Output: "stdout"}, "sn")
+	defer l.Close()
+
+	formatter := l.sink.formatter.(*log.TextFormatter)
+	assert.Equal(t, isTerminal(os.Stdout), formatter.ForceColors, "should force colors on terminal")
+	assert.Equal(t, !isTerminal(os.Stdout), formatter.DisableColors, "should disable colors out of terminal")
+}
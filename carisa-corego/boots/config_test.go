@@ -100,6 +100,9 @@ func TestLoadLogConfig(t *testing.T) {
 	assert.Equal(t, "info", cnf.Log.Level, "should return info level")
 	assert.Equal(t, "json", cnf.Log.Format, "should return json formatter")
 	assert.Equal(t, "stdout", cnf.Log.Output, "should return stdout output")
+	assert.True(t, cnf.Log.Async, "should return async log")
+	assert.Equal(t, 1024, cnf.Log.BufferSize, "should return buffer size")
+	assert.Equal(t, "block", cnf.Log.Overflow, "should return block overflow")
 }
 
 func TestLoadLogConfigWithDefault(t *testing.T) {
@@ -111,4 +114,5 @@ func TestLoadLogConfigWithDefault(t *testing.T) {
 	assert.Equal(t, "info", cnf.Log.Level, "should return info level")
 	assert.Equal(t, "", cnf.Log.Format, "should return blank")
 	assert.Equal(t, "", cnf.Log.Output, "should return blank")
+	assert.False(t, cnf.Log.Async, "should return sync log")
 }
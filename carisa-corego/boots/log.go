@@ -18,8 +18,12 @@
 package boots
 
 import (
+	"github.com/mattn/go-isatty"
 	log "github.com/sirupsen/logrus"
+	"io"
+	"io/ioutil"
 	"os"
+	"sync"
 )
 
 type (
@@ -27,13 +31,24 @@ type (
 		Level  string `yaml:"level"`
 		Format string `yaml:"format,omitempty"`
 		Output string `yaml:"output,omitempty"`
+		// The entries are written by a background goroutine (@see AsyncSink)
+		Async      bool   `yaml:"async,omitempty"`
+		BufferSize int    `yaml:"bufferSize,omitempty"` // Entries waiting for writing
+		Overflow   string `yaml:"overflow,omitempty"`   // drop (default) | block
 	}
 
 	LogWrap struct {
 		*log.Entry
+		sink *AsyncSink // Nil if the log is synchronous
 	}
 )
 
+var (
+	sinkMu      sync.Mutex
+	currentSink *AsyncSink // Sink of the last loaded log, nil if it is synchronous
+	exitOnce    sync.Once
+)
+
 // Load log configuration
 func LoadLog(config *LogConfiguration, serviceName string) *LogWrap {
 
@@ -61,6 +76,10 @@ func LoadLog(config *LogConfiguration, serviceName string) *LogWrap {
 		panic("log output must be configured to (stderr | stdout)")
 	}
 
+	if !(config.Overflow == OverflowDrop || config.Overflow == OverflowBlock || config.Overflow == "") {
+		panic("log overflow must be configured to (drop | block)")
+	}
+
 	switch config.Level {
 	case INFO:
 		log.SetLevel(log.InfoLevel)
@@ -74,25 +93,94 @@ func LoadLog(config *LogConfiguration, serviceName string) *LogWrap {
 		log.SetLevel(log.PanicLevel)
 	}
 
+	var formatter log.Formatter
 	if config.Format == JSON {
-		log.SetFormatter(&log.JSONFormatter{})
+		formatter = &log.JSONFormatter{}
 	} else {
-		log.SetFormatter(&log.TextFormatter{
+		formatter = &log.TextFormatter{
 			FullTimestamp: true,
-		})
+		}
 	}
 
+	var output io.Writer = os.Stderr
 	if config.Output == STDOUT {
-		log.SetOutput(os.Stdout)
+		output = os.Stdout
+	}
+
+	sinkMu.Lock()
+	defer sinkMu.Unlock()
+
+	// The previous sink is flushed and its writer is stopped before replacing it.
+	// Only the hook of the sink is removed, the hooks of the callers are kept
+	if currentSink != nil {
+		currentSink.Close()
+		removeHook(currentSink)
+		currentSink = nil
+	}
+
+	if !config.Async {
+		log.SetFormatter(formatter)
+		log.SetOutput(output)
+		return &LogWrap{log.WithField("service", serviceName), nil}
+	}
+
+	// The logger writes to ioutil.Discard, so the text formatter can not detect the terminal
+	// of the real output. The colors are set by the output of the sink
+	if text, ok := formatter.(*log.TextFormatter); ok {
+		colors := isTerminal(output)
+		text.ForceColors = colors
+		text.DisableColors = !colors
+	}
+
+	// The logger only stores the entry into the sink
+	sink := NewAsyncSink(config.BufferSize, config.Overflow, formatter, output)
+	log.AddHook(sink)
+	log.SetFormatter(&nullFormatter{})
+	log.SetOutput(ioutil.Discard)
+	currentSink = sink
+	// Only one handler for all the loads. It closes the sink in use when the process exits
+	exitOnce.Do(func() { log.RegisterExitHandler(closeCurrentSink) })
+
+	return &LogWrap{log.WithField("service", serviceName), sink}
+}
+
+func removeHook(hook log.Hook) {
+	hooks := make(log.LevelHooks)
+	for level, levelHooks := range log.StandardLogger().Hooks {
+		for _, h := range levelHooks {
+			if h != hook {
+				hooks[level] = append(hooks[level], h)
+			}
+		}
 	}
+	log.StandardLogger().ReplaceHooks(hooks)
+}
+
+func isTerminal(w io.Writer) bool {
+	f, ok := w.(*os.File)
+	return ok && (isatty.IsTerminal(f.Fd()) || isatty.IsCygwinTerminal(f.Fd()))
+}
+
+func closeCurrentSink() {
+	sinkMu.Lock()
+	defer sinkMu.Unlock()
 
-	return &LogWrap{log.WithField("service", serviceName)}
+	if currentSink != nil {
+		currentSink.Close()
+	}
 }
 
 func (logW *LogWrap) Module(value string) *LogWrap {
-	return &LogWrap{logW.WithField("module", value)}
+	return &LogWrap{logW.WithField("module", value), logW.sink}
 }
 
 func (logW *LogWrap) Function(value string) *LogWrap {
-	return &LogWrap{logW.WithField("function", value)}
+	return &LogWrap{logW.WithField("function", value), logW.sink}
+}
+
+// Close flushes the asynchronous sink on shutdown
+func (logW *LogWrap) Close() {
+	if logW.sink != nil {
+		logW.sink.Close()
+	}
 }
\ No newline at end of file
@@ -34,6 +34,10 @@ func TestLoadLogWithOutputWrong(t *testing.T) {
 	assert.Panics(t, func() { LoadLog(&LogConfiguration{Output: "other"}, "sn") }, "should do panic")
 }
 
+func TestLoadLogWithOverflowWrong(t *testing.T) {
+	assert.Panics(t, func() { LoadLog(&LogConfiguration{Level: "info", Overflow: "other"}, "sn") }, "should do panic")
+}
+
 func TestLoadLogWithLogFormat(t *testing.T) {
 	LoadLog(&LogConfiguration{Level: "info", Format: "json", Output: "stdout"}, "sn")
 
@@ -4,6 +4,7 @@ go 1.13
 
 require (
 	github.com/labstack/echo/v4 v4.1.10
+	github.com/mattn/go-isatty v0.0.9
 	github.com/sirupsen/logrus v1.4.2
 	github.com/stretchr/testify v1.4.0
 	gopkg.in/yaml.v3 v3.0.0-20190905181640-827449938966
@@ -0,0 +1,190 @@
+/*
+ *  Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+// Request metrics by route. The metrics are exposed with prometheus text format
+package web
+
+import (
+	"bytes"
+	"fmt"
+	"github.com/labstack/echo/v4"
+	"net/http"
+	"sort"
+	"strconv"
+	"strings"
+	"sync"
+	"time"
+)
+
+const (
+	MetricsPath      = "/metrics"
+	metricsMediaType = "text/plain; version=0.0.4; charset=utf-8"
+
+	defaultMaxRoutes = 500     // Series by metric. The routes over the limit are recorded into otherRoute
+	otherRoute       = "other" // Also the requests without route (not found)
+)
+
+// Upper bounds of the latency histogram in seconds
+var defaultBuckets = []float64{0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10}
+
+type (
+	routeKey struct {
+		method string
+		route  string
+	}
+
+	routeMetrics struct {
+		requests uint64
+		errors   uint64   // Status >= 500
+		buckets  []uint64 // Requests by bucket (not cumulative)
+		sum      float64  // Latency in seconds
+	}
+
+	// Metrics records the requests by route template (not by url),
+	// so the memory is bounded by the routes of the server
+	Metrics struct {
+		mu        sync.Mutex
+		buckets   []float64
+		maxRoutes int
+		routes    map[routeKey]*routeMetrics
+	}
+)
+
+func NewMetrics() *Metrics {
+	return &Metrics{buckets: defaultBuckets, maxRoutes: defaultMaxRoutes, routes: make(map[routeKey]*routeMetrics)}
+}
+
+// Middleware records the count, the errors and the latency of the requests.
+// A panic is recorded as server error and it is raised again to the next recover
+func (m *Metrics) Middleware() echo.MiddlewareFunc {
+	return func(next echo.HandlerFunc) echo.HandlerFunc {
+		return func(c echo.Context) error {
+			start := time.Now()
+			defer func() {
+				if r := recover(); r != nil {
+					m.observe(c.Request().Method, c.Path(), http.StatusInternalServerError, time.Since(start))
+					panic(r)
+				}
+			}()
+			err := next(c)
+			route := c.Path()
+			if err == echo.ErrNotFound { // Without route
+				route = ""
+			}
+			m.observe(c.Request().Method, route, status(c, err), time.Since(start))
+			return err
+		}
+	}
+}
+
+// Handler exposes the metrics with prometheus text format
+func (m *Metrics) Handler(c echo.Context) error {
+	return c.Blob(http.StatusOK, metricsMediaType, m.expose())
+}
+
+func (m *Metrics) observe(method string, route string, status int, latency time.Duration) {
+	seconds := latency.Seconds()
+	bucket := sort.SearchFloat64s(m.buckets, seconds) // len(buckets) -> +Inf
+
+	m.mu.Lock()
+	defer m.mu.Unlock()
+
+	key := routeKey{method, route}
+	rm, ok := m.routes[key]
+	if !ok {
+		if route == "" || len(m.routes) >= m.maxRoutes {
+			key.route = otherRoute
+			rm, ok = m.routes[key]
+		}
+		if !ok {
+			rm = &routeMetrics{buckets: make([]uint64, len(m.buckets)+1)}
+			m.routes[key] = rm
+		}
+	}
+
+	rm.requests++
+	if status >= http.StatusInternalServerError {
+		rm.errors++
+	}
+	rm.buckets[bucket]++
+	rm.sum += seconds
+}
+
+func (m *Metrics) expose() []byte {
+	m.mu.Lock()
+	defer m.mu.Unlock()
+
+	keys := make([]routeKey, 0, len(m.routes))
+	for key := range m.routes {
+		keys = append(keys, key)
+	}
+	sort.Slice(keys, func(i, j int) bool {
+		if keys[i].route == keys[j].route {
+			return keys[i].method < keys[j].method
+		}
+		return keys[i].route < keys[j].route
+	})
+
+	var b bytes.Buffer
+
+	b.WriteString("# HELP carisa_http_requests_total Requests by route.\n")
+	b.WriteString("# TYPE carisa_http_requests_total counter\n")
+	for _, key := range keys {
+		fmt.Fprintf(&b, "carisa_http_requests_total{%s} %d\n", labels(key), m.routes[key].requests)
+	}
+
+	b.WriteString("# HELP carisa_http_request_errors_total Requests by route with server error.\n")
+	b.WriteString("# TYPE carisa_http_request_errors_total counter\n")
+	for _, key := range keys {
+		fmt.Fprintf(&b, "carisa_http_request_errors_total{%s} %d\n", labels(key), m.routes[key].errors)
+	}
+
+	b.WriteString("# HELP carisa_http_request_duration_seconds Latency of the requests by route.\n")
+	b.WriteString("# TYPE carisa_http_request_duration_seconds histogram\n")
+	for _, key := range keys {
+		rm := m.routes[key]
+		var cumulative uint64
+		for i, upper := range m.buckets {
+			cumulative += rm.buckets[i]
+			fmt.Fprintf(&b, "carisa_http_request_duration_seconds_bucket{%s,le=\"%s\"} %d\n",
+				labels(key), strconv.FormatFloat(upper, 'g', -1, 64), cumulative)
+		}
+		fmt.Fprintf(&b, "carisa_http_request_duration_seconds_bucket{%s,le=\"+Inf\"} %d\n", labels(key), rm.requests)
+		fmt.Fprintf(&b, "carisa_http_request_duration_seconds_sum{%s} %s\n",
+			labels(key), strconv.FormatFloat(rm.sum, 'g', -1, 64))
+		fmt.Fprintf(&b, "carisa_http_request_duration_seconds_count{%s} %d\n", labels(key), rm.requests)
+	}
+
+	return b.Bytes()
+}
+
+// The error is not handled yet by the server, so the status is got from the error
+func status(c echo.Context, err error) int {
+	if err == nil {
+		return c.Response().Status
+	}
+	if he, ok := err.(*echo.HTTPError); ok {
+		return he.Code
+	}
+	return http.StatusInternalServerError
+}
+
+var labelReplacer = strings.NewReplacer(`\`, `\\`, `"`, `\"`, "\n", `\n`)
+
+func labels(key routeKey) string {
+	return fmt.Sprintf(`method="%s",route="%s"`, labelReplacer.Replace(key.method), labelReplacer.Replace(key.route))
+}
@@ -0,0 +1,118 @@
+/*
+ *  Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package web
+
+import (
+	"github.com/labstack/echo/v4"
+	"github.com/stretchr/testify/assert"
+	"net/http"
+	"net/http/httptest"
+	"strings"
+	"testing"
+	"time"
+)
+
+func TestMetricsByRoute(t *testing.T) {
+	w := ConfigureServer().Routes(func(e *echo.Echo) {
+		e.GET("/path/:id", func(c echo.Context) error { return c.NoContent(http.StatusOK) })
+		e.GET("/fail", func(c echo.Context) error { return echo.NewHTTPError(http.StatusInternalServerError) })
+	})
+
+	for _, url := range []string{"/path/1", "/path/2", "/fail", "/unknown"} {
+		w.e.ServeHTTP(httptest.NewRecorder(), httptest.NewRequest(http.MethodGet, url, nil))
+	}
+
+	rec := httptest.NewRecorder()
+	w.e.ServeHTTP(rec, httptest.NewRequest(http.MethodGet, MetricsPath, nil))
+	body := rec.Body.String()
+
+	assert.Equal(t, http.StatusOK, rec.Code, "should return status ok")
+	assert.Equal(t, metricsMediaType, rec.Header().Get(echo.HeaderContentType), "should return prometheus text")
+	assert.Contains(t, body, `carisa_http_requests_total{method="GET",route="/path/:id"} 2`,
+		"should return the requests by route template")
+	assert.Contains(t, body, `carisa_http_request_errors_total{method="GET",route="/fail"} 1`,
+		"should return the errors by route")
+	assert.Contains(t, body, `carisa_http_request_errors_total{method="GET",route="/path/:id"} 0`,
+		"should return the route without errors")
+	assert.Contains(t, body, `carisa_http_request_duration_seconds_count{method="GET",route="/path/:id"} 2`,
+		"should return the latency histogram")
+	assert.Contains(t, body, `carisa_http_requests_total{method="GET",route="other"} 1`,
+		"should return the requests without route")
+}
+
+func TestMetricsPanic(t *testing.T) {
+	w := ConfigureServer().Routes(func(e *echo.Echo) {
+		e.GET("/panic", func(c echo.Context) error { panic("error") })
+	})
+
+	rec := httptest.NewRecorder()
+	w.e.ServeHTTP(rec, httptest.NewRequest(http.MethodGet, "/panic", nil))
+	assert.Equal(t, http.StatusInternalServerError, rec.Code, "should recover the panic")
+
+	rec = httptest.NewRecorder()
+	w.e.ServeHTTP(rec, httptest.NewRequest(http.MethodGet, MetricsPath, nil))
+
+	assert.Contains(t, rec.Body.String(), `carisa_http_request_errors_total{method="GET",route="/panic"} 1`,
+		"should record the panic as error")
+}
+
+func TestMetricsMiddlewarePanicWithoutRecover(t *testing.T) {
+	m := NewMetrics()
+	e := echo.New()
+	c := e.NewContext(httptest.NewRequest(http.MethodGet, "/panic", nil), httptest.NewRecorder())
+	c.SetPath("/panic")
+	handler := m.Middleware()(func(c echo.Context) error { panic("error") })
+
+	assert.Panics(t, func() { _ = handler(c) }, "should raise the panic again")
+	assert.Contains(t, string(m.expose()), `carisa_http_request_errors_total{method="GET",route="/panic"} 1`,
+		"should record the panic as error")
+}
+
+func TestMetricsHistogramBuckets(t *testing.T) {
+	m := NewMetrics()
+	m.observe(http.MethodGet, "/path", http.StatusOK, 3*time.Millisecond)
+	m.observe(http.MethodGet, "/path", http.StatusOK, 200*time.Millisecond)
+	m.observe(http.MethodGet, "/path", http.StatusOK, 20*time.Second)
+
+	body := string(m.expose())
+
+	assert.Contains(t, body, `carisa_http_request_duration_seconds_bucket{method="GET",route="/path",le="0.005"} 1`,
+		"should return the requests under the first bound")
+	assert.Contains(t, body, `carisa_http_request_duration_seconds_bucket{method="GET",route="/path",le="0.25"} 2`,
+		"should return the cumulative requests")
+	assert.Contains(t, body, `carisa_http_request_duration_seconds_bucket{method="GET",route="/path",le="10"} 2`,
+		"should not count the requests over the last bound")
+	assert.Contains(t, body, `carisa_http_request_duration_seconds_bucket{method="GET",route="/path",le="+Inf"} 3`,
+		"should return all the requests")
+}
+
+func TestMetricsMaxRoutes(t *testing.T) {
+	m := NewMetrics()
+	m.maxRoutes = 2
+	for _, route := range []string{"/r1", "/r2", "/r3", "/r4", "/r1"} {
+		m.observe(http.MethodGet, route, http.StatusOK, time.Millisecond)
+	}
+
+	body := string(m.expose())
+
+	assert.Equal(t, 3, len(m.routes), "should bound the series")
+	assert.Contains(t, body, `carisa_http_requests_total{method="GET",route="/r1"} 2`, "should record known route")
+	assert.Contains(t, body, `carisa_http_requests_total{method="GET",route="other"} 2`,
+		"should record the routes over the limit into other")
+	assert.False(t, strings.Contains(body, `route="/r3"`), "should not record the routes over the limit")
+}
@@ -18,21 +18,34 @@
 package web
 
 import (
+	"context"
 	"github.com/labstack/echo/v4"
 	"github.com/labstack/echo/v4/middleware"
+	"os"
+	"os/signal"
 	"strconv"
+	"syscall"
+	"time"
 )
 
+// Time waiting for the requests in flight when the server is stopped
+const shutdownTimeout = 10 * time.Second
+
 type Web struct {
-	e *echo.Echo
+	e       *echo.Echo
+	metrics *Metrics
+	hooks   []func() // Run after the server is stopped
 }
 
-// Configure initialize web server
+// Configure initialize web server. The request metrics are exposed on MetricsPath
 func ConfigureServer() *Web {
 	e := echo.New()
+	metrics := NewMetrics()
 	e.Use(middleware.Logger())
+	e.Use(metrics.Middleware()) // Before recover, so the panics are recorded as errors
 	e.Use(middleware.Recover())
-	web := &Web{e}
+	e.GET(MetricsPath, metrics.Handler)
+	web := &Web{e: e, metrics: metrics}
 	return web
 }
 
@@ -42,7 +55,44 @@ func (web *Web) Routes(r func(*echo.Echo)) *Web {
 	return web
 }
 
-// Start server
+// OnShutdown adds a hook to release the resources when the server is stopped. The hooks are run in order
+func (web *Web) OnShutdown(hook func()) *Web {
+	web.hooks = append(web.hooks, hook)
+	return web
+}
+
+// Start server. The server is stopped gracefully on SIGINT or SIGTERM
 func (web *Web) Start(port int) {
-	web.e.Logger.Fatal(web.e.Start(":" + strconv.Itoa(port)))
+	errc := make(chan error, 1)
+	go func() {
+		errc <- web.e.Start(":" + strconv.Itoa(port))
+	}()
+
+	quit := make(chan os.Signal, 1)
+	signal.Notify(quit, os.Interrupt, syscall.SIGTERM)
+
+	select {
+	case err := <-errc:
+		web.runHooks()
+		web.e.Logger.Fatal(err)
+	case <-quit:
+		web.Shutdown()
+	}
+}
+
+// Shutdown waits for the requests in flight and runs the shutdown hooks
+func (web *Web) Shutdown() {
+	ctx, cancel := context.WithTimeout(context.Background(), shutdownTimeout)
+	defer cancel()
+
+	if err := web.e.Shutdown(ctx); err != nil {
+		web.e.Logger.Error(err)
+	}
+	web.runHooks()
+}
+
+func (web *Web) runHooks() {
+	for _, hook := range web.hooks {
+		hook()
+	}
 }
@@ -28,5 +28,16 @@ func TestConfigureServer(t *testing.T) {
 
 func TestRoutes(t *testing.T) {
 	w := ConfigureServer().Routes(func(e *echo.Echo) { e.GET("/path", nil) })
-	assert.Equal(t, 1, len(w.e.Routes()), "should return one route")
+	assert.Equal(t, 2, len(w.e.Routes()), "should return the route and the metrics route")
+}
+
+func TestShutdown(t *testing.T) {
+	var calls []string
+	w := ConfigureServer().
+		OnShutdown(func() { calls = append(calls, "first") }).
+		OnShutdown(func() { calls = append(calls, "second") })
+
+	w.Shutdown()
+
+	assert.Equal(t, []string{"first", "second"}, calls, "should run the hooks in order")
 }
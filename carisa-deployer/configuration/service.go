@@ -28,22 +28,43 @@ type WebService interface {
 }
 
 type Service struct {
-	config *global.ConfigContext
-	log    *boots.LogWrap
+	config   *global.ConfigContext
+	log      *boots.LogWrap
+	deployer *kubernetes.Deployer // The client set is built only once
+	queue    *kubernetes.JobQueue
 }
 
 func NewService(c *global.ConfigContext) *Service {
-	return &Service{c, global.Log(c)}
+	return &Service{config: c, log: global.Log(c)}
 }
 
 func (s *Service) kubernetesWeb() *kubernetes.Web {
-	return kubernetes.NewWeb(s.kubernetesDeployer(), s.log)
+	return kubernetes.NewWeb(s.kubernetesDeployer(), s.kubernetesJobQueue(), s.log)
 }
 
 func (s *Service) kubernetesDeployer() *kubernetes.Deployer {
-	deployer, err := kubernetes.NewDeployer(s.config, s.log)
-	if err != nil {
-		panic("error creating kubernetes deployer; error: " + err.Error())
+	if s.deployer == nil {
+		deployer, err := kubernetes.NewDeployer(s.config, s.log)
+		if err != nil {
+			panic("error creating kubernetes deployer; error: " + err.Error())
+		}
+		s.deployer = deployer
 	}
-	return deployer
+	return s.deployer
+}
+
+func (s *Service) kubernetesJobQueue() *kubernetes.JobQueue {
+	if s.queue == nil {
+		s.queue = kubernetes.NewJobQueue(s.kubernetesDeployer(), &s.config.Kubernetes, s.log)
+	}
+	return s.queue
+}
+
+// Close releases the resources of the service when the server is stopped.
+// The deploy jobs are waited until the close timeout of the queue before closing the log
+func (s *Service) Close() {
+	if s.queue != nil {
+		s.queue.Close()
+	}
+	s.log.Close()
 }
@@ -29,3 +29,11 @@ func TestKubernetesWeb(t *testing.T) {
 	s := NewService(&c)
 	assert.Panics(t, func() { s.kubernetesWeb() }, "should return kubernetes error")
 }
+
+func TestClose(t *testing.T) {
+	c := global.ConfigContext{}
+	c.Log.Level = "info"
+	c.Log.Async = true
+	s := NewService(&c)
+	assert.NotPanics(t, func() { s.Close() }, "should close the log")
+}
@@ -32,4 +32,7 @@ func NewWebServer(service WebService) *WebServer {
 func (server *WebServer) Routes(e *echo.Echo) {
 	kw := server.service.kubernetesWeb()
 	e.POST("/api/platforms/kubernetes/create", kw.Create)
+	e.POST("/api/platforms/kubernetes/create/batch", kw.CreateBatch)
+	e.POST("/api/platforms/kubernetes/deploy", kw.Deploy)
+	e.GET("/api/platforms/kubernetes/jobs/:id", kw.Job).Name = "jobs"
 }
@@ -34,5 +34,5 @@ func TestWebRoutes(t *testing.T) {
 	e := echo.New()
 	w := NewWebServer(&mockWeb{})
 	w.Routes(e)
-	assert.Equal(t, 1, len(e.Routes()), "should return routes")
+	assert.Equal(t, 4, len(e.Routes()), "should return routes")
 }
@@ -20,7 +20,12 @@ package global
 import "carisa/core/boots"
 
 type ConfigKubernetes struct {
-	ConfigPath string `yaml:"configPath"`
+	ConfigPath    string `yaml:"configPath"`
+	BatchWorkers  int    `yaml:"batchWorkers,omitempty"`
+	QueueCapacity int    `yaml:"queueCapacity,omitempty"` // Pending deploy jobs
+	QueueWorkers  int    `yaml:"queueWorkers,omitempty"`  // Deploy jobs executed at the same time
+	RetainedJobs  int    `yaml:"retainedJobs,omitempty"`  // Finished deploy jobs kept for querying its state
+	CloseTimeout  int    `yaml:"closeTimeout,omitempty"`  // Seconds waiting for the deploy jobs on closing
 }
 
 type ConfigServer struct {
@@ -24,6 +24,11 @@ import (
 func TestLoadConfig(t *testing.T) {
 	cnf := LoadConfig([]string{"sn", "true", "test"})
 	assert.Equal(t, "$HOME/.kube/config", cnf.Kubernetes.ConfigPath, "should return config path for kubernetes")
+	assert.Equal(t, 8, cnf.Kubernetes.BatchWorkers, "should return batch workers for kubernetes")
+	assert.Equal(t, 100, cnf.Kubernetes.QueueCapacity, "should return queue capacity for kubernetes")
+	assert.Equal(t, 2, cnf.Kubernetes.QueueWorkers, "should return queue workers for kubernetes")
+	assert.Equal(t, 50, cnf.Kubernetes.RetainedJobs, "should return retained jobs for kubernetes")
+	assert.Equal(t, 10, cnf.Kubernetes.CloseTimeout, "should return close timeout for kubernetes")
 	assert.Equal(t, 1881, cnf.Server.Port, "should return server port")
 	assert.Equal(t, "info", cnf.Log.Level, "should return log level")
 }
@@ -21,20 +21,32 @@ import (
 	"carisa/core/boots"
 	"carisa/deployer/global"
 	apiv1 "k8s.io/api/core/v1"
+	apierrors "k8s.io/apimachinery/pkg/api/errors"
 	metav1 "k8s.io/apimachinery/pkg/apis/meta/v1"
 	"k8s.io/client-go/kubernetes"
 	corev1 "k8s.io/client-go/kubernetes/typed/core/v1"
 	"k8s.io/client-go/tools/clientcmd"
+	"sync"
 )
 
+// Goroutines that create namespaces at the same time by batch if it is not configured
+const defaultBatchWorkers = 4
+
 type (
 	deployerCreation struct {
 		Namespace string
 	}
 
+	// Result of the creation of a namespace into a batch. Error is empty if it was created
+	namespaceResult struct {
+		Namespace string
+		Err       error
+	}
+
 	Deployer struct {
-		apiCore corev1.CoreV1Interface
-		log     *boots.LogWrap
+		apiCore      corev1.CoreV1Interface
+		log          *boots.LogWrap
+		batchWorkers int
 	}
 )
 
@@ -43,19 +55,54 @@ func NewDeployer(config *global.ConfigContext, log *boots.LogWrap) (*Deployer, e
 	logMod.Info("kubernetes is configured with path: " + config.Kubernetes.ConfigPath)
 
 	cnf, err := clientcmd.BuildConfigFromFlags("", config.Kubernetes.ConfigPath)
+	if err != nil {
+		return nil, err
+	}
 
 	clientSet, err := kubernetes.NewForConfig(cnf)
 	if err != nil {
-		log.Panic(err)
+		return nil, err
 	}
 
-	return &Deployer{clientSet.CoreV1(), logMod}, err
+	return &Deployer{clientSet.CoreV1(), logMod, valueOrDefault(config.Kubernetes.BatchWorkers, defaultBatchWorkers)}, nil
 }
 
-// Create makes kubernetes namespace
+// Create makes kubernetes namespace. If the namespace already exists, it is not an error,
+// so the callers can retry the creation
 func (deployer *Deployer) CreateNamespace(creation *deployerCreation) error {
 	_, err := deployer.apiCore.Namespaces().Create(
 		&apiv1.Namespace{ObjectMeta: metav1.ObjectMeta{Name: creation.Namespace}})
 
+	if apierrors.IsAlreadyExists(err) {
+		deployer.log.Function("createNamespace").Debugf("The namespace: '%s' already exists", creation.Namespace)
+		return nil
+	}
+
 	return err
 }
+
+// CreateNamespaces makes several namespaces with a bounded pool of goroutines.
+// The results are returned in the same order as the creations
+func (deployer *Deployer) CreateNamespaces(creations []deployerCreation) []namespaceResult {
+	results := make([]namespaceResult, len(creations))
+	indexes := make(chan int)
+
+	var wg sync.WaitGroup
+	for w := 0; w < deployer.batchWorkers && w < len(creations); w++ {
+		wg.Add(1)
+		go func() {
+			defer wg.Done()
+			for i := range indexes { // Each goroutine writes different items
+				results[i] = namespaceResult{creations[i].Namespace, deployer.CreateNamespace(&creations[i])}
+			}
+		}()
+	}
+
+	for i := range creations {
+		indexes <- i
+	}
+	close(indexes)
+	wg.Wait()
+
+	return results
+}
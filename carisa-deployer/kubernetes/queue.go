@@ -0,0 +1,246 @@
+/*
+ *  Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+// Asynchronous deploy jobs
+package kubernetes
+
+import (
+	"carisa/core/boots"
+	"carisa/deployer/global"
+	"crypto/rand"
+	"encoding/hex"
+	"errors"
+	"sync"
+	"time"
+)
+
+// Default values if they are not configured
+const (
+	defaultQueueCapacity = 1000
+	defaultQueueWorkers  = 4
+	defaultRetainedJobs  = 1000
+	defaultCloseTimeout  = 30 // Seconds
+)
+
+const (
+	JobPending   JobState = "pending"
+	JobRunning   JobState = "running"
+	JobSucceeded JobState = "succeeded"
+	JobFailed    JobState = "failed"
+)
+
+var (
+	ErrQueueFull   = errors.New("the deploy queue is full")
+	ErrQueueClosed = errors.New("the deploy queue is closed")
+	ErrNotStarted  = errors.New("the deploy queue was closed before starting the job")
+)
+
+type (
+	JobState string
+
+	Job struct {
+		ID        string    `json:"id"`
+		Namespace string    `json:"namespace"`
+		State     JobState  `json:"state"`
+		Error     string    `json:"error,omitempty"`
+		CreatedAt time.Time `json:"createdAt"`
+		UpdatedAt time.Time `json:"updatedAt"`
+	}
+
+	// JobQueue is a bounded queue of deploy jobs drained by a pool of workers.
+	// The jobs are kept in memory, only the last finished jobs are retained
+	JobQueue struct {
+		deployer     *Deployer
+		pending      chan *Job
+		mu           sync.RWMutex
+		jobs         map[string]*Job
+		finished     []string // Finished jobs in order, the first is removed when the retention is reached
+		retainedJobs int
+		closed       bool // The jobs are not accepted after closing
+		stopped      bool // The close timeout has passed, the pending jobs are not started
+		closeTimeout time.Duration
+		wg           sync.WaitGroup
+		log          *boots.LogWrap
+	}
+)
+
+// NewJobQueue makes the queue and starts the workers
+func NewJobQueue(d *Deployer, config *global.ConfigKubernetes, log *boots.LogWrap) *JobQueue {
+	q := &JobQueue{
+		deployer:     d,
+		pending:      make(chan *Job, valueOrDefault(config.QueueCapacity, defaultQueueCapacity)),
+		jobs:         make(map[string]*Job),
+		retainedJobs: valueOrDefault(config.RetainedJobs, defaultRetainedJobs),
+		closeTimeout: time.Duration(valueOrDefault(config.CloseTimeout, defaultCloseTimeout)) * time.Second,
+		log:          log.Module("jobqueue"),
+	}
+
+	for w := 0; w < valueOrDefault(config.QueueWorkers, defaultQueueWorkers); w++ {
+		q.wg.Add(1)
+		go q.work()
+	}
+
+	return q
+}
+
+// Submit enqueues the creation of the namespace. Return ErrQueueFull if the queue has reached the capacity
+// and ErrQueueClosed if the queue is closed
+func (q *JobQueue) Submit(creation *deployerCreation) (Job, error) {
+	id, err := newJobID()
+	if err != nil {
+		return Job{}, err
+	}
+
+	now := time.Now()
+	job := &Job{ID: id, Namespace: creation.Namespace, State: JobPending, CreatedAt: now, UpdatedAt: now}
+
+	q.mu.Lock()
+	defer q.mu.Unlock()
+
+	if q.closed {
+		return Job{}, ErrQueueClosed
+	}
+
+	select {
+	case q.pending <- job:
+		q.jobs[id] = job
+		return *job, nil
+	default:
+		return Job{}, ErrQueueFull
+	}
+}
+
+// Get returns a copy of the job
+func (q *JobQueue) Get(id string) (Job, bool) {
+	q.mu.RLock()
+	defer q.mu.RUnlock()
+
+	job, ok := q.jobs[id]
+	if !ok {
+		return Job{}, false
+	}
+	return *job, true
+}
+
+// Close stops accepting jobs and waits for the workers to drain the queue until the close timeout.
+// When the timeout passes, the pending jobs are failed and the running jobs are not waited.
+// It can be called several times
+func (q *JobQueue) Close() {
+	q.mu.Lock()
+	if !q.closed {
+		q.closed = true
+		close(q.pending)
+	}
+	q.mu.Unlock()
+
+	drained := make(chan struct{})
+	go func() {
+		q.wg.Wait()
+		close(drained)
+	}()
+
+	select {
+	case <-drained:
+	case <-time.After(q.closeTimeout):
+		q.stop()
+	}
+}
+
+// The pending jobs are failed, so the workers only drain the queue without starting them
+func (q *JobQueue) stop() {
+	q.mu.Lock()
+	defer q.mu.Unlock()
+
+	q.stopped = true
+	for _, job := range q.jobs {
+		if job.State == JobPending {
+			q.finish(job, JobFailed, ErrNotStarted)
+		}
+	}
+	q.log.Function("Close").Warnf("The deploy queue was closed before finishing the jobs")
+}
+
+func (q *JobQueue) work() {
+	defer q.wg.Done()
+	logc := q.log.Function("work")
+
+	for job := range q.pending {
+		if !q.start(job) {
+			continue
+		}
+		err := q.deployer.CreateNamespace(&deployerCreation{job.Namespace})
+		if err != nil {
+			logc.Errorf("Impossible create kubernetes namespace: '%s'. Error: '%s'", job.Namespace, err)
+			q.changeState(job, JobFailed, err)
+		} else {
+			q.changeState(job, JobSucceeded, nil)
+		}
+	}
+}
+
+// The job is started only if it has not been failed by closing the queue
+func (q *JobQueue) start(job *Job) bool {
+	q.mu.Lock()
+	defer q.mu.Unlock()
+
+	if q.stopped || job.State != JobPending {
+		return false
+	}
+	job.State = JobRunning
+	job.UpdatedAt = time.Now()
+	return true
+}
+
+// The job is changed under the lock, so the readers get a consistent copy
+func (q *JobQueue) changeState(job *Job, state JobState, err error) {
+	q.mu.Lock()
+	defer q.mu.Unlock()
+
+	q.finish(job, state, err)
+}
+
+// It must be called under the lock
+func (q *JobQueue) finish(job *Job, state JobState, err error) {
+	job.State = state
+	job.UpdatedAt = time.Now()
+	if err != nil {
+		job.Error = err.Error()
+	}
+
+	if state == JobSucceeded || state == JobFailed {
+		q.finished = append(q.finished, job.ID)
+		if len(q.finished) > q.retainedJobs {
+			delete(q.jobs, q.finished[0])
+			q.finished = q.finished[1:]
+		}
+	}
+}
+
+func newJobID() (string, error) {
+	b := make([]byte, 16)
+	if _, err := rand.Read(b); err != nil {
+		return "", err
+	}
+	return hex.EncodeToString(b), nil
+}
+
+func valueOrDefault(value int, def int) int {
+	if value <= 0 {
+		return def
+	}
+	return value
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright 2019-2022 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+
+package kubernetes
+
+import (
+	"carisa/deployer/global"
+	"errors"
+	"github.com/stretchr/testify/assert"
+	"k8s.io/apimachinery/pkg/runtime"
+	"k8s.io/client-go/kubernetes/fake"
+	k8stesting "k8s.io/client-go/testing"
+	"testing"
+	"time"
+)
+
+func TestSubmitWithStateSucceeded(t *testing.T) {
+	q := NewJobQueue(mockNewDeployer(), &global.ConfigKubernetes{}, global.LogTest())
+
+	job, err := q.Submit(&deployerCreation{"namespace"})
+	if assert.NoError(t, err) {
+		assert.Equal(t, JobPending, job.State, "should return job pending")
+		assert.Equal(t, JobSucceeded, awaitJob(q, job.ID).State, "should return job succeeded")
+	}
+	q.Close()
+}
+
+func TestSubmitWithStateFailed(t *testing.T) {
+	clientSet := fake.NewSimpleClientset()
+	clientSet.PrependReactor("create", "namespaces",
+		func(action k8stesting.Action) (bool, runtime.Object, error) {
+			return true, nil, errors.New("kubernetes error")
+		})
+	q := NewJobQueue(&Deployer{clientSet.CoreV1(), global.LogTest(), 2}, &global.ConfigKubernetes{}, global.LogTest())
+
+	job, _ := q.Submit(&deployerCreation{"namespace"})
+	job = awaitJob(q, job.ID)
+	assert.Equal(t, JobFailed, job.State, "should return job failed")
+	assert.Equal(t, "kubernetes error", job.Error, "should return the error")
+	q.Close()
+}
+
+func TestSubmitWithQueueFull(t *testing.T) {
+	release := make(chan struct{})
+	clientSet := fake.NewSimpleClientset()
+	clientSet.PrependReactor("create", "namespaces",
+		func(action k8stesting.Action) (bool, runtime.Object, error) {
+			<-release // The worker is busy
+			return false, nil, nil
+		})
+	q := NewJobQueue(
+		&Deployer{clientSet.CoreV1(), global.LogTest(), 2},
+		&global.ConfigKubernetes{QueueCapacity: 1, QueueWorkers: 1},
+		global.LogTest())
+
+	running, _ := q.Submit(&deployerCreation{"n1"})
+	for state := JobPending; state == JobPending; state, _ = jobState(q, running.ID) {
+		time.Sleep(10 * time.Millisecond)
+	}
+	_, err := q.Submit(&deployerCreation{"n2"})
+	assert.NoError(t, err, "should enqueue the job")
+	_, err = q.Submit(&deployerCreation{"n3"})
+	assert.Equal(t, ErrQueueFull, err, "should return queue full")
+
+	close(release)
+	q.Close()
+}
+
+func TestRetainedJobs(t *testing.T) {
+	q := NewJobQueue(mockNewDeployer(), &global.ConfigKubernetes{QueueWorkers: 1, RetainedJobs: 1}, global.LogTest())
+
+	first, _ := q.Submit(&deployerCreation{"n1"})
+	awaitJob(q, first.ID)
+	second, _ := q.Submit(&deployerCreation{"n2"})
+	awaitJob(q, second.ID)
+
+	_, ok := q.Get(first.ID)
+	assert.False(t, ok, "should remove the oldest finished job")
+	_, ok = q.Get(second.ID)
+	assert.True(t, ok, "should keep the last finished job")
+	q.Close()
+}
+
+func TestGetJobNotFound(t *testing.T) {
+	q := NewJobQueue(mockNewDeployer(), &global.ConfigKubernetes{}, global.LogTest())
+
+	_, ok := q.Get("unknown")
+	assert.False(t, ok, "should return job not found")
+	q.Close()
+}
+
+func TestSubmitAfterClose(t *testing.T) {
+	q := NewJobQueue(mockNewDeployer(), &global.ConfigKubernetes{}, global.LogTest())
+	q.Close()
+
+	_, err := q.Submit(&deployerCreation{"namespace"})
+	assert.Equal(t, ErrQueueClosed, err, "should return queue closed")
+	assert.NotPanics(t, func() { q.Close() }, "should close again")
+}
+
+func TestCloseWithTimeout(t *testing.T) {
+	release := make(chan struct{})
+	clientSet := fake.NewSimpleClientset()
+	clientSet.PrependReactor("create", "namespaces",
+		func(action k8stesting.Action) (bool, runtime.Object, error) {
+			<-release // The worker is busy
+			return false, nil, nil
+		})
+	q := NewJobQueue(
+		&Deployer{clientSet.CoreV1(), global.LogTest(), 2},
+		&global.ConfigKubernetes{QueueWorkers: 1},
+		global.LogTest())
+	q.closeTimeout = 50 * time.Millisecond
+
+	running, _ := q.Submit(&deployerCreation{"n1"})
+	for state := JobPending; state == JobPending; state, _ = jobState(q, running.ID) {
+		time.Sleep(10 * time.Millisecond)
+	}
+	pending, _ := q.Submit(&deployerCreation{"n2"})
+
+	q.Close()
+	job, _ := q.Get(pending.ID)
+	assert.Equal(t, JobFailed, job.State, "should fail the pending job")
+	assert.Equal(t, ErrNotStarted.Error(), job.Error, "should return the error")
+	state, _ := jobState(q, running.ID)
+	assert.Equal(t, JobRunning, state, "should not wait the running job")
+
+	close(release)
+	assert.Equal(t, JobSucceeded, awaitJob(q, running.ID).State, "should finish the running job")
+	state, _ = jobState(q, pending.ID)
+	assert.Equal(t, JobFailed, state, "should not start the pending job")
+}
+
+// The job is read until it finishes
+func awaitJob(q *JobQueue, id string) Job {
+	for i := 0; i < 100; i++ {
+		job, _ := q.Get(id)
+		if job.State == JobSucceeded || job.State == JobFailed {
+			return job
+		}
+		time.Sleep(10 * time.Millisecond)
+	}
+	job, _ := q.Get(id)
+	return job
+}
+
+func jobState(q *JobQueue, id string) (JobState, bool) {
+	job, ok := q.Get(id)
+	return job.State, ok
+}
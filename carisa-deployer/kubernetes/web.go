@@ -23,19 +23,33 @@ import (
 	"net/http"
 )
 
+// Maximum namespaces by batch
+const maxBatchSize = 500
+
 type (
 	webDeployerCreation struct {
 		Namespace string `json:"namespace"`
 	}
 
+	webBatchCreation struct {
+		Namespaces []string `json:"namespaces"`
+	}
+
+	webBatchResult struct {
+		Namespace string `json:"namespace"`
+		Created   bool   `json:"created"`
+		Error     string `json:"error,omitempty"`
+	}
+
 	Web struct {
 		Deployer *Deployer
+		Queue    *JobQueue
 		log      *boots.LogWrap
 	}
 )
 
-func NewWeb(d *Deployer, l *boots.LogWrap) *Web {
-	return &Web{d, l.Module("webapi")}
+func NewWeb(d *Deployer, q *JobQueue, l *boots.LogWrap) *Web {
+	return &Web{d, q, l.Module("webapi")}
 }
 
 // Create accepts POST request and create the kubernetes namespace
@@ -54,3 +68,84 @@ func (web *Web) Create(c echo.Context) error {
 
 	return c.JSON(http.StatusCreated, creation)
 }
+
+// CreateBatch accepts POST request and create several kubernetes namespaces at the same time.
+// Return the result by namespace with status created if all were created, otherwise multi status
+func (web *Web) CreateBatch(c echo.Context) error {
+	batch := new(webBatchCreation)
+	logc := web.log.Function("createBatch")
+
+	if err := c.Bind(batch); err != nil || !validBatch(batch.Namespaces) {
+		logc.Errorf("Impossible recover information for namespaces: '%v'. Error: '%s'", batch.Namespaces, err)
+		return echo.NewHTTPError(http.StatusBadRequest, "Impossible recover information")
+	}
+
+	creations := make([]deployerCreation, len(batch.Namespaces))
+	for i, namespace := range batch.Namespaces {
+		creations[i] = deployerCreation{namespace}
+	}
+
+	status := http.StatusCreated
+	results := make([]webBatchResult, len(creations))
+	for i, r := range web.Deployer.CreateNamespaces(creations) {
+		results[i] = webBatchResult{Namespace: r.Namespace, Created: r.Err == nil}
+		if r.Err != nil {
+			logc.Errorf("Impossible create kubernetes namespace: '%s'. Error: '%s'", r.Namespace, r.Err)
+			results[i].Error = r.Err.Error()
+			status = http.StatusMultiStatus
+		}
+	}
+
+	return c.JSON(status, results)
+}
+
+// Deploy accepts POST request and enqueues the creation of the kubernetes namespace.
+// Return the job accepted with the location of its state
+func (web *Web) Deploy(c echo.Context) error {
+	creation := new(webDeployerCreation)
+	logc := web.log.Function("deploy")
+
+	if err := c.Bind(creation); err != nil || creation.Namespace == "" {
+		logc.Errorf("Impossible recover information for namespace: '%s'. Error: '%s'", creation.Namespace, err)
+		return echo.NewHTTPError(http.StatusBadRequest, "Impossible recover information")
+	}
+
+	job, err := web.Queue.Submit(&deployerCreation{creation.Namespace})
+	if err == ErrQueueFull {
+		logc.Warnf("The deploy queue is full. Namespace: '%s'", creation.Namespace)
+		return echo.NewHTTPError(http.StatusServiceUnavailable, "The deploy queue is full")
+	}
+	if err == ErrQueueClosed {
+		logc.Warnf("The deploy queue is closed. Namespace: '%s'", creation.Namespace)
+		return echo.NewHTTPError(http.StatusServiceUnavailable, "The service is shutting down")
+	}
+	if err != nil {
+		logc.Errorf("Impossible enqueue the namespace: '%s'. Error: '%s'", creation.Namespace, err)
+		return echo.NewHTTPError(http.StatusInternalServerError, "Impossible enqueue the namespace: "+creation.Namespace)
+	}
+
+	c.Response().Header().Set(echo.HeaderLocation, c.Echo().Reverse("jobs", job.ID))
+	return c.JSON(http.StatusAccepted, job)
+}
+
+// Job accepts GET request and returns the state of the deploy job
+func (web *Web) Job(c echo.Context) error {
+	job, ok := web.Queue.Get(c.Param("id"))
+	if !ok {
+		return echo.NewHTTPError(http.StatusNotFound, "The job not found: "+c.Param("id"))
+	}
+
+	return c.JSON(http.StatusOK, job)
+}
+
+func validBatch(namespaces []string) bool {
+	if len(namespaces) == 0 || len(namespaces) > maxBatchSize {
+		return false
+	}
+	for _, namespace := range namespaces {
+		if namespace == "" {
+			return false
+		}
+	}
+	return true
+}
@@ -18,10 +18,15 @@ package kubernetes
 
 import (
 	"carisa/deployer/global"
+	"encoding/json"
+	"errors"
 	"github.com/labstack/echo/v4"
 	"github.com/stretchr/testify/assert"
+	apiv1 "k8s.io/api/core/v1"
 	metav1 "k8s.io/apimachinery/pkg/apis/meta/v1"
+	"k8s.io/apimachinery/pkg/runtime"
 	"k8s.io/client-go/kubernetes/fake"
+	k8stesting "k8s.io/client-go/testing"
 	"net/http"
 	"net/http/httptest"
 	"strings"
@@ -32,6 +37,7 @@ func TestCreateWithStateOk(t *testing.T) {
 	const body = `{"namespace":"namespace"}` + "\n"
 
 	rec, c, w := mockHttp(body)
+	defer w.Queue.Close()
 
 	if assert.NoError(t, w.Create(c)) {
 		assert.Equal(t, http.StatusCreated, rec.Code, "should return status created")
@@ -45,11 +51,130 @@ func TestCreateWithStateBadRequest(t *testing.T) {
 	const body = `{"other":"namespace"}`
 
 	_, c, w := mockHttp(body)
+	defer w.Queue.Close()
 
 	assert.Equal(t, http.StatusBadRequest, w.Create(c).(*echo.HTTPError).Code, "should return status bad request")
 }
 
+func TestCreateNamespaceAlreadyExists(t *testing.T) {
+	d := mockNewDeployer()
+
+	assert.NoError(t, d.CreateNamespace(&deployerCreation{"namespace"}), "should create namespace")
+	assert.NoError(t, d.CreateNamespace(&deployerCreation{"namespace"}), "should ignore namespace existing")
+}
+
+func TestCreateBatchWithStateCreated(t *testing.T) {
+	const body = `{"namespaces":["n1","n2","n3","n1"]}`
+
+	rec, c, w := mockHttp(body)
+	defer w.Queue.Close()
+
+	if assert.NoError(t, w.CreateBatch(c)) {
+		assert.Equal(t, http.StatusCreated, rec.Code, "should return status created")
+		assert.Equal(t,
+			`[{"namespace":"n1","created":true},{"namespace":"n2","created":true},`+
+				`{"namespace":"n3","created":true},{"namespace":"n1","created":true}]`+"\n",
+			rec.Body.String(), "should return the namespaces created in order")
+		n, _ := w.Deployer.apiCore.Namespaces().List(metav1.ListOptions{})
+		assert.Equal(t, 3, len(n.Items), "should return three namespaces")
+	}
+}
+
+func TestCreateBatchWithStateMultiStatus(t *testing.T) {
+	const body = `{"namespaces":["n1","fail"]}`
+
+	clientSet := fake.NewSimpleClientset()
+	clientSet.PrependReactor("create", "namespaces",
+		func(action k8stesting.Action) (bool, runtime.Object, error) {
+			if action.(k8stesting.CreateAction).GetObject().(*apiv1.Namespace).Name == "fail" {
+				return true, nil, errors.New("kubernetes error")
+			}
+			return false, nil, nil
+		})
+
+	rec, c, w := mockHttpWithDeployer(body, &Deployer{clientSet.CoreV1(), global.LogTest(), 2})
+	defer w.Queue.Close()
+
+	if assert.NoError(t, w.CreateBatch(c)) {
+		assert.Equal(t, http.StatusMultiStatus, rec.Code, "should return status multi status")
+		assert.Equal(t,
+			`[{"namespace":"n1","created":true},{"namespace":"fail","created":false,"error":"kubernetes error"}]`+"\n",
+			rec.Body.String(), "should return the result by namespace")
+	}
+}
+
+func TestCreateBatchWithStateBadRequest(t *testing.T) {
+	for _, body := range []string{`{"namespaces":[]}`, `{"namespaces":["n1",""]}`, `{"other":"namespace"}`} {
+		_, c, w := mockHttp(body)
+		assert.Equal(t, http.StatusBadRequest, w.CreateBatch(c).(*echo.HTTPError).Code, "should return status bad request")
+		w.Queue.Close()
+	}
+}
+
+func TestDeployWithStateAccepted(t *testing.T) {
+	const body = `{"namespace":"namespace"}`
+
+	rec, c, w := mockHttp(body)
+	defer w.Queue.Close()
+	c.Echo().GET("/api/platforms/kubernetes/jobs/:id", w.Job).Name = "jobs"
+
+	if assert.NoError(t, w.Deploy(c)) {
+		assert.Equal(t, http.StatusAccepted, rec.Code, "should return status accepted")
+		job := Job{}
+		_ = json.Unmarshal(rec.Body.Bytes(), &job)
+		assert.Equal(t, JobPending, job.State, "should return job pending")
+		assert.Equal(t, "/api/platforms/kubernetes/jobs/"+job.ID, rec.Header().Get(echo.HeaderLocation),
+			"should return the location of the job")
+		assert.Equal(t, JobSucceeded, awaitJob(w.Queue, job.ID).State, "should return job succeeded")
+	}
+}
+
+func TestDeployWithStateBadRequest(t *testing.T) {
+	const body = `{"other":"namespace"}`
+
+	_, c, w := mockHttp(body)
+	defer w.Queue.Close()
+
+	assert.Equal(t, http.StatusBadRequest, w.Deploy(c).(*echo.HTTPError).Code, "should return status bad request")
+}
+
+func TestDeployWithQueueClosed(t *testing.T) {
+	const body = `{"namespace":"namespace"}`
+
+	_, c, w := mockHttp(body)
+	w.Queue.Close()
+
+	assert.Equal(t, http.StatusServiceUnavailable, w.Deploy(c).(*echo.HTTPError).Code,
+		"should return status service unavailable")
+}
+
+func TestJobWithStateOk(t *testing.T) {
+	rec, c, w := mockHttp("")
+	defer w.Queue.Close()
+	job, _ := w.Queue.Submit(&deployerCreation{"namespace"})
+	c.SetParamNames("id")
+	c.SetParamValues(job.ID)
+
+	if assert.NoError(t, w.Job(c)) {
+		assert.Equal(t, http.StatusOK, rec.Code, "should return status ok")
+		assert.Contains(t, rec.Body.String(), `"id":"`+job.ID+`"`, "should return the job")
+	}
+}
+
+func TestJobWithStateNotFound(t *testing.T) {
+	_, c, w := mockHttp("")
+	defer w.Queue.Close()
+	c.SetParamNames("id")
+	c.SetParamValues("unknown")
+
+	assert.Equal(t, http.StatusNotFound, w.Job(c).(*echo.HTTPError).Code, "should return status not found")
+}
+
 func mockHttp(body string) (*httptest.ResponseRecorder, echo.Context, *Web) {
+	return mockHttpWithDeployer(body, mockNewDeployer())
+}
+
+func mockHttpWithDeployer(body string, d *Deployer) (*httptest.ResponseRecorder, echo.Context, *Web) {
 	e := echo.New()
 	req := httptest.NewRequest(
 		http.MethodPost,
@@ -58,11 +183,11 @@ func mockHttp(body string) (*httptest.ResponseRecorder, echo.Context, *Web) {
 	req.Header.Set(echo.HeaderContentType, echo.MIMEApplicationJSON)
 	rec := httptest.NewRecorder()
 	c := e.NewContext(req, rec)
-	w := NewWeb(mockNewDeployer(), global.LogTest())
+	w := NewWeb(d, NewJobQueue(d, &global.ConfigKubernetes{}, global.LogTest()), global.LogTest())
 	return rec, c, w
 }
 
 func mockNewDeployer() *Deployer {
 	clientSet := fake.NewSimpleClientset()
-	return &Deployer{clientSet.CoreV1(), global.LogTest()}
+	return &Deployer{clientSet.CoreV1(), global.LogTest(), 2}
 }
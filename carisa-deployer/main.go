@@ -27,9 +27,11 @@ import (
 
 func main() {
 	config := global.LoadConfig(os.Args)
-	w := configuration.NewWebServer(configuration.NewService(config))
+	service := configuration.NewService(config)
+	w := configuration.NewWebServer(service)
 	web.
 		ConfigureServer().
 		Routes(w.Routes).
+		OnShutdown(service.Close).
 		Start(config.Server.Port)
 }